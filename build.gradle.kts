@@ -1,7 +1,9 @@
 plugins {
     id("java-library")
+    id("java-test-fixtures")
     id("com.gradleup.shadow") version "9.3.1"
     id("run-hytale")
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = findProperty("pluginGroup") as String? ?: "com.example"
@@ -24,6 +26,43 @@ dependencies {
     // Test dependencies
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    // Codec tests touch classes that reference the server API
+    testImplementation(files("libs/HytaleServer.jar"))
+    // Benchmarks run outside the server, so they need the server API on their classpath
+    jmhImplementation(files("libs/HytaleServer.jar"))
+    // Synthetic chunks shared by the tests and the benchmarks (src/testFixtures)
+    jmhImplementation(testFixtures(project))
+}
+
+// Configure benchmarks (./gradlew jmh, filter with -PjmhIncludes=Extraction)
+jmh {
+    jmhVersion = "1.37"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    profilers = listOf("gc")
+    (findProperty("jmhIncludes") as String?)?.let { includes = listOf(it) }
+    resultFormat = "JSON"
+}
+
+// End-to-end upload pipeline against a local stub worker, e.g.
+// ./gradlew loadTest -PloadTestArgs="--chunks=5000 --latencyMs=40 --maxConcurrency=64"
+val loadTest by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Runs the upload pipeline against a stub worker and reports throughput and latency"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "com.suiramdev.worldmap.loadtest.LoadHarness"
+    args = (findProperty("loadTestArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+// Train a deflate dictionary from captured request bodies and compare modes, e.g.
+// ./gradlew trainDictionary -PtrainDictionaryArgs="samples/ deflate.dict"
+val trainDictionary by tasks.registering(JavaExec::class) {
+    group = "application"
+    description = "Trains a preset deflate dictionary and reports the compression ratio of each mode"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "com.suiramdev.worldmap.benchmarks.DeflateDictionaryTrainer"
+    args = (findProperty("trainDictionaryArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
 }
 
 // Configure server testing
@@ -0,0 +1,82 @@
+package com.suiramdev.worldmap.benchmarks;
+
+import com.suiramdev.worldmap.config.CompressionMode;
+import com.suiramdev.worldmap.config.ExtractionMode;
+import com.suiramdev.worldmap.fixtures.SyntheticChunk;
+import com.suiramdev.worldmap.services.ChunkExtractor;
+import com.suiramdev.worldmap.services.ChunkProcessingService;
+import com.suiramdev.worldmap.utils.ByteSink;
+import com.suiramdev.worldmap.utils.ChunkBinaryCodec;
+import com.suiramdev.worldmap.utils.PayloadCompressor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compression of one binary chunk body, the way HttpClientService compresses
+ * request bodies. The deflate dictionary is trained with
+ * {@link DeflateDictionaryTrainer} on neighbouring chunks of the same
+ * profile. DeflateDictionaryTrainer prints the matching ratios.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressionBenchmark {
+    @Param({ "FLAT", "MOUNTAINOUS" })
+    public SyntheticChunk.TerrainProfile profile;
+
+    @Param({ "GZIP", "DEFLATE" })
+    public CompressionMode compression;
+
+    @Param({ "1", "6" })
+    public int level;
+
+    private ByteSink input;
+    private ByteSink output;
+    private PayloadCompressor compressor;
+
+    @Setup
+    public void setup() {
+        ChunkProcessingService.BlockTextureInfo textures = new ChunkProcessingService.BlockTextureInfo(
+                "BlockTextures/Top.png", "BlockTextures/Bottom.png", "BlockTextures/Side.png",
+                "BlockTextures/Side.png", "BlockTextures/Side.png", "BlockTextures/Side.png", false);
+        ChunkExtractor extractor = new ChunkExtractor(blockId -> blockId == 0 ? null : textures,
+                SyntheticChunk::isOpaque, ExtractionMode.SURFACE);
+
+        // Train on chunks around the measured one, never on the measured one itself
+        List<byte[]> training = new ArrayList<>();
+        for (int chunkX = -4; chunkX < 4; chunkX++) {
+            training.add(encode(extractor, chunkX, 11));
+        }
+        byte[] dictionary = DeflateDictionaryTrainer.train(training, 32 * 1024);
+
+        byte[] body = encode(extractor, 3, -7);
+        input = new ByteSink(body.length);
+        input.writeBytes(body, 0, body.length);
+        output = new ByteSink(body.length + 1024);
+        compressor = new PayloadCompressor(compression, level, 0, dictionary);
+    }
+
+    @Benchmark
+    public int compress() {
+        output.reset();
+        compressor.compress(input, output);
+        return output.size();
+    }
+
+    private byte[] encode(ChunkExtractor extractor, int chunkX, int chunkZ) {
+        ByteSink sink = new ByteSink(64 * 1024);
+        ChunkBinaryCodec.encode(extractor.extract(new SyntheticChunk(profile, chunkX, chunkZ), chunkX, chunkZ), sink);
+        byte[] body = new byte[sink.size()];
+        System.arraycopy(sink.array(), 0, body, 0, sink.size());
+        return body;
+    }
+}
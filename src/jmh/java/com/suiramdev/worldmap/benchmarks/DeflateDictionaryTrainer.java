@@ -0,0 +1,141 @@
+package com.suiramdev.worldmap.benchmarks;
+
+import com.suiramdev.worldmap.config.CompressionMode;
+import com.suiramdev.worldmap.utils.ByteSink;
+import com.suiramdev.worldmap.utils.PayloadCompressor;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline tool that trains a preset deflate dictionary from sample request
+ * bodies and benchmarks compression ratio and CPU time against the
+ * uncompressed path. Lives with the benchmarks so it stays out of the
+ * plugin jar; {@link CompressionBenchmark} measures the same modes under JMH.
+ *
+ * <pre>
+ * ./gradlew trainDictionary -PtrainDictionaryArgs="&lt;samples-dir&gt; [output] [size]"
+ * </pre>
+ *
+ * Samples are raw chunk request bodies, one per file. The trained dictionary
+ * is written to output (default {@code deflate.dict}), which can then be set as
+ * {@code compressionDictionary} in config.json and deployed to the worker.
+ */
+public final class DeflateDictionaryTrainer {
+    private static final int SEGMENT_LENGTH = 32;
+    private static final int DEFAULT_DICTIONARY_SIZE = 32 * 1024;
+
+    private DeflateDictionaryTrainer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DeflateDictionaryTrainer <samples-dir> [output] [size]");
+            System.exit(1);
+        }
+
+        File[] files = new File(args[0]).listFiles(File::isFile);
+        if (files == null || files.length == 0) {
+            System.err.println("No samples found in " + args[0]);
+            System.exit(1);
+        }
+        File output = new File(args.length > 1 ? args[1] : "deflate.dict");
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DICTIONARY_SIZE;
+
+        Arrays.sort(files);
+        List<byte[]> samples = new ArrayList<>();
+        for (File file : files) {
+            samples.add(Files.readAllBytes(file.toPath()));
+        }
+
+        // Train on every other sample and benchmark on the rest to avoid overfitting the numbers
+        List<byte[]> training = new ArrayList<>();
+        List<byte[]> evaluation = new ArrayList<>();
+        for (int i = 0; i < samples.size(); i++) {
+            (i % 2 == 0 || samples.size() == 1 ? training : evaluation).add(samples.get(i));
+        }
+        if (evaluation.isEmpty()) {
+            evaluation = training;
+        }
+
+        byte[] dictionary = train(training, size);
+        Files.write(output.toPath(), dictionary);
+        System.out.println("Wrote " + dictionary.length + " byte dictionary " + PayloadCompressor.dictionaryId(dictionary)
+                + " to " + output + " (trained on " + training.size() + " samples)");
+
+        System.out.println();
+        System.out.printf("%-22s %14s %10s %12s%n", "mode", "bytes", "ratio", "cpu ms");
+        benchmark("none", null, evaluation);
+        for (int level : new int[] { 1, 6, 9 }) {
+            benchmark("gzip-" + level, new PayloadCompressor(CompressionMode.GZIP, level, 0, null), evaluation);
+            benchmark("deflate-" + level, new PayloadCompressor(CompressionMode.DEFLATE, level, 0, null), evaluation);
+            benchmark("deflate-dict-" + level,
+                    new PayloadCompressor(CompressionMode.DEFLATE, level, 0, dictionary), evaluation);
+        }
+    }
+
+    /**
+     * Build a dictionary from the segments that occur most often across
+     * samples. The most frequent segments go last, since deflate reaches recent
+     * dictionary bytes with the shortest distances.
+     */
+    public static byte[] train(List<byte[]> samples, int size) {
+        Map<ByteBuffer, int[]> counts = new HashMap<>();
+        for (byte[] sample : samples) {
+            Map<ByteBuffer, Boolean> seenInSample = new HashMap<>();
+            for (int offset = 0; offset + SEGMENT_LENGTH <= sample.length; offset += SEGMENT_LENGTH / 2) {
+                ByteBuffer segment = ByteBuffer.wrap(Arrays.copyOfRange(sample, offset, offset + SEGMENT_LENGTH));
+                // Count once per sample so content shared between chunks wins over runs within one chunk
+                if (seenInSample.putIfAbsent(segment, Boolean.TRUE) == null) {
+                    counts.computeIfAbsent(segment, key -> new int[1])[0]++;
+                }
+            }
+        }
+
+        List<Map.Entry<ByteBuffer, int[]>> ranked = new ArrayList<>(counts.entrySet());
+        ranked.removeIf(entry -> entry.getValue()[0] < 2);
+        ranked.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+
+        int segments = Math.min(ranked.size(), size / SEGMENT_LENGTH);
+        byte[] dictionary = new byte[segments * SEGMENT_LENGTH];
+        for (int i = 0; i < segments; i++) {
+            ByteBuffer segment = ranked.get(i).getKey();
+            int position = dictionary.length - (i + 1) * SEGMENT_LENGTH;
+            segment.duplicate().get(dictionary, position, SEGMENT_LENGTH);
+        }
+        return dictionary;
+    }
+
+    private static void benchmark(String name, PayloadCompressor compressor, List<byte[]> samples) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        ByteSink input = new ByteSink();
+        ByteSink output = new ByteSink();
+        long originalBytes = 0;
+        long compressedBytes = 0;
+
+        long start = threads.getCurrentThreadCpuTime();
+        for (byte[] sample : samples) {
+            input.reset();
+            output.reset();
+            input.writeBytes(sample, 0, sample.length);
+            originalBytes += sample.length;
+            if (compressor == null || compressor.compress(input, output) == null) {
+                compressedBytes += sample.length;
+            } else {
+                compressedBytes += output.size();
+            }
+        }
+        long cpuNanos = threads.getCurrentThreadCpuTime() - start;
+
+        System.out.printf("%-22s %14d %9.2fx %12.1f%n", name, compressedBytes,
+                (double) originalBytes / Math.max(1, compressedBytes), cpuNanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.suiramdev.worldmap.benchmarks;
+
+import com.suiramdev.worldmap.config.ExtractionMode;
+import com.suiramdev.worldmap.fixtures.SyntheticChunk;
+import com.suiramdev.worldmap.services.ChunkExtractor;
+import com.suiramdev.worldmap.services.ChunkProcessingService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Extraction of one chunk: block scan, content hash and texture lookup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExtractionBenchmark {
+    @Param({ "FLAT", "MOUNTAINOUS", "MOSTLY_AIR" })
+    public SyntheticChunk.TerrainProfile profile;
+
+    @Param({ "FULL", "SURFACE" })
+    public ExtractionMode mode;
+
+    private SyntheticChunk chunk;
+    private ChunkExtractor extractor;
+
+    @Setup
+    public void setup() {
+        chunk = new SyntheticChunk(profile, 3, -7);
+        ChunkProcessingService.BlockTextureInfo textures = new ChunkProcessingService.BlockTextureInfo(
+                "BlockTextures/Top.png", "BlockTextures/Bottom.png", "BlockTextures/Side.png",
+                "BlockTextures/Side.png", "BlockTextures/Side.png", "BlockTextures/Side.png", false);
+        // Stands in for the block appearance cache, which needs the server's asset store
+        extractor = new ChunkExtractor(blockId -> blockId == 0 ? null : textures, SyntheticChunk::isOpaque, mode);
+    }
+
+    @Benchmark
+    public ChunkProcessingService.ChunkData extract() {
+        return extractor.extract(chunk, 3, -7);
+    }
+}
@@ -0,0 +1,77 @@
+package com.suiramdev.worldmap.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.suiramdev.worldmap.config.ExtractionMode;
+import com.suiramdev.worldmap.fixtures.SyntheticChunk;
+import com.suiramdev.worldmap.services.ChunkExtractor;
+import com.suiramdev.worldmap.services.ChunkProcessingService;
+import com.suiramdev.worldmap.utils.BlockTextureInfoTypeAdapter;
+import com.suiramdev.worldmap.utils.ByteSink;
+import com.suiramdev.worldmap.utils.ChunkBinaryCodec;
+import com.suiramdev.worldmap.utils.ChunkDataTypeAdapter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Serialization of one extracted chunk into a reused buffer, the way
+ * HttpClientService writes request bodies
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+    @Param({ "FLAT", "MOUNTAINOUS", "MOSTLY_AIR" })
+    public SyntheticChunk.TerrainProfile profile;
+
+    @Param({ "FULL", "SURFACE" })
+    public ExtractionMode mode;
+
+    private ChunkProcessingService.ChunkData chunkData;
+    private Gson gson;
+    private ByteSink sink;
+
+    @Setup
+    public void setup() {
+        ChunkProcessingService.BlockTextureInfo textures = new ChunkProcessingService.BlockTextureInfo(
+                "BlockTextures/Top.png", "BlockTextures/Bottom.png", "BlockTextures/Side.png",
+                "BlockTextures/Side.png", "BlockTextures/Side.png", "BlockTextures/Side.png", false);
+        chunkData = new ChunkExtractor(blockId -> blockId == 0 ? null : textures, SyntheticChunk::isOpaque, mode)
+                .extract(new SyntheticChunk(profile, 3, -7), 3, -7);
+        gson = new GsonBuilder()
+                .registerTypeAdapter(ChunkProcessingService.ChunkData.class, new ChunkDataTypeAdapter())
+                .registerTypeAdapter(ChunkProcessingService.BlockTextureInfo.class, new BlockTextureInfoTypeAdapter())
+                .create();
+        sink = new ByteSink(256 * 1024);
+    }
+
+    @Benchmark
+    public int json() throws IOException {
+        sink.reset();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8));
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        gson.toJson(chunkData, ChunkProcessingService.ChunkData.class, jsonWriter);
+        jsonWriter.flush();
+        return sink.size();
+    }
+
+    @Benchmark
+    public int binary() {
+        sink.reset();
+        ChunkBinaryCodec.encode(chunkData, sink);
+        return sink.size();
+    }
+}
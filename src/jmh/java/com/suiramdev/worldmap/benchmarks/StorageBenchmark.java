@@ -0,0 +1,93 @@
+package com.suiramdev.worldmap.benchmarks;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.suiramdev.worldmap.storage.StorageService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Processed-chunk lookups and updates against a store holding a given number
+ * of entries. Journal flushes run on the store's own thread, as in the plugin.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StorageBenchmark {
+    // Power of two so a counter can be masked into a key index
+    private static final int KEY_COUNT = 1 << 16;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int entries;
+
+    private File folder;
+    private StorageService storage;
+    private long[] presentKeys;
+    private long[] absentKeys;
+    private int next;
+    private long hash = 1;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("worldmap-bench").toFile();
+        storage = new StorageService(folder);
+
+        // Chunks within a square around spawn, like an explored world
+        int side = (int) Math.ceil(Math.sqrt(entries));
+        long[] all = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            int chunkX = i % side - side / 2;
+            int chunkZ = i / side - side / 2;
+            all[i] = ChunkUtil.indexChunk(chunkX, chunkZ);
+            storage.markChunkProcessed(all[i], i + 1);
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        presentKeys = new long[KEY_COUNT];
+        absentKeys = new long[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            presentKeys[i] = all[random.nextInt(entries)];
+            // Outside the explored square
+            absentKeys[i] = ChunkUtil.indexChunk(side + random.nextInt(side), side + random.nextInt(side));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.shutdown();
+        try (Stream<Path> paths = Files.walk(folder.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public boolean isChunkProcessedHit() {
+        return storage.isChunkProcessed(presentKeys[next++ & (KEY_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public boolean isChunkProcessedMiss() {
+        return storage.isChunkProcessed(absentKeys[next++ & (KEY_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public void markChunkProcessed() {
+        // A new hash every time, so each call takes the journal path
+        storage.markChunkProcessed(presentKeys[next++ & (KEY_COUNT - 1)], hash++);
+    }
+}
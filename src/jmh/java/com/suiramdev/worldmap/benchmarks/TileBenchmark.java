@@ -0,0 +1,77 @@
+package com.suiramdev.worldmap.benchmarks;
+
+import com.suiramdev.worldmap.config.ExtractionMode;
+import com.suiramdev.worldmap.fixtures.SyntheticChunk;
+import com.suiramdev.worldmap.services.ChunkExtractor;
+import com.suiramdev.worldmap.services.ChunkProcessingService;
+import com.suiramdev.worldmap.tiles.PngEncoder;
+import com.suiramdev.worldmap.tiles.TileRenderer;
+import com.suiramdev.worldmap.utils.ByteSink;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Tiles per second for one render thread: rendering an extracted chunk and
+ * encoding it as PNG with reused buffers, the way TileService does
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TileBenchmark {
+    // Average colors standing in for the asset archive, leaves half covering
+    private static final int[] COLORS = { 0, 0xFF7D7D7D, 0xFF866043, 0xFF7CBD6B, 0xFFDBD3A0, 0xFF3F76E4,
+            0xFFF0FBFB, 0xFF8F8C7D, 0x80487A2F };
+
+    @Param({ "FLAT", "MOUNTAINOUS", "MOSTLY_AIR" })
+    public SyntheticChunk.TerrainProfile profile;
+
+    @Param({ "FULL", "SURFACE" })
+    public ExtractionMode mode;
+
+    private ChunkProcessingService.ChunkData chunkData;
+    private TileRenderer renderer;
+    private PngEncoder encoder;
+    private int[] pixels;
+    private ByteSink sink;
+
+    @Setup
+    public void setup() {
+        ChunkProcessingService.BlockTextureInfo textures = new ChunkProcessingService.BlockTextureInfo(
+                "BlockTextures/Top.png", "BlockTextures/Bottom.png", "BlockTextures/Side.png",
+                "BlockTextures/Side.png", "BlockTextures/Side.png", "BlockTextures/Side.png", true);
+        chunkData = new ChunkExtractor(blockId -> blockId == 0 ? null : textures, SyntheticChunk::isOpaque, mode)
+                .extract(new SyntheticChunk(profile, 3, -7), 3, -7);
+        // Grass and leaves take the biome tint
+        renderer = new TileRenderer(blockId -> COLORS[blockId], blockId -> blockId == 3 || blockId == 8);
+        encoder = new PngEncoder(1);
+        pixels = new int[TileRenderer.TILE_SIZE * TileRenderer.TILE_SIZE];
+        sink = new ByteSink(8 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoder.close();
+    }
+
+    @Benchmark
+    public int render() {
+        renderer.render(chunkData, pixels);
+        return pixels[0];
+    }
+
+    @Benchmark
+    public int renderAndEncode() {
+        renderer.render(chunkData, pixels);
+        sink.reset();
+        encoder.encode(pixels, TileRenderer.TILE_SIZE, TileRenderer.TILE_SIZE, sink);
+        return sink.size();
+    }
+}
@@ -0,0 +1,250 @@
+package com.suiramdev.worldmap.loadtest;
+
+import com.suiramdev.worldmap.config.CompressionMode;
+import com.suiramdev.worldmap.config.ExtractionMode;
+import com.suiramdev.worldmap.config.LogLevel;
+import com.suiramdev.worldmap.config.PayloadFormat;
+import com.suiramdev.worldmap.fixtures.SyntheticChunk;
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.metrics.PipelineMetrics;
+import com.suiramdev.worldmap.services.ChunkBatchService;
+import com.suiramdev.worldmap.services.ChunkExtractor;
+import com.suiramdev.worldmap.services.ChunkProcessingService;
+import com.suiramdev.worldmap.services.HttpClientService;
+import com.suiramdev.worldmap.storage.WorldStorage;
+import com.suiramdev.worldmap.utils.PayloadCompressor;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs the upload pipeline end to end against a {@link StubWorker}: synthetic
+ * chunks go through ChunkProcessingService, HttpClientService and optionally
+ * ChunkBatchService exactly as in the plugin, minus the world.
+ *
+ * Options are given as --name=value, e.g.
+ * <pre>
+ * --chunks=5000 --profile=mountainous --latencyMs=40 --throttleRate=0.02 --maxConcurrency=64 --batchSize=16
+ * </pre>
+ * Unknown options are rejected; see {@link #USAGE}.
+ */
+public class LoadHarness {
+    private static final String USAGE = String.join("\n",
+            "Options (--name=value):",
+            "  chunks=2000          chunks to upload",
+            "  profile=mountainous  flat, mountainous or mostly_air",
+            "  inFlight=64          chunks extracted or uploaded at once, like maxInFlightChunks",
+            "  minConcurrency=1     minConcurrentRequests",
+            "  maxConcurrency=32    maxConcurrentRequests",
+            "  mode=full            extractionMode, full or surface",
+            "  format=json          json or binary",
+            "  compression=none     none, gzip or deflate",
+            "  batchSize=0          chunks per batch request, 0 sends one request per chunk",
+            "  batchLingerMs=50     batchLingerMs",
+            "  timeoutMs=10000      requestTimeout",
+            "  retries=3            maxRetries",
+            "  latencyMs=20         worker latency",
+            "  jitterMs=10          extra random worker latency, up to this much",
+            "  errorRate=0          share of requests answered with 500",
+            "  throttleRate=0       share of requests answered with 429",
+            "  retryAfter=1         Retry-After seconds sent with 429",
+            "  resetRate=0          share of connections dropped without a response");
+
+    // Distinct chunks reused round-robin; generating one per upload would dominate the run
+    private static final int CHUNK_POOL_SIZE = 16;
+    private static final String WORLD = "default";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int chunks = intOption(options, "chunks", 2000);
+        SyntheticChunk.TerrainProfile profile = SyntheticChunk.TerrainProfile
+                .valueOf(stringOption(options, "profile", "mountainous").toUpperCase(Locale.ROOT));
+        int inFlight = intOption(options, "inFlight", 64);
+        int minConcurrency = intOption(options, "minConcurrency", 1);
+        int maxConcurrency = intOption(options, "maxConcurrency", 32);
+        ExtractionMode mode = ExtractionMode.fromConfig(stringOption(options, "mode", "full"));
+        PayloadFormat format = PayloadFormat.fromConfig(stringOption(options, "format", "json"));
+        CompressionMode compression = CompressionMode.fromConfig(stringOption(options, "compression", "none"));
+        int batchSize = intOption(options, "batchSize", 0);
+        int batchLingerMs = intOption(options, "batchLingerMs", 50);
+        int timeoutMs = intOption(options, "timeoutMs", 10_000);
+        int retries = intOption(options, "retries", 3);
+
+        StubWorker.Settings settings = new StubWorker.Settings();
+        settings.latencyMs = intOption(options, "latencyMs", settings.latencyMs);
+        settings.jitterMs = intOption(options, "jitterMs", settings.jitterMs);
+        settings.errorRate = doubleOption(options, "errorRate", 0);
+        settings.throttleRate = doubleOption(options, "throttleRate", 0);
+        settings.retryAfterSeconds = intOption(options, "retryAfter", settings.retryAfterSeconds);
+        settings.resetRate = doubleOption(options, "resetRate", 0);
+        if (!options.isEmpty()) {
+            System.err.println("Unknown options: " + options.keySet() + "\n" + USAGE);
+            System.exit(2);
+        }
+
+        // Warnings and summaries only, per-chunk lines would drown the report
+        Log.configure(LogLevel.WARN, 10);
+
+        SyntheticChunk[] pool = new SyntheticChunk[CHUNK_POOL_SIZE];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new SyntheticChunk(profile, i, -i);
+        }
+
+        File folder = Files.createTempDirectory("worldmap-loadtest").toFile();
+        StubWorker worker = new StubWorker(settings);
+        PayloadCompressor compressor = compression == CompressionMode.NONE
+                ? null
+                : new PayloadCompressor(compression, 6, 1024,
+                        compression == CompressionMode.DEFLATE ? PayloadCompressor.loadDictionary(null) : null);
+        HttpClientService httpClient = new HttpClientService(worker.getChunkUrl(), worker.getBatchUrl(), null, "",
+                timeoutMs, retries, minConcurrency, maxConcurrency, format, compressor, false);
+        ChunkBatchService batchService = batchSize > 0
+                ? new ChunkBatchService(httpClient, batchSize, 4 * 1024 * 1024, batchLingerMs, 8,
+                        64 * 1024 * 1024, false)
+                : null;
+        WorldStorage storage = new WorldStorage(folder);
+        ChunkProcessingService.BlockTextureInfo textures = new ChunkProcessingService.BlockTextureInfo(
+                "BlockTextures/Top.png", "BlockTextures/Bottom.png", "BlockTextures/Side.png",
+                "BlockTextures/Side.png", "BlockTextures/Side.png", "BlockTextures/Side.png", false);
+        ChunkExtractor extractor = new ChunkExtractor(blockId -> blockId == 0 ? null : textures,
+                SyntheticChunk::isOpaque, mode);
+        ChunkProcessingService processor = new ChunkProcessingService(httpClient, batchService, null, storage,
+                extractor, null, false);
+
+        System.out.println("Uploading " + chunks + " " + profile.name().toLowerCase(Locale.ROOT) + " chunks to "
+                + worker.getChunkUrl() + " (" + mode.getConfigName() + ", " + format.getConfigName() + ", " + compression.getConfigName()
+                + (batchService != null ? ", batches of " + batchSize : ", one request per chunk") + ")");
+
+        resetHeapPeaks();
+        long retriesBefore = PipelineMetrics.HTTP_RETRIES.get();
+        long[] latencies = new long[chunks];
+        AtomicInteger failed = new AtomicInteger(0);
+        Semaphore window = new Semaphore(inFlight);
+        CountDownLatch finished = new CountDownLatch(chunks);
+        long startedAt = System.nanoTime();
+
+        for (int i = 0; i < chunks; i++) {
+            window.acquire();
+            int slot = i;
+            // Walk a square area so batches see neighbouring chunks, like a backfill
+            int side = (int) Math.ceil(Math.sqrt(chunks));
+            int chunkX = i % side;
+            int chunkZ = i / side;
+            long submittedAt = System.nanoTime();
+            // Like the plugin's scheduler, a chunk waiting in a batch no longer holds its slot
+            CompletableFuture<Void> released = new CompletableFuture<>();
+            released.whenComplete((result, throwable) -> window.release());
+            processor.processChunk(WORLD, chunkX, chunkZ, pool[i % pool.length], released)
+                    .whenComplete((success, throwable) -> {
+                        latencies[slot] = System.nanoTime() - submittedAt;
+                        if (throwable != null || !Boolean.TRUE.equals(success)) {
+                            failed.incrementAndGet();
+                        }
+                        finished.countDown();
+                    });
+        }
+        finished.await();
+        if (batchService != null) {
+            batchService.shutdown();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        long heapPeak = heapPeakBytes();
+
+        processor.shutdown();
+        httpClient.shutdown();
+        storage.shutdown();
+        worker.close();
+        Log.shutdown();
+        deleteRecursively(folder.toPath());
+
+        Arrays.sort(latencies);
+        double seconds = elapsedNanos / 1e9;
+        System.out.println(String.format(Locale.ROOT, "Throughput:     %.1f chunks/s (%d chunks in %.2fs)",
+                chunks / seconds, chunks, seconds));
+        System.out.println("Chunk latency:  p50 " + percentileMs(latencies, 0.50) + "ms, p99 "
+                + percentileMs(latencies, 0.99) + "ms, max " + latencies[latencies.length - 1] / 1_000_000 + "ms");
+        System.out.println("Failed chunks:  " + failed.get());
+        System.out.println("Requests:       " + worker.getRequests() + " (" + worker.getSucceeded() + " ok, "
+                + worker.getThrottled() + " 429, " + worker.getErrors() + " 500, " + worker.getResets() + " reset)");
+        System.out.println("Retries:        " + (PipelineMetrics.HTTP_RETRIES.get() - retriesBefore));
+        System.out.println(String.format(Locale.ROOT, "Bytes on wire:  %.1f MB (%.1f KB per chunk)",
+                worker.getBytesReceived() / (1024.0 * 1024.0), worker.getBytesReceived() / 1024.0 / chunks));
+        System.out.println(String.format(Locale.ROOT, "Heap peak:      %.1f MB", heapPeak / (1024.0 * 1024.0)));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                System.err.println("Invalid option '" + arg + "'\n" + USAGE);
+                System.exit(2);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static String stringOption(Map<String, String> options, String name, String defaultValue) {
+        String value = options.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.remove(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static double doubleOption(Map<String, String> options, String name, double defaultValue) {
+        String value = options.remove(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    private static long percentileMs(long[] sorted, double percentile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000;
+    }
+
+    private static void resetHeapPeaks() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of the heap pools' peak usage since the last reset
+     */
+    private static long heapPeakBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
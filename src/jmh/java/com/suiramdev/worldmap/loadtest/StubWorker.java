@@ -0,0 +1,174 @@
+package com.suiramdev.worldmap.loadtest;
+
+import com.google.gson.JsonParser;
+import com.suiramdev.worldmap.utils.ChunkBatchCodec;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the worker API with configurable latency and failures.
+ *
+ * Every request is read fully, then answered after the configured latency
+ * with one of: a dropped connection, a 429 with Retry-After, a 500, or a 200.
+ * A successful batch request is answered with a positional results array
+ * acknowledging every chunk in it.
+ */
+public class StubWorker implements AutoCloseable {
+    public static final String CHUNK_PATH = "/api/worker/process-chunk";
+    public static final String BATCH_PATH = "/api/worker/process-chunks";
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+
+    /**
+     * Failure and latency settings; rates are probabilities between 0 and 1
+     */
+    public static class Settings {
+        public int latencyMs = 20;
+        public int jitterMs = 10;
+        public double errorRate;
+        public double throttleRate;
+        public int retryAfterSeconds = 1;
+        public double resetRate;
+    }
+
+    public StubWorker(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        // One virtual thread per request, so simulated latency does not limit concurrency
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.createContext(CHUNK_PATH, this::handle);
+        server.createContext(BATCH_PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getChunkUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + CHUNK_PATH;
+    }
+
+    public String getBatchUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + BATCH_PATH;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        long size = 0;
+        boolean batch = exchange.getRequestURI().getPath().equals(BATCH_PATH);
+        // Batch bodies are kept to count their chunks
+        ByteArrayOutputStream batchBody = batch ? new ByteArrayOutputStream() : null;
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = body.read(buffer)) > 0) {
+                size += read;
+                if (batchBody != null) {
+                    batchBody.write(buffer, 0, read);
+                }
+            }
+        }
+        bytesReceived.add(size);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            Thread.sleep(settings.latencyMs + (settings.jitterMs > 0 ? random.nextInt(settings.jitterMs + 1) : 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        double roll = random.nextDouble();
+        if (roll < settings.resetRate) {
+            // Close without a response, the client sees the connection drop
+            resets.increment();
+            exchange.close();
+            return;
+        }
+        roll -= settings.resetRate;
+        if (roll < settings.throttleRate) {
+            throttled.increment();
+            exchange.getResponseHeaders().set("Retry-After", Integer.toString(settings.retryAfterSeconds));
+            exchange.sendResponseHeaders(429, -1);
+        } else if (roll - settings.throttleRate < settings.errorRate) {
+            errors.increment();
+            exchange.sendResponseHeaders(500, -1);
+        } else if (batch) {
+            succeeded.increment();
+            byte[] response = batchResults(batchBody.toByteArray());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        } else {
+            succeeded.increment();
+            exchange.sendResponseHeaders(200, -1);
+        }
+        exchange.close();
+    }
+
+    /**
+     * Acknowledge every chunk of a batch body, in order
+     */
+    private static byte[] batchResults(byte[] body) {
+        int count;
+        ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        if (body.length >= 12 && buffer.getInt(0) == ChunkBatchCodec.MAGIC) {
+            count = buffer.getInt(8);
+        } else {
+            count = JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject()
+                    .getAsJsonArray("chunks").size();
+        }
+        StringBuilder results = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < count; i++) {
+            results.append(i > 0 ? "," : "").append("{\"success\":true}");
+        }
+        return results.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getResets() {
+        return resets.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
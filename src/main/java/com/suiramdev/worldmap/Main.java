@@ -1,22 +1,59 @@
 package com.suiramdev.worldmap;
 
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.assetstore.event.RemovedAssetsEvent;
 import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.events.ChunkPreLoadProcessEvent;
 import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import com.hypixel.hytale.server.core.universe.world.storage.IChunkLoader;
+import com.suiramdev.worldmap.config.BackfillOrder;
+import com.suiramdev.worldmap.config.CompressionMode;
 import com.suiramdev.worldmap.config.PluginConfig;
+import com.suiramdev.worldmap.config.TileOutput;
+import com.suiramdev.worldmap.listeners.BlockChangeListener;
+import com.suiramdev.worldmap.listeners.ChunkGenerationListener;
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.metrics.MetricsRegistry;
+import com.suiramdev.worldmap.metrics.MetricsServer;
+import com.suiramdev.worldmap.metrics.PipelineMetrics;
+import com.suiramdev.worldmap.services.BlockAppearanceCache;
+import com.suiramdev.worldmap.services.ChunkBatchService;
+import com.suiramdev.worldmap.services.ChunkExtractor;
 import com.suiramdev.worldmap.services.ChunkProcessingService;
+import com.suiramdev.worldmap.services.DirtyChunkTracker;
 import com.suiramdev.worldmap.services.HttpClientService;
+import com.suiramdev.worldmap.services.OutboxDrainer;
+import com.suiramdev.worldmap.services.PlayerTracker;
+import com.suiramdev.worldmap.services.WorldScheduler;
+import com.suiramdev.worldmap.services.WorldTracker;
 import com.suiramdev.worldmap.storage.StorageService;
+import com.suiramdev.worldmap.storage.UploadOutbox;
+import com.suiramdev.worldmap.storage.WorldStorage;
+import com.suiramdev.worldmap.tiles.BlockColorTable;
+import com.suiramdev.worldmap.tiles.TilePyramid;
+import com.suiramdev.worldmap.tiles.TileRenderer;
+import com.suiramdev.worldmap.tiles.TileService;
+import com.suiramdev.worldmap.tiles.TileStore;
+import com.suiramdev.worldmap.utils.ChunkOrdering;
+import com.suiramdev.worldmap.utils.PayloadCompressor;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongSet;
 
 import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main plugin class.
@@ -28,10 +65,40 @@ public class Main extends JavaPlugin {
 
     private static Main instance;
 
+    private static final String OUTBOX_FOLDER = "outbox";
+    private static final long OUTBOX_DRAIN_TIMEOUT_MS = 30_000;
+    private static final long WORLD_DRAIN_TIMEOUT_MS = 30_000;
+
     private PluginConfig config;
-    private StorageService storage;
+    private WorldStorage storages;
     private HttpClientService httpClient;
+    private ChunkBatchService batchService;
+    private OutboxDrainer outboxDrainer;
+    private BlockAppearanceCache blockAppearanceCache;
+    private BlockColorTable blockColorTable;
+    private TileService tileService;
+    private TilePyramid tilePyramid;
     private ChunkProcessingService chunkProcessor;
+    private DirtyChunkTracker dirtyChunkTracker;
+    private WorldScheduler scheduler;
+    private WorldTracker worldTracker;
+    private PlayerTracker playerTracker;
+    private MetricsServer metricsServer;
+    // Worlds being mapped, by name
+    private final Map<String, World> worlds = new ConcurrentHashMap<>();
+    // Drains and closes unloaded worlds off the tracker's thread
+    private final ExecutorService worldCloser = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Worldmap-WorldClose");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Scans worlds for chunks to backfill, one at a time, off the common pool
+    private final ExecutorService worldScanner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Worldmap-WorldScan");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean shuttingDown = false;
     private File dataFolder;
 
     /**
@@ -59,38 +126,167 @@ public class Main extends JavaPlugin {
             config = new PluginConfig(dataFolder);
             System.out.println("[Worldmap] Configuration loaded - API URL: " + config.getApiUrl());
 
-            // Initialize storage service
-            storage = new StorageService(dataFolder);
+            // Per-chunk messages are written asynchronously and summarized periodically
+            Log.configure(config.getLogLevel(), config.getLogSummaryIntervalSeconds());
+
+            // Initialize per-world storage
+            storages = new WorldStorage(dataFolder);
+
+            // Initialize request body compression
+            PayloadCompressor compressor = null;
+            if (config.getCompression() != CompressionMode.NONE) {
+                byte[] dictionary = null;
+                if (config.getCompression() == CompressionMode.DEFLATE) {
+                    String dictionaryPath = config.getCompressionDictionary();
+                    dictionary = PayloadCompressor.loadDictionary(
+                            dictionaryPath.isEmpty() ? null : new File(dataFolder, dictionaryPath));
+                }
+                compressor = new PayloadCompressor(
+                        config.getCompression(),
+                        config.getCompressionLevel(),
+                        config.getCompressionMinBytes(),
+                        dictionary);
+                System.out.println("[Worldmap] Request compression: " + config.getCompression().getConfigName()
+                        + (compressor.getDictionaryId() != null ? " (dictionary " + compressor.getDictionaryId() + ")" : ""));
+            }
 
             // Initialize HTTP client service
             httpClient = new HttpClientService(
                     config.getApiUrl(),
+                    config.getBatchApiUrl(),
+                    config.getTileApiUrl(),
                     config.getApiKey(),
                     config.getRequestTimeout(),
                     config.getMaxRetries(),
+                    config.getMinConcurrentRequests(),
+                    config.getMaxConcurrentRequests(),
+                    config.getPayloadFormat(),
+                    compressor,
                     config.isDebugMode());
 
+            // Initialize region batcher if batched uploads are enabled
+            if (config.isBatchEnabled()) {
+                batchService = new ChunkBatchService(
+                        httpClient,
+                        config.getBatchSize(),
+                        config.getBatchMaxBytes(),
+                        config.getBatchLingerMs(),
+                        config.getBatchRegionSize(),
+                        config.getBatchMaxQueuedBytes(),
+                        config.isDebugMode());
+                System.out.println("[Worldmap] Batched uploads enabled - up to " + config.getBatchSize()
+                        + " chunks per request to " + config.getBatchApiUrl());
+            }
+
+            // Initialize the on-disk outbox for chunks the API cannot take right now
+            if (config.isOutboxEnabled()) {
+                UploadOutbox outbox = new UploadOutbox(new File(dataFolder, OUTBOX_FOLDER),
+                        config.getOutboxMaxMegabytes() * 1024L * 1024L);
+                try {
+                    outbox.open();
+                    outboxDrainer = new OutboxDrainer(outbox, httpClient, storages, config.getPayloadFormat(),
+                            config.isDebugMode());
+                } catch (IOException e) {
+                    System.err.println("[Worldmap] Failed to open upload outbox, failed uploads will be dropped: "
+                            + e.getMessage());
+                }
+            }
+
+            // Initialize shared block appearance cache, dropped whenever block types are reloaded
+            blockAppearanceCache = new BlockAppearanceCache();
+            getEventRegistry().register(LoadedAssetsEvent.class, BlockType.class,
+                    event -> onBlockTypesChanged());
+            getEventRegistry().register(RemovedAssetsEvent.class, BlockType.class,
+                    event -> onBlockTypesChanged());
+
+            // Initialize the tile renderer if tiles are rendered in the plugin
+            TileOutput tileOutput = config.getTileOutput();
+            if (tileOutput != TileOutput.OFF) {
+                File archive = BlockColorTable.findArchive(config.getTileAssetsPath());
+                if (archive == null) {
+                    Log.warn("Asset archive not found, tiles will use a fallback color");
+                }
+                blockColorTable = new BlockColorTable(archive, blockAppearanceCache::get, config.isDebugMode());
+                File tileDirectory = tileOutput.writesLocal() ? new File(dataFolder, config.getTileDirectory()) : null;
+                TileStore tileStore = tileDirectory != null ? new TileStore(tileDirectory, storages) : null;
+                // Zoomed-out tiles are built from the chunk tiles on disk
+                if (tileStore != null && config.isTilePyramidEnabled()) {
+                    tilePyramid = new TilePyramid(tileStore, tileOutput.uploads() ? httpClient : null,
+                            config.getTilePyramidMaxZoom(), config.getTilePyramidIntervalMs(), config.isDebugMode());
+                } else if (config.isTilePyramidEnabled()) {
+                    Log.warn("Tile pyramid needs tileOutput local or both, skipping it");
+                }
+                tileService = new TileService(
+                        new TileRenderer(blockColorTable::colorOf, blockColorTable::isTinted),
+                        tileStore,
+                        tilePyramid,
+                        tileOutput.uploads() ? httpClient : null,
+                        config.getTileRenderThreads());
+                Log.info("Tile rendering enabled - "
+                        + (tileDirectory != null ? "writing to " + tileDirectory.getPath() : "")
+                        + (tileOutput == TileOutput.BOTH ? " and " : "")
+                        + (tileOutput.uploads() ? "uploading to " + config.getTileApiUrl() + " instead of chunks" : "")
+                        + (tilePyramid != null ? ", zoom levels up to " + tilePyramid.getMaxZoom() : ""));
+            }
+
             // Initialize chunk processing service
-            chunkProcessor = new ChunkProcessingService(httpClient, storage, config.isDebugMode());
+            chunkProcessor = new ChunkProcessingService(httpClient, batchService, outboxDrainer, storages,
+                    new ChunkExtractor(blockAppearanceCache::get, blockAppearanceCache::isOpaque,
+                            config.getExtractionMode()),
+                    tileService,
+                    config.isDebugMode());
+
+            // Share the in-flight window between worlds by weight, chunks near players first
+            scheduler = new WorldScheduler(this::processScheduledChunk, config.getMaxInFlightChunks(),
+                    config.getPlayerPriorityRadius(),
+                    () -> "upload limit " + httpClient.getConcurrencyLimit() + ", " + httpClient.getQueuedRequests()
+                            + " requests waiting",
+                    config.isDebugMode());
+            playerTracker = new PlayerTracker(scheduler, worlds, config.getPlayerPriorityIntervalMs());
+
+            // Re-upload chunks changed by players or world generation once they settle
+            if (config.isLiveUpdates()) {
+                dirtyChunkTracker = new DirtyChunkTracker(config.getDirtyQuietPeriodMs(), config.getDirtyMaxDelayMs(),
+                        this::processChangedChunk, config.isDebugMode());
+                getEntityStoreRegistry().registerSystem(new BlockChangeListener.PlaceBlockSystem(dirtyChunkTracker));
+                getEntityStoreRegistry().registerSystem(new BlockChangeListener.BreakBlockSystem(dirtyChunkTracker));
+                ChunkGenerationListener generationListener = new ChunkGenerationListener(dirtyChunkTracker);
+                getEventRegistry().registerGlobal(ChunkPreLoadProcessEvent.class, generationListener::onChunkPreLoad);
+                System.out.println("[Worldmap] Live updates enabled - quiet period " + config.getDirtyQuietPeriodMs()
+                        + "ms");
+            }
+
+            // Expose pipeline metrics for Prometheus
+            registerMetrics();
+            if (config.getMetricsPort() > 0) {
+                try {
+                    metricsServer = new MetricsServer(MetricsRegistry.get(), config.getMetricsBindAddress(),
+                            config.getMetricsPort());
+                    System.out.println("[Worldmap] Metrics available at http://" + config.getMetricsBindAddress()
+                            + ":" + config.getMetricsPort() + "/metrics");
+                } catch (IOException e) {
+                    System.err.println("[Worldmap] Failed to start metrics endpoint on port "
+                            + config.getMetricsPort() + ": " + e.getMessage());
+                }
+            }
 
             // Get processed chunk count
-            int processedCount = storage.getProcessedChunkCount();
+            int processedCount = storages.getProcessedChunkCount();
             System.out.println("[Worldmap] Plugin loaded - " + processedCount + " chunks already processed");
 
-            // Process chunks asynchronously to avoid blocking server startup
+            // Map every world as it is loaded, in the background to avoid blocking server startup
             // Only unprocessed chunks will be sent to the API
-            CompletableFuture.runAsync(() -> {
-                try {
-                    processAllChunks();
-                    System.out.println("[Worldmap] Chunk processing queued!");
-                    System.out.println("[Worldmap] Chunks will be processed in the background");
-                } catch (Exception e) {
-                    System.err.println("[Worldmap] Error during chunk processing: " + e.getMessage());
-                    if (config != null && config.isDebugMode()) {
-                        e.printStackTrace();
-                    }
+            worldTracker = new WorldTracker(new WorldTracker.Listener() {
+                @Override
+                public void worldAdded(World world) {
+                    startWorld(world);
                 }
-            });
+
+                @Override
+                public void worldRemoved(String worldName) {
+                    stopWorld(worldName);
+                }
+            }, config.getWorldScanIntervalMs(), config.isDebugMode());
         } catch (Exception e) {
             System.err.println("[Worldmap] Failed to initialize plugin: " + e.getMessage());
             e.printStackTrace();
@@ -100,6 +296,28 @@ public class Main extends JavaPlugin {
     @Override
     protected void shutdown() {
         System.out.println("[Worldmap] Plugin disabled!");
+        shuttingDown = true;
+
+        // Stop picking up changed chunks and worlds, then stop loading chunks
+        if (dirtyChunkTracker != null) {
+            dirtyChunkTracker.shutdown();
+        }
+        if (worldTracker != null) {
+            worldTracker.shutdown();
+        }
+        if (playerTracker != null) {
+            playerTracker.shutdown();
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        // Interrupts a scan waiting for its chunk loader
+        worldScanner.shutdownNow();
+
+        // Send partially filled batches now, so the processor does not wait out their linger
+        if (batchService != null) {
+            batchService.flushAll();
+        }
 
         // Shutdown chunk processor (waits for ongoing tasks)
         if (chunkProcessor != null) {
@@ -107,134 +325,345 @@ public class Main extends JavaPlugin {
             chunkProcessor.shutdown();
         }
 
-        // Save storage
-        if (storage != null) {
-            storage.saveStorage();
+        // Finish tiles still queued for rendering
+        if (tileService != null) {
+            tileService.shutdown();
+        }
+        if (tilePyramid != null) {
+            tilePyramid.shutdown();
+        }
+        if (blockColorTable != null) {
+            blockColorTable.close();
+        }
+
+        // Send whatever is still waiting in partially filled batches
+        if (batchService != null) {
+            System.out.println("[Worldmap] Flushing pending chunk batches...");
+            batchService.shutdown();
+        }
+
+        // Deliver spooled chunks while the API is reachable, keep the rest on disk
+        if (outboxDrainer != null) {
+            outboxDrainer.shutdown(OUTBOX_DRAIN_TIMEOUT_MS);
+        }
+
+        // Stop the HTTP I/O threads once nothing is left to send
+        if (httpClient != null) {
+            httpClient.shutdown();
+        }
+
+        // Interrupt worlds still waiting to drain; closing them is left to the final flush
+        worldCloser.shutdownNow();
+        try {
+            worldCloser.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Flush the journals and write final snapshots
+        if (storages != null) {
+            storages.shutdown();
+        }
+
+        if (metricsServer != null) {
+            metricsServer.shutdown();
         }
 
         System.out.println("[Worldmap] Plugin disabled successfully!");
+
+        // Emit the last upload summary and write buffered messages
+        Log.shutdown();
+    }
+
+    /**
+     * Start mapping a world that was loaded: open its state, then queue its
+     * unprocessed chunks in the background
+     */
+    private void startWorld(World world) {
+        if (shuttingDown) {
+            return;
+        }
+        String worldName = world.getName();
+        // The default world must be known before its state is first opened
+        Universe universe = Universe.get();
+        World defaultWorld = universe != null ? universe.getDefaultWorld() : null;
+        if (defaultWorld != null && storages.getDefaultWorld() == null) {
+            storages.setDefaultWorld(defaultWorld.getName());
+        }
+
+        int processedCount;
+        // Paired with the check in closeWorld, so a world loaded again is not closed under it
+        synchronized (worlds) {
+            worlds.put(worldName, world);
+            processedCount = storages.open(worldName).getProcessedChunkCount();
+        }
+        if (tilePyramid != null) {
+            tilePyramid.addWorld(worldName);
+        }
+        scheduler.addWorld(worldName, config.getWorldWeight(worldName));
+        Log.info("Mapping world " + worldName + " (weight " + config.getWorldWeight(worldName)
+                + ", " + processedCount + " chunks already processed)");
+
+        worldScanner.execute(() -> {
+            try {
+                backfillWorld(world);
+            } catch (Exception e) {
+                Log.error("Error during chunk processing of world " + worldName + ": " + e.getMessage(),
+                        config.isDebugMode() ? e : null);
+            }
+        });
     }
 
     /**
-     * Process all chunks from the world
+     * Stop mapping a world that was unloaded. Its storage is closed in the
+     * background once the world's work has drained.
      */
-    private void processAllChunks() {
-        System.out.println("[Worldmap] Starting chunk processing...");
+    private void stopWorld(String worldName) {
+        scheduler.removeWorld(worldName);
+        worlds.remove(worldName);
+        Log.info("World " + worldName + " unloaded, stopped mapping it");
+        worldCloser.execute(() -> closeWorld(worldName));
+    }
 
+    /**
+     * Close an unloaded world's storage. Its chunks already being processed
+     * and its spooled chunks get a chance to finish first; whatever finishes
+     * later is not recorded and is uploaded again the next time the world is
+     * mapped.
+     */
+    private void closeWorld(String worldName) {
+        long deadline = System.currentTimeMillis() + WORLD_DRAIN_TIMEOUT_MS;
+        boolean drained;
         try {
-            // Get the default world from Universe
-            Universe universe = Universe.get();
-            if (universe == null) {
-                System.err.println("[Worldmap] Universe is not available");
+            drained = scheduler.awaitWorldIdle(worldName, WORLD_DRAIN_TIMEOUT_MS)
+                    && (outboxDrainer == null
+                            || outboxDrainer.awaitDrained(worldName, deadline - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            // Shutting down, the final flush persists every world
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!drained) {
+            Log.warn("World " + worldName + " still had chunks in flight or spooled when its storage was closed");
+        }
+
+        synchronized (worlds) {
+            if (worlds.containsKey(worldName)) {
+                // Loaded again while draining, its storage stays open
                 return;
             }
+            storages.close(worldName);
+        }
+        Log.debug(() -> "Closed storage of unloaded world " + worldName);
+    }
 
-            World world = universe.getDefaultWorld();
-            if (world == null) {
-                System.err.println("[Worldmap] Default world is not available");
+    /**
+     * Queue every unprocessed chunk of a world for the scheduler
+     */
+    private void backfillWorld(World world) {
+        String worldName = world.getName();
+        Log.info("Scanning chunks of world " + worldName + "...");
+
+        // Get all chunk indexes from the chunk loader
+        ChunkStore chunkStore = world.getChunkStore();
+
+        // Wait for the loader to be initialized (it may not be ready immediately)
+        IChunkLoader loader = null;
+        int retries = 10;
+        for (int i = 0; i < retries; i++) {
+            loader = chunkStore.getLoader();
+            if (loader != null) {
+                break;
+            }
+            try {
+                Thread.sleep(500); // Wait 500ms before retrying
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Log.warn("Interrupted while waiting for the chunk loader of world " + worldName);
                 return;
             }
+        }
 
-            System.out.println("[Worldmap] Processing chunks from world: " + world.getName());
-
-            // Get all chunk indexes from the chunk loader
-            ChunkStore chunkStore = world.getChunkStore();
-            
-            // Wait for the loader to be initialized (it may not be ready immediately)
-            IChunkLoader loader = null;
-            int retries = 10;
-            for (int i = 0; i < retries; i++) {
-                loader = chunkStore.getLoader();
-                if (loader != null) {
-                    break;
-                }
-                try {
-                    Thread.sleep(500); // Wait 500ms before retrying
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    System.err.println("[Worldmap] Interrupted while waiting for chunk loader");
-                    return;
-                }
+        LongSet chunkIndexes;
+        if (loader != null) {
+            // Get all chunk indexes from disk via the loader
+            try {
+                chunkIndexes = loader.getIndexes();
+            } catch (IOException e) {
+                Log.error("Error getting chunk indexes of world " + worldName + " from loader: " + e.getMessage(),
+                        config.isDebugMode() ? e : null);
+                // Fallback to currently loaded chunks
+                chunkIndexes = chunkStore.getChunkIndexes();
+                Log.info("Falling back to currently loaded chunks: " + chunkIndexes.size());
             }
+        } else {
+            // Fallback to currently loaded chunks if loader is not available
+            Log.info("Chunk loader of world " + worldName + " not available, using currently loaded chunks");
+            chunkIndexes = chunkStore.getChunkIndexes();
+            if (chunkIndexes.isEmpty()) {
+                Log.warn("No chunks of world " + worldName
+                        + " are currently loaded. The loader may not be initialized yet.");
+                return;
+            }
+        }
 
-            LongSet chunkIndexes;
-            if (loader != null) {
-                // Get all chunk indexes from disk via the loader
-                try {
-                    chunkIndexes = loader.getIndexes();
-                    System.out.println("[Worldmap] Loaded chunk indexes from disk storage");
-                } catch (IOException e) {
-                    System.err.println("[Worldmap] Error getting chunk indexes from loader: " + e.getMessage());
-                    if (config != null && config.isDebugMode()) {
-                        e.printStackTrace();
-                    }
-                    // Fallback to currently loaded chunks
-                    chunkIndexes = chunkStore.getChunkIndexes();
-                    System.out.println("[Worldmap] Falling back to currently loaded chunks: " + chunkIndexes.size());
-                }
-            } else {
-                // Fallback to currently loaded chunks if loader is not available
-                System.out.println("[Worldmap] Chunk loader not available, using currently loaded chunks");
-                chunkIndexes = chunkStore.getChunkIndexes();
-                if (chunkIndexes.isEmpty()) {
-                    System.err.println("[Worldmap] No chunks are currently loaded. The loader may not be initialized yet.");
-                    return;
-                }
+        // Only process chunks that haven't been sent to the API, unless a rescan was
+        // requested, in which case unchanged chunks are dropped by content hash
+        boolean rescan = config.isRescanOnStartup();
+        StorageService storage = storages.get(worldName);
+        int totalChunks = chunkIndexes.size();
+        long[] candidates = new long[totalChunks];
+        int candidateCount = 0;
+        int skipped = 0;
+        LongIterator iterator = chunkIndexes.iterator();
+        while (iterator.hasNext()) {
+            long chunkIndex = iterator.nextLong();
+
+            // Check if chunk has already been processed
+            if (!rescan && (storage.isChunkProcessed(chunkIndex)
+                    || (outboxDrainer != null && outboxDrainer.isSpooled(worldName, chunkIndex)))) {
+                skipped++;
+                continue;
             }
+            candidates[candidateCount++] = chunkIndex;
+        }
 
-            int totalChunks = chunkIndexes.size();
-            System.out.println("[Worldmap] Found " + totalChunks + " chunks to check");
+        BackfillOrder order = config.getBackfillOrder();
+        ChunkOrdering.sort(candidates, candidateCount, order, config.getBackfillCenterX(),
+                config.getBackfillCenterZ());
+        scheduler.enqueueBackfill(worldName, candidates, candidateCount, rescan);
+
+        Log.info("Queued " + candidateCount + " of " + totalChunks + " chunks of world "
+                + worldName + " for processing (" + skipped + " already processed"
+                + (rescan ? ", rescanning, only changed chunks will be uploaded" : "") + ", order "
+                + order.getConfigName()
+                + (order == BackfillOrder.SPIRAL
+                        ? " from chunk (" + config.getBackfillCenterX() + "," + config.getBackfillCenterZ() + ")"
+                        : "")
+                + ")");
+    }
 
-            // Process each chunk - only process chunks that haven't been sent to the API
-            int queued = 0;
-            int skipped = 0;
-            for (long chunkIndex : chunkIndexes) {
-                int chunkX = ChunkUtil.xOfChunkIndex(chunkIndex);
-                int chunkZ = ChunkUtil.zOfChunkIndex(chunkIndex);
+    /**
+     * Load and process a chunk picked by the scheduler
+     *
+     * @param released Completed once the chunk no longer needs its in-flight
+     *                 slot: when it is done, or once it waits in an upload
+     *                 batch
+     * @return Future completing once the chunk is done
+     */
+    private CompletableFuture<Boolean> processScheduledChunk(String worldName, long chunkIndex, boolean reprocess,
+            CompletableFuture<Void> released) {
+        World world = worlds.get(worldName);
+        if (world == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        int chunkX = ChunkUtil.xOfChunkIndex(chunkIndex);
+        int chunkZ = ChunkUtil.zOfChunkIndex(chunkIndex);
+
+        // Get chunk asynchronously (non-ticking to avoid affecting gameplay)
+        return loadChunk(world, chunkIndex)
+                .thenCompose(chunk -> {
+                    if (chunk == null) {
+                        Log.debug(() -> "Chunk (" + chunkX + "," + chunkZ + ") of " + worldName + " is null, skipping");
+                        return CompletableFuture.completedFuture(false);
+                    } else if (reprocess) {
+                        return chunkProcessor.reprocessChunk(worldName, chunkX, chunkZ, chunk, released);
+                    } else {
+                        return chunkProcessor.processChunk(worldName, chunkX, chunkZ, chunk, released);
+                    }
+                })
+                .exceptionally(throwable -> {
+                    Log.error("Error loading chunk (" + chunkX + "," + chunkZ + ") of " + worldName + ": "
+                            + throwable.getMessage(), config.isDebugMode() ? throwable : null);
+                    return false;
+                })
+                .whenComplete((success, throwable) -> released.complete(null));
+    }
 
-                // Check if chunk has already been processed
-                if (storage.isChunkProcessed(chunkX, chunkZ)) {
-                    skipped++;
-                    continue;
-                }
+    /**
+     * Load a chunk without ticking it, recording how long the world took
+     */
+    private static CompletableFuture<WorldChunk> loadChunk(World world, long chunkIndex) {
+        long requestedAt = System.nanoTime();
+        return world.getNonTickingChunkAsync(chunkIndex).thenApply(chunk -> {
+            PipelineMetrics.CHUNK_LOAD_WAIT.observeNanos(System.nanoTime() - requestedAt);
+            return chunk;
+        });
+    }
 
-                // Get chunk asynchronously (non-ticking to avoid affecting gameplay)
-                world.getNonTickingChunkAsync(chunkIndex)
-                        .thenAccept(chunk -> {
-                            if (chunk != null) {
-                                chunkProcessor.processChunk(chunkX, chunkZ, chunk);
-                            } else {
-                                if (config != null && config.isDebugMode()) {
-                                    System.out.println(
-                                            "[Worldmap] Chunk (" + chunkX + "," + chunkZ + ") is null, skipping");
-                                }
-                            }
-                        })
-                        .exceptionally(throwable -> {
-                            System.err.println("[Worldmap] Error loading chunk (" + chunkX + "," + chunkZ + "): "
-                                    + throwable.getMessage());
-                            if (config != null && config.isDebugMode()) {
-                                throwable.printStackTrace();
-                            }
-                            return null;
-                        });
-
-                queued++;
-
-                // Log progress every 100 chunks
-                if ((queued + skipped) % 100 == 0) {
-                    System.out.println("[Worldmap] Queued " + queued + " / " + totalChunks + " chunks for processing ("
-                            + skipped + " already processed)");
-                }
-            }
+    /**
+     * Register counters and gauges read from the services on every scrape
+     */
+    private void registerMetrics() {
+        MetricsRegistry registry = MetricsRegistry.get();
+        registry.counter("worldmap_chunks_processed_total", "Chunks acknowledged by the worker",
+                () -> chunkProcessor.getProcessedCount());
+        registry.counter("worldmap_chunks_failed_total", "Chunks that could not be extracted or delivered",
+                () -> chunkProcessor.getFailedCount());
+        registry.counter("worldmap_chunks_unchanged_total",
+                "Chunks skipped because their content hash matched the last upload",
+                () -> chunkProcessor.getUnchangedCount());
+        registry.counter("worldmap_chunks_spooled_total", "Chunks written to the outbox",
+                () -> chunkProcessor.getSpooledCount());
+        registry.gauge("worldmap_backfill_in_flight_chunks",
+                "Backfill chunks being loaded, extracted or uploaded", () -> scheduler.getBackfillInFlight());
+        registry.gauge("worldmap_scheduled_chunks", "Chunks waiting for an in-flight slot, across all worlds",
+                () -> scheduler.getQueuedCount());
+        registry.gauge("worldmap_worlds", "Worlds being mapped", () -> scheduler.getWorldCount());
+        registry.gauge("worldmap_player_priority_chunks", "Queued backfill chunks near players, across all worlds",
+                () -> scheduler.getNearPlayersQueued());
+        registry.gauge("worldmap_http_concurrency_limit", "Current adaptive limit on concurrent uploads",
+                () -> httpClient.getConcurrencyLimit());
+        registry.gauge("worldmap_http_requests_active", "Requests holding an upload slot",
+                () -> httpClient.getActiveRequests());
+        registry.gauge("worldmap_http_requests_queued", "Requests waiting for an upload slot",
+                () -> httpClient.getQueuedRequests());
+        registry.gauge("worldmap_circuit_state", "Circuit breaker state: 0 closed, 1 open, 2 half-open",
+                () -> httpClient.getCircuitState().ordinal());
+        registry.gauge("worldmap_outbox_records", "Chunks waiting in the outbox",
+                () -> outboxDrainer != null ? outboxDrainer.getRecordCount() : 0);
+        registry.gauge("worldmap_outbox_bytes", "Disk space used by the outbox",
+                () -> outboxDrainer != null ? outboxDrainer.getSizeBytes() : 0);
+        registry.gauge("worldmap_dirty_chunks", "Changed chunks waiting for their quiet period",
+                () -> dirtyChunkTracker != null ? dirtyChunkTracker.getDirtyCount() : 0);
+        registry.gauge("worldmap_tile_pyramid_pending", "Zoomed-out tiles waiting to be rebuilt",
+                () -> tilePyramid != null ? tilePyramid.getPendingCount() : 0);
+    }
 
-            System.out.println("[Worldmap] Queued " + queued + " unprocessed chunks for processing ("
-                    + skipped + " chunks were already processed)");
-        } catch (Exception e) {
-            System.err.println("[Worldmap] Error getting world/chunks: " + e.getMessage());
-            if (config != null && config.isDebugMode()) {
-                e.printStackTrace();
+    /**
+     * Queue a chunk whose changes have settled ahead of its world's backfill
+     *
+     * @param worldName  Name of the world the chunk belongs to
+     * @param chunkIndex Chunk index as produced by ChunkUtil
+     */
+    private void processChangedChunk(String worldName, long chunkIndex) {
+        if (scheduler == null || worldTracker == null) {
+            return;
+        }
+
+        // A world can change before the tracker's next check finds it
+        if (!scheduler.hasWorld(worldName)) {
+            Universe universe = Universe.get();
+            World world = universe != null ? universe.getWorld(worldName) : null;
+            if (world == null) {
+                return;
             }
+            worldTracker.track(world);
+        }
+
+        if (scheduler.enqueueChanged(worldName, chunkIndex)) {
+            Log.debug(() -> "Chunk (" + ChunkUtil.xOfChunkIndex(chunkIndex) + "," + ChunkUtil.zOfChunkIndex(chunkIndex)
+                    + ") of " + worldName + " changed, reprocessing");
+        }
+    }
+
+    /**
+     * Drop everything derived from block type assets after they were reloaded
+     */
+    private void onBlockTypesChanged() {
+        blockAppearanceCache.invalidate();
+        if (blockColorTable != null) {
+            blockColorTable.invalidate();
         }
     }
 
@@ -272,10 +701,10 @@ public class Main extends JavaPlugin {
     }
 
     /**
-     * Get storage service
+     * Get the processed chunk state of every world
      */
-    public StorageService getStorage() {
-        return storage;
+    public WorldStorage getStorage() {
+        return storages;
     }
 
     /**
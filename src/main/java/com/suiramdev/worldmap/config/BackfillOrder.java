@@ -0,0 +1,40 @@
+package com.suiramdev.worldmap.config;
+
+/**
+ * Order in which the startup scan loads chunks, see ChunkOrdering
+ */
+public enum BackfillOrder {
+    /** Order returned by the chunk loader, no sorting */
+    HASH("hash"),
+    /** Z-order curve, keeps nearby chunks and region files together */
+    MORTON("morton"),
+    /** Hilbert curve, like Morton but without long jumps between quadrants */
+    HILBERT("hilbert"),
+    /** Square rings outward from the configured center */
+    SPIRAL("spiral");
+
+    private final String configName;
+
+    BackfillOrder(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Parse a config value, falling back to spiral for unknown values
+     */
+    public static BackfillOrder fromConfig(String value) {
+        if (value != null) {
+            for (BackfillOrder order : values()) {
+                if (order.configName.equalsIgnoreCase(value.trim())) {
+                    return order;
+                }
+            }
+            System.err.println("[Worldmap] Unknown backfillOrder '" + value + "', using spiral");
+        }
+        return SPIRAL;
+    }
+}
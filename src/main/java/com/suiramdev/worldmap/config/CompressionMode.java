@@ -0,0 +1,38 @@
+package com.suiramdev.worldmap.config;
+
+/**
+ * Content-Encoding applied to request bodies sent to the worker API
+ */
+public enum CompressionMode {
+    /** Bodies are sent as-is */
+    NONE("none"),
+    /** Standard gzip, decodable by any HTTP stack */
+    GZIP("gzip"),
+    /** zlib deflate with a preset dictionary, identified by a header */
+    DEFLATE("deflate");
+
+    private final String configName;
+
+    CompressionMode(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Parse a config value, falling back to no compression for unknown values
+     */
+    public static CompressionMode fromConfig(String value) {
+        if (value != null) {
+            for (CompressionMode mode : values()) {
+                if (mode.configName.equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+            System.err.println("[Worldmap] Unknown compression '" + value + "', using none");
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,36 @@
+package com.suiramdev.worldmap.config;
+
+/**
+ * What is extracted from each chunk, see ChunkExtractor
+ */
+public enum ExtractionMode {
+    /** Every block up to a little above the height map */
+    FULL("full"),
+    /** Top block, ground under glass or fluids, fluid depth, height and tint per column */
+    SURFACE("surface");
+
+    private final String configName;
+
+    ExtractionMode(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Parse a config value, falling back to full for unknown values
+     */
+    public static ExtractionMode fromConfig(String value) {
+        if (value != null) {
+            for (ExtractionMode mode : values()) {
+                if (mode.configName.equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+            System.err.println("[Worldmap] Unknown extractionMode '" + value + "', using full");
+        }
+        return FULL;
+    }
+}
@@ -0,0 +1,42 @@
+package com.suiramdev.worldmap.config;
+
+/**
+ * Most detailed kind of message written to the console
+ */
+public enum LogLevel {
+    /** Failures that lose data or stop a feature */
+    ERROR("error"),
+    /** Failures the plugin recovers from, e.g. a retried upload */
+    WARN("warn"),
+    /** Startup, progress and periodic summaries */
+    INFO("info"),
+    /** Per-chunk decisions and per-request outcomes */
+    DEBUG("debug"),
+    /** Every request sent and every response body received */
+    TRACE("trace");
+
+    private final String configName;
+
+    LogLevel(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Parse a config value, falling back to info for unknown values
+     */
+    public static LogLevel fromConfig(String value) {
+        if (value != null) {
+            for (LogLevel level : values()) {
+                if (level.configName.equalsIgnoreCase(value.trim())) {
+                    return level;
+                }
+            }
+            System.err.println("[Worldmap] Unknown logLevel '" + value + "', using info");
+        }
+        return INFO;
+    }
+}
@@ -0,0 +1,59 @@
+package com.suiramdev.worldmap.config;
+
+/**
+ * Wire format used for chunk payloads sent to the worker API
+ */
+public enum PayloadFormat {
+    /** Gson-serialized ChunkData, understood by every worker version */
+    JSON("json", 0),
+    /** Compact little-endian format, see ChunkBinaryCodec */
+    BINARY("binary", 1);
+
+    private final String configName;
+    private final int code;
+
+    PayloadFormat(String configName, int code) {
+        this.configName = configName;
+        this.code = code;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Stable code stored with spooled payloads. Never reuse or change one.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Look up a stored code
+     *
+     * @return The format, or null if the code is unknown
+     */
+    public static PayloadFormat fromCode(int code) {
+        for (PayloadFormat format : values()) {
+            if (format.code == code) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse a config value, falling back to JSON for unknown values
+     */
+    public static PayloadFormat fromConfig(String value) {
+        if (value != null) {
+            for (PayloadFormat format : values()) {
+                if (format.configName.equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+            System.err.println("[Worldmap] Unknown payloadFormat '" + value + "', using json");
+        }
+        return JSON;
+    }
+}
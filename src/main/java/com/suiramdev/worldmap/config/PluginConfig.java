@@ -6,6 +6,8 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Manages plugin configuration from config.json
@@ -17,8 +19,48 @@ public class PluginConfig {
     private String apiKey = "";
     private int requestTimeout = 30000;
     private int maxRetries = 3;
+    private int minConcurrentRequests = 1;
+    private int maxConcurrentRequests = 32;
     private int batchSize = 10;
+    private boolean batchEnabled = false;
+    private String batchApiUrl = "http://localhost:3000/api/worker/process-chunks";
+    private int batchMaxBytes = 8 * 1024 * 1024;
+    private int batchLingerMs = 2000;
+    private int batchRegionSize = 8;
+    private int batchMaxQueuedBytes = 64 * 1024 * 1024;
     private boolean debugMode = false;
+    private boolean rescanOnStartup = false;
+    private ExtractionMode extractionMode = ExtractionMode.FULL;
+    private PayloadFormat payloadFormat = PayloadFormat.JSON;
+    private CompressionMode compression = CompressionMode.NONE;
+    private int compressionLevel = 6;
+    private int compressionMinBytes = 1024;
+    private String compressionDictionary = "";
+    private boolean liveUpdates = true;
+    private int dirtyQuietPeriodMs = 5000;
+    private int dirtyMaxDelayMs = 30000;
+    private int maxInFlightChunks = 64;
+    private BackfillOrder backfillOrder = BackfillOrder.SPIRAL;
+    private int backfillCenterX = 0;
+    private int backfillCenterZ = 0;
+    private boolean outboxEnabled = true;
+    private int outboxMaxMegabytes = 1024;
+    private int metricsPort = 0;
+    private String metricsBindAddress = "127.0.0.1";
+    private LogLevel logLevel = LogLevel.INFO;
+    private int logSummaryIntervalSeconds = 10;
+    private TileOutput tileOutput = TileOutput.OFF;
+    private String tileDirectory = "tiles";
+    private String tileApiUrl = "http://localhost:3000/api/worker/process-tile";
+    private int tileRenderThreads = 2;
+    private String tileAssetsPath = "";
+    private boolean tilePyramidEnabled = true;
+    private int tilePyramidMaxZoom = 6;
+    private int tilePyramidIntervalMs = 5000;
+    private Map<String, Integer> worldWeights = new LinkedHashMap<>();
+    private int worldScanIntervalMs = 5000;
+    private int playerPriorityRadius = 16;
+    private int playerPriorityIntervalMs = 2000;
 
     private final File dataFolder;
     private final Gson gson;
@@ -52,9 +94,85 @@ public class PluginConfig {
                     this.requestTimeout = data.requestTimeout;
                 if (data.maxRetries > 0)
                     this.maxRetries = data.maxRetries;
+                if (data.minConcurrentRequests > 0)
+                    this.minConcurrentRequests = data.minConcurrentRequests;
+                if (data.maxConcurrentRequests > 0)
+                    this.maxConcurrentRequests = data.maxConcurrentRequests;
                 if (data.batchSize > 0)
                     this.batchSize = data.batchSize;
+                this.batchEnabled = data.batchEnabled;
+                if (data.batchApiUrl != null)
+                    this.batchApiUrl = data.batchApiUrl;
+                if (data.batchMaxBytes > 0)
+                    this.batchMaxBytes = data.batchMaxBytes;
+                if (data.batchLingerMs > 0)
+                    this.batchLingerMs = data.batchLingerMs;
+                if (data.batchRegionSize > 0)
+                    this.batchRegionSize = data.batchRegionSize;
+                if (data.batchMaxQueuedBytes > 0)
+                    this.batchMaxQueuedBytes = data.batchMaxQueuedBytes;
                 this.debugMode = data.debugMode;
+                this.rescanOnStartup = data.rescanOnStartup;
+                if (data.extractionMode != null)
+                    this.extractionMode = ExtractionMode.fromConfig(data.extractionMode);
+                if (data.payloadFormat != null)
+                    this.payloadFormat = PayloadFormat.fromConfig(data.payloadFormat);
+                if (data.compression != null)
+                    this.compression = CompressionMode.fromConfig(data.compression);
+                if (data.compressionLevel > 0)
+                    this.compressionLevel = data.compressionLevel;
+                if (data.compressionMinBytes > 0)
+                    this.compressionMinBytes = data.compressionMinBytes;
+                if (data.compressionDictionary != null)
+                    this.compressionDictionary = data.compressionDictionary;
+                if (data.liveUpdates != null)
+                    this.liveUpdates = data.liveUpdates;
+                if (data.dirtyQuietPeriodMs > 0)
+                    this.dirtyQuietPeriodMs = data.dirtyQuietPeriodMs;
+                if (data.dirtyMaxDelayMs > 0)
+                    this.dirtyMaxDelayMs = data.dirtyMaxDelayMs;
+                if (data.maxInFlightChunks > 0)
+                    this.maxInFlightChunks = data.maxInFlightChunks;
+                if (data.backfillOrder != null)
+                    this.backfillOrder = BackfillOrder.fromConfig(data.backfillOrder);
+                this.backfillCenterX = data.backfillCenterX;
+                this.backfillCenterZ = data.backfillCenterZ;
+                if (data.outboxEnabled != null)
+                    this.outboxEnabled = data.outboxEnabled;
+                if (data.outboxMaxMegabytes > 0)
+                    this.outboxMaxMegabytes = data.outboxMaxMegabytes;
+                if (data.metricsPort > 0)
+                    this.metricsPort = data.metricsPort;
+                if (data.metricsBindAddress != null)
+                    this.metricsBindAddress = data.metricsBindAddress;
+                if (data.logLevel != null)
+                    this.logLevel = LogLevel.fromConfig(data.logLevel);
+                if (data.logSummaryIntervalSeconds > 0)
+                    this.logSummaryIntervalSeconds = data.logSummaryIntervalSeconds;
+                if (data.tileOutput != null)
+                    this.tileOutput = TileOutput.fromConfig(data.tileOutput);
+                if (data.tileDirectory != null)
+                    this.tileDirectory = data.tileDirectory;
+                if (data.tileApiUrl != null)
+                    this.tileApiUrl = data.tileApiUrl;
+                if (data.tileRenderThreads > 0)
+                    this.tileRenderThreads = data.tileRenderThreads;
+                if (data.tileAssetsPath != null)
+                    this.tileAssetsPath = data.tileAssetsPath;
+                if (data.tilePyramidEnabled != null)
+                    this.tilePyramidEnabled = data.tilePyramidEnabled;
+                if (data.tilePyramidMaxZoom > 0)
+                    this.tilePyramidMaxZoom = data.tilePyramidMaxZoom;
+                if (data.tilePyramidIntervalMs > 0)
+                    this.tilePyramidIntervalMs = data.tilePyramidIntervalMs;
+                if (data.worldWeights != null)
+                    this.worldWeights = data.worldWeights;
+                if (data.worldScanIntervalMs > 0)
+                    this.worldScanIntervalMs = data.worldScanIntervalMs;
+                if (data.playerPriorityRadius > 0)
+                    this.playerPriorityRadius = data.playerPriorityRadius;
+                if (data.playerPriorityIntervalMs > 0)
+                    this.playerPriorityIntervalMs = data.playerPriorityIntervalMs;
             }
         } catch (IOException e) {
             System.err.println("[Worldmap] Failed to load config: " + e.getMessage());
@@ -79,8 +197,48 @@ public class PluginConfig {
             data.apiKey = this.apiKey;
             data.requestTimeout = this.requestTimeout;
             data.maxRetries = this.maxRetries;
+            data.minConcurrentRequests = this.minConcurrentRequests;
+            data.maxConcurrentRequests = this.maxConcurrentRequests;
             data.batchSize = this.batchSize;
+            data.batchEnabled = this.batchEnabled;
+            data.batchApiUrl = this.batchApiUrl;
+            data.batchMaxBytes = this.batchMaxBytes;
+            data.batchLingerMs = this.batchLingerMs;
+            data.batchRegionSize = this.batchRegionSize;
+            data.batchMaxQueuedBytes = this.batchMaxQueuedBytes;
             data.debugMode = this.debugMode;
+            data.rescanOnStartup = this.rescanOnStartup;
+            data.extractionMode = this.extractionMode.getConfigName();
+            data.payloadFormat = this.payloadFormat.getConfigName();
+            data.compression = this.compression.getConfigName();
+            data.compressionLevel = this.compressionLevel;
+            data.compressionMinBytes = this.compressionMinBytes;
+            data.compressionDictionary = this.compressionDictionary;
+            data.liveUpdates = this.liveUpdates;
+            data.dirtyQuietPeriodMs = this.dirtyQuietPeriodMs;
+            data.dirtyMaxDelayMs = this.dirtyMaxDelayMs;
+            data.maxInFlightChunks = this.maxInFlightChunks;
+            data.backfillOrder = this.backfillOrder.getConfigName();
+            data.backfillCenterX = this.backfillCenterX;
+            data.backfillCenterZ = this.backfillCenterZ;
+            data.outboxEnabled = this.outboxEnabled;
+            data.outboxMaxMegabytes = this.outboxMaxMegabytes;
+            data.metricsPort = this.metricsPort;
+            data.metricsBindAddress = this.metricsBindAddress;
+            data.logLevel = this.logLevel.getConfigName();
+            data.logSummaryIntervalSeconds = this.logSummaryIntervalSeconds;
+            data.tileOutput = this.tileOutput.getConfigName();
+            data.tileDirectory = this.tileDirectory;
+            data.tileApiUrl = this.tileApiUrl;
+            data.tileRenderThreads = this.tileRenderThreads;
+            data.tileAssetsPath = this.tileAssetsPath;
+            data.tilePyramidEnabled = this.tilePyramidEnabled;
+            data.tilePyramidMaxZoom = this.tilePyramidMaxZoom;
+            data.tilePyramidIntervalMs = this.tilePyramidIntervalMs;
+            data.worldWeights = this.worldWeights;
+            data.worldScanIntervalMs = this.worldScanIntervalMs;
+            data.playerPriorityRadius = this.playerPriorityRadius;
+            data.playerPriorityIntervalMs = this.playerPriorityIntervalMs;
 
             try (FileWriter writer = new FileWriter(configFile)) {
                 gson.toJson(data, writer);
@@ -106,14 +264,232 @@ public class PluginConfig {
         return maxRetries;
     }
 
+    /**
+     * Floor of the adaptive limit on concurrent API requests
+     */
+    public int getMinConcurrentRequests() {
+        return minConcurrentRequests;
+    }
+
+    /**
+     * Ceiling of the adaptive limit on concurrent API requests
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
     public int getBatchSize() {
         return batchSize;
     }
 
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public String getBatchApiUrl() {
+        return batchApiUrl;
+    }
+
+    public int getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    public int getBatchLingerMs() {
+        return batchLingerMs;
+    }
+
+    public int getBatchRegionSize() {
+        return batchRegionSize;
+    }
+
+    /**
+     * Bytes waiting in or sent by unfinished batches before chunks stop
+     * being accepted into batches
+     */
+    public int getBatchMaxQueuedBytes() {
+        return batchMaxQueuedBytes;
+    }
+
     public boolean isDebugMode() {
         return debugMode;
     }
 
+    public boolean isRescanOnStartup() {
+        return rescanOnStartup;
+    }
+
+    public ExtractionMode getExtractionMode() {
+        return extractionMode;
+    }
+
+    public PayloadFormat getPayloadFormat() {
+        return payloadFormat;
+    }
+
+    public CompressionMode getCompression() {
+        return compression;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public int getCompressionMinBytes() {
+        return compressionMinBytes;
+    }
+
+    /**
+     * Path of a trained deflate dictionary, relative to the data folder. Empty
+     * uses the built-in dictionary.
+     */
+    public String getCompressionDictionary() {
+        return compressionDictionary;
+    }
+
+    public boolean isLiveUpdates() {
+        return liveUpdates;
+    }
+
+    /**
+     * Time a changed chunk must stay untouched before it is uploaded again
+     */
+    public int getDirtyQuietPeriodMs() {
+        return dirtyQuietPeriodMs;
+    }
+
+    /**
+     * Longest time a chunk that keeps changing waits before it is uploaded
+     * anyway
+     */
+    public int getDirtyMaxDelayMs() {
+        return dirtyMaxDelayMs;
+    }
+
+    /**
+     * Maximum number of chunks kept loading, extracting or uploading at once,
+     * shared by every world
+     */
+    public int getMaxInFlightChunks() {
+        return maxInFlightChunks;
+    }
+
+    public BackfillOrder getBackfillOrder() {
+        return backfillOrder;
+    }
+
+    /**
+     * Chunk X the spiral backfill starts from
+     */
+    public int getBackfillCenterX() {
+        return backfillCenterX;
+    }
+
+    /**
+     * Chunk Z the spiral backfill starts from
+     */
+    public int getBackfillCenterZ() {
+        return backfillCenterZ;
+    }
+
+    public boolean isOutboxEnabled() {
+        return outboxEnabled;
+    }
+
+    /**
+     * Disk budget of the upload outbox
+     */
+    public int getOutboxMaxMegabytes() {
+        return outboxMaxMegabytes;
+    }
+
+    /**
+     * Port of the Prometheus metrics endpoint, 0 when disabled
+     */
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    public String getMetricsBindAddress() {
+        return metricsBindAddress;
+    }
+
+    /**
+     * Console log level; debugMode raises it to at least debug
+     */
+    public LogLevel getLogLevel() {
+        return debugMode && logLevel.compareTo(LogLevel.DEBUG) < 0 ? LogLevel.DEBUG : logLevel;
+    }
+
+    /**
+     * Interval between upload summary lines
+     */
+    public int getLogSummaryIntervalSeconds() {
+        return logSummaryIntervalSeconds;
+    }
+
+    public TileOutput getTileOutput() {
+        return tileOutput;
+    }
+
+    public String getTileDirectory() {
+        return tileDirectory;
+    }
+
+    public String getTileApiUrl() {
+        return tileApiUrl;
+    }
+
+    public int getTileRenderThreads() {
+        return tileRenderThreads;
+    }
+
+    public String getTileAssetsPath() {
+        return tileAssetsPath;
+    }
+
+    public boolean isTilePyramidEnabled() {
+        return tilePyramidEnabled;
+    }
+
+    public int getTilePyramidMaxZoom() {
+        return tilePyramidMaxZoom;
+    }
+
+    public int getTilePyramidIntervalMs() {
+        return tilePyramidIntervalMs;
+    }
+
+    /**
+     * Share of the in-flight window a world gets while several worlds have
+     * chunks queued, 1 for worlds not listed in worldWeights
+     */
+    public int getWorldWeight(String world) {
+        Integer weight = worldWeights.get(world);
+        return weight != null && weight > 0 ? weight : 1;
+    }
+
+    /**
+     * Time between checks for worlds that were loaded or unloaded
+     */
+    public int getWorldScanIntervalMs() {
+        return worldScanIntervalMs;
+    }
+
+    /**
+     * Distance in chunks from a player within which queued chunks are
+     * processed first
+     */
+    public int getPlayerPriorityRadius() {
+        return playerPriorityRadius;
+    }
+
+    /**
+     * Time between reads of the players' positions
+     */
+    public int getPlayerPriorityIntervalMs() {
+        return playerPriorityIntervalMs;
+    }
+
     /**
      * Internal class for JSON deserialization
      */
@@ -122,7 +498,47 @@ public class PluginConfig {
         String apiKey;
         int requestTimeout;
         int maxRetries;
+        int minConcurrentRequests;
+        int maxConcurrentRequests;
         int batchSize;
+        boolean batchEnabled;
+        String batchApiUrl;
+        int batchMaxBytes;
+        int batchLingerMs;
+        int batchRegionSize;
+        int batchMaxQueuedBytes;
         boolean debugMode;
+        boolean rescanOnStartup;
+        String extractionMode;
+        String payloadFormat;
+        String compression;
+        int compressionLevel;
+        int compressionMinBytes;
+        String compressionDictionary;
+        Boolean liveUpdates; // Boxed so a missing key keeps the enabled default
+        int dirtyQuietPeriodMs;
+        int dirtyMaxDelayMs;
+        int maxInFlightChunks;
+        String backfillOrder;
+        int backfillCenterX;
+        int backfillCenterZ;
+        Boolean outboxEnabled;
+        int outboxMaxMegabytes;
+        int metricsPort;
+        String metricsBindAddress;
+        String logLevel;
+        int logSummaryIntervalSeconds;
+        String tileOutput;
+        String tileDirectory;
+        String tileApiUrl;
+        int tileRenderThreads;
+        String tileAssetsPath;
+        Boolean tilePyramidEnabled; // Boxed so a missing key keeps the enabled default
+        int tilePyramidMaxZoom;
+        int tilePyramidIntervalMs;
+        Map<String, Integer> worldWeights;
+        int worldScanIntervalMs;
+        int playerPriorityRadius;
+        int playerPriorityIntervalMs;
     }
 }
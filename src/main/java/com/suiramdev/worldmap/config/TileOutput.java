@@ -0,0 +1,54 @@
+package com.suiramdev.worldmap.config;
+
+/**
+ * Where rendered map tiles go, see TileService
+ */
+public enum TileOutput {
+    /** No tiles are rendered */
+    OFF("off"),
+    /** Tiles are written to the tile directory, chunk payloads are uploaded as usual */
+    LOCAL("local"),
+    /** Tiles are uploaded instead of chunk payloads */
+    UPLOAD("upload"),
+    /** Tiles are written to the tile directory and uploaded instead of chunk payloads */
+    BOTH("both");
+
+    private final String configName;
+
+    TileOutput(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Whether tiles are written to the tile directory
+     */
+    public boolean writesLocal() {
+        return this == LOCAL || this == BOTH;
+    }
+
+    /**
+     * Whether tiles replace chunk payloads on the worker API
+     */
+    public boolean uploads() {
+        return this == UPLOAD || this == BOTH;
+    }
+
+    /**
+     * Parse a config value, falling back to off for unknown values
+     */
+    public static TileOutput fromConfig(String value) {
+        if (value != null) {
+            for (TileOutput output : values()) {
+                if (output.configName.equalsIgnoreCase(value.trim())) {
+                    return output;
+                }
+            }
+            System.err.println("[Worldmap] Unknown tileOutput '" + value + "', using off");
+        }
+        return OFF;
+    }
+}
@@ -0,0 +1,91 @@
+package com.suiramdev.worldmap.listeners;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.event.events.ecs.BreakBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.suiramdev.worldmap.services.DirtyChunkTracker;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Marks chunks dirty when blocks are placed or broken
+ */
+public final class BlockChangeListener {
+    // Hytale chunks are 32 blocks wide
+    private static final int CHUNK_SHIFT = 5;
+
+    private BlockChangeListener() {
+    }
+
+    private static void markDirty(DirtyChunkTracker tracker, Store<EntityStore> store, Vector3i position) {
+        if (position == null) {
+            return;
+        }
+        World world = store.getExternalData().getWorld();
+        if (world == null) {
+            return;
+        }
+        long chunkIndex = ChunkUtil.indexChunk(position.getX() >> CHUNK_SHIFT, position.getZ() >> CHUNK_SHIFT);
+        tracker.markDirty(world.getName(), chunkIndex);
+    }
+
+    /**
+     * Handles block placement
+     */
+    public static class PlaceBlockSystem extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
+        private final DirtyChunkTracker tracker;
+
+        public PlaceBlockSystem(DirtyChunkTracker tracker) {
+            super(PlaceBlockEvent.class);
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer,
+                @Nonnull PlaceBlockEvent event) {
+            if (!event.isCancelled()) {
+                markDirty(tracker, store, event.getTargetBlock());
+            }
+        }
+
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+    }
+
+    /**
+     * Handles block breaking
+     */
+    public static class BreakBlockSystem extends EntityEventSystem<EntityStore, BreakBlockEvent> {
+        private final DirtyChunkTracker tracker;
+
+        public BreakBlockSystem(DirtyChunkTracker tracker) {
+            super(BreakBlockEvent.class);
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer,
+                @Nonnull BreakBlockEvent event) {
+            if (!event.isCancelled()) {
+                markDirty(tracker, store, event.getTargetBlock());
+            }
+        }
+
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+    }
+}
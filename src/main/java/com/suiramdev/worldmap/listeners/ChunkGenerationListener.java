@@ -0,0 +1,33 @@
+package com.suiramdev.worldmap.listeners;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.events.ChunkPreLoadProcessEvent;
+import com.suiramdev.worldmap.services.DirtyChunkTracker;
+
+/**
+ * Marks freshly generated chunks dirty so they reach the map without a restart
+ */
+public class ChunkGenerationListener {
+    private final DirtyChunkTracker tracker;
+
+    public ChunkGenerationListener(DirtyChunkTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    public void onChunkPreLoad(ChunkPreLoadProcessEvent event) {
+        // Chunks loaded from disk are covered by the startup scan
+        if (!event.isNewlyGenerated()) {
+            return;
+        }
+        WorldChunk chunk = event.getChunk();
+        if (chunk == null) {
+            return;
+        }
+        World world = chunk.getWorld();
+        if (world == null) {
+            return;
+        }
+        tracker.markDirty(world.getName(), chunk.getIndex());
+    }
+}
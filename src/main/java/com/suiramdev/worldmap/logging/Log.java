@@ -0,0 +1,278 @@
+package com.suiramdev.worldmap.logging;
+
+import com.suiramdev.worldmap.config.LogLevel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plugin logging facade.
+ *
+ * Messages below the configured level are discarded before their text is
+ * built: pass a supplier, or check {@link #isEnabled(LogLevel)} first.
+ * Enabled messages go into a bounded ring buffer written to the console by a
+ * background thread, so callers never wait on console I/O. When the buffer is
+ * full, messages are dropped and the number dropped is reported afterwards.
+ *
+ * The same thread emits periodic summaries of repetitive per-chunk activity,
+ * see {@link Summary}.
+ */
+public final class Log {
+    private static final String PREFIX = "[Worldmap] ";
+    private static final int BUFFER_SIZE = 8192;
+    private static final long SHUTDOWN_FLUSH_MS = 2000;
+
+    private static volatile LogLevel level = LogLevel.INFO;
+    private static volatile Appender appender; // null until configured, messages are then written directly
+    private static final List<Summary> summaries = new CopyOnWriteArrayList<>();
+    private static final Map<String, Throttle> throttles = new ConcurrentHashMap<>();
+
+    private Log() {
+    }
+
+    /**
+     * Source of a periodic summary line
+     */
+    @FunctionalInterface
+    public interface Summary {
+        /**
+         * Describe activity since the previous call and reset it
+         *
+         * @param elapsedMs Time since the previous call
+         * @return Summary line, or null if there was nothing to report
+         */
+        String summarize(long elapsedMs);
+    }
+
+    /**
+     * Set the level and start writing messages asynchronously
+     *
+     * @param summaryIntervalSeconds Interval between summary lines
+     */
+    public static synchronized void configure(LogLevel newLevel, int summaryIntervalSeconds) {
+        level = newLevel;
+        if (appender == null) {
+            appender = new Appender(TimeUnit.SECONDS.toMillis(Math.max(1, summaryIntervalSeconds)));
+        }
+    }
+
+    /**
+     * Emit pending summaries, write buffered messages and stop the background
+     * thread. Later messages are written directly.
+     */
+    public static synchronized void shutdown() {
+        Appender current = appender;
+        if (current == null) {
+            return;
+        }
+        appender = null;
+        current.stop();
+        summaries.clear();
+        throttles.clear();
+    }
+
+    public static void addSummary(Summary summary) {
+        summaries.add(summary);
+    }
+
+    public static boolean isEnabled(LogLevel messageLevel) {
+        return messageLevel.ordinal() <= level.ordinal();
+    }
+
+    public static boolean isDebugEnabled() {
+        return isEnabled(LogLevel.DEBUG);
+    }
+
+    public static void error(String message) {
+        log(LogLevel.ERROR, message, null);
+    }
+
+    public static void error(String message, Throwable throwable) {
+        log(LogLevel.ERROR, message, throwable);
+    }
+
+    public static void warn(String message) {
+        log(LogLevel.WARN, message, null);
+    }
+
+    public static void info(String message) {
+        log(LogLevel.INFO, message, null);
+    }
+
+    public static void debug(Supplier<String> message) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, message.get(), null);
+        }
+    }
+
+    public static void trace(Supplier<String> message) {
+        if (isEnabled(LogLevel.TRACE)) {
+            log(LogLevel.TRACE, message.get(), null);
+        }
+    }
+
+    /**
+     * Log a warning at most once per interval for the given key. Warnings
+     * suppressed in between are counted on the next one that is written.
+     *
+     * @param key Groups warnings of the same kind, e.g. "upload-failed"
+     */
+    public static void warnThrottled(String key, long intervalMs, Supplier<String> message) {
+        if (!isEnabled(LogLevel.WARN)) {
+            return;
+        }
+        Throttle throttle = throttles.computeIfAbsent(key, k -> new Throttle());
+        long suppressed = throttle.tryPass(intervalMs);
+        if (suppressed < 0) {
+            return;
+        }
+        log(LogLevel.WARN, message.get() + (suppressed > 0 ? " (" + suppressed + " similar suppressed)" : ""), null);
+    }
+
+    private static void log(LogLevel messageLevel, String message, Throwable throwable) {
+        if (!isEnabled(messageLevel)) {
+            return;
+        }
+        Appender current = appender;
+        if (current == null) {
+            write(messageLevel, message, throwable);
+        } else {
+            current.enqueue(new Entry(messageLevel, message, throwable));
+        }
+    }
+
+    private static void write(LogLevel messageLevel, String message, Throwable throwable) {
+        if (messageLevel.ordinal() <= LogLevel.WARN.ordinal()) {
+            System.err.println(PREFIX + message);
+        } else {
+            System.out.println(PREFIX + message);
+        }
+        if (throwable != null) {
+            throwable.printStackTrace();
+        }
+    }
+
+    private static final class Entry {
+        final LogLevel level;
+        final String message;
+        final Throwable throwable;
+
+        Entry(LogLevel level, String message, Throwable throwable) {
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
+    }
+
+    /**
+     * Allows one message per interval and counts the rest
+     */
+    private static final class Throttle {
+        private final AtomicLong nextAllowedMs = new AtomicLong(0);
+        private final AtomicLong suppressed = new AtomicLong(0);
+
+        /**
+         * @return Messages suppressed since the last one that passed, or -1 if
+         *         this one is suppressed
+         */
+        long tryPass(long intervalMs) {
+            long now = System.currentTimeMillis();
+            long next = nextAllowedMs.get();
+            if (now >= next && nextAllowedMs.compareAndSet(next, now + intervalMs)) {
+                return suppressed.getAndSet(0);
+            }
+            suppressed.incrementAndGet();
+            return -1;
+        }
+    }
+
+    /**
+     * Ring buffer drained by one daemon thread, which also emits summaries
+     */
+    private static final class Appender {
+        private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        private final AtomicLong dropped = new AtomicLong(0);
+        private final long summaryIntervalMs;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Appender(long summaryIntervalMs) {
+            this.summaryIntervalMs = summaryIntervalMs;
+            this.thread = new Thread(this::run, "Worldmap-Log");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void enqueue(Entry entry) {
+            if (!queue.offer(entry)) {
+                dropped.incrementAndGet();
+            }
+        }
+
+        void stop() {
+            running = false;
+            thread.interrupt();
+            try {
+                thread.join(SHUTDOWN_FLUSH_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void run() {
+            long lastSummary = System.currentTimeMillis();
+            while (running) {
+                long now = System.currentTimeMillis();
+                long untilSummary = lastSummary + summaryIntervalMs - now;
+                if (untilSummary <= 0) {
+                    summarize(now - lastSummary);
+                    lastSummary = now;
+                    continue;
+                }
+                try {
+                    Entry entry = queue.poll(untilSummary, TimeUnit.MILLISECONDS);
+                    if (entry != null) {
+                        reportDropped();
+                        write(entry.level, entry.message, entry.throwable);
+                    }
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+
+            // Flush what is left so shutdown messages are not lost
+            summarize(System.currentTimeMillis() - lastSummary);
+            Entry entry;
+            while ((entry = queue.poll()) != null) {
+                write(entry.level, entry.message, entry.throwable);
+            }
+            reportDropped();
+        }
+
+        private void summarize(long elapsedMs) {
+            for (Summary summary : summaries) {
+                try {
+                    String line = summary.summarize(elapsedMs);
+                    if (line != null) {
+                        write(LogLevel.INFO, line, null);
+                    }
+                } catch (RuntimeException e) {
+                    write(LogLevel.WARN, "Failed to build log summary: " + e.getMessage(), null);
+                }
+            }
+        }
+
+        private void reportDropped() {
+            long count = dropped.getAndSet(0);
+            if (count > 0) {
+                write(LogLevel.WARN, "Log buffer full, dropped " + count + " messages", null);
+            }
+        }
+    }
+}
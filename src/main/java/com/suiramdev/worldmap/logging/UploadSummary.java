@@ -0,0 +1,94 @@
+package com.suiramdev.worldmap.logging;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Aggregates per-request upload outcomes into one periodic log line, e.g.
+ * "Uploaded 412 chunks in 10s (37 requests, p50 40ms, p99 180ms, 3 failed,
+ * 5 retries, 1.2 MB)".
+ *
+ * Latencies are kept in a fixed-size reservoir sample, so percentiles stay
+ * representative without storing every request of a busy interval.
+ */
+public class UploadSummary implements Log.Summary {
+    private static final int RESERVOIR_SIZE = 4096;
+
+    // Guarded by this
+    private final long[] latencies = new long[RESERVOIR_SIZE];
+    private long attempts;
+    private long requests;
+    private long chunks;
+    private long failedChunks;
+    private long retries;
+    private long bytes;
+
+    /**
+     * Record an attempt that got a response or an error back
+     */
+    public synchronized void recordAttempt(long latencyNanos) {
+        if (attempts < RESERVOIR_SIZE) {
+            latencies[(int) attempts] = latencyNanos;
+        } else {
+            long slot = ThreadLocalRandom.current().nextLong(attempts + 1);
+            if (slot < RESERVOIR_SIZE) {
+                latencies[(int) slot] = latencyNanos;
+            }
+        }
+        attempts++;
+    }
+
+    public synchronized void recordRetry() {
+        retries++;
+    }
+
+    /**
+     * Record a request whose last attempt finished
+     *
+     * @param chunkCount Chunks carried by the request
+     * @param bodyBytes  Size of the body as sent
+     */
+    public synchronized void recordRequest(int chunkCount, int bodyBytes, boolean success) {
+        requests++;
+        bytes += bodyBytes;
+        if (success) {
+            chunks += chunkCount;
+        } else {
+            failedChunks += chunkCount;
+        }
+    }
+
+    @Override
+    public synchronized String summarize(long elapsedMs) {
+        if (requests == 0 && attempts == 0) {
+            return null;
+        }
+
+        StringBuilder line = new StringBuilder(128);
+        line.append("Uploaded ").append(chunks).append(" chunks in ").append(Math.round(elapsedMs / 1000.0))
+                .append("s (").append(requests).append(" requests");
+        int samples = (int) Math.min(attempts, RESERVOIR_SIZE);
+        if (samples > 0) {
+            long[] sorted = Arrays.copyOf(latencies, samples);
+            Arrays.sort(sorted);
+            line.append(", p50 ").append(percentileMs(sorted, 0.5)).append("ms, p99 ")
+                    .append(percentileMs(sorted, 0.99)).append("ms");
+        }
+        line.append(", ").append(failedChunks).append(" failed, ").append(retries).append(" retries, ")
+                .append(String.format(Locale.ROOT, "%.1f", bytes / (1024.0 * 1024.0))).append(" MB)");
+
+        attempts = 0;
+        requests = 0;
+        chunks = 0;
+        failedChunks = 0;
+        retries = 0;
+        bytes = 0;
+        return line.toString();
+    }
+
+    private static long percentileMs(long[] sorted, double percentile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000;
+    }
+}
@@ -0,0 +1,68 @@
+package com.suiramdev.worldmap.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket histogram. Observing a value touches one bucket adder, the sum
+ * and the count; buckets are only accumulated when scraped.
+ */
+public class Histogram {
+    private final double[] bounds;
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * @param bounds Upper bounds of the buckets, ascending; +Inf is implied
+     */
+    public Histogram(double[] bounds) {
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observe(double value) {
+        int bucket = 0;
+        while (bucket < bounds.length && value > bounds[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sum.add(value);
+        count.increment();
+    }
+
+    /**
+     * Observe a duration measured with System.nanoTime, in seconds
+     */
+    public void observeNanos(long nanos) {
+        observe(nanos / 1e9);
+    }
+
+    double[] getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return Cumulative counts per bucket, the last one being +Inf
+     */
+    long[] cumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long running = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            running += buckets[i].sum();
+            counts[i] = running;
+        }
+        return counts;
+    }
+
+    double getSum() {
+        return sum.sum();
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,135 @@
+package com.suiramdev.worldmap.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named counters, gauges and histograms rendered in the Prometheus text
+ * exposition format.
+ *
+ * Instruments are registered once and then updated without touching the
+ * registry, so the hot path never takes a lock. Registering a name again
+ * replaces the previous instrument, e.g. when the plugin is restarted.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    // By name, in registration order; registering a name again replaces it
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    public static MetricsRegistry get() {
+        return DEFAULT;
+    }
+
+    public synchronized Counter counter(String name, String help) {
+        Counter counter = new Counter();
+        register(new Family(name, help, "counter", null, () -> counter.get()));
+        return counter;
+    }
+
+    /**
+     * Counter whose value is read from elsewhere when scraped
+     */
+    public synchronized void counter(String name, String help, DoubleSupplier value) {
+        register(new Family(name, help, "counter", null, value));
+    }
+
+    public synchronized void gauge(String name, String help, DoubleSupplier value) {
+        register(new Family(name, help, "gauge", null, value));
+    }
+
+    public synchronized Histogram histogram(String name, String help, double[] bounds) {
+        Histogram histogram = new Histogram(bounds);
+        Family family = new Family(name, help, "histogram", null, null);
+        family.histograms.put("", histogram);
+        register(family);
+        return histogram;
+    }
+
+    /**
+     * Histogram split by the value of one label, e.g. HTTP status
+     */
+    public synchronized LabeledHistogram histogram(String name, String help, String labelName, double[] bounds) {
+        Family family = new Family(name, help, "histogram", labelName, null);
+        register(family);
+        return value -> family.histograms.computeIfAbsent(value, key -> new Histogram(bounds));
+    }
+
+    /**
+     * Render every metric in the Prometheus text format
+     */
+    public synchronized String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            if (family.value != null) {
+                out.append(family.name).append(' ').append(format(family.value.getAsDouble())).append('\n');
+                continue;
+            }
+            for (Map.Entry<String, Histogram> entry : family.histograms.entrySet()) {
+                String label = family.labelName == null
+                        ? ""
+                        : family.labelName + "=\"" + escape(entry.getKey()) + "\",";
+                appendHistogram(out, family.name, label, entry.getValue());
+            }
+        }
+        return out.toString();
+    }
+
+    private void register(Family family) {
+        families.put(family.name, family);
+    }
+
+    private static void appendHistogram(StringBuilder out, String name, String label, Histogram histogram) {
+        double[] bounds = histogram.getBounds();
+        long[] counts = histogram.cumulativeCounts();
+        for (int i = 0; i < counts.length; i++) {
+            String le = i < bounds.length ? format(bounds[i]) : "+Inf";
+            out.append(name).append("_bucket{").append(label).append("le=\"").append(le).append("\"} ")
+                    .append(counts[i]).append('\n');
+        }
+        String labels = label.isEmpty() ? "" : "{" + label.substring(0, label.length() - 1) + "}";
+        out.append(name).append("_sum").append(labels).append(' ').append(format(histogram.getSum())).append('\n');
+        out.append(name).append("_count").append(labels).append(' ').append(histogram.getCount()).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%s", value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Histogram family keyed by one label value
+     */
+    @FunctionalInterface
+    public interface LabeledHistogram {
+        Histogram labels(String value);
+    }
+
+    private static class Family {
+        final String name;
+        final String help;
+        final String type;
+        final String labelName;
+        final DoubleSupplier value;
+        final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+        Family(String name, String help, String type, String labelName, DoubleSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labelName = labelName;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.suiramdev.worldmap.metrics;
+
+/**
+ * Instruments updated on the chunk pipeline's hot paths
+ */
+public final class PipelineMetrics {
+    // Bucket bounds in seconds and bytes
+    private static final double[] LATENCY_BUCKETS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1,
+            2.5, 5, 10, 30 };
+    private static final double[] SIZE_BUCKETS = { 1024, 4096, 16384, 65536, 262144, 1048576, 4194304, 16777216 };
+    private static final double[] RATIO_BUCKETS = { 0.05, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.8, 1 };
+
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.get();
+
+    public static final Histogram CHUNK_LOAD_WAIT = REGISTRY.histogram("worldmap_chunk_load_wait_seconds",
+            "Time from requesting a chunk from the world until it is available", LATENCY_BUCKETS);
+    public static final Histogram EXTRACTION_TIME = REGISTRY.histogram("worldmap_chunk_extraction_seconds",
+            "Time spent extracting blocks, heights and tints from a chunk", LATENCY_BUCKETS);
+    public static final Histogram SERIALIZED_BYTES = REGISTRY.histogram("worldmap_chunk_serialized_bytes",
+            "Size of a serialized request body before compression", SIZE_BUCKETS);
+    public static final Histogram COMPRESSION_RATIO = REGISTRY.histogram("worldmap_compression_ratio",
+            "Compressed request body size divided by its original size", RATIO_BUCKETS);
+    public static final MetricsRegistry.LabeledHistogram HTTP_LATENCY = REGISTRY.histogram(
+            "worldmap_http_request_duration_seconds", "Worker API request latency by response status", "status",
+            LATENCY_BUCKETS);
+    public static final Counter HTTP_RETRIES = REGISTRY.counter("worldmap_http_retries_total",
+            "Worker API requests scheduled for another attempt");
+    public static final Counter HTTP_REJECTED = REGISTRY.counter("worldmap_http_circuit_rejected_total",
+            "Requests not sent because the circuit breaker was open");
+    public static final Histogram TILE_RENDER_TIME = REGISTRY.histogram("worldmap_tile_render_seconds",
+            "Time to render a chunk into a tile and encode it as PNG", LATENCY_BUCKETS);
+    public static final Histogram TILE_PYRAMID_SWEEP_TIME = REGISTRY.histogram("worldmap_tile_pyramid_sweep_seconds",
+            "Time to rebuild the zoomed-out tiles dirtied since the previous sweep", LATENCY_BUCKETS);
+    public static final Histogram STORAGE_FLUSH_TIME = REGISTRY.histogram("worldmap_storage_flush_seconds",
+            "Time to append and fsync a batch of processed chunks to the journal", LATENCY_BUCKETS);
+
+    private PipelineMetrics() {
+    }
+}
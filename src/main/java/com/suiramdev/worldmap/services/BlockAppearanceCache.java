@@ -0,0 +1,176 @@
+package com.suiramdev.worldmap.services;
+
+import com.hypixel.hytale.assetstore.map.BlockTypeAssetMap;
+import com.hypixel.hytale.protocol.Opacity;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockTypeTextures;
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.services.ChunkProcessingService.BlockTextureInfo;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Process-wide cache of block appearance indexed by block ID.
+ *
+ * Entries are resolved lazily from the BlockType asset map the first time an
+ * ID is seen and then shared by every chunk as canonical
+ * {@link BlockTextureInfo} instances. Lookups are a single array read. The
+ * cache must be invalidated when block type assets are reloaded; an entry
+ * resolved from the old assets while that happens is not cached.
+ */
+public class BlockAppearanceCache {
+    private static final String UNKNOWN_TEXTURE = "BlockTextures/Unknown.png";
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /** Marker for IDs that have been resolved but have no block type */
+    private static final BlockTextureInfo MISSING = new BlockTextureInfo();
+
+    private volatile AtomicReferenceArray<BlockTextureInfo> entries = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private volatile int generation; // Bumped before every invalidation swaps the table
+
+    /**
+     * Get texture information for a block ID
+     *
+     * @return Canonical BlockTextureInfo, or null if the block type is unknown
+     */
+    public BlockTextureInfo get(int blockId) {
+        if (blockId < 0) {
+            return null;
+        }
+
+        AtomicReferenceArray<BlockTextureInfo> table = entries;
+        BlockTextureInfo info = blockId < table.length() ? table.get(blockId) : null;
+        if (info == null) {
+            info = resolve(blockId);
+        }
+        return info == MISSING ? null : info;
+    }
+
+    /**
+     * Whether a block hides everything below it when seen from above. Unknown
+     * blocks count as opaque.
+     */
+    public boolean isOpaque(int blockId) {
+        BlockTextureInfo info = get(blockId);
+        return info == null || info.opaque;
+    }
+
+    /**
+     * Drop every cached entry, e.g. after block type assets were reloaded
+     */
+    public synchronized void invalidate() {
+        generation++;
+        entries = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        Log.debug(() -> "Block appearance cache invalidated");
+    }
+
+    private BlockTextureInfo resolve(int blockId) {
+        int resolvedGeneration = generation;
+        BlockTextureInfo info = extractBlockTextureInfo(blockId);
+        if (info == null) {
+            info = MISSING;
+        }
+
+        AtomicReferenceArray<BlockTextureInfo> table = ensureCapacity(blockId);
+        // The assets may have been reloaded during the lookup. Checked after reading
+        // the table, so a table from after the reload always fails the check.
+        if (generation != resolvedGeneration) {
+            return info;
+        }
+        // Keep the first published instance so every chunk shares the same object
+        if (!table.compareAndSet(blockId, null, info)) {
+            BlockTextureInfo existing = table.get(blockId);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return info;
+    }
+
+    private AtomicReferenceArray<BlockTextureInfo> ensureCapacity(int blockId) {
+        AtomicReferenceArray<BlockTextureInfo> table = entries;
+        if (blockId < table.length()) {
+            return table;
+        }
+
+        synchronized (this) {
+            table = entries;
+            if (blockId >= table.length()) {
+                int capacity = table.length();
+                while (capacity <= blockId) {
+                    capacity <<= 1;
+                }
+                AtomicReferenceArray<BlockTextureInfo> grown = new AtomicReferenceArray<>(capacity);
+                for (int i = 0; i < table.length(); i++) {
+                    grown.set(i, table.get(i));
+                }
+                entries = grown;
+                table = grown;
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Extract texture information for a block ID from the BlockType asset map
+     *
+     * @param blockId The block ID
+     * @return BlockTextureInfo containing texture paths, or null if block type not
+     *         found
+     */
+    BlockTextureInfo extractBlockTextureInfo(int blockId) {
+        try {
+            BlockTypeAssetMap<String, BlockType> blockTypeAssetMap = BlockType.getAssetMap();
+            BlockType blockType = blockTypeAssetMap.getAsset(blockId);
+            if (blockType == null) {
+                return null;
+            }
+
+            // Glass, leaves and plants let the top-down view through to the block below
+            Opacity opacity = blockType.getOpacity();
+            boolean opaque = opacity == null || opacity == Opacity.Solid;
+
+            BlockTextureInfo info;
+            BlockTypeTextures[] textures = blockType.getTextures();
+            if (textures == null || textures.length == 0) {
+                // Use default unknown texture
+                info = new BlockTextureInfo(
+                        UNKNOWN_TEXTURE,
+                        UNKNOWN_TEXTURE,
+                        UNKNOWN_TEXTURE,
+                        UNKNOWN_TEXTURE,
+                        UNKNOWN_TEXTURE,
+                        UNKNOWN_TEXTURE,
+                        false);
+                info.opaque = opaque;
+                return info;
+            }
+
+            // Use the first texture variant (most common case)
+            BlockTypeTextures firstTexture = textures[0];
+
+            // Check if this block should be tinted using BiomeTint properties from
+            // BlockType
+            // A block should be tinted if any of its biomeTint values are non-zero
+            boolean shouldTint = blockType.getBiomeTintUp() != 0 ||
+                    blockType.getBiomeTintDown() != 0 ||
+                    blockType.getBiomeTintNorth() != 0 ||
+                    blockType.getBiomeTintSouth() != 0 ||
+                    blockType.getBiomeTintWest() != 0 ||
+                    blockType.getBiomeTintEast() != 0;
+
+            info = new BlockTextureInfo(
+                    firstTexture.getUp(),
+                    firstTexture.getDown(),
+                    firstTexture.getNorth(),
+                    firstTexture.getSouth(),
+                    firstTexture.getEast(),
+                    firstTexture.getWest(),
+                    shouldTint);
+            info.opaque = opaque;
+            return info;
+        } catch (Exception e) {
+            Log.debug(() -> "Error extracting texture for block ID " + blockId + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
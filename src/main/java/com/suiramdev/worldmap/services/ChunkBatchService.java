@@ -0,0 +1,323 @@
+package com.suiramdev.worldmap.services;
+
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.services.HttpClientService.EncodedChunk;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups extracted chunks by world and spatial region and uploads each group as
+ * a single multi-chunk request.
+ *
+ * A region's pending batch is flushed when it reaches the configured chunk
+ * count or byte budget, or when its oldest chunk has waited longer than the
+ * linger timeout. Each submitted chunk gets its own future, completed from the
+ * per-chunk result array of the batch response. A chunk submitted again while
+ * an older copy still waits in its batch replaces that copy, so a batch never
+ * holds the same chunk twice. The older copy's future then completes as
+ * superseded and leaves recording the upload to the newer one.
+ *
+ * Bytes held in pending and in-flight batches are bounded. A chunk is accepted
+ * right away while the total stays within the bound; past it, every pending
+ * batch is sent early and the chunk is accepted once finished batches bring
+ * the total back under the bound. Callers hold their in-flight slot only until
+ * their chunk is accepted, so the bound rather than the slot count decides how
+ * many chunks wait in batches.
+ */
+public class ChunkBatchService {
+    private final HttpClientService httpClient;
+    private final int maxChunks;
+    private final int maxBytes;
+    private final long lingerMs;
+    private final int regionSize;
+    private final long maxQueuedBytes;
+    private final boolean debugMode;
+
+    private final Map<RegionKey, PendingBatch> pending = new HashMap<>();
+    private long queuedBytes; // Pending and in-flight batch bytes, guarded by pending
+    private final ArrayDeque<CompletableFuture<Void>> waiting = new ArrayDeque<>(); // Guarded by pending
+    private final List<CompletableFuture<?>> inFlight = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * How a submitted chunk ended
+     */
+    public enum Outcome {
+        /** The worker acknowledged the chunk */
+        ACKNOWLEDGED,
+        /** The chunk could not be serialized, or its batch or entry failed */
+        FAILED,
+        /** A newer copy of the chunk replaced this one before its batch was sent */
+        SUPERSEDED
+    }
+
+    /**
+     * @param maxQueuedBytes Bytes held in pending and in-flight batches before
+     *                       new chunks have to wait to be accepted
+     */
+    public ChunkBatchService(HttpClientService httpClient, int maxChunks, int maxBytes, int lingerMs, int regionSize,
+            long maxQueuedBytes, boolean debugMode) {
+        this.httpClient = httpClient;
+        this.maxChunks = Math.max(1, maxChunks);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.lingerMs = Math.max(1, lingerMs);
+        this.regionSize = Math.max(1, regionSize);
+        this.maxQueuedBytes = Math.max(this.maxBytes, maxQueuedBytes);
+        this.debugMode = debugMode;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Worldmap-Batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkInterval = Math.max(50, this.lingerMs / 4);
+        scheduler.scheduleAtFixedRate(this::flushExpired, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a chunk for upload in its region's next batch
+     *
+     * @return CompletableFuture that completes with the chunk's outcome
+     */
+    public CompletableFuture<Outcome> submit(ChunkProcessingService.ChunkData chunkData) {
+        return submit(chunkData, null);
+    }
+
+    /**
+     * Queue a chunk for upload in its region's next batch
+     *
+     * @param accepted Completed once the batcher has room for the chunk, or
+     *                 null
+     * @return CompletableFuture that completes with the chunk's outcome
+     */
+    public CompletableFuture<Outcome> submit(ChunkProcessingService.ChunkData chunkData,
+            CompletableFuture<Void> accepted) {
+        EncodedChunk encoded;
+        try {
+            encoded = new EncodedChunk(chunkData.chunkX, chunkData.chunkZ, httpClient.encodeChunk(chunkData));
+        } catch (Exception e) {
+            Log.error("Failed to serialize chunk data for (" + chunkData.chunkX + "," + chunkData.chunkZ + "): "
+                    + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()), debugMode ? e : null);
+            return CompletableFuture.completedFuture(Outcome.FAILED);
+        }
+
+        CompletableFuture<Outcome> result = new CompletableFuture<>();
+        CompletableFuture<Outcome> superseded;
+        List<PendingBatch> ready = new ArrayList<>(2);
+        RegionKey regionKey = regionKey(chunkData.world, chunkData.chunkX, chunkData.chunkZ);
+
+        synchronized (pending) {
+            PendingBatch batch = pending.get(regionKey);
+            if (batch != null && batch.bytes + encoded.payload.length > maxBytes) {
+                // Adding this chunk would exceed the byte budget, send what we have first
+                pending.remove(regionKey);
+                ready.add(batch);
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new PendingBatch(regionKey);
+                pending.put(regionKey, batch);
+            }
+            long bytesBefore = batch.bytes;
+            superseded = batch.add(encoded, result);
+            queuedBytes += batch.bytes - bytesBefore;
+            if (batch.chunks.size() >= maxChunks || batch.bytes >= maxBytes) {
+                pending.remove(regionKey);
+                ready.add(batch);
+            }
+
+            if (queuedBytes <= maxQueuedBytes) {
+                if (accepted != null) {
+                    accepted.complete(null);
+                }
+            } else {
+                if (accepted != null) {
+                    waiting.add(accepted);
+                }
+                // Waiting for the linger timeout would only hold the bytes longer
+                ready.addAll(pending.values());
+                pending.clear();
+            }
+        }
+
+        if (superseded != null) {
+            superseded.complete(Outcome.SUPERSEDED);
+        }
+        for (PendingBatch batch : ready) {
+            flush(batch);
+        }
+        return result;
+    }
+
+    /**
+     * Flush every pending batch and wait for in-flight batches to finish
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        flushAll();
+
+        CompletableFuture<?>[] waiting;
+        synchronized (inFlight) {
+            waiting = inFlight.toArray(new CompletableFuture<?>[0]);
+        }
+        try {
+            CompletableFuture.allOf(waiting).get(60, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.warn("Timed out waiting for chunk batches to finish: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Flush every pending batch regardless of age or size
+     */
+    public void flushAll() {
+        List<PendingBatch> batches;
+        synchronized (pending) {
+            batches = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        for (PendingBatch batch : batches) {
+            flush(batch);
+        }
+    }
+
+    private void flushExpired() {
+        long now = System.currentTimeMillis();
+        List<PendingBatch> expired = new ArrayList<>();
+        synchronized (pending) {
+            Iterator<PendingBatch> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                PendingBatch batch = iterator.next();
+                if (now - batch.createdAt >= lingerMs) {
+                    iterator.remove();
+                    expired.add(batch);
+                }
+            }
+        }
+        for (PendingBatch batch : expired) {
+            flush(batch);
+        }
+    }
+
+    private void flush(PendingBatch batch) {
+        if (batch.chunks.isEmpty()) {
+            return;
+        }
+
+        RegionKey key = batch.regionKey;
+        String target = "batch of " + batch.chunks.size() + " chunks in region (" + key.regionX + ","
+                + key.regionZ + ")" + (key.world != null ? " of " + key.world : "");
+
+        CompletableFuture<boolean[]> send = httpClient.sendChunkBatch(batch.chunks, target);
+        synchronized (inFlight) {
+            inFlight.add(send);
+        }
+        send.whenComplete((results, throwable) -> {
+            synchronized (inFlight) {
+                inFlight.remove(send);
+            }
+            released(batch.bytes);
+            for (int i = 0; i < batch.results.size(); i++) {
+                boolean success = throwable == null && results != null && i < results.length && results[i];
+                batch.results.get(i).complete(success ? Outcome.ACKNOWLEDGED : Outcome.FAILED);
+            }
+        });
+    }
+
+    /**
+     * Give back a finished batch's bytes and accept the chunks that waited for
+     * them
+     */
+    private void released(long bytes) {
+        List<CompletableFuture<Void>> accepted = new ArrayList<>();
+        synchronized (pending) {
+            queuedBytes -= bytes;
+            while (queuedBytes <= maxQueuedBytes && !waiting.isEmpty()) {
+                accepted.add(waiting.poll());
+            }
+        }
+        for (CompletableFuture<Void> future : accepted) {
+            future.complete(null);
+        }
+    }
+
+    private RegionKey regionKey(String world, int chunkX, int chunkZ) {
+        return new RegionKey(world, Math.floorDiv(chunkX, regionSize), Math.floorDiv(chunkZ, regionSize));
+    }
+
+    /**
+     * A region of one world; regions of different worlds never share a batch
+     */
+    private static final class RegionKey {
+        final String world;
+        final int regionX;
+        final int regionZ;
+
+        RegionKey(String world, int regionX, int regionZ) {
+            this.world = world;
+            this.regionX = regionX;
+            this.regionZ = regionZ;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RegionKey)) {
+                return false;
+            }
+            RegionKey key = (RegionKey) other;
+            return regionX == key.regionX && regionZ == key.regionZ && Objects.equals(world, key.world);
+        }
+
+        @Override
+        public int hashCode() {
+            return (Objects.hashCode(world) * 31 + regionX) * 31 + regionZ;
+        }
+    }
+
+    /**
+     * Chunks waiting to be sent for one region
+     */
+    private static class PendingBatch {
+        final RegionKey regionKey;
+        final long createdAt = System.currentTimeMillis();
+        final List<EncodedChunk> chunks = new ArrayList<>();
+        final List<CompletableFuture<Outcome>> results = new ArrayList<>();
+        final Map<Long, Integer> positions = new HashMap<>(); // Chunk coordinates to their index in chunks
+        long bytes;
+
+        PendingBatch(RegionKey regionKey) {
+            this.regionKey = regionKey;
+        }
+
+        /**
+         * Add a chunk, or replace the older copy of it already in the batch
+         *
+         * @return Future of the replaced copy, for the caller to complete
+         *         outside the lock, or null
+         */
+        CompletableFuture<Outcome> add(EncodedChunk chunk, CompletableFuture<Outcome> result) {
+            long key = (long) chunk.chunkX << 32 | (chunk.chunkZ & 0xFFFFFFFFL);
+            Integer position = positions.get(key);
+            if (position == null) {
+                positions.put(key, chunks.size());
+                chunks.add(chunk);
+                results.add(result);
+                bytes += chunk.payload.length;
+                return null;
+            }
+
+            EncodedChunk replaced = chunks.set(position, chunk);
+            bytes += chunk.payload.length - replaced.payload.length;
+            return results.set(position, result);
+        }
+    }
+}
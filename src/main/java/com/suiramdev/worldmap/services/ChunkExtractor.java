@@ -0,0 +1,204 @@
+package com.suiramdev.worldmap.services;
+
+import com.suiramdev.worldmap.config.ExtractionMode;
+import com.suiramdev.worldmap.utils.ChunkHasher;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Extracts blocks, heights, tints and block textures from a chunk into the
+ * structure uploaded to the API.
+ *
+ * In surface mode only what a top-down map shows is kept: each column is
+ * scanned downward from a little above the height map and the scan stops at
+ * the first opaque block, recording the blocks and fluid seen on the way.
+ */
+public class ChunkExtractor {
+    private static final int COLUMNS = 32 * 32;
+
+    private final IntFunction<ChunkProcessingService.BlockTextureInfo> textures;
+    private final IntPredicate opaque;
+    private final ExtractionMode mode;
+
+    /**
+     * @param textures Resolves a block ID to its textures, or null if unknown
+     */
+    public ChunkExtractor(IntFunction<ChunkProcessingService.BlockTextureInfo> textures) {
+        this(textures, blockId -> true, ExtractionMode.FULL);
+    }
+
+    /**
+     * @param textures Resolves a block ID to its textures, or null if unknown
+     * @param opaque   Whether a block ID hides what is below it, used in
+     *                 surface mode
+     */
+    public ChunkExtractor(IntFunction<ChunkProcessingService.BlockTextureInfo> textures, IntPredicate opaque,
+            ExtractionMode mode) {
+        this.textures = textures;
+        this.opaque = opaque;
+        this.mode = mode;
+    }
+
+    public ExtractionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @param chunkX Chunk X coordinate
+     * @param chunkZ Chunk Z coordinate
+     * @return ChunkData object containing extracted data
+     */
+    public ChunkProcessingService.ChunkData extract(ChunkSource chunk, int chunkX, int chunkZ) {
+        if (mode == ExtractionMode.SURFACE) {
+            return extractSurface(chunk, chunkX, chunkZ);
+        }
+
+        ChunkProcessingService.ChunkData data = new ChunkProcessingService.ChunkData();
+        data.chunkX = chunkX;
+        data.chunkZ = chunkZ;
+        data.timestamp = System.currentTimeMillis();
+
+        // Extract block data (32x320x32 - Hytale chunks are 32x32 blocks, 320 blocks
+        // tall)
+        int[][][] blocks = new int[32][320][32];
+        short[][] heightMap = new short[32][32];
+        int[][] tintMap = new int[32][32];
+
+        // Block IDs present in this chunk, resolved to textures once the scan is done
+        BitSet seenBlockIds = new BitSet();
+
+        // Content hash over heights, tints and blocks to detect unchanged chunks
+        ChunkHasher hasher = new ChunkHasher();
+
+        // Extract block data
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                // Get height map
+                heightMap[x][z] = chunk.getHeight(x, z);
+                // Get tint map
+                tintMap[x][z] = chunk.getTint(x, z);
+                hasher.update(heightMap[x][z]);
+                hasher.update(tintMap[x][z]);
+
+                // Extract blocks for this column (only up to height to save space)
+                int maxY = Math.min(320, heightMap[x][z] + 10); // Include a bit above height
+                for (int y = 0; y < maxY; y++) {
+                    int blockId = chunk.getBlock(x, y, z);
+                    blocks[x][y][z] = blockId;
+                    hasher.update(blockId);
+                    if (blockId >= 0) {
+                        seenBlockIds.set(blockId);
+                    }
+                }
+            }
+        }
+
+        data.blocks = blocks;
+        data.heightMap = heightMap;
+        data.tintMap = tintMap;
+        data.blockTextures = resolveTextures(seenBlockIds);
+        data.contentHash = hasher.finish();
+        // Environment data is available but may need special handling
+        // For now, we'll include a flag that it exists
+        data.hasEnvironmentData = chunk.hasEnvironmentData();
+        return data;
+    }
+
+    private ChunkProcessingService.ChunkData extractSurface(ChunkSource chunk, int chunkX, int chunkZ) {
+        ChunkProcessingService.ChunkData data = new ChunkProcessingService.ChunkData();
+        data.chunkX = chunkX;
+        data.chunkZ = chunkZ;
+        data.timestamp = System.currentTimeMillis();
+
+        short[][] heightMap = new short[32][32];
+        int[][] tintMap = new int[32][32];
+        ChunkProcessingService.SurfaceData surface = new ChunkProcessingService.SurfaceData();
+        surface.topBlocks = new int[COLUMNS];
+        surface.groundBlocks = new int[COLUMNS];
+        surface.groundHeights = new short[COLUMNS];
+        surface.fluidIds = new int[COLUMNS];
+        surface.fluidDepths = new byte[COLUMNS];
+
+        BitSet seenBlockIds = new BitSet();
+        ChunkHasher hasher = new ChunkHasher();
+
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                short height = chunk.getHeight(x, z);
+                int tint = chunk.getTint(x, z);
+                heightMap[x][z] = height;
+                tintMap[x][z] = tint;
+
+                int topBlock = 0;
+                int groundBlock = 0;
+                int groundY = -1;
+                int fluidId = 0;
+                int fluidDepth = 0;
+
+                // Same margin above the height map as full extraction
+                for (int y = Math.min(319, height + 10); y >= 0; y--) {
+                    int blockId = chunk.getBlock(x, y, z);
+                    if (blockId > 0) {
+                        if (topBlock == 0) {
+                            topBlock = blockId;
+                        }
+                        if (opaque.test(blockId)) {
+                            groundBlock = blockId;
+                            groundY = y;
+                            break;
+                        }
+                    }
+                    int fluid = chunk.getFluidId(x, y, z);
+                    if (fluid > 0) {
+                        if (fluidId == 0) {
+                            fluidId = fluid;
+                        }
+                        fluidDepth++;
+                    }
+                }
+
+                int column = x * 32 + z;
+                surface.topBlocks[column] = topBlock;
+                surface.groundBlocks[column] = groundBlock;
+                surface.groundHeights[column] = (short) groundY;
+                surface.fluidIds[column] = fluidId;
+                surface.fluidDepths[column] = (byte) Math.min(127, fluidDepth);
+                seenBlockIds.set(topBlock);
+                seenBlockIds.set(groundBlock);
+
+                hasher.update(height);
+                hasher.update(tint);
+                hasher.update(topBlock);
+                hasher.update(groundBlock);
+                hasher.update(groundY);
+                hasher.update(fluidId);
+                hasher.update(fluidDepth);
+            }
+        }
+
+        data.heightMap = heightMap;
+        data.tintMap = tintMap;
+        data.surface = surface;
+        data.blockTextures = resolveTextures(seenBlockIds);
+        data.contentHash = hasher.finish();
+        data.hasEnvironmentData = chunk.hasEnvironmentData();
+        return data;
+    }
+
+    /**
+     * Look up textures for the block IDs a chunk uses, so each is sent once
+     */
+    private Map<Integer, ChunkProcessingService.BlockTextureInfo> resolveTextures(BitSet blockIds) {
+        Map<Integer, ChunkProcessingService.BlockTextureInfo> blockTextures = new HashMap<>();
+        for (int blockId = blockIds.nextSetBit(0); blockId >= 0; blockId = blockIds.nextSetBit(blockId + 1)) {
+            ChunkProcessingService.BlockTextureInfo textureInfo = textures.apply(blockId);
+            if (textureInfo != null) {
+                blockTextures.put(blockId, textureInfo);
+            }
+        }
+        return blockTextures;
+    }
+}
@@ -1,18 +1,22 @@
 package com.suiramdev.worldmap.services;
 
-import com.hypixel.hytale.assetstore.map.BlockTypeAssetMap;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockTypeTextures;
+import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
 import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
-import com.hypixel.hytale.server.core.universe.world.chunk.environment.EnvironmentChunk;
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.metrics.PipelineMetrics;
 import com.suiramdev.worldmap.storage.StorageService;
-import java.util.HashMap;
+import com.suiramdev.worldmap.storage.WorldStorage;
+import com.suiramdev.worldmap.tiles.TileService;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -20,216 +24,238 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class ChunkProcessingService {
     private final HttpClientService httpClient;
-    private final StorageService storage;
+    private final ChunkBatchService batchService;
+    private final OutboxDrainer outbox;
+    private final WorldStorage storages;
+    private final ChunkExtractor extractor;
+    private final TileService tileService;
     private final boolean debugMode;
     private final ExecutorService executorService;
     private final AtomicInteger processedCount = new AtomicInteger(0);
     private final AtomicInteger failedCount = new AtomicInteger(0);
+    private final AtomicInteger unchangedCount = new AtomicInteger(0);
+    private final AtomicInteger spooledCount = new AtomicInteger(0);
+    private final Set<CompletableFuture<Boolean>> pendingTasks = ConcurrentHashMap.newKeySet();
 
-    public ChunkProcessingService(HttpClientService httpClient, StorageService storage, boolean debugMode) {
+    /**
+     * @param batchService Batcher to upload through, or null to send each chunk
+     *                     in its own request
+     * @param outbox       Outbox for chunks the API could not take, or null to
+     *                     drop them
+     * @param extractor    Extractor configured with the block appearance lookups
+     *                     and the extraction mode
+     * @param tileService  Renderer for map tiles, or null to not render any
+     */
+    public ChunkProcessingService(HttpClientService httpClient, ChunkBatchService batchService, OutboxDrainer outbox,
+            WorldStorage storages, ChunkExtractor extractor, TileService tileService, boolean debugMode) {
         this.httpClient = httpClient;
-        this.storage = storage;
+        this.batchService = batchService;
+        this.outbox = outbox;
+        this.storages = storages;
+        this.extractor = extractor;
+        this.tileService = tileService;
         this.debugMode = debugMode;
-        this.executorService = Executors.newFixedThreadPool(10);
+        // Extraction and serialization are CPU bound; uploads never block these threads
+        AtomicInteger threadCount = new AtomicInteger(0);
+        this.executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "Worldmap-Extract-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
      * Process a single chunk
      * 
+     * @param world  Name of the world the chunk belongs to
      * @param chunkX Chunk X coordinate
      * @param chunkZ Chunk Z coordinate
-     * @param chunk  The chunk object
+     * @param chunk  The WorldChunk, or any other ChunkSource
+     */
+    public CompletableFuture<Boolean> processChunk(String world, int chunkX, int chunkZ, Object chunk) {
+        return processChunk(world, chunkX, chunkZ, chunk, new CompletableFuture<>());
+    }
+
+    /**
+     * Process a single chunk, signalling when it no longer needs its in-flight
+     * slot
+     *
+     * @param released Completed once the chunk sits in a batch or is done
      */
-    public CompletableFuture<Boolean> processChunk(int chunkX, int chunkZ, Object chunk) {
+    public CompletableFuture<Boolean> processChunk(String world, int chunkX, int chunkZ, Object chunk,
+            CompletableFuture<Void> released) {
+        long chunkIndex = ChunkUtil.indexChunk(chunkX, chunkZ);
+
         // Check if already processed
-        if (storage.isChunkProcessed(chunkX, chunkZ)) {
-            if (debugMode) {
-                System.out.println("[Worldmap] Chunk (" + chunkX + "," + chunkZ + ") already processed, skipping");
-            }
+        if (storages.get(world).isChunkProcessed(chunkIndex)) {
+            Log.debug(() -> "Chunk (" + chunkX + "," + chunkZ + ") already processed, skipping");
+            released.complete(null);
             return CompletableFuture.completedFuture(true);
         }
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Extract chunk data
-                ChunkData chunkData = extractChunkData(chunk, chunkX, chunkZ);
-
-                // Send to API
-                return httpClient.sendChunkData(chunkData)
-                        .thenApply(success -> {
-                            if (success) {
-                                storage.markChunkProcessed(chunkX, chunkZ);
-                                int count = processedCount.incrementAndGet();
-
-                                // Log progress every 100 chunks
-                                if (count % 100 == 0) {
-                                    System.out.println("[Worldmap] Processed " + count + " chunks (failed: "
-                                            + failedCount.get() + ")");
-                                }
-
-                                return true;
-                            } else {
-                                failedCount.incrementAndGet();
-                                return false;
-                            }
-                        })
-                        .join();
-            } catch (Exception e) {
-                System.err.println(
-                        "[Worldmap] Error processing chunk (" + chunkX + "," + chunkZ + "): " + e.getMessage());
-                if (debugMode) {
-                    e.printStackTrace();
-                }
-                failedCount.incrementAndGet();
-                return false;
-            }
-        }, executorService);
+        return process(world, chunkIndex, chunkX, chunkZ, chunk, released);
     }
 
     /**
-     * Extract chunk data from a chunk object
-     * 
-     * @param chunk  The WorldChunk object from Hytale
+     * Process a chunk even if it was processed before. The upload is skipped
+     * when the chunk's content hash matches its last acknowledged upload.
+     *
+     * @param world  Name of the world the chunk belongs to
      * @param chunkX Chunk X coordinate
      * @param chunkZ Chunk Z coordinate
-     * @return ChunkData object containing extracted data
+     * @param chunk  The WorldChunk, or any other ChunkSource
      */
-    private ChunkData extractChunkData(Object chunk, int chunkX, int chunkZ) {
-        ChunkData data = new ChunkData();
-        data.chunkX = chunkX;
-        data.chunkZ = chunkZ;
-        data.timestamp = System.currentTimeMillis();
+    public CompletableFuture<Boolean> reprocessChunk(String world, int chunkX, int chunkZ, Object chunk) {
+        return reprocessChunk(world, chunkX, chunkZ, chunk, new CompletableFuture<>());
+    }
 
-        try {
-            // Cast to WorldChunk
-            WorldChunk worldChunk = (WorldChunk) chunk;
-
-            // Extract block data (32x320x32 - Hytale chunks are 32x32 blocks, 320 blocks
-            // tall)
-            int[][][] blocks = new int[32][320][32];
-            short[][] heightMap = new short[32][32];
-            int[][] tintMap = new int[32][32];
-
-            // Map to store block textures (blockId -> texture info) to avoid duplication
-            Map<Integer, BlockTextureInfo> blockTextures = new HashMap<>();
-
-            // Get BlockType asset map for texture lookup
-            BlockTypeAssetMap<String, BlockType> blockTypeAssetMap = BlockType.getAssetMap();
-
-            // Extract block data
-            for (int x = 0; x < 32; x++) {
-                for (int z = 0; z < 32; z++) {
-                    // Get height map
-                    heightMap[x][z] = worldChunk.getHeight(x, z);
-                    // Get tint map
-                    tintMap[x][z] = worldChunk.getTint(x, z);
-
-                    // Extract blocks for this column (only up to height to save space)
-                    int maxY = Math.min(320, heightMap[x][z] + 10); // Include a bit above height
-                    for (int y = 0; y < maxY; y++) {
-                        int blockId = worldChunk.getBlock(x, y, z);
-                        blocks[x][y][z] = blockId;
-
-                        // Extract texture info for this block ID if not already stored
-                        if (!blockTextures.containsKey(blockId)) {
-                            BlockTextureInfo textureInfo = extractBlockTextureInfo(blockId, blockTypeAssetMap);
-                            if (textureInfo != null) {
-                                blockTextures.put(blockId, textureInfo);
-                            }
-                        }
+    /**
+     * Process a chunk even if it was processed before, signalling when it no
+     * longer needs its in-flight slot
+     *
+     * @param released Completed once the chunk sits in a batch or is done
+     */
+    public CompletableFuture<Boolean> reprocessChunk(String world, int chunkX, int chunkZ, Object chunk,
+            CompletableFuture<Void> released) {
+        return process(world, ChunkUtil.indexChunk(chunkX, chunkZ), chunkX, chunkZ, chunk, released);
+    }
+
+    private CompletableFuture<Boolean> process(String world, long chunkIndex, int chunkX, int chunkZ, Object chunk,
+            CompletableFuture<Void> released) {
+        StorageService storage = storages.get(world);
+        CompletableFuture<Boolean> task = CompletableFuture
+                .supplyAsync(() -> {
+                    long startedAt = System.nanoTime();
+                    ChunkData chunkData = extractChunkData(chunk, chunkX, chunkZ);
+                    chunkData.world = world;
+                    PipelineMetrics.EXTRACTION_TIME.observeNanos(System.nanoTime() - startedAt);
+                    return chunkData;
+                }, executorService)
+                // Serialize on the extraction thread, then send without holding it while the upload is pending
+                .thenCompose(chunkData -> {
+                    if (chunkData.contentHash != StorageService.UNKNOWN_HASH
+                            && storage.isChunkProcessed(chunkIndex)
+                            && storage.getChunkHash(chunkIndex) == chunkData.contentHash) {
+                        unchangedCount.incrementAndGet();
+                        Log.debug(() -> "Chunk (" + chunkX + "," + chunkZ + ") unchanged since last upload, skipping");
+                        return CompletableFuture.completedFuture(true);
                     }
-                }
-            }
 
-            data.blocks = blocks;
-            data.heightMap = heightMap;
-            data.tintMap = tintMap;
-            data.blockTextures = blockTextures;
-
-            // Extract environment/biome data if available
-            BlockChunk blockChunk = worldChunk.getBlockChunk();
-            if (blockChunk != null) {
-                EnvironmentChunk envChunk = blockChunk.getEnvironmentChunk();
-                if (envChunk != null) {
-                    // Environment data is available but may need special handling
-                    // For now, we'll include a flag that it exists
-                    data.hasEnvironmentData = true;
-                }
-            }
+                    // Tiles replace the chunk payload on the worker; they bypass batches and the outbox
+                    if (tileService != null && tileService.replacesUploads()) {
+                        return tileService.submit(chunkData).thenApply(success -> {
+                            if (success) {
+                                markUploaded(storage, chunkIndex, chunkData);
+                                return true;
+                            }
+                            failedCount.incrementAndGet();
+                            return false;
+                        });
+                    }
+                    if (tileService != null) {
+                        // Local tiles only, failures are logged by the tile service
+                        tileService.submit(chunkData);
+                    }
 
-        } catch (Exception e) {
-            System.err.println(
-                    "[Worldmap] Error extracting chunk data for (" + chunkX + "," + chunkZ + "): " + e.getMessage());
-            if (debugMode) {
-                e.printStackTrace();
-            }
-            // Return minimal data on error
-            data.blocks = new int[32][320][32];
-            data.heightMap = new short[32][32];
-            data.tintMap = new int[32][32];
-            data.blockTextures = new HashMap<>();
-        }
+                    // Keep the order of spooled chunks and skip the retries while the API is down
+                    if (outbox != null && outbox.isApiDown()) {
+                        return CompletableFuture.completedFuture(spool(chunkIndex, chunkData));
+                    }
 
-        return data;
+                    if (batchService == null) {
+                        return httpClient.sendChunkData(chunkData)
+                                .thenApply(success -> uploaded(storage, chunkIndex, chunkData, success));
+                    }
+                    // A batched chunk gives up its slot once the batcher accepts it
+                    return batchService.submit(chunkData, released).thenApply(outcome -> {
+                        if (outcome == ChunkBatchService.Outcome.SUPERSEDED) {
+                            // The newer copy that replaced it in the batch records the upload
+                            return true;
+                        }
+                        return uploaded(storage, chunkIndex, chunkData,
+                                outcome == ChunkBatchService.Outcome.ACKNOWLEDGED);
+                    });
+                })
+                .exceptionally(throwable -> {
+                    Throwable cause = throwable.getCause() != null ? throwable.getCause() : throwable;
+                    Log.error("Error processing chunk (" + chunkX + "," + chunkZ + "): " + cause.getMessage(),
+                            debugMode ? cause : null);
+                    failedCount.incrementAndGet();
+                    return false;
+                });
+
+        pendingTasks.add(task);
+        task.whenComplete((success, throwable) -> {
+            pendingTasks.remove(task);
+            released.complete(null);
+        });
+        return task;
     }
 
     /**
-     * Extract texture information for a block ID
-     * 
-     * @param blockId           The block ID
-     * @param blockTypeAssetMap The BlockType asset map
-     * @return BlockTextureInfo containing texture paths, or null if block type not
-     *         found
+     * Record the end of a chunk's upload: mark it processed, or spool it when
+     * the worker did not take it
      */
-    private BlockTextureInfo extractBlockTextureInfo(int blockId,
-            BlockTypeAssetMap<String, BlockType> blockTypeAssetMap) {
-        try {
-            BlockType blockType = blockTypeAssetMap.getAsset(blockId);
-            if (blockType == null) {
-                return null;
-            }
+    private boolean uploaded(StorageService storage, long chunkIndex, ChunkData chunkData, boolean success) {
+        if (success) {
+            markUploaded(storage, chunkIndex, chunkData);
+            return true;
+        } else if (outbox != null) {
+            return spool(chunkIndex, chunkData);
+        } else {
+            failedCount.incrementAndGet();
+            return false;
+        }
+    }
 
-            BlockTypeTextures[] textures = blockType.getTextures();
-            if (textures == null || textures.length == 0) {
-                // Use default unknown texture
-                return new BlockTextureInfo(
-                        "BlockTextures/Unknown.png",
-                        "BlockTextures/Unknown.png",
-                        "BlockTextures/Unknown.png",
-                        "BlockTextures/Unknown.png",
-                        "BlockTextures/Unknown.png",
-                        "BlockTextures/Unknown.png",
-                        false);
-            }
+    /**
+     * Record a chunk the worker acknowledged
+     */
+    private void markUploaded(StorageService storage, long chunkIndex, ChunkData chunkData) {
+        if (outbox != null) {
+            outbox.supersede(chunkData.world, chunkIndex);
+        }
+        storage.markChunkProcessed(chunkIndex, chunkData.contentHash);
+        int count = processedCount.incrementAndGet();
+
+        // Log progress every 100 chunks
+        if (count % 100 == 0) {
+            Log.info("Processed " + count + " chunks (failed: "
+                    + failedCount.get() + ", unchanged: " + unchangedCount.get() + ", spooled: "
+                    + spooledCount.get() + ")");
+        }
+    }
 
-            // Use the first texture variant (most common case)
-            BlockTypeTextures firstTexture = textures[0];
-
-            // Check if this block should be tinted using BiomeTint properties from
-            // BlockType
-            // A block should be tinted if any of its biomeTint values are non-zero
-            boolean shouldTint = blockType.getBiomeTintUp() != 0 ||
-                    blockType.getBiomeTintDown() != 0 ||
-                    blockType.getBiomeTintNorth() != 0 ||
-                    blockType.getBiomeTintSouth() != 0 ||
-                    blockType.getBiomeTintWest() != 0 ||
-                    blockType.getBiomeTintEast() != 0;
-
-            return new BlockTextureInfo(
-                    firstTexture.getUp(),
-                    firstTexture.getDown(),
-                    firstTexture.getNorth(),
-                    firstTexture.getSouth(),
-                    firstTexture.getEast(),
-                    firstTexture.getWest(),
-                    shouldTint);
-        } catch (Exception e) {
-            if (debugMode) {
-                System.err
-                        .println("[Worldmap] Error extracting texture for block ID " + blockId + ": " + e.getMessage());
-            }
-            return null;
+    /**
+     * Hand a chunk to the outbox, it is marked processed once the drainer
+     * delivers it
+     */
+    private boolean spool(long chunkIndex, ChunkData chunkData) {
+        if (outbox.spool(chunkIndex, chunkData)) {
+            spooledCount.incrementAndGet();
+            Log.debug(() -> "Chunk (" + chunkData.chunkX + "," + chunkData.chunkZ + ") spooled to the outbox");
+            return true;
         }
+        failedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Extract chunk data from a chunk object
+     * 
+     * @param chunk  The WorldChunk object from Hytale, or a ChunkSource
+     * @param chunkX Chunk X coordinate
+     * @param chunkZ Chunk Z coordinate
+     * @return ChunkData object containing extracted data
+     * @throws RuntimeException if the chunk cannot be read. The task then
+     *                          fails, nothing is uploaded and the chunk is not
+     *                          marked processed, so a later scan retries it.
+     */
+    private ChunkData extractChunkData(Object chunk, int chunkX, int chunkZ) {
+        ChunkSource source = chunk instanceof ChunkSource
+                ? (ChunkSource) chunk
+                : new WorldChunkSource((WorldChunk) chunk);
+        return extractor.extract(source, chunkX, chunkZ);
     }
 
     /**
@@ -243,8 +269,16 @@ public class ChunkProcessingService {
         return failedCount.get();
     }
 
+    public int getUnchangedCount() {
+        return unchangedCount.get();
+    }
+
+    public int getSpooledCount() {
+        return spooledCount.get();
+    }
+
     /**
-     * Shutdown the executor service
+     * Shutdown the executor service, waiting for in-flight uploads
      */
     public void shutdown() {
         executorService.shutdown();
@@ -252,24 +286,79 @@ public class ChunkProcessingService {
             if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
                 executorService.shutdownNow();
             }
+            CompletableFuture.allOf(pendingTasks.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            Log.warn("Timed out waiting for chunk uploads to finish");
         } catch (InterruptedException e) {
             executorService.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * Live chunk read through the server API
+     */
+    private static class WorldChunkSource implements ChunkSource {
+        private final WorldChunk chunk;
+
+        WorldChunkSource(WorldChunk chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public short getHeight(int x, int z) {
+            return chunk.getHeight(x, z);
+        }
+
+        @Override
+        public int getTint(int x, int z) {
+            return chunk.getTint(x, z);
+        }
+
+        @Override
+        public int getBlock(int x, int y, int z) {
+            return chunk.getBlock(x, y, z);
+        }
+
+        @Override
+        public int getFluidId(int x, int y, int z) {
+            return chunk.getFluidId(x, y, z);
+        }
+
+        @Override
+        public boolean hasEnvironmentData() {
+            BlockChunk blockChunk = chunk.getBlockChunk();
+            return blockChunk != null && blockChunk.getEnvironmentChunk() != null;
+        }
+    }
+
     /**
      * Chunk data structure for API
      */
     public static class ChunkData {
+        public String world; // Name of the world the chunk belongs to
         public int chunkX;
         public int chunkZ;
         public long timestamp;
-        public int[][][] blocks; // 32x320x32 array of block IDs
+        public int[][][] blocks; // 32x320x32 array of block IDs, null in surface mode
         public short[][] heightMap; // 32x32 array of height values
         public int[][] tintMap; // 32x32 array of tint values
         public Map<Integer, BlockTextureInfo> blockTextures; // Map of blockId -> texture paths
         public boolean hasEnvironmentData = false;
+        public SurfaceData surface; // Per-column surface, set instead of blocks in surface mode
+        public transient long contentHash; // Hash of blocks, heightMap and tintMap, not sent to the API
+    }
+
+    /**
+     * What a top-down renderer needs per column, as flat arrays of 32 * 32
+     * entries indexed x * 32 + z
+     */
+    public static class SurfaceData {
+        public int[] topBlocks; // Highest non-air block, 0 if the column is empty
+        public int[] groundBlocks; // Highest opaque block, seen through glass, leaves and fluids
+        public short[] groundHeights; // Y of the ground block, -1 if there is none
+        public int[] fluidIds; // Fluid above the ground, 0 if none
+        public byte[] fluidDepths; // Fluid blocks above the ground, capped at 127
     }
 
     /**
@@ -283,6 +372,7 @@ public class ChunkProcessingService {
         public String east;
         public String west;
         public boolean shouldTint; // Whether this block should receive biome tinting
+        public transient boolean opaque = true; // Hides the blocks below it from above, not sent to the API
 
         public BlockTextureInfo() {
             this.shouldTint = false;
@@ -0,0 +1,34 @@
+package com.suiramdev.worldmap.services;
+
+/**
+ * Read-only view of a 32x320x32 chunk, as seen by {@link ChunkExtractor}.
+ *
+ * Lets extraction run against something other than a live WorldChunk, e.g. a
+ * synthetic chunk in a benchmark.
+ */
+public interface ChunkSource {
+    /**
+     * Height of the highest block in a column
+     */
+    short getHeight(int x, int z);
+
+    /**
+     * Biome tint of a column
+     */
+    int getTint(int x, int z);
+
+    /**
+     * Block ID at a position, 0 for air
+     */
+    int getBlock(int x, int y, int z);
+
+    /**
+     * Fluid ID at a position, 0 if there is none
+     */
+    int getFluidId(int x, int y, int z);
+
+    /**
+     * Whether the chunk carries environment (biome) data
+     */
+    boolean hasEnvironmentData();
+}
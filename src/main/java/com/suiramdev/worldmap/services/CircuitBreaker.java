@@ -0,0 +1,182 @@
+package com.suiramdev.worldmap.services;
+
+import com.suiramdev.worldmap.logging.Log;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker shared by every request to the worker API.
+ *
+ * After several consecutive failures, or as soon as the worker answers with a
+ * Retry-After header, the circuit opens and requests are rejected without
+ * being sent. Once the open interval has passed, a single probe request is let
+ * through: success closes the circuit, failure opens it again for a longer,
+ * jittered interval. An outage therefore costs one request per interval
+ * instead of one per queued chunk and retry.
+ *
+ * Only the probe decides the half-open state. Requests sent before the
+ * circuit opened may still finish afterwards; their results are not a test
+ * of the worker's recovery and are ignored.
+ *
+ * Rejected requests wait with {@link #whenAdmissible(Executor)} rather than
+ * fail, so nothing is prepared for sending while the worker is down.
+ */
+public class CircuitBreaker {
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long BASE_OPEN_MS = 1000;
+    private static final long MAX_OPEN_MS = 60_000;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Answer to {@link #tryAcquire()}, passed back with the request's result
+     */
+    public enum Permit {
+        REJECTED,
+        REQUEST,
+        PROBE
+    }
+
+    private final String name;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int consecutiveOpens;
+    private long openUntil;
+    private boolean probeInFlight;
+    private CompletableFuture<Void> probeDone = new CompletableFuture<>(); // Completed when the probe reports
+
+    /**
+     * @param name Endpoint description for logging
+     */
+    public CircuitBreaker(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Ask to send a request. Every granted request must be followed by
+     * {@link #onSuccess(Permit)} or {@link #onFailure(Permit, long)} with the
+     * permit returned here.
+     *
+     * @return {@link Permit#REJECTED} if the circuit is open and the request
+     *         must not be sent
+     */
+    public synchronized Permit tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return Permit.REQUEST;
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return Permit.REJECTED;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                Log.info("Probing " + name + " after circuit was open");
+                return Permit.PROBE;
+            default:
+                // Only the probe goes through while half-open
+                return Permit.REJECTED;
+        }
+    }
+
+    /**
+     * Record a request the worker handled
+     */
+    public synchronized void onSuccess(Permit permit) {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN && permit == Permit.PROBE && probeInFlight) {
+            Log.info("Circuit for " + name + " closed, worker API is reachable");
+            state = State.CLOSED;
+            probeInFlight = false;
+            consecutiveOpens = 0;
+            probeReported();
+        }
+    }
+
+    /**
+     * Record a request that failed because the worker was unreachable or
+     * overloaded
+     *
+     * @param retryAfterMs Delay requested by a Retry-After header, or 0
+     */
+    public synchronized void onFailure(Permit permit, long retryAfterMs) {
+        consecutiveFailures++;
+        if (state == State.OPEN || (state == State.HALF_OPEN && permit != Permit.PROBE)) {
+            // Stragglers sent before the circuit opened
+            return;
+        }
+        if (state == State.HALF_OPEN || retryAfterMs > 0 || consecutiveFailures >= FAILURE_THRESHOLD) {
+            open(retryAfterMs);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether requests are currently being held back. False again once the
+     * open interval has passed, so the next request becomes the probe.
+     */
+    public synchronized boolean isOpen() {
+        return state == State.HALF_OPEN || (state == State.OPEN && System.currentTimeMillis() < openUntil);
+    }
+
+    /**
+     * Future completing once a rejected request may ask again: when the open
+     * interval ends, or when the probe in flight has reported
+     *
+     * @param executor Executor the future completes on, so waiting requests
+     *                 never resume under this breaker's lock
+     */
+    public synchronized CompletableFuture<Void> whenAdmissible(Executor executor) {
+        switch (state) {
+            case OPEN:
+                long remainingMs = openUntil - System.currentTimeMillis();
+                if (remainingMs <= 0) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                return CompletableFuture.runAsync(() -> {
+                }, CompletableFuture.delayedExecutor(remainingMs, TimeUnit.MILLISECONDS, executor));
+            case HALF_OPEN:
+                return probeDone.thenRunAsync(() -> {
+                }, executor);
+            default:
+                return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void open(long retryAfterMs) {
+        long openMs;
+        if (retryAfterMs > 0) {
+            openMs = retryAfterMs;
+        } else {
+            // Exponential backoff with jitter so probes from restarted servers spread out
+            long backoff = Math.min(MAX_OPEN_MS, BASE_OPEN_MS << Math.min(consecutiveOpens, 16));
+            openMs = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        }
+        consecutiveOpens++;
+        state = State.OPEN;
+        probeInFlight = false;
+        openUntil = System.currentTimeMillis() + openMs;
+        probeReported();
+        Log.warn("Circuit for " + name + " opened for " + openMs + "ms after "
+                + consecutiveFailures + " failures" + (retryAfterMs > 0 ? " (Retry-After)" : ""));
+    }
+
+    /**
+     * Wake the requests waiting for the probe's result
+     */
+    private void probeReported() {
+        CompletableFuture<Void> done = probeDone;
+        probeDone = new CompletableFuture<>();
+        done.complete(null);
+    }
+}
@@ -0,0 +1,151 @@
+package com.suiramdev.worldmap.services;
+
+import com.suiramdev.worldmap.logging.Log;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces chunk change notifications and releases each dirty chunk once it
+ * has been quiet for a configured period.
+ *
+ * Every change pushes the chunk's deadline back, so a chunk under active
+ * construction is handed to the handler once per quiet window instead of once
+ * per block change. The deadline never moves past the first unreleased change
+ * plus the maximum delay, so a chunk that is edited without pause is still
+ * released at that interval.
+ */
+public class DirtyChunkTracker {
+    private final long quietPeriodMs;
+    private final long maxDelayMs;
+    private final DirtyChunkHandler handler;
+    private final boolean debugMode;
+
+    private final Map<DirtyChunk, PendingChange> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param quietPeriodMs Time a chunk must stay unchanged before it is released
+     * @param maxDelayMs    Longest time between a chunk's first unreleased change
+     *                      and its release
+     */
+    public DirtyChunkTracker(long quietPeriodMs, long maxDelayMs, DirtyChunkHandler handler, boolean debugMode) {
+        this.quietPeriodMs = Math.max(1, quietPeriodMs);
+        this.maxDelayMs = Math.max(this.quietPeriodMs, maxDelayMs);
+        this.handler = handler;
+        this.debugMode = debugMode;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Worldmap-DirtyTracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepInterval = Math.max(100, Math.min(1000, this.quietPeriodMs / 4));
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record a change in a chunk
+     *
+     * @param worldName  Name of the world the chunk belongs to
+     * @param chunkIndex Chunk index as produced by ChunkUtil
+     */
+    public void markDirty(String worldName, long chunkIndex) {
+        long now = System.currentTimeMillis();
+        pending.compute(new DirtyChunk(worldName, chunkIndex),
+                (chunk, previous) -> new PendingChange(previous != null ? previous.firstChange : now, now));
+    }
+
+    /**
+     * Number of chunks waiting for their quiet period to elapse
+     */
+    public int getDirtyCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stop sweeping. Chunks still waiting are dropped; they are picked up again
+     * by the next rescan.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<DirtyChunk, PendingChange>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<DirtyChunk, PendingChange> entry = iterator.next();
+            PendingChange change = entry.getValue();
+            long deadline = Math.min(change.lastChange + quietPeriodMs, change.firstChange + maxDelayMs);
+            if (now < deadline) {
+                continue;
+            }
+            // Only release the chunk if no new change arrived since we read it
+            if (!pending.remove(entry.getKey(), change)) {
+                continue;
+            }
+
+            DirtyChunk chunk = entry.getKey();
+            try {
+                handler.onChunkQuiet(chunk.worldName, chunk.chunkIndex);
+            } catch (Exception e) {
+                Log.error("Error handling changed chunk " + chunk.chunkIndex + " in " + chunk.worldName + ": "
+                        + e.getMessage(), debugMode ? e : null);
+            }
+        }
+    }
+
+    /**
+     * Receives chunks whose quiet period has elapsed
+     */
+    @FunctionalInterface
+    public interface DirtyChunkHandler {
+        void onChunkQuiet(String worldName, long chunkIndex);
+    }
+
+    /**
+     * Times of a chunk's first and latest change since it was last released.
+     * Replaced on every change, so a sweep only removes the instance it read.
+     */
+    private static final class PendingChange {
+        final long firstChange;
+        final long lastChange;
+
+        PendingChange(long firstChange, long lastChange) {
+            this.firstChange = firstChange;
+            this.lastChange = lastChange;
+        }
+    }
+
+    private static final class DirtyChunk {
+        final String worldName;
+        final long chunkIndex;
+
+        DirtyChunk(String worldName, long chunkIndex) {
+            this.worldName = worldName;
+            this.chunkIndex = chunkIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DirtyChunk)) {
+                return false;
+            }
+            DirtyChunk other = (DirtyChunk) o;
+            return chunkIndex == other.chunkIndex && Objects.equals(worldName, other.worldName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(worldName, chunkIndex);
+        }
+    }
+}
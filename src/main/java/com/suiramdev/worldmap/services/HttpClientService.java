@@ -1,232 +1,699 @@
 package com.suiramdev.worldmap.services;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.suiramdev.worldmap.config.PayloadFormat;
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.logging.UploadSummary;
+import com.suiramdev.worldmap.metrics.PipelineMetrics;
+import com.suiramdev.worldmap.tiles.PngEncoder;
+import com.suiramdev.worldmap.utils.BlockTextureInfoTypeAdapter;
+import com.suiramdev.worldmap.utils.ByteSink;
+import com.suiramdev.worldmap.utils.ByteSinkBodyPublisher;
+import com.suiramdev.worldmap.utils.ByteSinkPool;
+import com.suiramdev.worldmap.utils.ChunkBatchCodec;
+import com.suiramdev.worldmap.utils.ChunkBinaryCodec;
+import com.suiramdev.worldmap.utils.ChunkDataTypeAdapter;
+import com.suiramdev.worldmap.utils.PayloadCompressor;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Handles HTTP requests to the external API
  */
 public class HttpClientService {
     private final String apiUrl;
+    private final String batchApiUrl;
+    private final String tileApiUrl;
     private final String apiKey;
     private final int requestTimeout;
     private final int maxRetries;
+    private final PayloadFormat payloadFormat;
+    private final PayloadCompressor compressor;
     private final boolean debugMode;
 
     private final HttpClient httpClient;
+    private final ExecutorService ioExecutor;
     private final Gson gson;
-    private final Semaphore rateLimiter; // Limit concurrent requests (max 5)
+    private final ByteSinkPool bodyPool;
+    private final RequestLimiter requestLimiter; // Adaptive limit on concurrent requests
+    private final CircuitBreaker circuitBreaker; // Shared by every request to the worker
+    private final UploadSummary uploadSummary = new UploadSummary(); // Replaces per-chunk log lines
     private static boolean connectionWarningShown = false; // Track if we've shown the connection warning
 
-    public HttpClientService(String apiUrl, String apiKey, int requestTimeout, int maxRetries, boolean debugMode) {
+    /**
+     * @param minConcurrentRequests Floor of the adaptive concurrency limit
+     * @param maxConcurrentRequests Ceiling of the adaptive concurrency limit
+     */
+    public HttpClientService(String apiUrl, String batchApiUrl, String tileApiUrl, String apiKey, int requestTimeout, int maxRetries,
+            int minConcurrentRequests, int maxConcurrentRequests, PayloadFormat payloadFormat,
+            PayloadCompressor compressor, boolean debugMode) {
         this.apiUrl = apiUrl;
+        this.batchApiUrl = batchApiUrl;
+        this.tileApiUrl = tileApiUrl;
         this.apiKey = apiKey;
         this.requestTimeout = requestTimeout;
         this.maxRetries = maxRetries;
+        this.payloadFormat = payloadFormat;
+        this.compressor = compressor;
         this.debugMode = debugMode;
 
+        // Requests, response callbacks and retries run on virtual threads, so a slow
+        // worker never parks a platform thread
+        this.ioExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Worldmap-Http-", 0).factory());
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
+                .executor(ioExecutor)
                 .build();
 
-        this.gson = new Gson();
-        this.rateLimiter = new Semaphore(5); // Max 5 concurrent requests
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(ChunkProcessingService.ChunkData.class, new ChunkDataTypeAdapter())
+                .registerTypeAdapter(ChunkProcessingService.BlockTextureInfo.class, new BlockTextureInfoTypeAdapter())
+                .create();
+        // Bodies are held until their last retry finishes; keep up to 16 idle buffers of 4 MB each
+        this.bodyPool = new ByteSinkPool(16, 256 * 1024, 4 * 1024 * 1024);
+        this.requestLimiter = new RequestLimiter(minConcurrentRequests, maxConcurrentRequests);
+        this.circuitBreaker = new CircuitBreaker("worker API");
+        Log.addSummary(uploadSummary);
     }
 
     /**
-     * Send chunk data to the API
+     * Send chunk data to the API. The body is serialized on the calling thread;
+     * the request and its retries run asynchronously.
      * 
      * @param chunkData Chunk data object containing all required fields
      * @return CompletableFuture that completes with true on success, false on
      *         failure
      */
     public CompletableFuture<Boolean> sendChunkData(Object chunkData) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Acquire permit for rate limiting
-                rateLimiter.acquire();
-
-                try {
-                    return sendChunkDataWithRetry(chunkData);
-                } finally {
-                    rateLimiter.release();
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                if (debugMode
-                        && chunkData instanceof com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData) {
-                    com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData data = (com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData) chunkData;
-                    System.err.println(
-                            "[Worldmap] Request interrupted for chunk (" + data.chunkX + "," + data.chunkZ + ")");
-                }
-                return false;
-            }
-        });
-    }
-
-    /**
-     * Send chunk data with retry logic
-     */
-    private boolean sendChunkDataWithRetry(Object chunkData) {
         // Extract chunk coordinates for logging
         int chunkX = 0;
         int chunkZ = 0;
-        if (chunkData instanceof com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData) {
-            com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData data = (com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData) chunkData;
+        if (chunkData instanceof ChunkProcessingService.ChunkData) {
+            ChunkProcessingService.ChunkData data = (ChunkProcessingService.ChunkData) chunkData;
             chunkX = data.chunkX;
             chunkZ = data.chunkZ;
         }
 
         // Validate API URL
         if (apiUrl == null || apiUrl.isEmpty()) {
-            System.err.println("[Worldmap] API URL is not configured for chunk (" + chunkX + "," + chunkZ + ")");
-            return false;
+            Log.error("API URL is not configured for chunk (" + chunkX + "," + chunkZ + ")");
+            return CompletableFuture.completedFuture(false);
         }
 
-        // Serialize chunk data directly - it already has all required fields
-        String jsonBody;
+        // Serialize once into a pooled buffer; retries re-stream the same bytes
+        ByteSink body = bodyPool.acquire();
+        String contentType;
         try {
-            jsonBody = gson.toJson(chunkData);
+            contentType = serialize(chunkData, body);
         } catch (Exception e) {
-            System.err.println("[Worldmap] Failed to serialize chunk data for (" + chunkX + "," + chunkZ + "): " 
-                    + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
-            if (debugMode) {
-                e.printStackTrace();
+            bodyPool.release(body);
+            Log.error("Failed to serialize chunk data for (" + chunkX + "," + chunkZ + "): "
+                    + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()), debugMode ? e : null);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return sendWithRetry(apiUrl, body, contentType, "chunk (" + chunkX + "," + chunkZ + ")", 1)
+                .thenApply(UploadResult::isSuccess);
+    }
+
+    /**
+     * Serialize a single chunk in the configured payload format so it can be
+     * held compactly until it is sent as part of a batch
+     */
+    public byte[] encodeChunk(ChunkProcessingService.ChunkData chunkData) throws IOException {
+        ByteSink sink = bodyPool.acquire();
+        try {
+            serialize(chunkData, sink);
+            return sink.toByteArray();
+        } finally {
+            bodyPool.release(sink);
+        }
+    }
+
+    /**
+     * Send a chunk encoded with {@link #encodeChunk} to the single-chunk
+     * endpoint
+     *
+     * @param format Format the payload was encoded in
+     * @param target Description of the payload for logging
+     * @return CompletableFuture with the final outcome once the worker
+     *         acknowledged or refused the chunk, or retries ran out
+     */
+    public CompletableFuture<UploadResult> sendEncodedChunk(byte[] payload, PayloadFormat format, String target) {
+        if (apiUrl == null || apiUrl.isEmpty()) {
+            Log.error("API URL is not configured for " + target);
+            return CompletableFuture.completedFuture(UploadResult.UNREACHABLE);
+        }
+
+        ByteSink body = bodyPool.acquire();
+        body.writeBytes(payload, 0, payload.length);
+        // Label binary payloads with their own version byte, they may have been spooled by an older plugin
+        String contentType = format == PayloadFormat.BINARY
+                ? ChunkBinaryCodec.CONTENT_TYPE + "; version="
+                        + (payload.length > 4 ? payload[4] & 0xFF : ChunkBinaryCodec.VERSION)
+                : "application/json";
+        return sendWithRetry(apiUrl, body, contentType, target, 1);
+    }
+
+    /**
+     * Send several pre-encoded chunks in one request to the batch endpoint
+     *
+     * @param chunks Chunks encoded with {@link #encodeChunk}
+     * @param target Description of the batch for logging
+     * @return CompletableFuture with one success flag per chunk, in order
+     */
+    public CompletableFuture<boolean[]> sendChunkBatch(List<EncodedChunk> chunks, String target) {
+        boolean[] results = new boolean[chunks.size()];
+        if (batchApiUrl == null || batchApiUrl.isEmpty()) {
+            Log.error("Batch API URL is not configured for " + target);
+            return CompletableFuture.completedFuture(results);
+        }
+
+        ByteSink body = bodyPool.acquire();
+        List<byte[]> payloads = new ArrayList<>(chunks.size());
+        for (EncodedChunk chunk : chunks) {
+            payloads.add(chunk.payload);
+        }
+        String contentType;
+        if (payloadFormat == PayloadFormat.BINARY) {
+            ChunkBatchCodec.encodeBinary(payloads, body);
+            contentType = ChunkBatchCodec.BINARY_CONTENT_TYPE + "; version=" + ChunkBatchCodec.VERSION;
+        } else {
+            ChunkBatchCodec.encodeJson(payloads, body);
+            contentType = "application/json";
+        }
+
+        return sendWithRetry(batchApiUrl, body, contentType, target, chunks.size()).thenApply(result -> {
+            if (result.isSuccess()) {
+                applyBatchResults(chunks, result.body, results, target);
             }
-            return false;
-        }
-
-        int attempt = 0;
-        while (attempt < maxRetries) {
-            try {
-                // Validate and create URI
-                URI uri;
-                try {
-                    uri = URI.create(apiUrl);
-                } catch (IllegalArgumentException e) {
-                    System.err.println("[Worldmap] Invalid API URL: " + apiUrl + " for chunk (" + chunkX + "," + chunkZ + ")");
-                    return false;
-                }
+            return results;
+        });
+    }
 
-                HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                        .uri(uri)
-                        .header("Content-Type", "application/json")
-                        .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                        .timeout(Duration.ofMillis(requestTimeout));
+    /**
+     * Upload a rendered PNG tile. The tile is copied before this returns, so
+     * the caller may reuse its buffer.
+     *
+     * @param world Name of the tile's world, or null to leave it out
+     * @param zoom  Zoom level, 0 for a single chunk
+     * @return CompletableFuture that completes with true once acknowledged,
+     *         false when retries run out
+     */
+    public CompletableFuture<Boolean> sendTile(String world, int zoom, int tileX, int tileZ, ByteSink png) {
+        String target = "tile " + zoom + "/" + tileX + "/" + tileZ + (world != null ? " of " + world : "");
+        if (tileApiUrl == null || tileApiUrl.isEmpty()) {
+            Log.error("Tile API URL is not configured for " + target);
+            return CompletableFuture.completedFuture(false);
+        }
 
-                // Add Authorization header with API key if provided
-                if (apiKey != null && !apiKey.isEmpty()) {
-                    requestBuilder.header("Authorization", apiKey);
-                }
+        ByteSink body = bodyPool.acquire();
+        body.writeBytes(png.array(), 0, png.size());
+        String url = tileApiUrl + (tileApiUrl.indexOf('?') >= 0 ? '&' : '?')
+                + "zoom=" + zoom + "&x=" + tileX + "&z=" + tileZ
+                + (world != null ? "&world=" + URLEncoder.encode(world, StandardCharsets.UTF_8) : "");
+        return sendWithRetry(url, body, PngEncoder.CONTENT_TYPE, target, 1)
+                .thenApply(UploadResult::isSuccess);
+    }
 
-                HttpRequest httpRequest = requestBuilder.build();
-
-                // Log request details
-                int jsonSize = jsonBody.length();
-                System.out.println("[Worldmap] Sending chunk (" + chunkX + "," + chunkZ + ") to " + apiUrl 
-                        + " (attempt " + (attempt + 1) + "/" + maxRetries + ", payload size: " + jsonSize + " bytes)");
-
-                HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-
-                int statusCode = response.statusCode();
-                String responseBody = response.body();
-                
-                // Log response details
-                System.out.println("[Worldmap] API response for chunk (" + chunkX + "," + chunkZ + "): Status " + statusCode);
-                
-                if (responseBody != null && !responseBody.isEmpty()) {
-                    // Truncate very long responses for readability
-                    String bodyPreview = responseBody.length() > 500 
-                        ? responseBody.substring(0, 500) + "... (truncated)" 
-                        : responseBody;
-                    System.out.println("[Worldmap] API response body: " + bodyPreview);
-                } else {
-                    System.out.println("[Worldmap] API response body: (empty)");
-                }
-                
-                if (debugMode) {
-                    // Log response headers in debug mode
-                    System.out.println("[Worldmap] Response headers: " + response.headers().map());
-                }
+    /**
+     * Stop the I/O executor once every upload has finished
+     */
+    public void shutdown() {
+        ioExecutor.shutdown();
+    }
 
-                if (statusCode >= 200 && statusCode < 300) {
-                    System.out.println("[Worldmap] Successfully sent chunk (" + chunkX + "," + chunkZ
-                            + ") - Status: " + statusCode);
-                    return true;
-                } else {
-                    System.err.println("[Worldmap] API returned error status " + statusCode + " for chunk ("
-                            + chunkX + "," + chunkZ + ")");
-                    if (responseBody != null && !responseBody.isEmpty()) {
-                        System.err.println("[Worldmap] Error response body: " + responseBody);
-                    }
-                }
-            } catch (IOException e) {
-                String errorMsg = e.getMessage();
-                if (errorMsg == null || errorMsg.isEmpty()) {
-                    errorMsg = e.getClass().getSimpleName() + " (no message)";
-                    // Common causes for null message: connection refused, unreachable host
-                    if (e.getClass().getSimpleName().contains("Connect") || 
-                        e.getClass().getSimpleName().contains("Unreachable")) {
-                        errorMsg += " - Check if API server is running at " + apiUrl;
-                    }
-                }
-                if (debugMode || attempt == maxRetries - 1) {
-                    System.err.println(
-                            "[Worldmap] IO error sending chunk (" + chunkX + "," + chunkZ + ") to " + apiUrl + ": " + errorMsg);
-                    // Show connection warning once
-                    if (!connectionWarningShown && (errorMsg.contains("refused") || 
-                        errorMsg.contains("Unreachable") || 
-                        errorMsg.contains("no message"))) {
-                        System.err.println("[Worldmap] WARNING: Cannot connect to API server. Ensure the web application is running at " + apiUrl);
-                        connectionWarningShown = true;
-                    }
-                    if (debugMode) {
-                        e.printStackTrace();
-                    }
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                if (debugMode) {
-                    System.err.println("[Worldmap] Request interrupted for chunk (" + chunkX + "," + chunkZ + ")");
-                }
-                return false;
-            } catch (Exception e) {
-                String errorMsg = e.getMessage();
-                if (errorMsg == null || errorMsg.isEmpty()) {
-                    errorMsg = e.getClass().getSimpleName() + " (no message)";
-                }
-                if (debugMode || attempt == maxRetries - 1) {
-                    System.err.println("[Worldmap] Unexpected error sending chunk (" + chunkX + "," + chunkZ + "): "
-                            + errorMsg);
-                    if (debugMode) {
-                        e.printStackTrace();
+    /**
+     * Fill per-chunk results from the worker's response. A 2xx response without
+     * a usable results array, such as a proxy's error page, acknowledges
+     * nothing.
+     */
+    private void applyBatchResults(List<EncodedChunk> chunks, String responseBody, boolean[] results, String target) {
+        BatchResponse response = null;
+        try {
+            response = gson.fromJson(responseBody, BatchResponse.class);
+        } catch (Exception e) {
+            Log.debug(() -> "Could not parse batch response for " + target + ": " + e.getMessage());
+        }
+
+        if (response == null || response.results == null) {
+            Log.warnThrottled("batch-no-results", 10_000,
+                    () -> "Batch response for " + target + " has no results array, treating the batch as failed");
+            return;
+        }
+
+        boolean[] matched = new boolean[results.length];
+        for (int i = 0; i < response.results.size(); i++) {
+            BatchResult result = response.results.get(i);
+            if (result == null) {
+                continue;
+            }
+            int index = i;
+            if (result.chunkX != null && result.chunkZ != null) {
+                // Prefer matching by coordinates when the worker echoes them, each entry at most once
+                index = -1;
+                for (int j = 0; j < chunks.size(); j++) {
+                    if (!matched[j] && chunks.get(j).chunkX == result.chunkX
+                            && chunks.get(j).chunkZ == result.chunkZ) {
+                        index = j;
+                        break;
                     }
                 }
             }
+            if (index >= 0 && index < results.length) {
+                results[index] = result.success;
+                matched[index] = true;
+            }
+        }
+    }
+
+    /**
+     * Serialize chunk data into the given buffer
+     *
+     * @return Content-Type of the written body
+     */
+    private String serialize(Object chunkData, ByteSink body) throws IOException {
+        if (payloadFormat == PayloadFormat.BINARY
+                && chunkData instanceof ChunkProcessingService.ChunkData) {
+            ChunkBinaryCodec.encode((ChunkProcessingService.ChunkData) chunkData, body);
+            return ChunkBinaryCodec.CONTENT_TYPE + "; version=" + ChunkBinaryCodec.VERSION;
+        }
 
-            attempt++;
-            if (attempt < maxRetries) {
-                // Exponential backoff: wait 1s, 2s, 4s, etc.
-                long delayMs = (long) Math.pow(2, attempt - 1) * 1000;
-                System.out.println("[Worldmap] Retrying chunk (" + chunkX + "," + chunkZ + ") in " + delayMs + "ms (attempt " + (attempt + 1) + "/" + maxRetries + ")");
-                try {
-                    Thread.sleep(delayMs);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return false;
+        // Stream JSON straight into the buffer without building an intermediate String
+        Writer writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        gson.toJson(chunkData, chunkData.getClass(), jsonWriter);
+        jsonWriter.flush();
+        return "application/json";
+    }
+
+    /**
+     * Send a serialized body with retry logic. Takes ownership of the body and
+     * returns it to the pool once the last attempt finished and the client
+     * stopped reading it.
+     *
+     * @param target     Description of the payload for logging, e.g. "chunk (1,2)"
+     * @param chunkCount Chunks in the body, for the upload summary
+     * @return Future with the outcome of the last attempt
+     */
+    private CompletableFuture<UploadResult> sendWithRetry(String url, ByteSink body, String contentType, String target,
+            int chunkCount) {
+        ByteSink compressed = null;
+        ByteSink requestBody = body;
+        String contentEncoding = null;
+        PipelineMetrics.SERIALIZED_BYTES.observe(body.size());
+        // PNG tiles are deflated already
+        if (compressor != null && !PngEncoder.CONTENT_TYPE.equals(contentType)) {
+            compressed = bodyPool.acquire();
+            contentEncoding = compressor.compress(body, compressed);
+            if (contentEncoding != null) {
+                if (body.size() > 0) {
+                    PipelineMetrics.COMPRESSION_RATIO.observe((double) compressed.size() / body.size());
                 }
-            } else {
-                System.err.println("[Worldmap] Failed to send chunk (" + chunkX + "," + chunkZ + ") after " + maxRetries + " attempts");
+                String encoding = contentEncoding;
+                int compressedSize = compressed.size();
+                Log.trace(() -> "Compressed " + target + " with " + encoding + ": " + body.size() + " -> "
+                        + compressedSize + " bytes");
+                requestBody = compressed;
+            }
+        }
+
+        ByteSink compressedBody = compressed;
+        int requestSize = requestBody.size();
+        ByteSinkBodyPublisher publisher = new ByteSinkBodyPublisher(requestBody);
+        CompletableFuture<UploadResult> result;
+        try {
+            HttpRequest request = buildRequest(url, publisher, contentType, contentEncoding);
+            result = attempt(request, url, requestBody.size(), contentEncoding, target, 0);
+        } catch (IllegalArgumentException e) {
+            Log.error("Invalid API URL: " + url + " for " + target);
+            result = CompletableFuture.completedFuture(UploadResult.UNREACHABLE);
+        }
+        return result.whenComplete((uploadResult, throwable) -> {
+            uploadSummary.recordRequest(chunkCount, requestSize, uploadResult != null && uploadResult.isSuccess());
+            // After an early response or a timeout the client may still be reading the body
+            publisher.onIdle(() -> {
+                bodyPool.release(body);
+                bodyPool.release(compressedBody);
+            });
+        });
+    }
+
+    /**
+     * Build a request that can be sent again unchanged on retry
+     *
+     * @param contentEncoding Content-Encoding of the body, or null if uncompressed
+     */
+    private HttpRequest buildRequest(String url, ByteSinkBodyPublisher body, String contentType,
+            String contentEncoding) {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", contentType)
+                .POST(body)
+                .timeout(Duration.ofMillis(requestTimeout));
+
+        if (contentEncoding != null) {
+            requestBuilder.header("Content-Encoding", contentEncoding);
+            if (compressor.getDictionaryId() != null) {
+                requestBuilder.header(PayloadCompressor.DICTIONARY_HEADER, compressor.getDictionaryId());
+            }
+        }
+
+        // Add Authorization header with API key if provided
+        if (apiKey != null && !apiKey.isEmpty()) {
+            requestBuilder.header("Authorization", apiKey);
+        }
+
+        return requestBuilder.build();
+    }
+
+    /**
+     * Send one attempt and schedule the next one on a delayed executor if it
+     * fails, without sleeping on any thread. A payload the worker refused is
+     * not sent again.
+     */
+    private CompletableFuture<UploadResult> attempt(HttpRequest request, String url, int payloadSize,
+            String contentEncoding, String target, int attempt) {
+        return requestLimiter.acquire()
+                .thenCompose(permit -> {
+                    // Checked once a slot is free, so requests queued before an outage are held back too.
+                    // Nothing is sent while the worker is known to be down: the attempt gives up its slot and
+                    // waits, which in turn holds back the chunks behind it
+                    CircuitBreaker.Permit circuitPermit = circuitBreaker.tryAcquire();
+                    if (circuitPermit == CircuitBreaker.Permit.REJECTED) {
+                        requestLimiter.release(0, RequestLimiter.Outcome.IGNORED);
+                        PipelineMetrics.HTTP_REJECTED.increment();
+                        Log.debug(() -> "Circuit open, holding back " + target);
+                        return circuitBreaker.whenAdmissible(ioExecutor)
+                                .thenCompose(ignored -> attempt(request, url, payloadSize, contentEncoding, target,
+                                        attempt));
+                    }
+                    return send(request, url, payloadSize, contentEncoding, target, attempt, circuitPermit)
+                            .thenCompose(result -> retry(result, request, url, payloadSize, contentEncoding,
+                                    target, attempt));
+                });
+    }
+
+    /**
+     * Send a request holding a slot and a circuit permit, and give both back
+     * whatever happens to it
+     */
+    private CompletableFuture<UploadResult> send(HttpRequest request, String url, int payloadSize,
+            String contentEncoding, String target, int attempt, CircuitBreaker.Permit circuitPermit) {
+        long sentAt = System.nanoTime();
+        Log.trace(() -> "Sending " + target + " to " + url
+                + " (attempt " + (attempt + 1) + "/" + maxRetries + ", payload size: " + payloadSize
+                + " bytes, " + payloadFormat.getConfigName()
+                + (contentEncoding != null ? ", " + contentEncoding : "") + ")");
+        CompletableFuture<HttpResponse<String>> sent;
+        try {
+            sent = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            // Reported like a failed send, or the slot and a probe's permit would never be given back
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent.handle((response, throwable) -> {
+            long latencyNanos = System.nanoTime() - sentAt;
+            RequestLimiter.Outcome outcome = classify(response, throwable);
+            requestLimiter.release(latencyNanos, outcome);
+            recordHealth(circuitPermit, response, outcome);
+            uploadSummary.recordAttempt(latencyNanos);
+            PipelineMetrics.HTTP_LATENCY
+                    .labels(response != null ? Integer.toString(response.statusCode()) : "error")
+                    .observeNanos(latencyNanos);
+            return throwable != null
+                    ? handleError(throwable, url, target, attempt)
+                    : handleResponse(response, target);
+        });
+    }
+
+    /**
+     * Schedule the next attempt after a failed one, unless the worker refused
+     * the payload or retries ran out
+     */
+    private CompletableFuture<UploadResult> retry(UploadResult result, HttpRequest request, String url,
+            int payloadSize, String contentEncoding, String target, int attempt) {
+        if (result.isSuccess() || result.isRejected()) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        int nextAttempt = attempt + 1;
+        if (nextAttempt >= maxRetries) {
+            Log.warnThrottled("upload-failed", 10_000,
+                    () -> "Failed to send " + target + " after " + maxRetries + " attempts");
+            return CompletableFuture.completedFuture(result);
+        }
+
+        // Exponential backoff with jitter: wait up to 1s, 2s, 4s, etc.
+        long backoffMs = (long) Math.pow(2, attempt) * 1000;
+        long delayMs = backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+        PipelineMetrics.HTTP_RETRIES.increment();
+        uploadSummary.recordRetry();
+        Log.debug(() -> "Retrying " + target + " in " + delayMs + "ms (attempt "
+                + (nextAttempt + 1) + "/" + maxRetries + ")");
+        Executor delayed = CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS, ioExecutor);
+        return CompletableFuture.supplyAsync(() -> null, delayed)
+                .thenCompose(ignored -> attempt(request, url, payloadSize, contentEncoding, target, nextAttempt));
+    }
+
+    /**
+     * Feed a finished attempt into the circuit breaker. Any answer other than
+     * 429 or 5xx shows the worker is up, even if it rejected the request.
+     */
+    private void recordHealth(CircuitBreaker.Permit permit, HttpResponse<String> response,
+            RequestLimiter.Outcome outcome) {
+        if (response == null) {
+            circuitBreaker.onFailure(permit, 0);
+        } else if (outcome == RequestLimiter.Outcome.DROPPED || response.statusCode() >= 500) {
+            circuitBreaker.onFailure(permit, parseRetryAfter(response));
+        } else {
+            circuitBreaker.onSuccess(permit);
+        }
+    }
+
+    /**
+     * @return Delay requested by the Retry-After header in milliseconds, or 0
+     */
+    private static long parseRetryAfter(HttpResponse<String> response) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // Not delta-seconds, try an HTTP date
+        }
+        try {
+            long until = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, until - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Whether the circuit breaker is holding requests back
+     */
+    public boolean isCircuitOpen() {
+        return circuitBreaker.isOpen();
+    }
+
+    /**
+     * Map a finished attempt to the signal the concurrency limit adapts to
+     */
+    private static RequestLimiter.Outcome classify(HttpResponse<String> response, Throwable throwable) {
+        if (throwable != null) {
+            // Timeouts and refused connections mean the worker cannot keep up or is gone
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+            return cause instanceof IOException ? RequestLimiter.Outcome.DROPPED : RequestLimiter.Outcome.IGNORED;
+        }
+        int statusCode = response.statusCode();
+        if (statusCode >= 200 && statusCode < 300) {
+            return RequestLimiter.Outcome.SUCCESS;
+        }
+        if (statusCode == 429 || statusCode == 503) {
+            return RequestLimiter.Outcome.DROPPED;
+        }
+        return RequestLimiter.Outcome.IGNORED;
+    }
+
+    /**
+     * Current adaptive limit on concurrent requests
+     */
+    public int getConcurrencyLimit() {
+        return requestLimiter.getLimit();
+    }
+
+    /**
+     * Requests waiting for a free slot under the concurrency limit
+     */
+    public int getQueuedRequests() {
+        return requestLimiter.getQueued();
+    }
+
+    /**
+     * Requests currently holding a slot under the concurrency limit
+     */
+    public int getActiveRequests() {
+        return requestLimiter.getInUse();
+    }
+
+    /**
+     * State of the circuit breaker shared by every request
+     */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * @return Outcome holding the response body on a 2xx status
+     */
+    private UploadResult handleResponse(HttpResponse<String> response, String target) {
+        int statusCode = response.statusCode();
+        String responseBody = response.body();
+
+        Log.trace(() -> "API response for " + target + ": Status " + statusCode + ", body: "
+                + (responseBody == null || responseBody.isEmpty()
+                        ? "(empty)"
+                        // Truncate very long responses for readability
+                        : responseBody.length() > 500 ? responseBody.substring(0, 500) + "... (truncated)" : responseBody)
+                + ", headers: " + response.headers().map());
+
+        if (statusCode >= 200 && statusCode < 300) {
+            Log.debug(() -> "Successfully sent " + target + " - Status: " + statusCode);
+            return new UploadResult(statusCode, responseBody != null ? responseBody : "");
+        }
+
+        Log.warnThrottled("error-status-" + statusCode, 10_000, () -> "API returned error status " + statusCode
+                + " for " + target
+                + (responseBody != null && !responseBody.isEmpty() ? ": " + responseBody : ""));
+        return new UploadResult(statusCode, null);
+    }
+
+    /**
+     * Log a failed attempt
+     *
+     * @return Always {@link UploadResult#UNREACHABLE}, so the attempt is
+     *         retried
+     */
+    private UploadResult handleError(Throwable throwable, String url, String target, int attempt) {
+        Throwable e = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause()
+                : throwable;
+        String errorMsg = e.getMessage();
+        if (errorMsg == null || errorMsg.isEmpty()) {
+            errorMsg = e.getClass().getSimpleName() + " (no message)";
+            // Common causes for null message: connection refused, unreachable host
+            if (e.getClass().getSimpleName().contains("Connect") ||
+                e.getClass().getSimpleName().contains("Unreachable")) {
+                errorMsg += " - Check if API server is running at " + url;
             }
         }
 
-        return false;
+        // Show connection warning once
+        if (e instanceof IOException && !connectionWarningShown && (errorMsg.contains("refused") ||
+            errorMsg.contains("Unreachable") ||
+            errorMsg.contains("no message"))) {
+            Log.warn("WARNING: Cannot connect to API server. Ensure the web application is running at " + url);
+            connectionWarningShown = true;
+        }
+
+        String message = errorMsg;
+        Supplier<String> description = () -> (e instanceof IOException
+                ? "IO error sending " + target + " to " + url + ": "
+                : "Unexpected error sending " + target + ": ") + message;
+        // Earlier attempts are retried anyway, only the last one is worth a warning
+        if (attempt == maxRetries - 1) {
+            Log.warnThrottled("upload-error", 10_000, description);
+        } else {
+            Log.debug(description);
+        }
+        if (debugMode) {
+            Log.error("Stack trace for " + target, e);
+        }
+        return UploadResult.UNREACHABLE;
+    }
+
+    /**
+     * Outcome of an upload once its retries are over
+     */
+    public static final class UploadResult {
+        static final UploadResult UNREACHABLE = new UploadResult(0, null);
+
+        public final int statusCode; // Status of the last response, 0 if none was received
+        final String body; // Response body on a 2xx status, empty if none
+
+        UploadResult(int statusCode, String body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        public boolean isSuccess() {
+            return statusCode >= 200 && statusCode < 300;
+        }
+
+        /**
+         * Whether the worker refused the payload itself, so sending it again
+         * cannot succeed. Timeouts and rate limiting are not refusals.
+         */
+        public boolean isRejected() {
+            return statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 429;
+        }
+    }
+
+    /**
+     * A chunk serialized with {@link #encodeChunk}, waiting to be batched
+     */
+    public static class EncodedChunk {
+        public final int chunkX;
+        public final int chunkZ;
+        public final byte[] payload;
+
+        public EncodedChunk(int chunkX, int chunkZ, byte[] payload) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Internal class for batch response deserialization
+     */
+    private static class BatchResponse {
+        List<BatchResult> results;
+    }
+
+    private static class BatchResult {
+        Integer chunkX;
+        Integer chunkZ;
+        boolean success;
     }
 }
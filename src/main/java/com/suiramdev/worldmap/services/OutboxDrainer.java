@@ -0,0 +1,271 @@
+package com.suiramdev.worldmap.services;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.suiramdev.worldmap.config.PayloadFormat;
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.storage.UploadOutbox;
+import com.suiramdev.worldmap.storage.WorldStorage;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spools chunks the worker API could not take to the on-disk outbox and
+ * replays them in order once the API answers again.
+ *
+ * While a replay is failing or the circuit breaker is open, the API is
+ * considered down and new chunks are spooled directly instead of going
+ * through their own retries. Only failures to reach the worker, 5xx and 429
+ * answers count; a chunk the worker refuses with any other 4xx is dropped so
+ * it cannot hold up the chunks behind it. A chunk is only recorded as
+ * processed once the worker acknowledged it, in the storage of the world it
+ * was spooled for.
+ *
+ * Spooled records are fsynced in group-commit batches by a flusher thread
+ * rather than one by one.
+ */
+public class OutboxDrainer {
+    private static final long MIN_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    private final UploadOutbox outbox;
+    private final HttpClientService httpClient;
+    private final WorldStorage storages;
+    private final PayloadFormat payloadFormat;
+    private final boolean debugMode;
+
+    private final Object signal = new Object();
+    private final Thread thread;
+    private final ScheduledExecutorService flusher;
+    private volatile boolean running = true;
+    private volatile boolean healthy = true;
+
+    public OutboxDrainer(UploadOutbox outbox, HttpClientService httpClient, WorldStorage storages,
+            PayloadFormat payloadFormat, boolean debugMode) {
+        this.outbox = outbox;
+        this.httpClient = httpClient;
+        this.storages = storages;
+        this.payloadFormat = payloadFormat;
+        this.debugMode = debugMode;
+
+        if (!outbox.isEmpty()) {
+            Log.info("Outbox holds " + outbox.getRecordCount() + " chunks ("
+                    + outbox.getSizeBytes() / 1024 + " KB) from a previous run, replaying");
+        }
+
+        this.thread = new Thread(this::run, "Worldmap-Outbox");
+        thread.setDaemon(true);
+        thread.start();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread flushThread = new Thread(runnable, "Worldmap-Outbox-Flush");
+            flushThread.setDaemon(true);
+            return flushThread;
+        });
+        flusher.scheduleWithFixedDelay(this::sync, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether new chunks should be spooled rather than sent, because the API
+     * is failing
+     */
+    public boolean isApiDown() {
+        return !healthy || httpClient.isCircuitOpen();
+    }
+
+    /**
+     * Whether a chunk is waiting in the outbox
+     */
+    public boolean isSpooled(String world, long chunkIndex) {
+        return outbox.contains(outboxWorld(world), chunkIndex);
+    }
+
+    /**
+     * Write a chunk to the outbox for later delivery
+     *
+     * @return false if it could not be spooled
+     */
+    public boolean spool(long chunkIndex, ChunkProcessingService.ChunkData chunkData) {
+        try {
+            byte[] payload = httpClient.encodeChunk(chunkData);
+            if (!outbox.append(outboxWorld(chunkData.world), chunkIndex, chunkData.contentHash,
+                    payloadFormat.getCode(), payload)) {
+                Log.warnThrottled("outbox-full", 10_000,
+                        () -> "Outbox is full, dropping chunk (" + chunkData.chunkX + "," + chunkData.chunkZ + ")");
+                return false;
+            }
+        } catch (IOException e) {
+            Log.error("Failed to spool chunk (" + chunkData.chunkX + "," + chunkData.chunkZ + "): " + e.getMessage(),
+                    debugMode ? e : null);
+            return false;
+        }
+
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Forget spooled copies of a chunk after a newer version was uploaded
+     * directly
+     */
+    public void supersede(String world, long chunkIndex) {
+        outbox.supersede(outboxWorld(world), chunkIndex);
+    }
+
+    /**
+     * Wait until a world has no chunk left to deliver, or the API goes down
+     *
+     * @return false if chunks of the world are still spooled
+     */
+    public boolean awaitDrained(String world, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        String outboxWorld = outboxWorld(world);
+        while (outbox.containsWorld(outboxWorld) && healthy && System.currentTimeMillis() < deadline) {
+            synchronized (signal) {
+                signal.wait(100);
+            }
+        }
+        return !outbox.containsWorld(outboxWorld);
+    }
+
+    public long getRecordCount() {
+        return outbox.getRecordCount();
+    }
+
+    public long getSizeBytes() {
+        return outbox.getSizeBytes();
+    }
+
+    /**
+     * Try to drain the outbox within the timeout, then stop. Anything left
+     * stays on disk for the next start.
+     */
+    public void shutdown(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        if (!outbox.isEmpty()) {
+            Log.info("Draining " + outbox.getRecordCount() + " spooled chunks...");
+        }
+        while (!outbox.isEmpty() && healthy && System.currentTimeMillis() < deadline) {
+            synchronized (signal) {
+                try {
+                    signal.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        running = false;
+        thread.interrupt();
+        // Not interrupted: an interrupt during the fsync would close the segment's channel
+        flusher.shutdown();
+        try {
+            thread.join(5000);
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (!outbox.isEmpty()) {
+            Log.info(outbox.getRecordCount() + " chunks remain in the outbox and will be sent on next start");
+        }
+        try {
+            outbox.close();
+        } catch (IOException e) {
+            Log.error("Failed to close outbox: " + e.getMessage());
+        }
+    }
+
+    private void sync() {
+        try {
+            outbox.sync();
+        } catch (IOException e) {
+            Log.error("Failed to sync outbox: " + e.getMessage(), debugMode ? e : null);
+        }
+    }
+
+    /**
+     * The default world is spooled without its name, so its records can be
+     * replayed before the worlds are discovered
+     */
+    private String outboxWorld(String world) {
+        return storages.isDefault(world) ? "" : world;
+    }
+
+    private void run() {
+        long backoffMs = MIN_BACKOFF_MS;
+        while (running) {
+            try {
+                UploadOutbox.Record record = outbox.peek();
+                if (record == null) {
+                    healthy = true;
+                    synchronized (signal) {
+                        signal.notifyAll();
+                        signal.wait(1000);
+                    }
+                    continue;
+                }
+
+                // A newer version of this chunk was spooled or uploaded since
+                if (!outbox.isCurrent(record)) {
+                    outbox.acknowledge(record);
+                    continue;
+                }
+
+                int chunkX = ChunkUtil.xOfChunkIndex(record.chunkIndex);
+                int chunkZ = ChunkUtil.zOfChunkIndex(record.chunkIndex);
+                PayloadFormat format = PayloadFormat.fromCode(record.format);
+                if (format == null) {
+                    // Not replayable; the chunk is uploaded again once it changes or on a rescan
+                    Log.warn("Dropping spooled chunk (" + chunkX + "," + chunkZ + ") with unknown payload format " + record.format);
+                    outbox.acknowledge(record);
+                    continue;
+                }
+                // Replays are sent one at a time to keep them in order
+                HttpClientService.UploadResult result = httpClient.sendEncodedChunk(record.payload, format,
+                        "spooled chunk (" + chunkX + "," + chunkZ + ")").get();
+                if (result.isRejected()) {
+                    // The worker is up but will never take this payload; keep draining behind it
+                    Log.warn("Dropping spooled chunk (" + chunkX + "," + chunkZ + "), rejected by the worker with status " + result.statusCode);
+                    outbox.acknowledge(record);
+                    healthy = true;
+                    backoffMs = MIN_BACKOFF_MS;
+                } else if (result.isSuccess()) {
+                    // Recorded before the record is dropped. A world that is not open, e.g. closed after it
+                    // unloaded, is not opened for it; the chunk is uploaded again when the world is mapped
+                    storages.markIfOpen(record.world, record.chunkIndex, record.contentHash);
+                    outbox.acknowledge(record);
+                    if (!healthy) {
+                        Log.info("Worker API is reachable again, draining " + outbox.getRecordCount()
+                                + " spooled chunks");
+                    }
+                    healthy = true;
+                    backoffMs = MIN_BACKOFF_MS;
+                } else {
+                    if (healthy) {
+                        Log.warn("Worker API is unavailable, spooling chunks to the outbox");
+                    }
+                    healthy = false;
+                    Thread.sleep(backoffMs);
+                    backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                Log.error("Error draining outbox: " + e.getMessage(), debugMode ? e : null);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
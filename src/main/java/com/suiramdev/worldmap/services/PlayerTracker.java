@@ -0,0 +1,82 @@
+package com.suiramdev.worldmap.services;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.suiramdev.worldmap.logging.Log;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reads which chunks the online players stand in and hands them
+ * to the scheduler, so chunks around players are processed first.
+ */
+public class PlayerTracker {
+    // Hytale chunks are 32 blocks wide
+    private static final int CHUNK_SHIFT = 5;
+
+    private final WorldScheduler scheduler;
+    private final Map<String, World> worlds;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * @param worlds     Worlds being mapped, by name
+     * @param intervalMs Time between position reads
+     */
+    public PlayerTracker(WorldScheduler scheduler, Map<String, World> worlds, long intervalMs) {
+        this.scheduler = scheduler;
+        this.worlds = worlds;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Worldmap-Players");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(100, intervalMs);
+        executor.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void poll() {
+        for (Map.Entry<String, World> entry : worlds.entrySet()) {
+            try {
+                scheduler.setPlayerChunks(entry.getKey(), playerChunks(entry.getValue()));
+            } catch (Exception e) {
+                // Keep the schedule alive, the next read retries
+                String world = entry.getKey();
+                Log.warnThrottled("player-positions-" + world, 10_000,
+                        () -> "Error reading player positions in world " + world + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Chunk index of every player in a world, without duplicates
+     */
+    private static long[] playerChunks(World world) {
+        Collection<PlayerRef> players = world.getPlayerRefs();
+        if (players == null || players.isEmpty()) {
+            return new long[0];
+        }
+        LongOpenHashSet chunks = new LongOpenHashSet();
+        for (PlayerRef player : players) {
+            Transform transform = player != null ? player.getTransform() : null;
+            Vector3d position = transform != null ? transform.getPosition() : null;
+            if (position == null) {
+                continue;
+            }
+            int chunkX = (int) Math.floor(position.getX()) >> CHUNK_SHIFT;
+            int chunkZ = (int) Math.floor(position.getZ()) >> CHUNK_SHIFT;
+            chunks.add(ChunkUtil.indexChunk(chunkX, chunkZ));
+        }
+        return chunks.toLongArray();
+    }
+}
@@ -0,0 +1,196 @@
+package com.suiramdev.worldmap.services;
+
+import com.suiramdev.worldmap.logging.Log;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking, adaptive limit on concurrent API requests.
+ *
+ * Callers receive a future that completes once a permit is free instead of
+ * parking a thread on a semaphore. Waiters are served in arrival order.
+ *
+ * The limit follows AIMD over windows of successful requests: it grows by one
+ * after a window whose 90th percentile latency stays close to the baseline,
+ * and is cut by 10% when that percentile climbs well above it, which means
+ * requests are queueing at the worker. Timeouts, connection errors, 429 and
+ * 503 responses halve it immediately.
+ */
+public class RequestLimiter {
+    private static final int INITIAL_LIMIT = 5;
+    private static final double LATENCY_TOLERANCE = 2.0; // p90 over baseline latency before backing off
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double DROP_BACKOFF = 0.5;
+    private static final long DROP_COOLDOWN_NANOS = 1_000_000_000L;
+    private static final int MIN_WINDOW = 16;
+
+    /**
+     * How a request ended, as far as the limit is concerned
+     */
+    public enum Outcome {
+        /** 2xx response, its latency is sampled */
+        SUCCESS,
+        /** Timeout, connection failure, 429 or 503: the worker is overloaded */
+        DROPPED,
+        /** Any other failure, says nothing about load */
+        IGNORED
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    // Guarded by waiters
+    private double limit;
+    private int inUse;
+    private long[] window = new long[MIN_WINDOW];
+    private int windowCount;
+    private int saturatedCount; // Successes in the window that finished with at least half the limit in use
+    private double baselineNanos;
+    private long lastDropNanos;
+    private long lastP90Nanos;
+
+    /**
+     * @param minLimit Floor the limit never drops below
+     * @param maxLimit Ceiling the limit never grows above
+     */
+    public RequestLimiter(int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, INITIAL_LIMIT));
+        this.lastDropNanos = System.nanoTime() - DROP_COOLDOWN_NANOS;
+    }
+
+    /**
+     * @return Future completed when the caller holds a permit; release it with
+     *         {@link #release(long, Outcome)}
+     */
+    public CompletableFuture<Void> acquire() {
+        synchronized (waiters) {
+            if (inUse < (int) limit) {
+                inUse++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.addLast(waiter);
+            return waiter;
+        }
+    }
+
+    /**
+     * Return a permit and feed the request's outcome into the limit
+     *
+     * @param latencyNanos Time from sending the request to its response
+     */
+    public void release(long latencyNanos, Outcome outcome) {
+        List<CompletableFuture<Void>> ready = new ArrayList<>(2);
+        int before;
+        int after;
+        long p90Nanos;
+        long baseline;
+        synchronized (waiters) {
+            before = (int) limit;
+            inUse--;
+            if (outcome == Outcome.SUCCESS) {
+                onSuccess(latencyNanos);
+            } else if (outcome == Outcome.DROPPED) {
+                onDrop();
+            }
+            after = (int) limit;
+            p90Nanos = lastP90Nanos;
+            baseline = (long) baselineNanos;
+
+            // Hand free permits to waiters, more than one if the limit grew
+            while (inUse < after && !waiters.isEmpty()) {
+                inUse++;
+                ready.add(waiters.pollFirst());
+            }
+        }
+
+        // Overload cuts are always worth a line, routine latency adjustments only at debug level
+        if (outcome == Outcome.DROPPED && after < before) {
+            Log.info("Upload concurrency limit " + before + " -> " + after + " (worker overloaded or unreachable)");
+        } else if (after != before) {
+            Log.debug(() -> "Upload concurrency limit " + before + " -> " + after + " (p90 latency "
+                    + p90Nanos / 1_000_000 + "ms, baseline " + baseline / 1_000_000 + "ms)");
+        }
+        for (CompletableFuture<Void> waiter : ready) {
+            waiter.complete(null);
+        }
+    }
+
+    private void onSuccess(long latencyNanos) {
+        window[windowCount++] = latencyNanos;
+        if (inUse + 1 >= limit / 2) {
+            saturatedCount++;
+        }
+        if (windowCount == window.length) {
+            evaluateWindow();
+        }
+    }
+
+    /**
+     * Compare the window's latency percentiles with the baseline, then start a
+     * new window sized to the current limit
+     */
+    private void evaluateWindow() {
+        long[] sorted = Arrays.copyOf(window, windowCount);
+        Arrays.sort(sorted);
+        long fastest = sorted[0];
+        long p90 = sorted[(int) (sorted.length * 0.9)];
+        lastP90Nanos = p90;
+
+        // The fastest request of a window approximates the latency without queueing
+        if (baselineNanos == 0 || fastest < baselineNanos) {
+            baselineNanos = fastest;
+        } else {
+            // Let the baseline follow a worker that became permanently slower
+            baselineNanos = baselineNanos * 0.99 + fastest * 0.01;
+        }
+
+        if (p90 > baselineNanos * LATENCY_TOLERANCE) {
+            limit = Math.max(minLimit, limit * LATENCY_BACKOFF);
+        } else if (saturatedCount * 2 >= windowCount) {
+            // Only grow a limit that is actually in use, not one idling far above demand
+            limit = Math.min(maxLimit, limit + 1);
+        }
+
+        int size = Math.max(MIN_WINDOW, (int) limit);
+        if (size != window.length) {
+            window = new long[size];
+        }
+        windowCount = 0;
+        saturatedCount = 0;
+    }
+
+    private void onDrop() {
+        // One overload usually fails a whole burst of requests, back off once for it
+        long now = System.nanoTime();
+        if (now - lastDropNanos < DROP_COOLDOWN_NANOS) {
+            return;
+        }
+        lastDropNanos = now;
+        limit = Math.max(minLimit, limit * DROP_BACKOFF);
+    }
+
+    public int getLimit() {
+        synchronized (waiters) {
+            return (int) limit;
+        }
+    }
+
+    public int getInUse() {
+        synchronized (waiters) {
+            return inUse;
+        }
+    }
+
+    public int getQueued() {
+        synchronized (waiters) {
+            return waiters.size();
+        }
+    }
+}
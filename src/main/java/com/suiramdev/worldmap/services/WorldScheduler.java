@@ -0,0 +1,510 @@
+package com.suiramdev.worldmap.services;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.suiramdev.worldmap.logging.Log;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Shares the in-flight chunk window between worlds.
+ *
+ * <p>
+ * Each world queues its changed chunks ahead of its backfill. Worlds take
+ * turns by stride scheduling: every dispatch advances a world's pass by
+ * 1 / weight and the world with the lowest pass goes next, so worlds with work
+ * share the window in proportion to their weights. A world that had nothing
+ * queued rejoins at the current pass rather than its old one. It cannot bank
+ * turns while idle, and however large another world's backlog, its next chunk
+ * waits at most one round.
+ *
+ * <p>
+ * Within a world, changed chunks go first, then backfill chunks near players,
+ * then the rest of the backfill in its sorted order. Chunks near players are
+ * bucketed by their ring distance to the nearest player whenever the players
+ * move. Only the chunks within the priority radius are looked at, so moving
+ * them ahead costs the same however large the backfill.
+ */
+public class WorldScheduler {
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    /**
+     * Loads and processes one chunk
+     */
+    public interface ChunkTask {
+        /**
+         * @param reprocess Whether to upload the chunk even if it was processed
+         *                  before
+         * @param released  Completed by the task once the chunk no longer needs
+         *                  its slot, at the latest when it is done
+         * @return Future completing once the chunk is done
+         */
+        CompletableFuture<?> run(String world, long chunkIndex, boolean reprocess, CompletableFuture<Void> released);
+    }
+
+    private static final long[] NO_CHUNKS = new long[0];
+
+    private final ChunkTask task;
+    private final Semaphore window;
+    private final int priorityRadius;
+    private final Supplier<String> uploadStatus;
+    private final boolean debugMode;
+
+    private final Object lock = new Object();
+    private final Map<String, WorldQueue> worlds = new LinkedHashMap<>(); // Guarded by lock
+    private double currentPass; // Pass of the last dispatched world, guarded by lock
+    private final Map<String, Integer> inFlight = new HashMap<>(); // Dispatched chunks not done, guarded by lock
+
+    private final AtomicInteger backfillInFlight = new AtomicInteger(0);
+    private final AtomicInteger nearPlayersQueued = new AtomicInteger(0);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * @param maxInFlight    Chunks loaded, extracted or uploaded at once, across
+     *                       all worlds
+     * @param priorityRadius Distance in chunks from a player within which
+     *                       backfill chunks are moved ahead
+     * @param uploadStatus   State of the upload limiter appended to progress
+     *                       lines, or null
+     */
+    public WorldScheduler(ChunkTask task, int maxInFlight, int priorityRadius, Supplier<String> uploadStatus,
+            boolean debugMode) {
+        this.task = task;
+        this.window = new Semaphore(Math.max(1, maxInFlight));
+        this.priorityRadius = Math.max(0, priorityRadius);
+        this.uploadStatus = uploadStatus;
+        this.debugMode = debugMode;
+
+        this.thread = new Thread(this::run, "Worldmap-Scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Start scheduling a world, or change its weight
+     *
+     * @param weight Share of the window relative to the other worlds
+     */
+    public void addWorld(String world, int weight) {
+        synchronized (lock) {
+            WorldQueue queue = worlds.get(world);
+            if (queue == null) {
+                queue = new WorldQueue(world);
+                queue.pass = currentPass;
+                worlds.put(world, queue);
+            }
+            queue.weight = Math.max(1, weight);
+        }
+    }
+
+    /**
+     * Stop scheduling a world, dropping its queued chunks. Chunks already
+     * dispatched finish normally, see {@link #awaitWorldIdle}.
+     */
+    public void removeWorld(String world) {
+        synchronized (lock) {
+            WorldQueue queue = worlds.remove(world);
+            if (queue != null) {
+                nearPlayersQueued.addAndGet(-queue.nearPlayersCount);
+            }
+            if (queue != null && queue.hasWork()) {
+                Log.info("Dropped " + queue.size() + " queued chunks of unloaded world " + world);
+            }
+        }
+    }
+
+    /**
+     * Wait until every dispatched chunk of a world is done, including chunks
+     * that gave up their slot to wait in an upload batch
+     *
+     * @return false if chunks were still in flight when the timeout passed
+     */
+    public boolean awaitWorldIdle(String world, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (lock) {
+            while (inFlight.containsKey(world)) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                lock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    public boolean hasWorld(String world) {
+        synchronized (lock) {
+            return worlds.containsKey(world);
+        }
+    }
+
+    /**
+     * Replace a world's backfill with the given chunks, in order
+     *
+     * @param reprocess Whether the chunks are uploaded again even if they were
+     *                  processed before
+     */
+    public void enqueueBackfill(String world, long[] chunkIndexes, int count, boolean reprocess) {
+        synchronized (lock) {
+            WorldQueue queue = worlds.get(world);
+            if (queue == null) {
+                return;
+            }
+            queue.wake(currentPass);
+            queue.backfill = chunkIndexes;
+            queue.backfillCount = count;
+            queue.backfillPosition = 0;
+            queue.backfillQueued = new LongOpenHashSet(chunkIndexes, 0, count);
+            queue.backfillReprocess = reprocess;
+            queue.backfillGeneration++;
+            queue.backfillDone = 0;
+            queue.backfillStartedAt = System.currentTimeMillis();
+            prioritize(queue);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Queue a changed chunk ahead of its world's backfill
+     *
+     * @return false if the world is not scheduled
+     */
+    public boolean enqueueChanged(String world, long chunkIndex) {
+        synchronized (lock) {
+            WorldQueue queue = worlds.get(world);
+            if (queue == null) {
+                return false;
+            }
+            queue.wake(currentPass);
+            queue.changed.add(chunkIndex);
+            lock.notifyAll();
+            return true;
+        }
+    }
+
+    /**
+     * Move the backfill chunks around a world's players ahead of the rest
+     *
+     * @param playerChunks Chunk index of every player in the world
+     */
+    public void setPlayerChunks(String world, long[] playerChunks) {
+        long[] sorted = playerChunks.clone();
+        Arrays.sort(sorted);
+        synchronized (lock) {
+            WorldQueue queue = worlds.get(world);
+            // Chunks near players who stood still were prioritized on the last call
+            if (queue == null || Arrays.equals(queue.playerChunks, sorted)) {
+                return;
+            }
+            queue.playerChunks = sorted;
+            prioritize(queue);
+        }
+    }
+
+    /**
+     * Chunks waiting for a slot, across all worlds
+     */
+    public int getQueuedCount() {
+        synchronized (lock) {
+            int count = 0;
+            for (WorldQueue queue : worlds.values()) {
+                count += queue.size();
+            }
+            return count;
+        }
+    }
+
+    public int getWorldCount() {
+        synchronized (lock) {
+            return worlds.size();
+        }
+    }
+
+    /**
+     * Backfill chunks waiting near players, across all worlds
+     */
+    public int getNearPlayersQueued() {
+        return nearPlayersQueued.get();
+    }
+
+    /**
+     * Backfill chunks being loaded, extracted or uploaded
+     */
+    public int getBackfillInFlight() {
+        return backfillInFlight.get();
+    }
+
+    /**
+     * Stop dispatching. Chunks already dispatched are left to finish.
+     */
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                if (!window.tryAcquire(1, TimeUnit.SECONDS)) {
+                    continue;
+                }
+                WorldQueue queue;
+                long chunkIndex;
+                boolean changed;
+                int generation;
+                synchronized (lock) {
+                    while ((queue = next()) == null && running) {
+                        lock.wait(1000);
+                    }
+                    if (queue == null) {
+                        window.release();
+                        return;
+                    }
+                    inFlight.merge(queue.name, 1, Integer::sum);
+                    changed = !queue.changed.isEmpty();
+                    if (changed) {
+                        Iterator<Long> iterator = queue.changed.iterator();
+                        chunkIndex = iterator.next();
+                        iterator.remove();
+                    } else {
+                        chunkIndex = nextBackfill(queue);
+                    }
+                    generation = queue.backfillGeneration;
+                }
+                dispatch(queue, chunkIndex, changed, generation);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Pick the world with work and the lowest pass, and advance it
+     */
+    private WorldQueue next() {
+        WorldQueue best = null;
+        for (WorldQueue queue : worlds.values()) {
+            if (queue.hasWork() && (best == null || queue.pass < best.pass)) {
+                best = queue;
+            }
+        }
+        if (best != null) {
+            currentPass = best.pass;
+            best.pass += 1.0 / best.weight;
+        }
+        return best;
+    }
+
+    /**
+     * Take the backfill chunk nearest to a player, or the next one in sorted
+     * order if none is near
+     */
+    private long nextBackfill(WorldQueue queue) {
+        long chunkIndex;
+        if (queue.nearPlayersCount > 0) {
+            LongArrayList ring = queue.rings[queue.ring];
+            while (ring.isEmpty()) {
+                ring = queue.rings[++queue.ring];
+            }
+            chunkIndex = ring.removeLong(ring.size() - 1);
+            queue.nearPlayersCount--;
+            nearPlayersQueued.decrementAndGet();
+        } else {
+            // Skip chunks already taken near a player
+            do {
+                chunkIndex = queue.backfill[queue.backfillPosition++];
+            } while (!queue.backfillQueued.contains(chunkIndex));
+        }
+        queue.backfillQueued.remove(chunkIndex);
+        if (queue.backfillQueued.isEmpty()) {
+            queue.backfill = NO_CHUNKS;
+            queue.backfillQueued = new LongOpenHashSet();
+        }
+        return chunkIndex;
+    }
+
+    /**
+     * Rebucket a world's queued backfill chunks by ring distance to the
+     * nearest player, walking rings outward from every player at once so a
+     * chunk lands in the ring of the player closest to it
+     */
+    private void prioritize(WorldQueue queue) {
+        int previous = queue.nearPlayersCount;
+        if (queue.rings == null) {
+            queue.rings = new LongArrayList[priorityRadius + 1];
+            for (int ring = 0; ring <= priorityRadius; ring++) {
+                queue.rings[ring] = new LongArrayList();
+            }
+        }
+        for (LongArrayList ring : queue.rings) {
+            ring.clear();
+        }
+        queue.ring = 0;
+        queue.nearPlayersCount = 0;
+
+        if (!queue.backfillQueued.isEmpty() && queue.playerChunks.length > 0) {
+            LongOpenHashSet placed = new LongOpenHashSet();
+            for (int ring = 0; ring <= priorityRadius; ring++) {
+                LongArrayList bucket = queue.rings[ring];
+                for (long playerChunk : queue.playerChunks) {
+                    int centerX = ChunkUtil.xOfChunkIndex(playerChunk);
+                    int centerZ = ChunkUtil.zOfChunkIndex(playerChunk);
+                    for (int dz = -ring; dz <= ring; dz++) {
+                        // Inner rows only have the two cells on the ring's edges
+                        int step = dz == -ring || dz == ring ? 1 : Math.max(1, 2 * ring);
+                        for (int dx = -ring; dx <= ring; dx += step) {
+                            long chunkIndex = ChunkUtil.indexChunk(centerX + dx, centerZ + dz);
+                            if (queue.backfillQueued.contains(chunkIndex) && placed.add(chunkIndex)) {
+                                bucket.add(chunkIndex);
+                            }
+                        }
+                    }
+                }
+            }
+            queue.nearPlayersCount = placed.size();
+        }
+        nearPlayersQueued.addAndGet(queue.nearPlayersCount - previous);
+        if (queue.nearPlayersCount > 0) {
+            int count = queue.nearPlayersCount;
+            Log.debug(() -> "Moved " + count + " chunks of world " + queue.name + " near players ahead");
+        }
+    }
+
+    /**
+     * @param generation Backfill the chunk was taken from, if it is not a
+     *                   changed chunk
+     */
+    private void dispatch(WorldQueue queue, long chunkIndex, boolean changed, int generation) {
+        boolean reprocess = changed || queue.backfillReprocess;
+        if (!changed) {
+            backfillInFlight.incrementAndGet();
+        }
+        CompletableFuture<Void> released = new CompletableFuture<>();
+        released.whenComplete((result, throwable) -> window.release());
+        CompletableFuture<?> done;
+        try {
+            done = task.run(queue.name, chunkIndex, reprocess, released);
+        } catch (RuntimeException e) {
+            Log.error("Error scheduling chunk of world " + queue.name + ": " + e.getMessage(), debugMode ? e : null);
+            done = CompletableFuture.completedFuture(null);
+        }
+        done.whenComplete((result, throwable) -> {
+            released.complete(null);
+            // Chunks waiting in an upload batch have released their slot but are not done yet
+            if (!changed) {
+                backfillInFlight.decrementAndGet();
+                backfillCompleted(queue, generation);
+            }
+            finished(queue.name);
+        });
+    }
+
+    private void finished(String world) {
+        synchronized (lock) {
+            if (inFlight.merge(world, -1, Integer::sum) == 0) {
+                inFlight.remove(world);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void backfillCompleted(WorldQueue queue, int generation) {
+        int done;
+        int total;
+        int running;
+        int waiting;
+        long elapsed;
+        synchronized (lock) {
+            // Chunks of a backfill that was replaced since are not part of the new one
+            if (generation != queue.backfillGeneration) {
+                return;
+            }
+            done = ++queue.backfillDone;
+            total = queue.backfillCount;
+            // This chunk still counts until finished() runs
+            running = inFlight.getOrDefault(queue.name, 1) - 1;
+            waiting = queue.size();
+            elapsed = System.currentTimeMillis() - queue.backfillStartedAt;
+        }
+        if (done == total) {
+            Log.info("Backfill of world " + queue.name + " finished: " + total + " chunks in "
+                    + (elapsed / 1000) + "s (" + formatRate(total, elapsed) + " chunks/s)");
+        } else if (done % PROGRESS_INTERVAL == 0) {
+            String status = uploadStatus != null ? uploadStatus.get() : null;
+            Log.info("Backfill of world " + queue.name + ": " + done + " / " + total + " chunks done ("
+                    + running + " in flight, " + waiting + " waiting, " + formatRate(done, elapsed) + " chunks/s"
+                    + (status != null ? ", " + status : "") + ")");
+        }
+    }
+
+    private static String formatRate(int count, long elapsedMs) {
+        return String.format("%.1f", count * 1000.0 / Math.max(1, elapsedMs));
+    }
+
+    /**
+     * Chunks waiting to be dispatched for one world
+     */
+    private static final class WorldQueue {
+        final String name;
+        int weight = 1;
+        double pass;
+
+        // Changed chunks in the order they settled, without duplicates
+        final LinkedHashSet<Long> changed = new LinkedHashSet<>();
+
+        long[] backfill = NO_CHUNKS;
+        int backfillCount;
+        int backfillPosition;
+        // Backfill chunks not dispatched yet, wherever they sit in the order
+        LongOpenHashSet backfillQueued = new LongOpenHashSet();
+        boolean backfillReprocess;
+        long backfillStartedAt;
+        int backfillGeneration; // Bumped whenever the backfill is replaced
+        int backfillDone; // Chunks of the current backfill generation that are done
+
+        // Sorted chunk indexes of the world's players
+        long[] playerChunks = NO_CHUNKS;
+        // Queued backfill chunks by distance to the nearest player, lowest non-empty ring first
+        LongArrayList[] rings;
+        int ring;
+        int nearPlayersCount;
+
+        WorldQueue(String name) {
+            this.name = name;
+        }
+
+        boolean hasWork() {
+            return !changed.isEmpty() || !backfillQueued.isEmpty();
+        }
+
+        int size() {
+            return changed.size() + backfillQueued.size();
+        }
+
+        /**
+         * Rejoin at the current pass after being idle
+         */
+        void wake(double currentPass) {
+            if (!hasWork()) {
+                pass = Math.max(pass, currentPass);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.suiramdev.worldmap.services;
+
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.suiramdev.worldmap.logging.Log;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notices worlds being loaded and unloaded by periodically comparing the
+ * universe's worlds with the ones seen so far.
+ */
+public class WorldTracker {
+    /**
+     * Called on the tracker's thread, or on the thread of an explicit
+     * {@link #track(World)}. Calls are never concurrent and arrive in the
+     * order the changes were seen, but do not hold the tracker's lock.
+     */
+    public interface Listener {
+        void worldAdded(World world);
+
+        void worldRemoved(String worldName);
+    }
+
+    private final Listener listener;
+    private final boolean debugMode;
+    private final Set<String> known = new HashSet<>(); // Guarded by this
+    private final Object dispatch = new Object(); // Held while notifying the listener, taken before this
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param intervalMs Time between checks, the first one runs right away
+     */
+    public WorldTracker(Listener listener, long intervalMs, boolean debugMode) {
+        this.listener = listener;
+        this.debugMode = debugMode;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Worldmap-Worlds");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, 0, Math.max(100, intervalMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start tracking a world before the next check finds it, e.g. when one of
+     * its chunks changed
+     *
+     * @return true if the world was not tracked yet
+     */
+    public boolean track(World world) {
+        synchronized (dispatch) {
+            synchronized (this) {
+                if (!known.add(world.getName())) {
+                    return false;
+                }
+            }
+            listener.worldAdded(world);
+            return true;
+        }
+    }
+
+    public synchronized int getWorldCount() {
+        return known.size();
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void poll() {
+        try {
+            Universe universe = Universe.get();
+            Map<String, World> worlds = universe != null ? universe.getWorlds() : null;
+            if (worlds == null) {
+                return;
+            }
+
+            synchronized (dispatch) {
+                Set<String> loaded = new HashSet<>();
+                for (World world : worlds.values()) {
+                    if (world != null) {
+                        loaded.add(world.getName());
+                        track(world);
+                    }
+                }
+                List<String> removed = new ArrayList<>();
+                synchronized (this) {
+                    Iterator<String> iterator = known.iterator();
+                    while (iterator.hasNext()) {
+                        String name = iterator.next();
+                        if (!loaded.contains(name)) {
+                            iterator.remove();
+                            removed.add(name);
+                        }
+                    }
+                }
+                for (String name : removed) {
+                    listener.worldRemoved(name);
+                }
+            }
+        } catch (Exception e) {
+            // Keep the schedule alive, the next check retries
+            Log.error("Error checking loaded worlds: " + e.getMessage(), debugMode ? e : null);
+        }
+    }
+}
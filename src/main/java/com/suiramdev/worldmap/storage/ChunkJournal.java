@@ -0,0 +1,171 @@
+package com.suiramdev.worldmap.storage;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of processed chunk indexes and their content
+ * hashes.
+ *
+ * <pre>
+ * header: int magic "WMJR", int version
+ * record: long chunkIndex, long contentHash, int crc32(chunkIndex, contentHash)
+ * </pre>
+ *
+ * Records are fixed width so a torn write at the tail is detected by length or
+ * checksum and simply ignored on replay. All values are little-endian.
+ */
+public class ChunkJournal implements AutoCloseable {
+    private static final int MAGIC = 0x524A4D57; // "WMJR" read as little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 20;
+
+    private final File file;
+    private FileChannel channel;
+    private long recordCount;
+
+    public ChunkJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Replay every intact record, then open the journal for appending after the
+     * last intact record
+     */
+    public void open(ConcurrentLongMap.EntryConsumer consumer) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        recordCount = 0;
+
+        if (channel.size() < HEADER_SIZE || !readHeader()) {
+            writeHeader();
+            return;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long position = HEADER_SIZE;
+        while (position + RECORD_SIZE <= channel.size()) {
+            record.clear();
+            readFully(record, position);
+            record.flip();
+            long chunkIndex = record.getLong();
+            long contentHash = record.getLong();
+            if (record.getInt() != checksum(chunkIndex, contentHash)) {
+                System.err.println("[Worldmap] Ignoring corrupt journal tail at offset " + position);
+                break;
+            }
+            consumer.accept(chunkIndex, contentHash);
+            recordCount++;
+            position += RECORD_SIZE;
+        }
+
+        // Drop any torn record so new appends start on a record boundary
+        channel.truncate(position);
+        channel.position(position);
+    }
+
+    /**
+     * Append records without forcing them to disk
+     */
+    public void append(long[] chunkIndexes, long[] contentHashes, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(chunkIndexes[i]);
+            buffer.putLong(contentHashes[i]);
+            buffer.putInt(checksum(chunkIndexes[i], contentHashes[i]));
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        recordCount += count;
+    }
+
+    /**
+     * Force appended records to disk
+     */
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Discard every record, after their content has been captured by a snapshot
+     */
+    public void reset() throws IOException {
+        channel.truncate(HEADER_SIZE);
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+        recordCount = 0;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * @return false if the header is not usable
+     */
+    private boolean readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            System.err.println("[Worldmap] Journal " + file.getName() + " has an unknown format, starting a new one");
+            return false;
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            System.err.println("[Worldmap] Unsupported journal version " + version + ", starting a new one");
+            return false;
+        }
+        return true;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        channel.truncate(0);
+        channel.position(0);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of journal " + file.getName());
+            }
+        }
+    }
+
+    private static int checksum(long chunkIndex, long contentHash) {
+        CRC32 crc = new CRC32();
+        updateLong(crc, chunkIndex);
+        updateLong(crc, contentHash);
+        return (int) crc.getValue();
+    }
+
+    private static void updateLong(CRC32 crc, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            crc.update((int) (value >>> shift) & 0xFF);
+        }
+    }
+}
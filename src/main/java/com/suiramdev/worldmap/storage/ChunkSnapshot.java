@@ -0,0 +1,163 @@
+package com.suiramdev.worldmap.storage;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of processed chunk indexes and their content hashes.
+ *
+ * <pre>
+ * int  magic "WMSN"
+ * int  version
+ * int  count
+ * count x (long chunkIndex, long contentHash), sorted by chunk index
+ * long crc32 of everything above
+ * </pre>
+ *
+ * Snapshots are written to a temporary file and atomically renamed over the
+ * previous one, so a crash never leaves a partially written snapshot behind.
+ * The folder is synced after the rename, so the new snapshot is durable before
+ * the journal it replaces is truncated. The snapshot being replaced is kept as
+ * {@code <name>.prev}, to fall back to if the current one turns out corrupt.
+ */
+public final class ChunkSnapshot {
+    private static final int MAGIC = 0x574D534E; // "WMSN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 16;
+    private static final int CHECKSUM_SIZE = 8;
+    private static final String PREVIOUS_SUFFIX = ".prev";
+
+    private ChunkSnapshot() {
+    }
+
+    /**
+     * Read a snapshot
+     *
+     * @return false if the file does not exist
+     * @throws IOException if the file exists but is corrupt
+     */
+    public static boolean read(File file, ConcurrentLongMap.EntryConsumer consumer) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(new FileInputStream(file)), crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a worldmap snapshot: " + file.getName());
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            int count = in.readInt();
+            // A corrupt count must fail like any other corruption, not as a huge allocation
+            long maxCount = Math.max(0, file.length() - HEADER_SIZE - CHECKSUM_SIZE) / ENTRY_SIZE;
+            if (count < 0 || count > maxCount) {
+                throw new IOException("Invalid snapshot entry count " + count + ": " + file.getName());
+            }
+            long[] chunkIndexes = new long[count];
+            long[] contentHashes = new long[count];
+            for (int i = 0; i < count; i++) {
+                chunkIndexes[i] = in.readLong();
+                contentHashes[i] = in.readLong();
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + file.getName());
+            }
+            // Only publish entries once the whole file has been verified
+            for (int i = 0; i < count; i++) {
+                consumer.accept(chunkIndexes[i], contentHashes[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Atomically replace the snapshot with the given entries
+     */
+    public static void write(File file, ConcurrentLongMap chunks) throws IOException {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        CRC32 crc = new CRC32();
+
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile);
+                DataOutputStream out = new DataOutputStream(
+                        new CheckedOutputStream(new BufferedOutputStream(fileOut), crc))) {
+            long[] entries = toSortedPairs(chunks);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.length / 2);
+            for (long value : entries) {
+                out.writeLong(value);
+            }
+            out.flush();
+            // The checksum itself is not part of the checked content
+            long checksum = crc.getValue();
+            new DataOutputStream(fileOut).writeLong(checksum);
+            fileOut.getFD().sync();
+        }
+
+        if (file.exists()) {
+            Files.move(file.toPath(), previous(file).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * The snapshot that was replaced by the last {@link #write}. It only holds
+     * the chunks known at the compaction before that one.
+     */
+    public static File previous(File file) {
+        return new File(file.getParentFile(), file.getName() + PREVIOUS_SUFFIX);
+    }
+
+    /**
+     * Persist a rename by syncing the folder holding it. Some platforms cannot
+     * open a folder for syncing; the rename is then as durable as they allow.
+     */
+    private static void syncDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported here, e.g. on Windows
+        }
+    }
+
+    /**
+     * Flatten the map into [index, hash, index, hash, ...] sorted by index
+     */
+    private static long[] toSortedPairs(ConcurrentLongMap chunks) {
+        LongArrayList indexes = new LongArrayList(chunks.size());
+        chunks.forEach((chunkIndex, contentHash) -> indexes.add(chunkIndex));
+        long[] sorted = indexes.toLongArray();
+        Arrays.sort(sorted);
+
+        long[] pairs = new long[sorted.length * 2];
+        for (int i = 0; i < sorted.length; i++) {
+            pairs[i * 2] = sorted[i];
+            pairs[i * 2 + 1] = chunks.get(sorted[i], 0);
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,108 @@
+package com.suiramdev.worldmap.storage;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+/**
+ * Thread-safe primitive long to long map, lock-striped over fastutil hash maps.
+ *
+ * Keys are spread over a fixed number of stripes by a mixed hash, so threads
+ * touching different chunks rarely contend and no boxing happens on lookups.
+ */
+public class ConcurrentLongMap {
+    private static final int STRIPES = 64;
+
+    private final Long2LongOpenHashMap[] stripes = new Long2LongOpenHashMap[STRIPES];
+
+    public ConcurrentLongMap() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Long2LongOpenHashMap();
+        }
+    }
+
+    public boolean containsKey(long key) {
+        Long2LongOpenHashMap stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.containsKey(key);
+        }
+    }
+
+    /**
+     * @return The value for the key, or defaultValue if absent
+     */
+    public long get(long key, long defaultValue) {
+        Long2LongOpenHashMap stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.getOrDefault(key, defaultValue);
+        }
+    }
+
+    /**
+     * Associate a value with a key
+     *
+     * @return true if the key was absent or held a different value
+     */
+    public boolean put(long key, long value) {
+        Long2LongOpenHashMap stripe = stripeFor(key);
+        synchronized (stripe) {
+            boolean changed = !stripe.containsKey(key) || stripe.get(key) != value;
+            stripe.put(key, value);
+            return changed;
+        }
+    }
+
+    public boolean remove(long key) {
+        Long2LongOpenHashMap stripe = stripeFor(key);
+        synchronized (stripe) {
+            if (!stripe.containsKey(key)) {
+                return false;
+            }
+            stripe.remove(key);
+            return true;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Long2LongOpenHashMap stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Long2LongOpenHashMap stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Visit every entry. Each stripe is locked while it is visited, so the
+     * consumer must not call back into this map.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (Long2LongOpenHashMap stripe : stripes) {
+            synchronized (stripe) {
+                for (Long2LongOpenHashMap.Entry entry : stripe.long2LongEntrySet()) {
+                    consumer.accept(entry.getLongKey(), entry.getLongValue());
+                }
+            }
+        }
+    }
+
+    private Long2LongOpenHashMap stripeFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 58)]; // top 6 bits select one of 64 stripes
+    }
+
+    /**
+     * Receives map entries without boxing
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+}
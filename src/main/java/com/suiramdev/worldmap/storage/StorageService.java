@@ -2,75 +2,203 @@ package com.suiramdev.worldmap.storage;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.suiramdev.worldmap.metrics.PipelineMetrics;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Manages storage of processed chunks and first-load status
+ * Manages storage of processed chunks and first-load status.
+ *
+ * Processed chunks are appended to a write-ahead journal that a background
+ * flusher fsyncs in group-commit batches. The journal is periodically compacted
+ * into a binary snapshot. On startup the snapshot is loaded and the journal
+ * replayed on top of it.
  */
 public class StorageService {
-    private static final String STORAGE_FILE = "worldmap_data.json";
+    private static final String LEGACY_STORAGE_FILE = "worldmap_data.json";
+    private static final String SNAPSHOT_FILE = "processed_chunks.snapshot";
+    private static final String JOURNAL_FILE = "processed_chunks.journal";
+
+    /** Content hash recorded for chunks uploaded before hashing existed */
+    public static final long UNKNOWN_HASH = 0;
+
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final long COMPACT_THRESHOLD = 100_000; // journal records before compaction
 
     private final File dataFolder;
-    private final Gson gson;
-    private StorageData data;
+    private final File snapshotFile;
+    private final ChunkJournal journal;
+    private final ScheduledExecutorService flusher;
+    private final boolean ownsFlusher;
+    private final ScheduledFuture<?> flushTask;
+
+    // Processed chunks keyed by ChunkUtil chunk index, valued by content hash
+    private final ConcurrentLongMap processedChunks = new ConcurrentLongMap();
+
+    // Entries marked since the last flush, guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private long[] pendingIndexes = new long[1024];
+    private long[] pendingHashes = new long[1024];
+    private int pendingCount;
+    private boolean closed; // Set by shutdown, guarded by pendingLock
 
     public StorageService(File dataFolder) {
+        this(dataFolder, null);
+    }
+
+    /**
+     * @param flusher Executor to run the group commits on, shared with other
+     *                storages, or null to start a thread of its own
+     */
+    public StorageService(File dataFolder, ScheduledExecutorService flusher) {
         this.dataFolder = dataFolder;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.data = new StorageData();
+        this.snapshotFile = new File(dataFolder, SNAPSHOT_FILE);
+        this.journal = new ChunkJournal(new File(dataFolder, JOURNAL_FILE));
         loadStorage();
+
+        this.ownsFlusher = flusher == null;
+        this.flusher = flusher != null ? flusher : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Worldmap-Storage");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushTask = this.flusher.scheduleWithFixedDelay(this::flushAndMaybeCompact, FLUSH_INTERVAL_MS,
+                FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Load storage data from file
+     * Load the snapshot, migrating the legacy JSON file if needed, then replay
+     * the journal
      */
     private void loadStorage() {
-        File storageFile = new File(dataFolder, STORAGE_FILE);
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+
+        try {
+            // A crash between the renames of a snapshot write leaves only the previous one
+            if (!ChunkSnapshot.read(snapshotFile, processedChunks::put) && !loadPreviousSnapshot()) {
+                migrateLegacyStorage();
+            }
+        } catch (IOException e) {
+            System.err.println("[Worldmap] Failed to load storage snapshot: " + e.getMessage());
+            processedChunks.clear();
+            if (loadPreviousSnapshot()) {
+                System.err.println("[Worldmap] Loaded the previous snapshot instead, chunks processed before the"
+                        + " last compaction may be uploaded again");
+            } else {
+                System.err.println("[Worldmap] No usable previous snapshot, only chunks processed since the last"
+                        + " compaction are known and the others will be uploaded again");
+            }
+        }
+
+        try {
+            journal.open(processedChunks::put);
+            if (journal.getRecordCount() > 0) {
+                System.out.println("[Worldmap] Replayed " + journal.getRecordCount() + " journal entries");
+            }
+        } catch (IOException e) {
+            System.err.println("[Worldmap] Failed to open storage journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load the snapshot kept from before the last compaction
+     *
+     * @return false if there is none or it is corrupt too
+     */
+    private boolean loadPreviousSnapshot() {
+        try {
+            return ChunkSnapshot.read(ChunkSnapshot.previous(snapshotFile), processedChunks::put);
+        } catch (IOException e) {
+            System.err.println("[Worldmap] Failed to load previous storage snapshot: " + e.getMessage());
+            processedChunks.clear();
+            return false;
+        }
+    }
 
-        if (!storageFile.exists()) {
+    /**
+     * Import worldmap_data.json from older versions into a snapshot
+     */
+    private void migrateLegacyStorage() {
+        File legacyFile = new File(dataFolder, LEGACY_STORAGE_FILE);
+        if (!legacyFile.exists()) {
             // First load - no storage file exists
-            data.processedChunks = new HashSet<>();
             return;
         }
 
-        try (FileReader reader = new FileReader(storageFile)) {
+        Gson gson = new GsonBuilder().create();
+        try (FileReader reader = new FileReader(legacyFile)) {
             StorageData loaded = gson.fromJson(reader, StorageData.class);
-            if (loaded != null) {
-                this.data = loaded;
-                // Ensure processedChunks is initialized
-                if (data.processedChunks == null) {
-                    data.processedChunks = new HashSet<>();
+            if (loaded != null && loaded.processedChunks != null) {
+                for (String key : loaded.processedChunks) {
+                    long chunkIndex = parseChunkKey(key);
+                    if (chunkIndex != Long.MIN_VALUE) {
+                        processedChunks.put(chunkIndex, UNKNOWN_HASH);
+                    }
                 }
             }
         } catch (IOException e) {
             System.err.println("[Worldmap] Failed to load storage: " + e.getMessage());
             System.err.println("[Worldmap] Treating as first load");
-            data.processedChunks = new HashSet<>();
+            processedChunks.clear();
+            return;
+        }
+
+        try {
+            ChunkSnapshot.write(snapshotFile, processedChunks);
+            File migratedFile = new File(dataFolder, LEGACY_STORAGE_FILE + ".migrated");
+            if (!legacyFile.renameTo(migratedFile)) {
+                System.err.println("[Worldmap] Could not rename " + LEGACY_STORAGE_FILE + " after migration");
+            }
+            System.out.println("[Worldmap] Migrated " + processedChunks.size() + " chunks from " + LEGACY_STORAGE_FILE);
+        } catch (IOException e) {
+            System.err.println("[Worldmap] Failed to migrate storage: " + e.getMessage());
         }
     }
 
     /**
-     * Save storage data to file
+     * Flush pending entries to the journal and compact it into a snapshot
      */
     public void saveStorage() {
-        File storageFile = new File(dataFolder, STORAGE_FILE);
-
         try {
-            // Ensure data folder exists
-            if (!dataFolder.exists()) {
-                dataFolder.mkdirs();
-            }
+            compact();
+        } catch (IOException e) {
+            System.err.println("[Worldmap] Failed to save storage: " + e.getMessage());
+        }
+    }
 
-            try (FileWriter writer = new FileWriter(storageFile)) {
-                gson.toJson(data, writer);
+    /**
+     * Stop the background flusher and persist everything
+     */
+    public void shutdown() {
+        synchronized (pendingLock) {
+            closed = true;
+        }
+        flushTask.cancel(false);
+        if (ownsFlusher) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }
+        // A flush still running holds the lock, the final compaction waits for it
+        saveStorage();
+        try {
+            journal.close();
         } catch (IOException e) {
-            System.err.println("[Worldmap] Failed to save storage: " + e.getMessage());
+            System.err.println("[Worldmap] Failed to close storage journal: " + e.getMessage());
         }
     }
 
@@ -78,29 +206,145 @@ public class StorageService {
      * Check if a chunk has been processed
      */
     public boolean isChunkProcessed(int chunkX, int chunkZ) {
-        String key = chunkX + "," + chunkZ;
-        return data.processedChunks.contains(key);
+        return isChunkProcessed(ChunkUtil.indexChunk(chunkX, chunkZ));
+    }
+
+    /**
+     * Check if a chunk has been processed
+     *
+     * @param chunkIndex Chunk index as produced by ChunkUtil
+     */
+    public boolean isChunkProcessed(long chunkIndex) {
+        return processedChunks.containsKey(chunkIndex);
+    }
+
+    /**
+     * Get the content hash of a chunk's last acknowledged upload
+     *
+     * @param chunkIndex Chunk index as produced by ChunkUtil
+     * @return The hash, or {@link #UNKNOWN_HASH} if the chunk was never uploaded
+     *         or uploaded before hashing existed
+     */
+    public long getChunkHash(long chunkIndex) {
+        return processedChunks.get(chunkIndex, UNKNOWN_HASH);
     }
 
     /**
      * Mark a chunk as processed
      */
     public void markChunkProcessed(int chunkX, int chunkZ) {
-        String key = chunkX + "," + chunkZ;
-        data.processedChunks.add(key);
-        // Save periodically (could be optimized with batching)
-        saveStorage();
+        markChunkProcessed(ChunkUtil.indexChunk(chunkX, chunkZ));
+    }
+
+    /**
+     * Mark a chunk as processed without a known content hash
+     *
+     * @param chunkIndex Chunk index as produced by ChunkUtil
+     */
+    public void markChunkProcessed(long chunkIndex) {
+        markChunkProcessed(chunkIndex, UNKNOWN_HASH);
+    }
+
+    /**
+     * Mark a chunk as processed with the content hash of the acknowledged
+     * upload. The entry becomes durable with the next group commit of the
+     * journal. Once the storage is shut down, marks are no longer recorded.
+     *
+     * @param chunkIndex  Chunk index as produced by ChunkUtil
+     * @param contentHash Hash of the uploaded chunk content
+     */
+    public void markChunkProcessed(long chunkIndex, long contentHash) {
+        if (processedChunks.put(chunkIndex, contentHash)) {
+            synchronized (pendingLock) {
+                if (closed) {
+                    return;
+                }
+                if (pendingCount == pendingIndexes.length) {
+                    pendingIndexes = Arrays.copyOf(pendingIndexes, pendingCount << 1);
+                    pendingHashes = Arrays.copyOf(pendingHashes, pendingCount << 1);
+                }
+                pendingIndexes[pendingCount] = chunkIndex;
+                pendingHashes[pendingCount] = contentHash;
+                pendingCount++;
+            }
+        }
     }
 
     /**
      * Get count of processed chunks
      */
     public int getProcessedChunkCount() {
-        return data.processedChunks.size();
+        return processedChunks.size();
+    }
+
+    private void flushAndMaybeCompact() {
+        try {
+            flush();
+            if (journal.getRecordCount() >= COMPACT_THRESHOLD) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("[Worldmap] Failed to flush storage journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Append pending entries to the journal and fsync them in one batch
+     */
+    private synchronized void flush() throws IOException {
+        long[] indexes;
+        long[] hashes;
+        int count;
+        synchronized (pendingLock) {
+            if (pendingCount == 0) {
+                return;
+            }
+            indexes = pendingIndexes;
+            hashes = pendingHashes;
+            count = pendingCount;
+            pendingIndexes = new long[Math.max(1024, count)];
+            pendingHashes = new long[Math.max(1024, count)];
+            pendingCount = 0;
+        }
+
+        long startedAt = System.nanoTime();
+        journal.append(indexes, hashes, count);
+        journal.sync();
+        PipelineMetrics.STORAGE_FLUSH_TIME.observeNanos(System.nanoTime() - startedAt);
+    }
+
+    /**
+     * Write a snapshot of every processed chunk and truncate the journal
+     */
+    private synchronized void compact() throws IOException {
+        // After the flush every journaled entry is in the set, so the snapshot covers the
+        // whole journal. Entries marked meanwhile stay pending and land in the fresh journal.
+        flush();
+        ChunkSnapshot.write(snapshotFile, processedChunks);
+        journal.reset();
+    }
+
+    /**
+     * Parse an "x,z" key from the legacy storage file
+     *
+     * @return Chunk index, or Long.MIN_VALUE if the key is malformed
+     */
+    private static long parseChunkKey(String key) {
+        int comma = key != null ? key.indexOf(',') : -1;
+        if (comma < 0) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            int chunkX = Integer.parseInt(key.substring(0, comma).trim());
+            int chunkZ = Integer.parseInt(key.substring(comma + 1).trim());
+            return ChunkUtil.indexChunk(chunkX, chunkZ);
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
     }
 
     /**
-     * Internal class for JSON storage
+     * Internal class for legacy JSON storage
      */
     private static class StorageData {
         Set<String> processedChunks = new HashSet<>();
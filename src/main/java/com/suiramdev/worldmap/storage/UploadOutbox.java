@@ -0,0 +1,472 @@
+package com.suiramdev.worldmap.storage;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented on-disk queue of encoded chunk payloads waiting for the worker API.
+ *
+ * <pre>
+ * segment header: int magic "WMOB", int version
+ * record: int payloadLength, long chunkIndex, long contentHash, byte format (PayloadFormat code),
+ *         ushort worldLength, UTF-8 world name, payload bytes,
+ *         int crc32(everything before it in the record)
+ * </pre>
+ *
+ * Records are appended to the newest segment and read in order from the
+ * oldest. A segment is deleted once every record in it has been acknowledged;
+ * a torn record at the tail is dropped on open. All values are little-endian.
+ * The default world's name is stored empty.
+ *
+ * Delivery is at least once: records acknowledged since the last restart of a
+ * partially drained segment are replayed again.
+ *
+ * Appends are not forced to disk one by one; a flusher calls {@link #sync()}
+ * to fsync them in group-commit batches. A crash can lose the records spooled
+ * since the last sync, whose chunks were never marked processed and are
+ * uploaded again after the restart.
+ */
+public class UploadOutbox implements AutoCloseable {
+    private static final int MAGIC = 0x424F4D57; // "WMOB" read as little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int PREFIX_SIZE = 4 + 8 + 8 + 1 + 2;
+    private static final long SEGMENT_MAX_BYTES = 16L * 1024 * 1024;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wmob";
+
+    private final File directory;
+    private final long maxBytes;
+
+    // Segments by sequence number, oldest first
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment readSegment;
+    private long readPosition;
+    private long totalBytes;
+    private long recordCount;
+    private boolean unsynced; // Records were appended to the tail since the last sync
+
+    // Latest spooled content hash per world and chunk, so superseded records are skipped
+    private final Map<String, Long2LongOpenHashMap> latestHashes = new HashMap<>();
+
+    /**
+     * @param directory Folder holding the segment files
+     * @param maxBytes  Disk budget; appends beyond it are refused
+     */
+    public UploadOutbox(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Index every intact record in existing segments and open the newest one
+     * for appending
+     */
+    public synchronized void open() throws IOException {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX)
+                && name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    long sequence = Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(sequence, new Segment(sequence, file));
+                } catch (NumberFormatException e) {
+                    System.err.println("[Worldmap] Ignoring unknown outbox file " + name);
+                }
+            }
+        }
+
+        for (Segment segment : segments.values().toArray(new Segment[0])) {
+            if (!scan(segment)) {
+                segment.delete();
+                segments.remove(segment.sequence);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            createSegment(1);
+        }
+        readSegment = segments.firstEntry().getValue();
+        readPosition = HEADER_SIZE;
+    }
+
+    /**
+     * Append a payload. It reaches the disk with the next {@link #sync()}.
+     *
+     * @param world Name of the chunk's world, empty for the default world
+     * @return false if the disk budget is exhausted
+     */
+    public synchronized boolean append(String world, long chunkIndex, long contentHash, int format, byte[] payload)
+            throws IOException {
+        byte[] worldName = world.getBytes(StandardCharsets.UTF_8);
+        if (worldName.length > 0xFFFF) {
+            throw new IOException("World name too long");
+        }
+        int recordSize = PREFIX_SIZE + worldName.length + payload.length + 4;
+        if (totalBytes + recordSize > maxBytes) {
+            return false;
+        }
+
+        Segment tail = segments.lastEntry().getValue();
+        if (tail.size + recordSize > SEGMENT_MAX_BYTES && tail.size > HEADER_SIZE) {
+            // Once per segment; the flusher only syncs the tail
+            forceTail();
+            tail.closeUnlessReading(readSegment);
+            tail = createSegment(tail.sequence + 1);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(recordSize).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(payload.length);
+        record.putLong(chunkIndex);
+        record.putLong(contentHash);
+        record.put((byte) format);
+        record.putShort((short) worldName.length);
+        record.put(worldName);
+        record.put(payload);
+        record.putInt(checksum(record.array(), recordSize - 4));
+        record.flip();
+
+        FileChannel channel = tail.channel();
+        while (record.hasRemaining()) {
+            channel.write(record, tail.size + record.position());
+        }
+        unsynced = true;
+
+        tail.size += recordSize;
+        totalBytes += recordSize;
+        recordCount++;
+        hashes(world).put(chunkIndex, contentHash);
+        return true;
+    }
+
+    /**
+     * Force records appended since the last sync to disk. The fsync runs
+     * outside the monitor, so appends and replays are not held up by it. Called
+     * from a single flusher thread.
+     */
+    public void sync() throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            if (!unsynced) {
+                return;
+            }
+            unsynced = false;
+            channel = segments.lastEntry().getValue().channel();
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // The segment was closed when a new one started, which forced it first
+        } catch (IOException e) {
+            synchronized (this) {
+                unsynced = true;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Read the oldest unacknowledged record without removing it
+     *
+     * @return The record, or null if the outbox is empty
+     */
+    public synchronized Record peek() throws IOException {
+        while (true) {
+            if (readPosition < readSegment.size) {
+                return readRecord(readSegment, readPosition);
+            }
+            Map.Entry<Long, Segment> next = segments.higherEntry(readSegment.sequence);
+            if (next == null) {
+                return null;
+            }
+            // Every record in this segment was acknowledged
+            segments.remove(readSegment.sequence);
+            readSegment.delete();
+            readSegment = next.getValue();
+            readPosition = HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Remove the record returned by the last {@link #peek()}
+     */
+    public synchronized void acknowledge(Record record) throws IOException {
+        readPosition += record.size;
+        totalBytes -= record.size;
+        recordCount--;
+        if (isCurrent(record)) {
+            Long2LongOpenHashMap hashes = latestHashes.get(record.world);
+            hashes.remove(record.chunkIndex);
+            if (hashes.isEmpty()) {
+                latestHashes.remove(record.world);
+            }
+        }
+
+        // Reuse the tail segment once it is fully drained instead of letting it grow
+        if (readPosition >= readSegment.size && segments.lastKey() == readSegment.sequence) {
+            readSegment.truncate();
+            readPosition = HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Whether the record is still the newest spooled version of its chunk
+     */
+    public synchronized boolean isCurrent(Record record) {
+        Long2LongOpenHashMap hashes = latestHashes.get(record.world);
+        return hashes != null && hashes.containsKey(record.chunkIndex)
+                && hashes.get(record.chunkIndex) == record.contentHash;
+    }
+
+    /**
+     * Mark spooled records of a chunk as stale, after a newer version was
+     * uploaded directly
+     */
+    public synchronized void supersede(String world, long chunkIndex) {
+        Long2LongOpenHashMap hashes = latestHashes.get(world);
+        if (hashes != null) {
+            hashes.remove(chunkIndex);
+        }
+    }
+
+    /**
+     * Whether a chunk has a record waiting to be delivered
+     */
+    public synchronized boolean contains(String world, long chunkIndex) {
+        Long2LongOpenHashMap hashes = latestHashes.get(world);
+        return hashes != null && hashes.containsKey(chunkIndex);
+    }
+
+    /**
+     * Whether any chunk of a world has a record waiting to be delivered
+     */
+    public synchronized boolean containsWorld(String world) {
+        return latestHashes.containsKey(world);
+    }
+
+    public synchronized boolean isEmpty() {
+        return recordCount == 0;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized long getSizeBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        forceTail();
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Index the records of a segment and drop a torn tail
+     *
+     * @return false if the segment has no usable header
+     */
+    private boolean scan(Segment segment) throws IOException {
+        FileChannel channel = segment.channel();
+        segment.size = channel.size();
+        if (segment.size < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            System.err.println("[Worldmap] Outbox segment " + segment.file.getName() + " has an unknown format, dropping it");
+            segment.close();
+            return false;
+        }
+
+        long position = HEADER_SIZE;
+        while (position < segment.size) {
+            Record record;
+            try {
+                record = readRecord(segment, position);
+            } catch (IOException e) {
+                System.err.println("[Worldmap] Ignoring corrupt outbox tail in " + segment.file.getName()
+                        + " at offset " + position);
+                break;
+            }
+            hashes(record.world).put(record.chunkIndex, record.contentHash);
+            totalBytes += record.size;
+            recordCount++;
+            position += record.size;
+        }
+
+        if (position < segment.size) {
+            channel.truncate(position);
+            segment.size = position;
+        }
+        return true;
+    }
+
+    private Record readRecord(Segment segment, long position) throws IOException {
+        FileChannel channel = segment.channel();
+        if (position + PREFIX_SIZE + 4 > segment.size) {
+            throw new EOFException("Truncated outbox record");
+        }
+        ByteBuffer prefix = ByteBuffer.allocate(PREFIX_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, prefix, position);
+        int payloadLength = prefix.getInt(0);
+        int worldLength = prefix.getShort(PREFIX_SIZE - 2) & 0xFFFF;
+        if (payloadLength < 0 || position + PREFIX_SIZE + worldLength + payloadLength + 4 > segment.size) {
+            throw new EOFException("Truncated outbox record");
+        }
+
+        int recordSize = PREFIX_SIZE + worldLength + payloadLength + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, position);
+        if (buffer.getInt(recordSize - 4) != checksum(buffer.array(), recordSize - 4)) {
+            throw new IOException("Outbox record checksum mismatch");
+        }
+
+        buffer.position(4);
+        long chunkIndex = buffer.getLong();
+        long contentHash = buffer.getLong();
+        int format = buffer.get() & 0xFF;
+        buffer.getShort();
+        String world = new String(buffer.array(), buffer.position(), worldLength, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + worldLength);
+        byte[] payload = new byte[payloadLength];
+        buffer.get(payload);
+        return new Record(world, chunkIndex, contentHash, format, payload, recordSize);
+    }
+
+    private void forceTail() throws IOException {
+        if (unsynced && !segments.isEmpty()) {
+            segments.lastEntry().getValue().channel().force(false);
+            unsynced = false;
+        }
+    }
+
+    private Long2LongOpenHashMap hashes(String world) {
+        return latestHashes.computeIfAbsent(world, name -> new Long2LongOpenHashMap());
+    }
+
+    private Segment createSegment(long sequence) throws IOException {
+        File file = new File(directory, String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        Segment segment = new Segment(sequence, file);
+        segment.truncate();
+        segments.put(sequence, segment);
+        return segment;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of outbox segment");
+            }
+        }
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A spooled chunk payload
+     */
+    public static class Record {
+        public final String world; // Empty for the default world
+        public final long chunkIndex;
+        public final long contentHash;
+        public final int format;
+        public final byte[] payload;
+        final int size;
+
+        Record(String world, long chunkIndex, long contentHash, int format, byte[] payload, int size) {
+            this.world = world;
+            this.chunkIndex = chunkIndex;
+            this.contentHash = contentHash;
+            this.format = format;
+            this.payload = payload;
+            this.size = size;
+        }
+    }
+
+    /**
+     * One segment file, with its channel opened on demand
+     */
+    private static class Segment {
+        final long sequence;
+        final File file;
+        FileChannel channel;
+        long size;
+
+        Segment(long sequence, File file) {
+            this.sequence = sequence;
+            this.file = file;
+        }
+
+        FileChannel channel() throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            }
+            return channel;
+        }
+
+        /**
+         * Reset to an empty segment holding only the header
+         */
+        void truncate() throws IOException {
+            FileChannel channel = channel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            size = HEADER_SIZE;
+        }
+
+        void closeUnlessReading(Segment readSegment) throws IOException {
+            if (this != readSegment) {
+                close();
+            }
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+
+        void delete() throws IOException {
+            close();
+            if (file.exists() && !file.delete()) {
+                System.err.println("[Worldmap] Failed to delete drained outbox segment " + file.getName());
+            }
+        }
+    }
+}
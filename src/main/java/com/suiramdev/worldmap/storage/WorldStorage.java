@@ -0,0 +1,191 @@
+package com.suiramdev.worldmap.storage;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Processed chunk state of every mapped world, one {@link StorageService}
+ * each.
+ *
+ * The default world keeps the files in the data folder itself, so state from
+ * versions that only mapped the default world carries over. Every other world
+ * gets a folder under {@code worlds/}, opened the first time it is used. All
+ * worlds share one flusher thread.
+ *
+ * A world closed after it unloaded stays closed until {@link #open(String)}
+ * is called for it again, so late work cannot reopen its files behind the
+ * caller's back.
+ */
+public class WorldStorage {
+    public static final String WORLDS_FOLDER = "worlds";
+
+    private final File dataFolder;
+    private final ScheduledExecutorService flusher;
+    private final StorageService defaultStorage;
+    private final Map<String, StorageService> storages = new ConcurrentHashMap<>();
+    private final Set<String> closedWorlds = ConcurrentHashMap.newKeySet();
+    private volatile String defaultWorld;
+
+    public WorldStorage(File dataFolder) {
+        this.dataFolder = dataFolder;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Worldmap-Storage");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.defaultStorage = new StorageService(dataFolder, flusher);
+    }
+
+    /**
+     * Name the world whose state lives in the data folder itself
+     */
+    public void setDefaultWorld(String world) {
+        this.defaultWorld = world;
+    }
+
+    public String getDefaultWorld() {
+        return defaultWorld;
+    }
+
+    /**
+     * Whether a world is the default one. Null and the empty name stand for
+     * the default world.
+     */
+    public boolean isDefault(String world) {
+        return world == null || world.isEmpty() || world.equals(defaultWorld);
+    }
+
+    /**
+     * Get a world's storage, opening it if needed
+     *
+     * @throws IllegalStateException if the world was closed and not opened
+     *                               again
+     */
+    public StorageService get(String world) {
+        if (isDefault(world)) {
+            return defaultStorage;
+        }
+        StorageService storage = storages.get(world);
+        if (storage != null) {
+            return storage;
+        }
+        synchronized (this) {
+            if (closedWorlds.contains(world)) {
+                throw new IllegalStateException("Storage of world " + world + " is closed");
+            }
+            return storages.computeIfAbsent(world, name -> new StorageService(folderOf(dataFolder, name), flusher));
+        }
+    }
+
+    /**
+     * Get a world's storage when it starts being mapped, reopening it if it
+     * was closed
+     */
+    public synchronized StorageService open(String world) {
+        closedWorlds.remove(world);
+        return get(world);
+    }
+
+    /**
+     * Mark a chunk processed in its world's storage, but only if the storage
+     * is open. Unlike {@link #get(String)} this never opens a storage nor
+     * throws for a closed world, and a concurrent close cannot shut the
+     * storage down halfway through.
+     *
+     * @return false if the world's storage is not open
+     */
+    public synchronized boolean markIfOpen(String world, long chunkIndex, long contentHash) {
+        StorageService storage = isDefault(world) ? defaultStorage : storages.get(world);
+        if (storage == null) {
+            return false;
+        }
+        storage.markChunkProcessed(chunkIndex, contentHash);
+        return true;
+    }
+
+    /**
+     * Whether a world was closed and not opened again
+     */
+    public boolean isClosed(String world) {
+        return !isDefault(world) && closedWorlds.contains(world);
+    }
+
+    /**
+     * Persist and close a world's storage after it unloaded. The default
+     * world stays open.
+     */
+    public synchronized void close(String world) {
+        if (isDefault(world)) {
+            defaultStorage.saveStorage();
+            return;
+        }
+        closedWorlds.add(world);
+        StorageService storage = storages.remove(world);
+        if (storage != null) {
+            // Holding the lock keeps a concurrent get from reopening the files mid-compaction
+            storage.shutdown();
+        }
+    }
+
+    /**
+     * Folder holding a world's files under the given root: the root itself
+     * for the default world, {@code worlds/<name>} for the others
+     */
+    public File folderOf(File root, String world) {
+        if (isDefault(world)) {
+            return root;
+        }
+        return new File(new File(root, WORLDS_FOLDER), folderName(world));
+    }
+
+    /**
+     * Processed chunks across every open world
+     */
+    public int getProcessedChunkCount() {
+        int count = defaultStorage.getProcessedChunkCount();
+        for (StorageService storage : storages.values()) {
+            count += storage.getProcessedChunkCount();
+        }
+        return count;
+    }
+
+    /**
+     * Flush and close every world's storage
+     */
+    public synchronized void shutdown() {
+        for (StorageService storage : storages.values()) {
+            storage.shutdown();
+        }
+        storages.clear();
+        defaultStorage.shutdown();
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Turn a world name into a safe folder name, distinct for every world.
+     * Names made of letters, digits, {@code .}, {@code _} and {@code -} are
+     * kept as they are; any other name is sanitized and suffixed with a hash
+     * of the original, after a {@code ~} no kept name can contain.
+     */
+    static String folderName(String world) {
+        if (world.matches("[A-Za-z0-9_-][A-Za-z0-9._-]*")) {
+            return world;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(world.getBytes(StandardCharsets.UTF_8));
+        String name = world.replaceAll("[^A-Za-z0-9._-]", "_");
+        return (name.startsWith(".") ? "_" + name : name) + "~" + String.format("%08x", crc.getValue());
+    }
+}
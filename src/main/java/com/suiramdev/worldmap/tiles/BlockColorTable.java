@@ -0,0 +1,202 @@
+package com.suiramdev.worldmap.tiles;
+
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.services.ChunkProcessingService.BlockTextureInfo;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.imageio.ImageIO;
+
+/**
+ * Average color of each block's top texture, read once from the server's
+ * asset archive.
+ *
+ * <p>
+ * The average is weighted by alpha, and the alpha itself is the texture's mean
+ * coverage, so glass and leaves come out partly transparent and let the
+ * renderer blend them over what lies below. Blocks whose texture cannot be
+ * found get a neutral gray.
+ */
+public class BlockColorTable {
+    public static final int FALLBACK_COLOR = 0xFF7F7F7F;
+
+    // Archive names the server looks for in its working directory
+    private static final String[] ASSET_ARCHIVES = { "Assets.zip", "Asset.zip", "assets.zip" };
+    // Texture paths are relative to the archive's Common folder
+    private static final String[] TEXTURE_ROOTS = { "Common/", "" };
+    private static final long RESOLVED = 1L << 32;
+
+    private final File archiveFile;
+    private final IntFunction<BlockTextureInfo> textures;
+    private final boolean debugMode;
+    private final Map<String, Integer> textureColors = new ConcurrentHashMap<>();
+
+    private ZipFile archive; // Guarded by this
+    private volatile long[] blockColors = new long[1024]; // RESOLVED | ARGB, 0 until resolved
+
+    /**
+     * @param archiveFile Asset archive holding the block textures, or null to
+     *                    use the fallback color for every block
+     * @param textures    Resolves a block ID to its textures, normally the
+     *                    block appearance cache
+     */
+    public BlockColorTable(File archiveFile, IntFunction<BlockTextureInfo> textures, boolean debugMode) {
+        this.archiveFile = archiveFile;
+        this.textures = textures;
+        this.debugMode = debugMode;
+    }
+
+    /**
+     * Locate the asset archive
+     *
+     * @param configuredPath Path from the config, empty to search the server's
+     *                       working directory
+     * @return The archive, or null if none was found
+     */
+    public static File findArchive(String configuredPath) {
+        if (configuredPath != null && !configuredPath.isEmpty()) {
+            File file = new File(configuredPath);
+            return file.isFile() ? file : null;
+        }
+        for (String name : ASSET_ARCHIVES) {
+            File file = new File(name);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Average ARGB color of a block seen from above, transparent for air
+     */
+    public int colorOf(int blockId) {
+        if (blockId <= 0) {
+            return 0;
+        }
+        long[] colors = blockColors;
+        if (blockId < colors.length && colors[blockId] != 0) {
+            return (int) colors[blockId];
+        }
+        return resolve(blockId);
+    }
+
+    /**
+     * Whether a block takes the biome tint
+     */
+    public boolean isTinted(int blockId) {
+        BlockTextureInfo info = blockId > 0 ? textures.apply(blockId) : null;
+        return info != null && info.shouldTint;
+    }
+
+    /**
+     * Forget every color, e.g. after block type assets were reloaded
+     */
+    public synchronized void invalidate() {
+        blockColors = new long[blockColors.length];
+        textureColors.clear();
+    }
+
+    public synchronized void close() {
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                Log.warn("Failed to close asset archive: " + e.getMessage());
+            }
+            archive = null;
+        }
+    }
+
+    private synchronized int resolve(int blockId) {
+        long[] colors = blockColors;
+        if (blockId < colors.length && colors[blockId] != 0) {
+            return (int) colors[blockId];
+        }
+
+        BlockTextureInfo info = textures.apply(blockId);
+        int color = info != null && info.up != null
+                ? textureColors.computeIfAbsent(info.up, this::averageColor)
+                : FALLBACK_COLOR;
+
+        if (blockId >= colors.length) {
+            colors = Arrays.copyOf(colors, Math.max(colors.length * 2, blockId + 1));
+        } else {
+            colors = colors.clone();
+        }
+        colors[blockId] = RESOLVED | (color & 0xFFFFFFFFL);
+        blockColors = colors;
+        return color;
+    }
+
+    private int averageColor(String texturePath) {
+        try {
+            BufferedImage image = readTexture(texturePath);
+            if (image == null) {
+                if (debugMode) {
+                    Log.warn("Texture " + texturePath + " not found in asset archive");
+                }
+                return FALLBACK_COLOR;
+            }
+
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+            long red = 0;
+            long green = 0;
+            long blue = 0;
+            long alpha = 0;
+            for (int pixel : pixels) {
+                int a = pixel >>> 24;
+                red += (pixel >>> 16 & 0xFF) * a;
+                green += (pixel >>> 8 & 0xFF) * a;
+                blue += (pixel & 0xFF) * a;
+                alpha += a;
+            }
+            if (alpha == 0) {
+                return 0;
+            }
+            int a = (int) (alpha / pixels.length);
+            return Math.max(a, 1) << 24
+                    | (int) (red / alpha) << 16
+                    | (int) (green / alpha) << 8
+                    | (int) (blue / alpha);
+        } catch (IOException | RuntimeException e) {
+            Log.warnThrottled("texture-read", 10_000,
+                    () -> "Failed to read texture " + texturePath + ": " + e.getMessage());
+            return FALLBACK_COLOR;
+        }
+    }
+
+    private BufferedImage readTexture(String texturePath) throws IOException {
+        ZipFile zip = openArchive();
+        if (zip == null) {
+            return null;
+        }
+        String path = texturePath.startsWith("/") ? texturePath.substring(1) : texturePath;
+        for (String root : TEXTURE_ROOTS) {
+            ZipEntry entry = zip.getEntry(root + path);
+            if (entry != null) {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    return ImageIO.read(in);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Only called from resolve, which holds the lock
+    private ZipFile openArchive() throws IOException {
+        if (archive == null && archiveFile != null) {
+            archive = new ZipFile(archiveFile);
+        }
+        return archive;
+    }
+}
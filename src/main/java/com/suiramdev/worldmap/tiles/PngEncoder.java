@@ -0,0 +1,127 @@
+package com.suiramdev.worldmap.tiles;
+
+import com.suiramdev.worldmap.utils.ByteSink;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Minimal PNG writer for 8-bit RGBA images, reusing its deflater and row
+ * buffers between images. Not thread safe; keep one per thread.
+ *
+ * <p>
+ * Every row uses the Sub filter, which suits the flat areas of a map tile,
+ * and the whole image goes into a single IDAT chunk.
+ */
+public class PngEncoder {
+    public static final String CONTENT_TYPE = "image/png";
+
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+    private static final int COLOR_TYPE_RGBA = 6;
+    private static final int FILTER_SUB = 1;
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private byte[] raw = new byte[0];
+    private byte[] deflated = new byte[0];
+
+    /**
+     * @param level Deflate level, 1 (fastest) to 9 (smallest)
+     */
+    public PngEncoder(int level) {
+        this.deflater = new Deflater(Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level)));
+    }
+
+    /**
+     * Append a PNG of the given ARGB pixels, row by row, to the sink
+     */
+    public void encode(int[] argb, int width, int height, ByteSink sink) {
+        int rowBytes = width * 4 + 1;
+        int rawSize = rowBytes * height;
+        if (raw.length < rawSize) {
+            raw = new byte[rawSize];
+            // Deflate output can exceed its input slightly for incompressible data
+            deflated = new byte[rawSize + rawSize / 100 + 64];
+        }
+
+        int out = 0;
+        for (int y = 0; y < height; y++) {
+            raw[out++] = FILTER_SUB;
+            int left = 0;
+            for (int x = 0; x < width; x++) {
+                int pixel = argb[y * width + x];
+                // RGBA bytes minus the same bytes of the pixel to the left
+                raw[out++] = (byte) ((pixel >>> 16) - (left >>> 16));
+                raw[out++] = (byte) ((pixel >>> 8) - (left >>> 8));
+                raw[out++] = (byte) (pixel - left);
+                raw[out++] = (byte) ((pixel >>> 24) - (left >>> 24));
+                left = pixel;
+            }
+        }
+
+        deflater.reset();
+        deflater.setInput(raw, 0, rawSize);
+        deflater.finish();
+        int deflatedSize = 0;
+        while (!deflater.finished()) {
+            if (deflatedSize == deflated.length) {
+                byte[] grown = new byte[deflated.length * 2];
+                System.arraycopy(deflated, 0, grown, 0, deflatedSize);
+                deflated = grown;
+            }
+            deflatedSize += deflater.deflate(deflated, deflatedSize, deflated.length - deflatedSize);
+        }
+
+        sink.writeBytes(SIGNATURE, 0, SIGNATURE.length);
+
+        int start = beginChunk(sink, 13, "IHDR");
+        writeIntBE(sink, width);
+        writeIntBE(sink, height);
+        sink.writeByte(8); // Bit depth
+        sink.writeByte(COLOR_TYPE_RGBA);
+        sink.writeByte(0); // Compression method
+        sink.writeByte(0); // Filter method
+        sink.writeByte(0); // No interlacing
+        endChunk(sink, start);
+
+        start = beginChunk(sink, deflatedSize, "IDAT");
+        sink.writeBytes(deflated, 0, deflatedSize);
+        endChunk(sink, start);
+
+        start = beginChunk(sink, 0, "IEND");
+        endChunk(sink, start);
+    }
+
+    /**
+     * Release the deflater's native memory
+     */
+    public void close() {
+        deflater.end();
+    }
+
+    /**
+     * Write a chunk's length and type
+     *
+     * @return Position of the type, where the CRC starts
+     */
+    private static int beginChunk(ByteSink sink, int length, String type) {
+        writeIntBE(sink, length);
+        int start = sink.size();
+        for (int i = 0; i < 4; i++) {
+            sink.writeByte(type.charAt(i));
+        }
+        return start;
+    }
+
+    private void endChunk(ByteSink sink, int start) {
+        crc.reset();
+        crc.update(sink.array(), start, sink.size() - start);
+        writeIntBE(sink, (int) crc.getValue());
+    }
+
+    private static void writeIntBE(ByteSink sink, int value) {
+        sink.writeByte(value >>> 24);
+        sink.writeByte(value >>> 16);
+        sink.writeByte(value >>> 8);
+        sink.writeByte(value);
+    }
+}
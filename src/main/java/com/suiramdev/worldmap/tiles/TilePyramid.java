@@ -0,0 +1,337 @@
+package com.suiramdev.worldmap.tiles;
+
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.metrics.PipelineMetrics;
+import com.suiramdev.worldmap.services.HttpClientService;
+import com.suiramdev.worldmap.utils.ByteSink;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zoomed-out tiles kept up to date as chunk tiles change.
+ *
+ * Zoom 0 holds one tile per chunk; each tile at zoom n is a 2x2 downsample of
+ * the four tiles below it at zoom n - 1, up to the maximum zoom. A written
+ * chunk tile marks its parent dirty. Every sweep rebuilds the dirty tiles one
+ * zoom level at a time, each rebuilt tile marking its own parent, so however
+ * many chunks of a region changed since the last sweep, each ancestor is
+ * rebuilt once.
+ *
+ * Each world has a pyramid of its own. Dirty tiles left when the plugin stops
+ * are saved next to the world's tiles and rebuilt once the world is added
+ * again after the next start.
+ */
+public class TilePyramid {
+    private static final String PENDING_FILE = "pyramid-pending.bin";
+    private static final int PENDING_VERSION = 1;
+    private static final int SIZE = TileRenderer.TILE_SIZE;
+    private static final int HALF = SIZE / 2;
+
+    private final TileStore store;
+    private final HttpClientService httpClient;
+    private final int maxZoom;
+    private final boolean debugMode;
+
+    // Dirty tile keys per world and zoom level, index 0 unused
+    private final Map<String, List<Set<Long>>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean running = true;
+
+    // Only touched by the sweep thread
+    private final int[] childPixels = new int[SIZE * SIZE];
+    private final int[] tilePixels = new int[SIZE * SIZE];
+    private final PngEncoder encoder = new PngEncoder(1);
+    private final ByteSink png = new ByteSink(8 * 1024);
+
+    /**
+     * @param httpClient Client to upload rebuilt tiles with, or null to only
+     *                   keep them locally
+     * @param maxZoom    Highest zoom level; a tile there covers 2^maxZoom
+     *                   chunks on each side
+     * @param intervalMs Time between sweeps, changes within it are coalesced
+     */
+    public TilePyramid(TileStore store, HttpClientService httpClient, int maxZoom, long intervalMs,
+            boolean debugMode) {
+        this.store = store;
+        this.httpClient = httpClient;
+        this.maxZoom = Math.max(1, maxZoom);
+        this.debugMode = debugMode;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Worldmap-TilePyramid");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(100, intervalMs);
+        scheduler.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start keeping a world's pyramid, resuming the dirty tiles saved for it
+     */
+    public void addWorld(String world) {
+        levels(world);
+    }
+
+    /**
+     * Record that a chunk tile was written
+     */
+    public void markDirty(String world, int chunkX, int chunkZ) {
+        levels(world).get(1).add(key(chunkX >> 1, chunkZ >> 1));
+    }
+
+    /**
+     * Number of tiles waiting to be rebuilt, across all worlds and zoom levels
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (List<Set<Long>> levels : pending.values()) {
+            count += pendingCount(levels);
+        }
+        return count;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Finish the current sweep and save the tiles still dirty
+     */
+    public void shutdown() {
+        running = false;
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                Log.warn("Timed out waiting for the tile pyramid sweep");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Map.Entry<String, List<Set<Long>>> entry : pending.entrySet()) {
+            savePending(entry.getKey(), entry.getValue());
+        }
+        encoder.close();
+    }
+
+    /**
+     * Rebuild every dirty tile, lowest zoom first. Runs on the sweep thread;
+     * package-private so tests can run a sweep without waiting for it.
+     */
+    void sweep() {
+        long startedAt = System.nanoTime();
+        int rebuilt = 0;
+        List<CompletableFuture<Boolean>> uploads = new ArrayList<>();
+        try {
+            for (Map.Entry<String, List<Set<Long>>> entry : pending.entrySet()) {
+                String world = entry.getKey();
+                List<Set<Long>> levels = entry.getValue();
+                for (int zoom = 1; zoom <= maxZoom && running; zoom++) {
+                    Iterator<Long> iterator = levels.get(zoom).iterator();
+                    while (iterator.hasNext() && running) {
+                        long key = iterator.next();
+                        iterator.remove();
+                        int tileX = keyX(key);
+                        int tileZ = keyZ(key);
+                        if (!rebuild(world, zoom, tileX, tileZ)) {
+                            continue;
+                        }
+                        rebuilt++;
+                        if (httpClient != null) {
+                            uploads.add(upload(world, levels, zoom, tileX, tileZ));
+                        }
+                        if (zoom < maxZoom) {
+                            levels.get(zoom + 1).add(key(tileX >> 1, tileZ >> 1));
+                        }
+                    }
+                }
+            }
+            // Bound the uploads in flight to one sweep's worth
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+        } catch (Exception e) {
+            Log.error("Error rebuilding tile pyramid: " + e.getMessage(), debugMode ? e : null);
+        }
+
+        if (rebuilt > 0) {
+            PipelineMetrics.TILE_PYRAMID_SWEEP_TIME.observeNanos(System.nanoTime() - startedAt);
+            int count = rebuilt;
+            Log.debug(() -> "Rebuilt " + count + " pyramid tiles in "
+                    + (System.nanoTime() - startedAt) / 1_000_000 + "ms");
+        }
+    }
+
+    /**
+     * Downsample the four child tiles into a tile and write it
+     *
+     * @return false if no child exists or the tile could not be written
+     */
+    private boolean rebuild(String world, int zoom, int tileX, int tileZ) {
+        Arrays.fill(tilePixels, 0);
+        boolean anyChild = false;
+        for (int dz = 0; dz < 2; dz++) {
+            for (int dx = 0; dx < 2; dx++) {
+                if (store.read(world, zoom - 1, tileX * 2 + dx, tileZ * 2 + dz, childPixels)) {
+                    downsample(childPixels, tilePixels, dx * HALF, dz * HALF);
+                    anyChild = true;
+                }
+            }
+        }
+        if (!anyChild) {
+            return false;
+        }
+        png.reset();
+        encoder.encode(tilePixels, SIZE, SIZE, png);
+        return store.write(world, zoom, tileX, tileZ, png);
+    }
+
+    /**
+     * Upload a rebuilt tile, marking it dirty again if the worker did not take
+     * it so the next sweep retries
+     */
+    private CompletableFuture<Boolean> upload(String world, List<Set<Long>> levels, int zoom, int tileX,
+            int tileZ) {
+        return httpClient.sendTile(world, zoom, tileX, tileZ, png).thenApply(success -> {
+            if (!success && running) {
+                levels.get(zoom).add(key(tileX, tileZ));
+            }
+            return success;
+        });
+    }
+
+    /**
+     * Average each 2x2 block of a child tile into one pixel of a quadrant of
+     * the parent, weighting colors by alpha
+     */
+    private static void downsample(int[] child, int[] parent, int offsetX, int offsetZ) {
+        for (int z = 0; z < HALF; z++) {
+            for (int x = 0; x < HALF; x++) {
+                int i = z * 2 * SIZE + x * 2;
+                int p0 = child[i];
+                int p1 = child[i + 1];
+                int p2 = child[i + SIZE];
+                int p3 = child[i + SIZE + 1];
+                int a0 = p0 >>> 24;
+                int a1 = p1 >>> 24;
+                int a2 = p2 >>> 24;
+                int a3 = p3 >>> 24;
+                int alpha = a0 + a1 + a2 + a3;
+                if (alpha == 0) {
+                    continue;
+                }
+                int red = ((p0 >>> 16 & 0xFF) * a0 + (p1 >>> 16 & 0xFF) * a1 + (p2 >>> 16 & 0xFF) * a2
+                        + (p3 >>> 16 & 0xFF) * a3) / alpha;
+                int green = ((p0 >>> 8 & 0xFF) * a0 + (p1 >>> 8 & 0xFF) * a1 + (p2 >>> 8 & 0xFF) * a2
+                        + (p3 >>> 8 & 0xFF) * a3) / alpha;
+                int blue = ((p0 & 0xFF) * a0 + (p1 & 0xFF) * a1 + (p2 & 0xFF) * a2 + (p3 & 0xFF) * a3) / alpha;
+                parent[(offsetZ + z) * SIZE + offsetX + x] = (alpha + 2) / 4 << 24 | red << 16 | green << 8 | blue;
+            }
+        }
+    }
+
+    private List<Set<Long>> levels(String world) {
+        return pending.computeIfAbsent(world, this::newLevels);
+    }
+
+    private List<Set<Long>> newLevels(String world) {
+        List<Set<Long>> levels = new ArrayList<>();
+        for (int zoom = 0; zoom <= maxZoom; zoom++) {
+            levels.add(ConcurrentHashMap.newKeySet());
+        }
+        loadPending(world, levels);
+        return levels;
+    }
+
+    private static int pendingCount(List<Set<Long>> levels) {
+        int count = 0;
+        for (Set<Long> level : levels) {
+            count += level.size();
+        }
+        return count;
+    }
+
+    private void loadPending(String world, List<Set<Long>> levels) {
+        File file = store.getRoot(world).resolve(PENDING_FILE).toFile();
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != PENDING_VERSION) {
+                throw new IOException("unknown version");
+            }
+            int levelCount = in.readInt();
+            int loaded = 0;
+            for (int i = 0; i < levelCount; i++) {
+                int zoom = in.readInt();
+                int count = in.readInt();
+                for (int j = 0; j < count; j++) {
+                    long key = in.readLong();
+                    // A lower maximum zoom than last run drops the levels above it
+                    if (zoom >= 1 && zoom <= maxZoom) {
+                        levels.get(zoom).add(key);
+                        loaded++;
+                    }
+                }
+            }
+            Log.info("Resuming tile pyramid of " + world + " with " + loaded + " dirty tiles");
+        } catch (IOException e) {
+            Log.warn("Failed to read dirty pyramid tiles of " + world + ", zoomed-out tiles may be stale: "
+                    + e.getMessage());
+        }
+        file.delete();
+    }
+
+    private void savePending(String world, List<Set<Long>> levels) {
+        int count = pendingCount(levels);
+        if (count == 0) {
+            return;
+        }
+        File file = store.getRoot(world).resolve(PENDING_FILE).toFile();
+        try {
+            Files.createDirectories(store.getRoot(world));
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+                out.writeInt(PENDING_VERSION);
+                out.writeInt(maxZoom);
+                for (int zoom = 1; zoom <= maxZoom; zoom++) {
+                    List<Long> keys = new ArrayList<>(levels.get(zoom));
+                    out.writeInt(zoom);
+                    out.writeInt(keys.size());
+                    for (long key : keys) {
+                        out.writeLong(key);
+                    }
+                }
+            }
+            Log.info("Saved " + count + " dirty pyramid tiles of " + world + " for the next start");
+        } catch (IOException e) {
+            Log.error("Failed to save dirty pyramid tiles of " + world + ": " + e.getMessage());
+        }
+    }
+
+    private static long key(int tileX, int tileZ) {
+        return (long) tileX << 32 | (tileZ & 0xFFFFFFFFL);
+    }
+
+    private static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int keyZ(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,164 @@
+package com.suiramdev.worldmap.tiles;
+
+import com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData;
+import com.suiramdev.worldmap.services.ChunkProcessingService.SurfaceData;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Renders an extracted chunk into a 32x32 top-down image, one pixel per
+ * column.
+ *
+ * <p>
+ * A pixel composites the blocks seen from above, front to back, using each
+ * block's average color and coverage: in surface mode the top block, the
+ * fluid and the ground, in full mode the blocks from the top of the column
+ * down until the pixel is covered. Tinted blocks are multiplied by the
+ * column's biome tint, then the pixel is lightened or darkened by the slope
+ * to the column north of it.
+ */
+public class TileRenderer {
+    public static final int TILE_SIZE = 32;
+
+    private static final int WATER_COLOR = 0x3F76E4;
+    private static final int MAX_LAYERS = 8; // Full mode gives up on a column after this many translucent blocks
+    private static final int MAX_SLOPE = 4;
+    private static final float SLOPE_SHADE = 0.04f;
+    private static final float[] FLUID_ALPHA = new float[128];
+
+    static {
+        // Each fluid block lets 60% of the light from below through
+        for (int depth = 0; depth < FLUID_ALPHA.length; depth++) {
+            FLUID_ALPHA[depth] = Math.min(0.92f, (float) (1 - Math.pow(0.6, depth)));
+        }
+    }
+
+    private final IntUnaryOperator colors;
+    private final IntPredicate tinted;
+
+    /**
+     * @param colors Average ARGB color of a block ID, alpha being its coverage
+     * @param tinted Whether a block ID takes the biome tint
+     */
+    public TileRenderer(IntUnaryOperator colors, IntPredicate tinted) {
+        this.colors = colors;
+        this.tinted = tinted;
+    }
+
+    /**
+     * @param pixels Receives TILE_SIZE * TILE_SIZE ARGB pixels, row z, column x
+     */
+    public void render(ChunkData data, int[] pixels) {
+        Layers layers = new Layers();
+        for (int z = 0; z < TILE_SIZE; z++) {
+            for (int x = 0; x < TILE_SIZE; x++) {
+                int tint = data.tintMap != null ? data.tintMap[x][z] : 0;
+                layers.reset();
+                if (data.surface != null) {
+                    compositeSurface(data.surface, x * TILE_SIZE + z, tint, layers);
+                } else if (data.blocks != null) {
+                    compositeColumn(data.blocks, x, z, data.heightMap != null ? data.heightMap[x][z] : 319, tint,
+                            layers);
+                }
+                pixels[z * TILE_SIZE + x] = layers.toArgb(shade(data.heightMap, x, z));
+            }
+        }
+    }
+
+    private void compositeSurface(SurfaceData surface, int column, int tint, Layers layers) {
+        int top = surface.topBlocks[column];
+        int ground = surface.groundBlocks[column];
+        if (top != ground) {
+            layers.add(blockColor(top, tint));
+        }
+        int depth = surface.fluidDepths[column];
+        if (surface.fluidIds[column] != 0 && depth > 0) {
+            layers.add(WATER_COLOR, FLUID_ALPHA[depth]);
+        }
+        layers.add(blockColor(ground, tint));
+    }
+
+    private void compositeColumn(int[][][] blocks, int x, int z, int height, int tint, Layers layers) {
+        int count = 0;
+        for (int y = Math.min(blocks[x].length - 1, height + 10); y >= 0 && count < MAX_LAYERS; y--) {
+            int blockId = blocks[x][y][z];
+            if (blockId <= 0) {
+                continue;
+            }
+            layers.add(blockColor(blockId, tint));
+            count++;
+            if (layers.isOpaque()) {
+                break;
+            }
+        }
+    }
+
+    private int blockColor(int blockId, int tint) {
+        int color = colors.applyAsInt(blockId);
+        if (tint == 0 || !tinted.test(blockId)) {
+            return color;
+        }
+        int red = (color >>> 16 & 0xFF) * (tint >>> 16 & 0xFF) / 255;
+        int green = (color >>> 8 & 0xFF) * (tint >>> 8 & 0xFF) / 255;
+        int blue = (color & 0xFF) * (tint & 0xFF) / 255;
+        return color & 0xFF000000 | red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * Brightness factor from the height difference to the column north of
+     * this one, flat at the chunk's northern edge
+     */
+    private static float shade(short[][] heightMap, int x, int z) {
+        if (heightMap == null || z == 0) {
+            return 1f;
+        }
+        int slope = Math.max(-MAX_SLOPE, Math.min(MAX_SLOPE, heightMap[x][z] - heightMap[x][z - 1]));
+        return 1f + slope * SLOPE_SHADE;
+    }
+
+    /**
+     * Front-to-back accumulation of one pixel's layers
+     */
+    private static final class Layers {
+        private float red;
+        private float green;
+        private float blue;
+        private float alpha;
+
+        void reset() {
+            red = green = blue = alpha = 0;
+        }
+
+        void add(int argb) {
+            add(argb, (argb >>> 24) / 255f);
+        }
+
+        void add(int rgb, float layerAlpha) {
+            float weight = (1 - alpha) * layerAlpha;
+            red += weight * (rgb >>> 16 & 0xFF);
+            green += weight * (rgb >>> 8 & 0xFF);
+            blue += weight * (rgb & 0xFF);
+            alpha += weight;
+        }
+
+        boolean isOpaque() {
+            return alpha > 0.98f;
+        }
+
+        int toArgb(float shade) {
+            if (alpha <= 0) {
+                return 0;
+            }
+            // Colors were accumulated premultiplied, undo that for the PNG
+            float scale = shade / alpha;
+            return Math.round(alpha * 255) << 24
+                    | clamp(red * scale) << 16
+                    | clamp(green * scale) << 8
+                    | clamp(blue * scale);
+        }
+
+        private static int clamp(float value) {
+            return Math.max(0, Math.min(255, Math.round(value)));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.suiramdev.worldmap.tiles;
+
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.metrics.PipelineMetrics;
+import com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData;
+import com.suiramdev.worldmap.services.HttpClientService;
+import com.suiramdev.worldmap.utils.ByteSink;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders extracted chunks into PNG tiles on a small, bounded pool and writes
+ * them to the tile directory and/or uploads them to the worker API.
+ *
+ * <p>
+ * Each render thread keeps its own pixel buffer, PNG encoder and output
+ * buffer. When the queue is full the submitting thread renders the tile
+ * itself, which slows extraction down to the rate tiles can be produced.
+ * Chunk tiles are zoom 0 of the tile store; written tiles mark their
+ * ancestors dirty in the pyramid, if there is one.
+ */
+public class TileService {
+    public static final int BASE_ZOOM = 0;
+
+    private static final int QUEUE_PER_THREAD = 32;
+    // Tiles are small; higher levels cost about three times the CPU for 10% smaller files
+    private static final int PNG_LEVEL = 1;
+
+    private final TileRenderer renderer;
+    private final TileStore store;
+    private final TilePyramid pyramid;
+    private final HttpClientService httpClient;
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(this::newBuffers);
+    private final Queue<Buffers> allBuffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param store      Store to write tiles to, or null to not keep them
+     *                   locally
+     * @param pyramid    Pyramid to update with written tiles, or null
+     * @param httpClient Client to upload tiles with, or null to not upload
+     *                   them
+     * @param threads    Render threads
+     */
+    public TileService(TileRenderer renderer, TileStore store, TilePyramid pyramid, HttpClientService httpClient,
+            int threads) {
+        this.renderer = renderer;
+        this.store = store;
+        this.pyramid = pyramid;
+        this.httpClient = httpClient;
+
+        int poolSize = Math.max(1, threads);
+        AtomicInteger threadCount = new AtomicInteger(0);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * QUEUE_PER_THREAD),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Worldmap-Tile-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Tile renderer is shut down");
+                    }
+                    task.run();
+                });
+    }
+
+    /**
+     * Whether tiles are uploaded instead of chunk payloads
+     */
+    public boolean replacesUploads() {
+        return httpClient != null;
+    }
+
+    /**
+     * Render a chunk's tile, then write and/or upload it
+     *
+     * @return Future completing with true once the tile was uploaded, or
+     *         written when tiles are only kept locally
+     */
+    public CompletableFuture<Boolean> submit(ChunkData data) {
+        try {
+            // Store on the render thread itself, its buffers are reused by the next tile
+            return CompletableFuture.supplyAsync(() -> store(data, render(data)), executor)
+                    .thenCompose(stored -> stored);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    /**
+     * Wait for queued tiles, then stop the render threads
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                Log.warn("Timed out waiting for tiles to render");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        for (Buffers buffers : allBuffers) {
+            buffers.encoder.close();
+        }
+    }
+
+    /**
+     * Render and encode on the current thread into its buffers
+     */
+    private Buffers render(ChunkData data) {
+        long startedAt = System.nanoTime();
+        Buffers buffers = this.buffers.get();
+        renderer.render(data, buffers.pixels);
+        buffers.png.reset();
+        buffers.encoder.encode(buffers.pixels, TileRenderer.TILE_SIZE, TileRenderer.TILE_SIZE, buffers.png);
+        PipelineMetrics.TILE_RENDER_TIME.observeNanos(System.nanoTime() - startedAt);
+        return buffers;
+    }
+
+    /**
+     * Runs on the thread that rendered the tile, before its buffers are reused
+     */
+    private CompletableFuture<Boolean> store(ChunkData data, Buffers buffers) {
+        boolean written = true;
+        if (store != null) {
+            written = store.write(data.world, BASE_ZOOM, data.chunkX, data.chunkZ, buffers.png);
+            if (written && pyramid != null) {
+                pyramid.markDirty(data.world, data.chunkX, data.chunkZ);
+            }
+        }
+        if (httpClient != null) {
+            // The client copies the body before returning, freeing the buffer for the next tile
+            return httpClient.sendTile(data.world, BASE_ZOOM, data.chunkX, data.chunkZ, buffers.png);
+        }
+        return CompletableFuture.completedFuture(written);
+    }
+
+    private Buffers newBuffers() {
+        Buffers buffers = new Buffers();
+        allBuffers.add(buffers);
+        return buffers;
+    }
+
+    /**
+     * Reused by one thread for every tile it renders
+     */
+    private static final class Buffers {
+        final int[] pixels = new int[TileRenderer.TILE_SIZE * TileRenderer.TILE_SIZE];
+        final PngEncoder encoder = new PngEncoder(PNG_LEVEL);
+        final ByteSink png = new ByteSink(8 * 1024);
+    }
+}
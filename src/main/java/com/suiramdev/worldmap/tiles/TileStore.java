@@ -0,0 +1,90 @@
+package com.suiramdev.worldmap.tiles;
+
+import com.suiramdev.worldmap.logging.Log;
+import com.suiramdev.worldmap.storage.WorldStorage;
+import com.suiramdev.worldmap.utils.ByteSink;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import javax.imageio.ImageIO;
+
+/**
+ * Tile files under the tile directory, laid out as
+ * {@code <zoom>/<x>/<z>.png} for the default world and
+ * {@code worlds/<name>/<zoom>/<x>/<z>.png} for the others
+ */
+public class TileStore {
+    private final File directory;
+    private final WorldStorage worlds;
+
+    /**
+     * @param worlds Decides which world is the default one
+     */
+    public TileStore(File directory, WorldStorage worlds) {
+        this.directory = directory;
+        this.worlds = worlds;
+    }
+
+    /**
+     * Folder holding a world's tiles
+     */
+    public Path getRoot(String world) {
+        return worlds.folderOf(directory, world).toPath();
+    }
+
+    public Path path(String world, int zoom, int tileX, int tileZ) {
+        return getRoot(world).resolve(Integer.toString(zoom)).resolve(Integer.toString(tileX))
+                .resolve(tileZ + ".png");
+    }
+
+    /**
+     * Replace a tile file atomically, so readers never see a partial PNG
+     *
+     * @return false if the tile could not be written
+     */
+    public boolean write(String world, int zoom, int tileX, int tileZ, ByteSink png) {
+        Path file = path(world, zoom, tileX, tileZ);
+        Path temp = file.resolveSibling(tileZ + ".png.tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(png.array(), 0, png.size());
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Log.trace(() -> "Wrote tile " + zoom + "/" + tileX + "/" + tileZ + " (" + png.size() + " bytes)");
+            return true;
+        } catch (IOException e) {
+            Log.warnThrottled("tile-write", 10_000, () -> "Failed to write tile " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Read a tile's ARGB pixels, row by row
+     *
+     * @param pixels Receives TILE_SIZE * TILE_SIZE pixels
+     * @return false if the tile does not exist or cannot be read
+     */
+    public boolean read(String world, int zoom, int tileX, int tileZ, int[] pixels) {
+        File file = path(world, zoom, tileX, tileZ).toFile();
+        if (!file.isFile()) {
+            return false;
+        }
+        try {
+            BufferedImage image = ImageIO.read(file);
+            if (image == null || image.getWidth() != TileRenderer.TILE_SIZE
+                    || image.getHeight() != TileRenderer.TILE_SIZE) {
+                return false;
+            }
+            image.getRGB(0, 0, TileRenderer.TILE_SIZE, TileRenderer.TILE_SIZE, pixels, 0, TileRenderer.TILE_SIZE);
+            return true;
+        } catch (IOException e) {
+            Log.warnThrottled("tile-read", 10_000, () -> "Failed to read tile " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.suiramdev.worldmap.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Palette + bit-packed encoding of a 32x320x32 block volume.
+ *
+ * <p>
+ * The volume is split into 32-high sections. Each section stores its distinct
+ * block IDs in a local palette and one index per cell, bit-packed to
+ * ceil(log2(paletteSize)) bits. A section holding a single block ID (typically
+ * all air above the terrain) is written as a one-entry palette with no index
+ * data.
+ *
+ * <pre>
+ * per section (10 sections, bottom to top):
+ *   ushort paletteSize
+ *   int[paletteSize] palette
+ *   byte bitsPerEntry (0 when paletteSize == 1)
+ *   long[ceil(32768 * bitsPerEntry / 64)] packed indexes
+ * </pre>
+ *
+ * Cells are ordered (y, z, x) within a section, x varying fastest. Indexes are
+ * packed least significant bit first and may straddle two longs.
+ *
+ * <p>
+ * Flat arrays, such as the per-column block IDs of surface mode, are written
+ * as a single section of the same layout covering the array's length.
+ */
+public final class BlockPaletteCodec {
+    public static final int SECTION_HEIGHT = 32;
+    public static final int SECTION_COUNT = ChunkBinaryCodec.CHUNK_HEIGHT / SECTION_HEIGHT;
+    public static final int SECTION_VOLUME = ChunkBinaryCodec.CHUNK_SIZE * SECTION_HEIGHT * ChunkBinaryCodec.CHUNK_SIZE;
+
+    private BlockPaletteCodec() {
+    }
+
+    /**
+     * Encode a block volume indexed as blocks[x][y][z]
+     */
+    public static void encode(int[][][] blocks, ByteSink sink) {
+        Palette palette = new Palette();
+        int[] indexes = new int[SECTION_VOLUME];
+
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            palette.clear();
+            int baseY = section * SECTION_HEIGHT;
+            int cell = 0;
+            for (int y = 0; y < SECTION_HEIGHT; y++) {
+                for (int z = 0; z < ChunkBinaryCodec.CHUNK_SIZE; z++) {
+                    for (int x = 0; x < ChunkBinaryCodec.CHUNK_SIZE; x++) {
+                        int blockId = blocks != null ? blocks[x][baseY + y][z] : 0;
+                        indexes[cell++] = palette.indexOf(blockId);
+                    }
+                }
+            }
+
+            int paletteSize = palette.size();
+            sink.writeShortLE(paletteSize);
+            for (int i = 0; i < paletteSize; i++) {
+                sink.writeIntLE(palette.get(i));
+            }
+
+            int bits = bitsFor(paletteSize);
+            sink.writeByte(bits);
+            if (bits > 0) {
+                writePacked(indexes, SECTION_VOLUME, bits, sink);
+            }
+        }
+    }
+
+    /**
+     * Decode a block volume written by {@link #encode(int[][][], ByteSink)}
+     *
+     * @param in Little-endian buffer positioned at the first section
+     */
+    public static int[][][] decode(ByteBuffer in) {
+        int[][][] blocks = new int[ChunkBinaryCodec.CHUNK_SIZE][ChunkBinaryCodec.CHUNK_HEIGHT][ChunkBinaryCodec.CHUNK_SIZE];
+
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            int paletteSize = in.getShort() & 0xFFFF;
+            if (paletteSize == 0) {
+                throw new IllegalArgumentException("Empty palette in section " + section);
+            }
+            int[] palette = new int[paletteSize];
+            for (int i = 0; i < paletteSize; i++) {
+                palette[i] = in.getInt();
+            }
+
+            int bits = in.get() & 0xFF;
+            if (bits != bitsFor(paletteSize)) {
+                throw new IllegalArgumentException("Invalid bits per entry " + bits + " for palette size " + paletteSize);
+            }
+
+            int baseY = section * SECTION_HEIGHT;
+            if (bits == 0) {
+                int blockId = palette[0];
+                if (blockId != 0) {
+                    for (int x = 0; x < ChunkBinaryCodec.CHUNK_SIZE; x++) {
+                        for (int y = 0; y < SECTION_HEIGHT; y++) {
+                            Arrays.fill(blocks[x][baseY + y], blockId);
+                        }
+                    }
+                }
+                continue;
+            }
+
+            long mask = (1L << bits) - 1;
+            long current = in.getLong();
+            int bitOffset = 0;
+            int cell = 0;
+            for (int y = 0; y < SECTION_HEIGHT; y++) {
+                for (int z = 0; z < ChunkBinaryCodec.CHUNK_SIZE; z++) {
+                    for (int x = 0; x < ChunkBinaryCodec.CHUNK_SIZE; x++) {
+                        long value = current >>> bitOffset;
+                        bitOffset += bits;
+                        if (bitOffset >= 64) {
+                            bitOffset -= 64;
+                            // Only fetch the next word while cells remain, so no padding word is read
+                            if (cell < SECTION_VOLUME - 1) {
+                                current = in.getLong();
+                                if (bitOffset > 0) {
+                                    value |= current << (bits - bitOffset);
+                                }
+                            }
+                        }
+                        int index = (int) (value & mask);
+                        if (index >= paletteSize) {
+                            throw new IllegalArgumentException("Palette index " + index + " out of range in section " + section);
+                        }
+                        blocks[x][baseY + y][z] = palette[index];
+                        cell++;
+                    }
+                }
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Encode a flat array of IDs as one palette section
+     */
+    public static void encodeArray(int[] values, ByteSink sink) {
+        Palette palette = new Palette(values.length);
+        int[] indexes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            indexes[i] = palette.indexOf(values[i]);
+        }
+
+        int paletteSize = palette.size();
+        sink.writeShortLE(paletteSize);
+        for (int i = 0; i < paletteSize; i++) {
+            sink.writeIntLE(palette.get(i));
+        }
+        int bits = bitsFor(paletteSize);
+        sink.writeByte(bits);
+        if (bits > 0) {
+            writePacked(indexes, indexes.length, bits, sink);
+        }
+    }
+
+    /**
+     * Decode a flat array written by {@link #encodeArray(int[], ByteSink)}
+     *
+     * @param length Number of values that were encoded
+     */
+    public static int[] decodeArray(ByteBuffer in, int length) {
+        int paletteSize = in.getShort() & 0xFFFF;
+        if (paletteSize == 0) {
+            throw new IllegalArgumentException("Empty palette");
+        }
+        int[] palette = new int[paletteSize];
+        for (int i = 0; i < paletteSize; i++) {
+            palette[i] = in.getInt();
+        }
+        int bits = in.get() & 0xFF;
+        if (bits != bitsFor(paletteSize)) {
+            throw new IllegalArgumentException("Invalid bits per entry " + bits + " for palette size " + paletteSize);
+        }
+
+        int[] values = new int[length];
+        if (bits == 0) {
+            Arrays.fill(values, palette[0]);
+            return values;
+        }
+        long mask = (1L << bits) - 1;
+        long current = in.getLong();
+        int bitOffset = 0;
+        for (int i = 0; i < length; i++) {
+            long value = current >>> bitOffset;
+            bitOffset += bits;
+            if (bitOffset >= 64) {
+                bitOffset -= 64;
+                if (i < length - 1) {
+                    current = in.getLong();
+                    if (bitOffset > 0) {
+                        value |= current << (bits - bitOffset);
+                    }
+                }
+            }
+            int index = (int) (value & mask);
+            if (index >= paletteSize) {
+                throw new IllegalArgumentException("Palette index " + index + " out of range");
+            }
+            values[i] = palette[index];
+        }
+        return values;
+    }
+
+    /**
+     * Number of bits needed to address a palette of the given size
+     */
+    static int bitsFor(int paletteSize) {
+        return paletteSize <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(paletteSize - 1);
+    }
+
+    private static void writePacked(int[] indexes, int count, int bits, ByteSink sink) {
+        long current = 0;
+        int bitOffset = 0;
+        for (int i = 0; i < count; i++) {
+            long value = indexes[i];
+            current |= value << bitOffset;
+            bitOffset += bits;
+            if (bitOffset >= 64) {
+                sink.writeLongLE(current);
+                bitOffset -= 64;
+                current = bitOffset > 0 ? value >>> (bits - bitOffset) : 0;
+            }
+        }
+        if (bitOffset > 0) {
+            sink.writeLongLE(current);
+        }
+    }
+
+    /**
+     * Small open-addressing block ID -> palette index map, reused across sections
+     */
+    private static final class Palette {
+        private static final int EMPTY = -1;
+
+        private int[] keys = new int[256];
+        private int[] slots = new int[256];
+        private final int[] entries;
+        private int size;
+
+        Palette() {
+            this(SECTION_VOLUME);
+        }
+
+        Palette(int capacity) {
+            entries = new int[capacity];
+            Arrays.fill(slots, EMPTY);
+        }
+
+        void clear() {
+            Arrays.fill(slots, EMPTY);
+            size = 0;
+        }
+
+        int indexOf(int blockId) {
+            int slot = find(blockId);
+            int index = slots[slot];
+            if (index == EMPTY) {
+                index = size++;
+                entries[index] = blockId;
+                keys[slot] = blockId;
+                slots[slot] = index;
+                if (size * 2 > slots.length) {
+                    grow();
+                }
+            }
+            return index;
+        }
+
+        int get(int index) {
+            return entries[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        private int find(int blockId) {
+            int mask = slots.length - 1;
+            int slot = mix(blockId) & mask;
+            while (slots[slot] != EMPTY && keys[slot] != blockId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            keys = new int[keys.length << 1];
+            slots = new int[slots.length << 1];
+            Arrays.fill(slots, EMPTY);
+            for (int i = 0; i < size; i++) {
+                int slot = find(entries[i]);
+                keys[slot] = entries[i];
+                slots[slot] = i;
+            }
+        }
+
+        private static int mix(int value) {
+            int h = value * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
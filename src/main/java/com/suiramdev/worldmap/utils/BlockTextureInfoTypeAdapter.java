@@ -0,0 +1,68 @@
+package com.suiramdev.worldmap.utils;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.suiramdev.worldmap.services.ChunkProcessingService.BlockTextureInfo;
+import java.io.IOException;
+
+/**
+ * Hand-written Gson adapter for {@link BlockTextureInfo}, producing the same
+ * JSON as reflective serialization without the reflection overhead
+ */
+public class BlockTextureInfoTypeAdapter extends TypeAdapter<BlockTextureInfo> {
+
+    @Override
+    public void write(JsonWriter out, BlockTextureInfo info) throws IOException {
+        if (info == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, "up", info.up);
+        writeString(out, "down", info.down);
+        writeString(out, "north", info.north);
+        writeString(out, "south", info.south);
+        writeString(out, "east", info.east);
+        writeString(out, "west", info.west);
+        out.name("shouldTint").value(info.shouldTint);
+        out.endObject();
+    }
+
+    @Override
+    public BlockTextureInfo read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        BlockTextureInfo info = new BlockTextureInfo();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "up" -> info.up = in.nextString();
+                case "down" -> info.down = in.nextString();
+                case "north" -> info.north = in.nextString();
+                case "south" -> info.south = in.nextString();
+                case "east" -> info.east = in.nextString();
+                case "west" -> info.west = in.nextString();
+                case "shouldTint" -> info.shouldTint = in.nextBoolean();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return info;
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        // Match Gson's default of omitting null fields
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.suiramdev.worldmap.utils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable little-endian byte buffer used to build request bodies. Also usable
+ * as an {@link OutputStream} so text serializers can write into it directly.
+ */
+public class ByteSink extends OutputStream {
+    private byte[] buffer;
+    private int size;
+
+    public ByteSink() {
+        this(64 * 1024);
+    }
+
+    public ByteSink(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    @Override
+    public void write(int b) {
+        writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        writeBytes(bytes, offset, length);
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeShortLE(int value) {
+        ensureCapacity(2);
+        buffer[size++] = (byte) value;
+        buffer[size++] = (byte) (value >>> 8);
+    }
+
+    public void writeIntLE(int value) {
+        ensureCapacity(4);
+        putIntLE(buffer, size, value);
+        size += 4;
+    }
+
+    public void writeLongLE(long value) {
+        ensureCapacity(8);
+        putIntLE(buffer, size, (int) value);
+        putIntLE(buffer, size + 4, (int) (value >>> 32));
+        size += 8;
+    }
+
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    /**
+     * Write a UTF-8 string prefixed with its unsigned 16-bit byte length.
+     * Null is written as length 0xFFFF.
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeShortLE(0xFFFF);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= 0xFFFF) {
+            throw new IllegalArgumentException("String too long for binary payload: " + bytes.length + " bytes");
+        }
+        writeShortLE(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reserve 4 bytes for a length prefix that is filled in later with
+     * {@link #setIntLE(int, int)}
+     *
+     * @return Position of the reserved bytes
+     */
+    public int reserveInt() {
+        ensureCapacity(4);
+        int position = size;
+        size += 4;
+        return position;
+    }
+
+    public void setIntLE(int position, int value) {
+        if (position < 0 || position + 4 > size) {
+            throw new IndexOutOfBoundsException("Position " + position + " outside of written range " + size);
+        }
+        putIntLE(buffer, position, value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Backing array, valid from 0 to {@link #size()}
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    private void ensureCapacity(int extra) {
+        int required = size + extra;
+        if (required > buffer.length) {
+            int newCapacity = Math.max(required, buffer.length << 1);
+            buffer = Arrays.copyOf(buffer, newCapacity);
+        }
+    }
+
+    private static void putIntLE(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >>> 8);
+        target[offset + 2] = (byte) (value >>> 16);
+        target[offset + 3] = (byte) (value >>> 24);
+    }
+}
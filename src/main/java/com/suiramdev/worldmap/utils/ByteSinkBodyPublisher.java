@@ -0,0 +1,171 @@
+package com.suiramdev.worldmap.utils;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request body publisher that streams a {@link ByteSink}'s bytes without
+ * copying them.
+ *
+ * Every subscription, so every attempt of a retried request, emits read-only
+ * slices wrapping the sink's backing array. The client may still read them
+ * after the response arrived, e.g. when the server answered before the whole
+ * body was sent, so the sink must only be reused from {@link #onIdle}.
+ */
+public final class ByteSinkBodyPublisher implements HttpRequest.BodyPublisher {
+    // Same slice size the JDK's byte array publisher uses
+    private static final int SLICE_SIZE = 16 * 1024;
+
+    private final byte[] array;
+    private final int offset;
+    private final int length;
+    private int openSubscriptions; // Guarded by this
+    private Runnable idleAction; // Guarded by this
+    private boolean released; // Guarded by this
+
+    public ByteSinkBodyPublisher(ByteSink sink) {
+        this(sink.array(), 0, sink.size());
+    }
+
+    public ByteSinkBodyPublisher(byte[] array, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > array.length) {
+            throw new IndexOutOfBoundsException("Range " + offset + "+" + length + " outside " + array.length);
+        }
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        boolean rejected;
+        synchronized (this) {
+            rejected = released;
+            if (!rejected) {
+                openSubscriptions++;
+            }
+        }
+        if (rejected) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Body was released after its request finished"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription(subscriber));
+    }
+
+    /**
+     * Run an action once no subscription reads the body anymore: right away if
+     * none is open, otherwise when the last one completes, fails or is
+     * cancelled. Call it after the request's last attempt; later subscriptions
+     * fail instead of reading the bytes.
+     *
+     * @param action Typically returns the sink to its pool
+     */
+    public void onIdle(Runnable action) {
+        synchronized (this) {
+            released = true;
+            if (openSubscriptions > 0) {
+                idleAction = action;
+                return;
+            }
+        }
+        action.run();
+    }
+
+    private void subscriptionEnded() {
+        Runnable action;
+        synchronized (this) {
+            openSubscriptions--;
+            if (openSubscriptions > 0 || idleAction == null) {
+                return;
+            }
+            action = idleAction;
+            idleAction = null;
+        }
+        action.run();
+    }
+
+    /**
+     * Emits slices as they are requested. Calls into the subscriber are
+     * serialized, including a request made from within onNext.
+     */
+    private final class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger drains = new AtomicInteger();
+        private final AtomicBoolean ended = new AtomicBoolean();
+        private int position; // Only touched while draining
+        private volatile boolean done;
+
+        Subscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                done = true;
+                end();
+                subscriber.onError(new IllegalArgumentException("Non-positive request " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            end();
+        }
+
+        /**
+         * Stop counting this subscription as reading the body, once
+         */
+        private void end() {
+            if (ended.compareAndSet(false, true)) {
+                subscriptionEnded();
+            }
+        }
+
+        private void drain() {
+            if (drains.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!done && position < length && demand.get() > 0) {
+                    int size = Math.min(SLICE_SIZE, length - position);
+                    ByteBuffer slice = ByteBuffer.wrap(array, offset + position, size).slice().asReadOnlyBuffer();
+                    position += size;
+                    demand.decrementAndGet();
+                    subscriber.onNext(slice);
+                }
+                if (!done && position >= length) {
+                    done = true;
+                    subscriber.onComplete();
+                    end();
+                }
+            } while (drains.decrementAndGet() != 0);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.suiramdev.worldmap.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Bounded pool of {@link ByteSink} buffers so request bodies reuse the same
+ * backing arrays instead of allocating a new multi-megabyte buffer per chunk
+ */
+public class ByteSinkPool {
+    private final ArrayBlockingQueue<ByteSink> pool;
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+
+    /**
+     * @param maxPooled           Maximum number of idle buffers kept
+     * @param initialCapacity     Capacity of newly created buffers
+     * @param maxRetainedCapacity Buffers that grew beyond this are dropped on
+     *                            release instead of pooled
+     */
+    public ByteSinkPool(int maxPooled, int initialCapacity, int maxRetainedCapacity) {
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    /**
+     * Take an empty buffer from the pool, or create one if none is idle
+     */
+    public ByteSink acquire() {
+        ByteSink sink = pool.poll();
+        return sink != null ? sink : new ByteSink(initialCapacity);
+    }
+
+    /**
+     * Return a buffer to the pool. The caller must not use it afterwards.
+     */
+    public void release(ByteSink sink) {
+        if (sink == null || sink.capacity() > maxRetainedCapacity) {
+            return;
+        }
+        sink.reset();
+        pool.offer(sink);
+    }
+}
@@ -0,0 +1,57 @@
+package com.suiramdev.worldmap.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Wraps individually serialized chunk payloads into one multi-chunk request
+ * body.
+ *
+ * <p>
+ * JSON batches are {@code {"chunks":[<chunk>,<chunk>,...]}} where each element
+ * is the regular single-chunk JSON object. Binary batches are:
+ *
+ * <pre>
+ * int   magic "WMCB"
+ * byte  version
+ * byte  reserved
+ * short reserved
+ * int   chunk count
+ * per chunk: int length, then a {@link ChunkBinaryCodec} payload
+ * </pre>
+ */
+public final class ChunkBatchCodec {
+    public static final String BINARY_CONTENT_TYPE = "application/vnd.worldmap.chunk-batch";
+    public static final int MAGIC = 0x42434D57; // "WMCB" read as little-endian
+    public static final int VERSION = 1;
+
+    private static final byte[] JSON_START = "{\"chunks\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_END = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private ChunkBatchCodec() {
+    }
+
+    public static void encodeJson(List<byte[]> payloads, ByteSink sink) {
+        sink.writeBytes(JSON_START, 0, JSON_START.length);
+        for (int i = 0; i < payloads.size(); i++) {
+            if (i > 0) {
+                sink.writeByte(',');
+            }
+            byte[] payload = payloads.get(i);
+            sink.writeBytes(payload, 0, payload.length);
+        }
+        sink.writeBytes(JSON_END, 0, JSON_END.length);
+    }
+
+    public static void encodeBinary(List<byte[]> payloads, ByteSink sink) {
+        sink.writeIntLE(MAGIC);
+        sink.writeByte(VERSION);
+        sink.writeByte(0);
+        sink.writeShortLE(0);
+        sink.writeIntLE(payloads.size());
+        for (byte[] payload : payloads) {
+            sink.writeIntLE(payload.length);
+            sink.writeBytes(payload, 0, payload.length);
+        }
+    }
+}
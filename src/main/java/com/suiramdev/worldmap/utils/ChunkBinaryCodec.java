@@ -0,0 +1,258 @@
+package com.suiramdev.worldmap.utils;
+
+import com.suiramdev.worldmap.services.ChunkProcessingService.BlockTextureInfo;
+import com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData;
+import com.suiramdev.worldmap.services.ChunkProcessingService.SurfaceData;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Versioned binary wire format for {@link ChunkData}.
+ *
+ * <pre>
+ * header (24 bytes)
+ *   int   magic "WMCK"
+ *   byte  version
+ *   byte  flags
+ *   short reserved
+ *   int   chunkX
+ *   int   chunkZ
+ *   long  timestamp
+ * string world name (FLAG_WORLD set)
+ * short[32 * 32] heightMap (x-major)
+ * int[32 * 32]   tintMap   (x-major)
+ * int length + block section, either
+ *   surface columns (FLAG_SURFACE set), each array x-major: top blocks, ground
+ *     blocks and fluid IDs as palette arrays (see {@link BlockPaletteCodec#encodeArray}),
+ *     in the order top blocks, ground blocks, short[32 * 32] ground heights,
+ *     fluid IDs, byte[32 * 32] fluid depths, or
+ *   palette sections (FLAG_PALETTE_BLOCKS set), see {@link BlockPaletteCodec}
+ * int count + block textures
+ *   per entry: int blockId, byte shouldTint, 6 strings (up, down, north, south, east, west)
+ * </pre>
+ *
+ * All values are little-endian. Strings are UTF-8 prefixed with an unsigned
+ * 16-bit length, 0xFFFF meaning null. Payloads with flag bits the decoder
+ * does not know are rejected.
+ *
+ * The version is bumped whenever the layout changes: 1 per-column blocks,
+ * 2 palette sections, 3 surface sections, 4 world name. Only the current
+ * version is decoded.
+ */
+public final class ChunkBinaryCodec {
+    public static final String CONTENT_TYPE = "application/vnd.worldmap.chunk";
+    public static final int MAGIC = 0x4B434D57; // "WMCK" read as little-endian
+    public static final int VERSION = 4;
+
+    public static final int FLAG_ENVIRONMENT_DATA = 1;
+    public static final int FLAG_PALETTE_BLOCKS = 1 << 1;
+    public static final int FLAG_SURFACE = 1 << 2;
+    public static final int FLAG_WORLD = 1 << 3;
+    // Flags of the current version; any other bit means a layout this decoder does not know
+    private static final int KNOWN_FLAGS = FLAG_ENVIRONMENT_DATA | FLAG_PALETTE_BLOCKS | FLAG_SURFACE | FLAG_WORLD;
+
+    public static final int CHUNK_SIZE = 32;
+    public static final int CHUNK_HEIGHT = 320;
+
+    private ChunkBinaryCodec() {
+    }
+
+    /**
+     * Encode chunk data into a new byte array
+     */
+    public static byte[] encode(ChunkData data) {
+        ByteSink sink = new ByteSink();
+        encode(data, sink);
+        return sink.toByteArray();
+    }
+
+    /**
+     * Encode chunk data by appending it to the given sink
+     */
+    public static void encode(ChunkData data, ByteSink sink) {
+        int flags = data.surface != null ? FLAG_SURFACE : FLAG_PALETTE_BLOCKS;
+        if (data.hasEnvironmentData) {
+            flags |= FLAG_ENVIRONMENT_DATA;
+        }
+        if (data.world != null) {
+            flags |= FLAG_WORLD;
+        }
+
+        sink.writeIntLE(MAGIC);
+        sink.writeByte(VERSION);
+        sink.writeByte(flags);
+        sink.writeShortLE(0);
+        sink.writeIntLE(data.chunkX);
+        sink.writeIntLE(data.chunkZ);
+        sink.writeLongLE(data.timestamp);
+        if (data.world != null) {
+            sink.writeString(data.world);
+        }
+
+        for (int x = 0; x < CHUNK_SIZE; x++) {
+            for (int z = 0; z < CHUNK_SIZE; z++) {
+                sink.writeShortLE(data.heightMap != null ? data.heightMap[x][z] : 0);
+            }
+        }
+        for (int x = 0; x < CHUNK_SIZE; x++) {
+            for (int z = 0; z < CHUNK_SIZE; z++) {
+                sink.writeIntLE(data.tintMap != null ? data.tintMap[x][z] : 0);
+            }
+        }
+
+        int lengthPosition = sink.reserveInt();
+        int sectionStart = sink.size();
+        if (data.surface != null) {
+            writeSurface(data.surface, sink);
+        } else {
+            BlockPaletteCodec.encode(data.blocks, sink);
+        }
+        sink.setIntLE(lengthPosition, sink.size() - sectionStart);
+
+        Map<Integer, BlockTextureInfo> textures = data.blockTextures;
+        if (textures == null) {
+            sink.writeIntLE(0);
+        } else {
+            sink.writeIntLE(textures.size());
+            for (Map.Entry<Integer, BlockTextureInfo> entry : textures.entrySet()) {
+                BlockTextureInfo info = entry.getValue();
+                sink.writeIntLE(entry.getKey());
+                sink.writeByte(info.shouldTint ? 1 : 0);
+                sink.writeString(info.up);
+                sink.writeString(info.down);
+                sink.writeString(info.north);
+                sink.writeString(info.south);
+                sink.writeString(info.east);
+                sink.writeString(info.west);
+            }
+        }
+    }
+
+    /**
+     * Decode chunk data previously produced by {@link #encode(ChunkData)}
+     *
+     * @throws IllegalArgumentException if the payload is malformed or of an
+     *                                  unsupported version
+     */
+    public static ChunkData decode(byte[] payload) {
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    public static ChunkData decode(ByteBuffer buffer) {
+        ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a worldmap chunk payload");
+            }
+            int version = in.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported chunk payload version " + version);
+            }
+            int flags = in.get() & 0xFF;
+            if ((flags & ~KNOWN_FLAGS) != 0) {
+                throw new IllegalArgumentException("Unknown chunk payload flags 0x" + Integer.toHexString(flags));
+            }
+            in.getShort();
+
+            ChunkData data = new ChunkData();
+            data.chunkX = in.getInt();
+            data.chunkZ = in.getInt();
+            data.timestamp = in.getLong();
+            data.hasEnvironmentData = (flags & FLAG_ENVIRONMENT_DATA) != 0;
+            if ((flags & FLAG_WORLD) != 0) {
+                data.world = readString(in);
+            }
+
+            data.heightMap = new short[CHUNK_SIZE][CHUNK_SIZE];
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                for (int z = 0; z < CHUNK_SIZE; z++) {
+                    data.heightMap[x][z] = in.getShort();
+                }
+            }
+            data.tintMap = new int[CHUNK_SIZE][CHUNK_SIZE];
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                for (int z = 0; z < CHUNK_SIZE; z++) {
+                    data.tintMap[x][z] = in.getInt();
+                }
+            }
+
+            int sectionLength = in.getInt();
+            if (sectionLength < 0 || sectionLength > in.remaining()) {
+                throw new IllegalArgumentException("Invalid block section length " + sectionLength);
+            }
+            ByteBuffer section = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+            section.limit(sectionLength);
+            if ((flags & FLAG_SURFACE) != 0) {
+                data.surface = readSurface(section);
+            } else if ((flags & FLAG_PALETTE_BLOCKS) != 0) {
+                data.blocks = BlockPaletteCodec.decode(section);
+            } else {
+                throw new IllegalArgumentException("Chunk payload has no block section layout");
+            }
+            in.position(in.position() + sectionLength);
+
+            int textureCount = in.getInt();
+            if (textureCount < 0) {
+                throw new IllegalArgumentException("Invalid block texture count " + textureCount);
+            }
+            Map<Integer, BlockTextureInfo> textures = new HashMap<>();
+            for (int i = 0; i < textureCount; i++) {
+                int blockId = in.getInt();
+                boolean shouldTint = in.get() != 0;
+                textures.put(blockId, new BlockTextureInfo(
+                        readString(in),
+                        readString(in),
+                        readString(in),
+                        readString(in),
+                        readString(in),
+                        readString(in),
+                        shouldTint));
+            }
+            data.blockTextures = textures;
+            return data;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated chunk payload", e);
+        }
+    }
+
+    private static void writeSurface(SurfaceData surface, ByteSink sink) {
+        int columns = CHUNK_SIZE * CHUNK_SIZE;
+        BlockPaletteCodec.encodeArray(surface.topBlocks, sink);
+        BlockPaletteCodec.encodeArray(surface.groundBlocks, sink);
+        for (int i = 0; i < columns; i++) {
+            sink.writeShortLE(surface.groundHeights[i]);
+        }
+        BlockPaletteCodec.encodeArray(surface.fluidIds, sink);
+        for (int i = 0; i < columns; i++) {
+            sink.writeByte(surface.fluidDepths[i]);
+        }
+    }
+
+    private static SurfaceData readSurface(ByteBuffer section) {
+        int columns = CHUNK_SIZE * CHUNK_SIZE;
+        SurfaceData surface = new SurfaceData();
+        surface.topBlocks = BlockPaletteCodec.decodeArray(section, columns);
+        surface.groundBlocks = BlockPaletteCodec.decodeArray(section, columns);
+        surface.groundHeights = new short[columns];
+        section.asShortBuffer().get(surface.groundHeights);
+        section.position(section.position() + columns * 2);
+        surface.fluidIds = BlockPaletteCodec.decodeArray(section, columns);
+        surface.fluidDepths = new byte[columns];
+        section.get(surface.fluidDepths);
+        return surface;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length == 0xFFFF) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,241 @@
+package com.suiramdev.worldmap.utils;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.suiramdev.worldmap.services.ChunkProcessingService.BlockTextureInfo;
+import com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData;
+import com.suiramdev.worldmap.services.ChunkProcessingService.SurfaceData;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written Gson adapter for {@link ChunkData}. Streams the nested
+ * primitive arrays straight to the {@link JsonWriter} and writes the fields in
+ * declaration order, so the output is the same JSON as reflective
+ * serialization and existing workers are unaffected.
+ */
+public class ChunkDataTypeAdapter extends TypeAdapter<ChunkData> {
+    private final BlockTextureInfoTypeAdapter textureAdapter = new BlockTextureInfoTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChunkData data) throws IOException {
+        if (data == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (data.world != null) {
+            out.name("world").value(data.world);
+        }
+        out.name("chunkX").value(data.chunkX);
+        out.name("chunkZ").value(data.chunkZ);
+        out.name("timestamp").value(data.timestamp);
+
+        if (data.blocks != null) {
+            out.name("blocks").beginArray();
+            for (int[][] plane : data.blocks) {
+                out.beginArray();
+                for (int[] row : plane) {
+                    writeIntArray(out, row);
+                }
+                out.endArray();
+            }
+            out.endArray();
+        }
+
+        if (data.heightMap != null) {
+            out.name("heightMap").beginArray();
+            for (short[] row : data.heightMap) {
+                out.beginArray();
+                for (short value : row) {
+                    out.value(value);
+                }
+                out.endArray();
+            }
+            out.endArray();
+        }
+
+        if (data.tintMap != null) {
+            out.name("tintMap").beginArray();
+            for (int[] row : data.tintMap) {
+                writeIntArray(out, row);
+            }
+            out.endArray();
+        }
+
+        if (data.blockTextures != null) {
+            out.name("blockTextures").beginObject();
+            for (Map.Entry<Integer, BlockTextureInfo> entry : data.blockTextures.entrySet()) {
+                out.name(String.valueOf(entry.getKey()));
+                textureAdapter.write(out, entry.getValue());
+            }
+            out.endObject();
+        }
+
+        out.name("hasEnvironmentData").value(data.hasEnvironmentData);
+
+        if (data.surface != null) {
+            SurfaceData surface = data.surface;
+            out.name("surface").beginObject();
+            out.name("topBlocks");
+            writeIntArray(out, surface.topBlocks);
+            out.name("groundBlocks");
+            writeIntArray(out, surface.groundBlocks);
+            out.name("groundHeights").beginArray();
+            for (short value : surface.groundHeights) {
+                out.value(value);
+            }
+            out.endArray();
+            out.name("fluidIds");
+            writeIntArray(out, surface.fluidIds);
+            out.name("fluidDepths").beginArray();
+            for (byte value : surface.fluidDepths) {
+                out.value(value);
+            }
+            out.endArray();
+            out.endObject();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ChunkData read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChunkData data = new ChunkData();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "world" -> data.world = in.nextString();
+                case "chunkX" -> data.chunkX = in.nextInt();
+                case "chunkZ" -> data.chunkZ = in.nextInt();
+                case "timestamp" -> data.timestamp = in.nextLong();
+                case "blocks" -> data.blocks = readBlocks(in);
+                case "heightMap" -> data.heightMap = readHeightMap(in);
+                case "tintMap" -> data.tintMap = readIntGrid(in);
+                case "surface" -> data.surface = readSurface(in);
+                case "blockTextures" -> data.blockTextures = readTextures(in);
+                case "hasEnvironmentData" -> data.hasEnvironmentData = in.nextBoolean();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return data;
+    }
+
+    private static void writeIntArray(JsonWriter out, int[] values) throws IOException {
+        out.beginArray();
+        for (int value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static int[][][] readBlocks(JsonReader in) throws IOException {
+        int[][][] blocks = new int[ChunkBinaryCodec.CHUNK_SIZE][][];
+        int x = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            int[][] plane = readIntGrid(in);
+            if (x < blocks.length) {
+                blocks[x] = plane;
+            }
+            x++;
+        }
+        in.endArray();
+        return blocks;
+    }
+
+    private static int[][] readIntGrid(JsonReader in) throws IOException {
+        List<int[]> rows = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            rows.add(readIntArray(in));
+        }
+        in.endArray();
+        return rows.toArray(new int[0][]);
+    }
+
+    private static int[] readIntArray(JsonReader in) throws IOException {
+        int[] values = new int[16];
+        int size = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = in.nextInt();
+        }
+        in.endArray();
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    private static short[][] readHeightMap(JsonReader in) throws IOException {
+        int[][] grid = readIntGrid(in);
+        short[][] heightMap = new short[grid.length][];
+        for (int x = 0; x < grid.length; x++) {
+            heightMap[x] = new short[grid[x].length];
+            for (int z = 0; z < grid[x].length; z++) {
+                heightMap[x][z] = (short) grid[x][z];
+            }
+        }
+        return heightMap;
+    }
+
+    private static SurfaceData readSurface(JsonReader in) throws IOException {
+        SurfaceData surface = new SurfaceData();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "topBlocks" -> surface.topBlocks = readIntArray(in);
+                case "groundBlocks" -> surface.groundBlocks = readIntArray(in);
+                case "groundHeights" -> {
+                    int[] values = readIntArray(in);
+                    surface.groundHeights = new short[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        surface.groundHeights[i] = (short) values[i];
+                    }
+                }
+                case "fluidIds" -> surface.fluidIds = readIntArray(in);
+                case "fluidDepths" -> {
+                    int[] values = readIntArray(in);
+                    surface.fluidDepths = new byte[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        surface.fluidDepths[i] = (byte) values[i];
+                    }
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return surface;
+    }
+
+    private Map<Integer, BlockTextureInfo> readTextures(JsonReader in) throws IOException {
+        Map<Integer, BlockTextureInfo> textures = new HashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            int blockId = Integer.parseInt(in.nextName());
+            BlockTextureInfo info = textureAdapter.read(in);
+            if (info != null) {
+                textures.put(blockId, info);
+            }
+        }
+        in.endObject();
+        return textures;
+    }
+}
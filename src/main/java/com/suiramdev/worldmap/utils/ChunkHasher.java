@@ -0,0 +1,36 @@
+package com.suiramdev.worldmap.utils;
+
+/**
+ * Streaming 64-bit hash over chunk content, fed one value at a time while a
+ * chunk is extracted.
+ *
+ * Uses xxHash64-style multiply/rotate rounds and a final avalanche. It is not
+ * cryptographic, only meant to tell changed chunks from unchanged ones.
+ */
+public final class ChunkHasher {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long SEED = 0x27D4EB2F165667C5L;
+
+    private long state = SEED;
+    private long length;
+
+    public void update(int value) {
+        state = Long.rotateLeft(state ^ (value * PRIME_2), 31) * PRIME_1;
+        length++;
+    }
+
+    /**
+     * Finish hashing. The hasher must not be updated afterwards.
+     */
+    public long finish() {
+        long h = state ^ (length * PRIME_3);
+        h ^= h >>> 33;
+        h *= PRIME_2;
+        h ^= h >>> 29;
+        h *= PRIME_3;
+        h ^= h >>> 32;
+        return h;
+    }
+}
@@ -0,0 +1,143 @@
+package com.suiramdev.worldmap.utils;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.suiramdev.worldmap.config.BackfillOrder;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import java.util.Arrays;
+
+/**
+ * Sorts chunk indexes along a space-filling curve or an outward spiral.
+ *
+ * Each chunk gets a 64-bit sort key and the keys are radix sorted together
+ * with the indexes, so ordering a million chunks needs two long arrays and no
+ * boxing.
+ */
+public final class ChunkOrdering {
+    // Moves signed chunk coordinates into the unsigned 32-bit range the curves work on
+    private static final long COORDINATE_OFFSET = 1L << 31;
+
+    private ChunkOrdering() {
+    }
+
+    /**
+     * Sort chunk indexes in place
+     *
+     * @param chunkIndexes Chunk indexes as produced by ChunkUtil
+     * @param count        Number of leading entries to sort
+     * @param order        Ordering strategy
+     * @param centerX      Spiral center chunk X
+     * @param centerZ      Spiral center chunk Z
+     */
+    public static void sort(long[] chunkIndexes, int count, BackfillOrder order, int centerX, int centerZ) {
+        if (order == BackfillOrder.HASH || count < 2) {
+            return;
+        }
+
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int chunkX = ChunkUtil.xOfChunkIndex(chunkIndexes[i]);
+            int chunkZ = ChunkUtil.zOfChunkIndex(chunkIndexes[i]);
+            switch (order) {
+                case MORTON:
+                    keys[i] = mortonKey(chunkX, chunkZ);
+                    break;
+                case HILBERT:
+                    keys[i] = hilbertKey(chunkX, chunkZ);
+                    break;
+                default:
+                    keys[i] = spiralKey(chunkX - centerX, chunkZ - centerZ);
+                    break;
+            }
+        }
+
+        if (count == chunkIndexes.length) {
+            LongArrays.radixSort(keys, chunkIndexes);
+        } else {
+            long[] head = Arrays.copyOf(chunkIndexes, count);
+            LongArrays.radixSort(keys, head);
+            System.arraycopy(head, 0, chunkIndexes, 0, count);
+        }
+    }
+
+    /**
+     * Z-order key: bits of x and z interleaved
+     */
+    public static long mortonKey(int chunkX, int chunkZ) {
+        long key = spread(unsigned(chunkX)) | (spread(unsigned(chunkZ)) << 1);
+        // Keys use all 64 bits, flip the sign bit so signed sorting matches unsigned order
+        return key ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Distance along a Hilbert curve covering the 2^32 x 2^32 chunk grid
+     */
+    public static long hilbertKey(int chunkX, int chunkZ) {
+        long x = unsigned(chunkX);
+        long z = unsigned(chunkZ);
+        long distance = 0;
+        for (long s = 1L << 31; s > 0; s >>>= 1) {
+            long rx = (x & s) != 0 ? 1 : 0;
+            long rz = (z & s) != 0 ? 1 : 0;
+            distance += s * s * ((3 * rx) ^ rz);
+
+            // Rotate the quadrant so the curve stays continuous
+            if (rz == 0) {
+                if (rx == 1) {
+                    x = s - 1 - (x & (s - 1));
+                    z = s - 1 - (z & (s - 1));
+                }
+                long t = x;
+                x = z;
+                z = t;
+            }
+            x &= s - 1;
+            z &= s - 1;
+        }
+        return distance ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Ring distance from the center in the high half, position around the ring
+     * in the low half
+     *
+     * @param dx Chunk X relative to the center
+     * @param dz Chunk Z relative to the center
+     */
+    public static long spiralKey(int dx, int dz) {
+        long ring = Math.max(Math.abs((long) dx), Math.abs((long) dz));
+        if (ring == 0) {
+            return 0;
+        }
+
+        // Walk the ring counter-clockwise starting at its east side
+        long side = 2 * ring;
+        long position;
+        if (dx == ring && dz > -ring) {
+            position = dz + ring;
+        } else if (dz == ring) {
+            position = side + (ring - dx);
+        } else if (dx == -ring) {
+            position = 2 * side + (ring - dz);
+        } else {
+            position = 3 * side + (dx + ring);
+        }
+        return (ring << 32) | position;
+    }
+
+    private static long unsigned(int coordinate) {
+        return coordinate + COORDINATE_OFFSET;
+    }
+
+    /**
+     * Spread the low 32 bits so a zero sits between each of them
+     */
+    private static long spread(long value) {
+        value &= 0xFFFFFFFFL;
+        value = (value | (value << 16)) & 0x0000FFFF0000FFFFL;
+        value = (value | (value << 8)) & 0x00FF00FF00FF00FFL;
+        value = (value | (value << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | (value << 2)) & 0x3333333333333333L;
+        value = (value | (value << 1)) & 0x5555555555555555L;
+        return value;
+    }
+}
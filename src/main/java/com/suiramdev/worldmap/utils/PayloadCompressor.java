@@ -0,0 +1,150 @@
+package com.suiramdev.worldmap.utils;
+
+import com.suiramdev.worldmap.config.CompressionMode;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses request bodies with gzip or with zlib deflate using a preset
+ * dictionary.
+ *
+ * <p>
+ * Chunk payloads repeat the same JSON keys, texture paths and block IDs, so a
+ * dictionary primed with that content lets even a single small chunk compress
+ * well. The dictionary is identified by its Adler-32 checksum, which is also
+ * what zlib stores in the stream header, so the worker can pick the matching
+ * dictionary before inflating.
+ */
+public class PayloadCompressor {
+    public static final String DICTIONARY_HEADER = "X-Worldmap-Dictionary";
+    private static final String BUILTIN_DICTIONARY = "/deflate-dictionary.txt";
+
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final CompressionMode mode;
+    private final int level;
+    private final int minBytes;
+    private final byte[] dictionary;
+    private final String dictionaryId;
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param mode       Compression mode
+     * @param level      Deflate level, 1 (fastest) to 9 (smallest)
+     * @param minBytes   Bodies smaller than this are sent uncompressed
+     * @param dictionary Preset dictionary for {@link CompressionMode#DEFLATE},
+     *                   ignored otherwise
+     */
+    public PayloadCompressor(CompressionMode mode, int level, int minBytes, byte[] dictionary) {
+        this.mode = mode;
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+        this.minBytes = Math.max(0, minBytes);
+        this.dictionary = mode == CompressionMode.DEFLATE ? dictionary : null;
+        this.dictionaryId = this.dictionary != null ? dictionaryId(this.dictionary) : null;
+    }
+
+    /**
+     * Compress a body if it is large enough
+     *
+     * @param input  Uncompressed body
+     * @param output Sink receiving the compressed body
+     * @return The Content-Encoding written to output, or null if the body should
+     *         be sent uncompressed (output is left untouched)
+     */
+    public String compress(ByteSink input, ByteSink output) {
+        if (mode == CompressionMode.NONE || input.size() < minBytes) {
+            return null;
+        }
+
+        boolean gzip = mode == CompressionMode.GZIP;
+        Deflater deflater = acquire();
+        try {
+            if (gzip) {
+                output.writeBytes(GZIP_HEADER, 0, GZIP_HEADER.length);
+            } else if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+
+            deflater.setInput(input.array(), 0, input.size());
+            deflater.finish();
+            byte[] buffer = new byte[16 * 1024];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(buffer);
+                output.writeBytes(buffer, 0, written);
+            }
+
+            if (gzip) {
+                CRC32 crc = new CRC32();
+                crc.update(input.array(), 0, input.size());
+                output.writeIntLE((int) crc.getValue());
+                output.writeIntLE(input.size());
+            }
+            return gzip ? "gzip" : "deflate";
+        } finally {
+            release(deflater);
+        }
+    }
+
+    public CompressionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Identifier of the preset dictionary to send with deflate bodies, or null
+     * if none is used
+     */
+    public String getDictionaryId() {
+        return dictionaryId;
+    }
+
+    /**
+     * Load a dictionary from a file, or the built-in one if the file is null or
+     * missing
+     */
+    public static byte[] loadDictionary(File file) throws IOException {
+        if (file != null && file.isFile()) {
+            return Files.readAllBytes(file.toPath());
+        }
+        try (InputStream in = PayloadCompressor.class.getResourceAsStream(BUILTIN_DICTIONARY)) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Dictionary ID as sent in {@link #DICTIONARY_HEADER}: the zlib Adler-32 of
+     * the dictionary in hex
+     */
+    public static String dictionaryId(byte[] dictionary) {
+        Adler32 adler = new Adler32();
+        adler.update(dictionary, 0, dictionary.length);
+        return String.format("%08x", adler.getValue());
+    }
+
+    private Deflater acquire() {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            // gzip writes its own header and trailer around raw deflate data
+            deflater = new Deflater(level, mode == CompressionMode.GZIP);
+        }
+        return deflater;
+    }
+
+    private void release(Deflater deflater) {
+        deflater.reset();
+        deflaters.offer(deflater);
+    }
+}
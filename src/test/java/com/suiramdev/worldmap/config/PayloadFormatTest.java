@@ -0,0 +1,26 @@
+package com.suiramdev.worldmap.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class PayloadFormatTest {
+    @Test
+    void keepsTheCodesStoredInSpooledRecords() {
+        // Outboxes written by earlier versions rely on these values
+        assertEquals(0, PayloadFormat.JSON.getCode());
+        assertEquals(1, PayloadFormat.BINARY.getCode());
+    }
+
+    @Test
+    void looksUpCodes() {
+        for (PayloadFormat format : PayloadFormat.values()) {
+            assertSame(format, PayloadFormat.fromCode(format.getCode()));
+        }
+        assertNull(PayloadFormat.fromCode(2));
+        assertNull(PayloadFormat.fromCode(-1));
+        assertNull(PayloadFormat.fromCode(255));
+    }
+}
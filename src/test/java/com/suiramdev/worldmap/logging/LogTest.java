@@ -0,0 +1,68 @@
+package com.suiramdev.worldmap.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.suiramdev.worldmap.config.LogLevel;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class LogTest {
+    private final PrintStream originalErr = System.err;
+
+    @AfterEach
+    void restoreDefaults() {
+        System.setErr(originalErr);
+        // The level is only set together with the appender, which shutdown stops again
+        Log.configure(LogLevel.INFO, 1);
+        Log.shutdown();
+    }
+
+    @Test
+    void disabledLevelsNeverBuildTheirMessage() {
+        Log.configure(LogLevel.ERROR, 3600);
+        AtomicInteger built = new AtomicInteger();
+        Supplier<String> message = () -> "built " + built.incrementAndGet();
+
+        Log.debug(message);
+        Log.trace(message);
+        Log.warnThrottled("disabled", 0, message);
+
+        assertEquals(0, built.get());
+        assertFalse(Log.isDebugEnabled());
+        assertTrue(Log.isEnabled(LogLevel.ERROR));
+    }
+
+    @Test
+    void throttledWarningsAreSuppressedWithinTheInterval() throws InterruptedException {
+        // Written directly rather than by the background thread. Keys are
+        // unique to this test, throttles outlive it when no appender runs
+        Log.shutdown();
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        AtomicInteger built = new AtomicInteger();
+        Supplier<String> message = () -> "Upload failed " + built.incrementAndGet();
+
+        Log.warnThrottled("log-test-upload", 500, message);
+        Log.warnThrottled("log-test-upload", 500, message);
+        Log.warnThrottled("log-test-upload", 500, message);
+        // Other keys are throttled on their own
+        Log.warnThrottled("log-test-outbox", 500, () -> "Outbox full");
+        Thread.sleep(600);
+        Log.warnThrottled("log-test-upload", 500, message);
+
+        // Suppressed warnings do not even build their message
+        assertEquals(2, built.get());
+        assertEquals(String.join(System.lineSeparator(),
+                "[Worldmap] Upload failed 1",
+                "[Worldmap] Outbox full",
+                "[Worldmap] Upload failed 2 (2 similar suppressed)",
+                ""), captured.toString(StandardCharsets.UTF_8));
+    }
+}
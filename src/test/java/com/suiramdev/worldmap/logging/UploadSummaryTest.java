@@ -0,0 +1,42 @@
+package com.suiramdev.worldmap.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class UploadSummaryTest {
+    private static final int KB = 1024;
+
+    @Test
+    void reportsCountsFailuresAndPercentiles() {
+        UploadSummary summary = new UploadSummary();
+        // 1ms to 100ms, recorded out of order
+        for (int i = 100; i >= 1; i--) {
+            summary.recordAttempt(i * 1_000_000L);
+        }
+        summary.recordRequest(8, 1024 * KB, true);
+        summary.recordRequest(4, 256 * KB, true);
+        summary.recordRequest(5, 256 * KB, false);
+        summary.recordRetry();
+        summary.recordRetry();
+
+        assertEquals("Uploaded 12 chunks in 10s (3 requests, p50 50ms, p99 99ms, 5 failed, 2 retries, 1.5 MB)",
+                summary.summarize(10_000));
+    }
+
+    @Test
+    void startsOverAfterEachSummary() {
+        UploadSummary summary = new UploadSummary();
+        summary.recordAttempt(40_000_000L);
+        summary.recordRequest(1, KB, true);
+        summary.summarize(10_000);
+
+        assertNull(summary.summarize(10_000));
+
+        summary.recordAttempt(7_000_000L);
+        summary.recordRequest(2, 0, false);
+        assertEquals("Uploaded 0 chunks in 5s (1 requests, p50 7ms, p99 7ms, 2 failed, 0 retries, 0.0 MB)",
+                summary.summarize(5_000));
+    }
+}
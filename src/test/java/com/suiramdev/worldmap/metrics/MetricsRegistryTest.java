@@ -0,0 +1,85 @@
+package com.suiramdev.worldmap.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MetricsRegistryTest {
+    @Test
+    void histogramBucketsAreCumulativeUpToInf() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("worldmap_latency_seconds", "Latency", new double[] { 0.25, 1 });
+        histogram.observe(0.125);
+        histogram.observe(0.25); // Bounds are inclusive
+        histogram.observe(0.5);
+        histogram.observe(3);
+
+        assertEquals(String.join("\n",
+                "# HELP worldmap_latency_seconds Latency",
+                "# TYPE worldmap_latency_seconds histogram",
+                "worldmap_latency_seconds_bucket{le=\"0.25\"} 2",
+                "worldmap_latency_seconds_bucket{le=\"1\"} 3",
+                "worldmap_latency_seconds_bucket{le=\"+Inf\"} 4",
+                "worldmap_latency_seconds_sum 3.875",
+                "worldmap_latency_seconds_count 4",
+                ""), registry.scrape());
+    }
+
+    @Test
+    void labeledHistogramsCarryTheirLabelOnEveryLine() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.LabeledHistogram histogram = registry.histogram("worldmap_http_seconds", "HTTP latency",
+                "status", new double[] { 1 });
+        histogram.labels("200").observe(0.5);
+        histogram.labels("200").observe(2);
+        histogram.labels("503").observe(4);
+
+        List<String> lines = lines(registry.scrape());
+        assertTrue(lines.contains("worldmap_http_seconds_bucket{status=\"200\",le=\"1\"} 1"));
+        assertTrue(lines.contains("worldmap_http_seconds_bucket{status=\"200\",le=\"+Inf\"} 2"));
+        assertTrue(lines.contains("worldmap_http_seconds_sum{status=\"200\"} 2.5"));
+        assertTrue(lines.contains("worldmap_http_seconds_count{status=\"200\"} 2"));
+        assertTrue(lines.contains("worldmap_http_seconds_bucket{status=\"503\",le=\"1\"} 0"));
+        assertTrue(lines.contains("worldmap_http_seconds_sum{status=\"503\"} 4"));
+        assertTrue(lines.contains("worldmap_http_seconds_count{status=\"503\"} 1"));
+    }
+
+    @Test
+    void escapesLabelValues() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.histogram("worldmap_test", "Test", "world", new double[0])
+                .labels("a\\b \"c\"\nd").observe(1);
+
+        assertTrue(lines(registry.scrape())
+                .contains("worldmap_test_count{world=\"a\\\\b \\\"c\\\"\\nd\"} 1"));
+    }
+
+    @Test
+    void registeringANameAgainReplacesTheInstrument() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter first = registry.counter("worldmap_chunks_total", "Chunks");
+        registry.gauge("worldmap_queue", "Queue", () -> 3);
+        first.add(5);
+
+        // E.g. after the plugin restarted
+        Counter second = registry.counter("worldmap_chunks_total", "Chunks uploaded");
+        second.increment();
+        first.add(10);
+
+        String scrape = registry.scrape();
+        List<String> lines = lines(scrape);
+        assertTrue(lines.contains("# HELP worldmap_chunks_total Chunks uploaded"));
+        assertTrue(lines.contains("worldmap_chunks_total 1"));
+        assertFalse(lines.contains("# HELP worldmap_chunks_total Chunks"));
+        assertEquals(1, lines.stream().filter(line -> line.startsWith("# TYPE worldmap_chunks_total ")).count());
+        assertTrue(lines.contains("worldmap_queue 3"));
+    }
+
+    private static List<String> lines(String scrape) {
+        return Arrays.asList(scrape.split("\n"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.suiramdev.worldmap.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.suiramdev.worldmap.services.ChunkProcessingService.BlockTextureInfo;
+import org.junit.jupiter.api.Test;
+
+class BlockAppearanceCacheTest {
+    @Test
+    void sharesOneInstancePerBlock() {
+        ReloadableCache cache = new ReloadableCache();
+
+        BlockTextureInfo first = cache.get(7);
+        assertSame(first, cache.get(7));
+        assertEquals(1, cache.lookups);
+        assertNull(cache.get(-1));
+    }
+
+    @Test
+    void lookupAfterInvalidateSeesTheReloadedAssets() {
+        ReloadableCache cache = new ReloadableCache();
+        BlockTextureInfo stale = cache.get(7);
+
+        cache.assets = "Reloaded";
+        cache.invalidate();
+        BlockTextureInfo fresh = cache.get(7);
+        assertNotSame(stale, fresh);
+        assertEquals("Reloaded/7.png", fresh.up);
+        assertSame(fresh, cache.get(7));
+    }
+
+    @Test
+    void entryResolvedDuringInvalidateIsNotCached() {
+        ReloadableCache cache = new ReloadableCache();
+        // The reload lands while the old assets are being read
+        cache.duringLookup = () -> {
+            cache.duringLookup = null;
+            cache.assets = "Reloaded";
+            cache.invalidate();
+        };
+
+        BlockTextureInfo stale = cache.get(7);
+        assertEquals("Original/7.png", stale.up);
+        BlockTextureInfo fresh = cache.get(7);
+        assertNotSame(stale, fresh);
+        assertEquals("Reloaded/7.png", fresh.up);
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        ReloadableCache cache = new ReloadableCache();
+        BlockTextureInfo low = cache.get(3);
+        BlockTextureInfo high = cache.get(10_000);
+
+        assertEquals("Original/10000.png", high.up);
+        assertSame(low, cache.get(3));
+        assertSame(high, cache.get(10_000));
+        assertEquals(2, cache.lookups);
+    }
+
+    /**
+     * Resolves blocks from a named asset set the test can swap, instead of the
+     * BlockType asset map
+     */
+    private static final class ReloadableCache extends BlockAppearanceCache {
+        volatile String assets = "Original";
+        volatile Runnable duringLookup;
+        int lookups;
+
+        @Override
+        BlockTextureInfo extractBlockTextureInfo(int blockId) {
+            lookups++;
+            String texture = assets + "/" + blockId + ".png";
+            Runnable hook = duringLookup;
+            if (hook != null) {
+                hook.run();
+            }
+            return new BlockTextureInfo(texture, texture, texture, texture, texture, texture, false);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.suiramdev.worldmap.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.suiramdev.worldmap.config.ExtractionMode;
+import com.suiramdev.worldmap.config.PayloadFormat;
+import com.suiramdev.worldmap.fixtures.SyntheticChunk;
+import com.suiramdev.worldmap.fixtures.SyntheticChunk.TerrainProfile;
+import com.suiramdev.worldmap.services.ChunkBatchService.Outcome;
+import com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData;
+import com.suiramdev.worldmap.services.HttpClientService.EncodedChunk;
+import com.suiramdev.worldmap.storage.StorageService;
+import com.suiramdev.worldmap.storage.WorldStorage;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChunkBatchServiceTest {
+    private static final int LONG_LINGER_MS = 60_000;
+
+    @Test
+    void flushesWhenBatchIsFull() throws InterruptedException {
+        FakeHttpClient http = new FakeHttpClient(10);
+        ChunkBatchService batcher = new ChunkBatchService(http, 3, 1024, LONG_LINGER_MS, 8, 1 << 20, false);
+
+        CompletableFuture<Outcome> first = batcher.submit(chunk(0, 0));
+        CompletableFuture<Outcome> second = batcher.submit(chunk(1, 0));
+        assertTrue(http.batches.isEmpty());
+        CompletableFuture<Outcome> third = batcher.submit(chunk(2, 0));
+
+        SentBatch batch = http.next();
+        assertEquals(3, batch.chunks.size());
+        batch.complete(true, false, true);
+        assertEquals(Outcome.ACKNOWLEDGED, first.join());
+        assertEquals(Outcome.FAILED, second.join());
+        assertEquals(Outcome.ACKNOWLEDGED, third.join());
+        batcher.shutdown();
+    }
+
+    @Test
+    void flushesBeforeExceedingByteBudget() throws InterruptedException {
+        FakeHttpClient http = new FakeHttpClient(60);
+        ChunkBatchService batcher = new ChunkBatchService(http, 10, 100, LONG_LINGER_MS, 8, 1 << 20, false);
+
+        batcher.submit(chunk(0, 0));
+        assertTrue(http.batches.isEmpty());
+        batcher.submit(chunk(1, 0));
+
+        // The first chunk goes alone, the second starts a new batch
+        SentBatch batch = http.next();
+        assertEquals(1, batch.chunks.size());
+        assertEquals(0, batch.chunks.get(0).chunkX);
+        batch.complete(true);
+
+        batcher.flushAll();
+        SentBatch rest = http.next();
+        assertEquals(1, rest.chunks.size());
+        assertEquals(1, rest.chunks.get(0).chunkX);
+        rest.complete(true);
+        batcher.shutdown();
+    }
+
+    @Test
+    void flushesPartialBatchAfterLinger() throws InterruptedException {
+        FakeHttpClient http = new FakeHttpClient(10);
+        ChunkBatchService batcher = new ChunkBatchService(http, 10, 1024, 100, 8, 1 << 20, false);
+
+        CompletableFuture<Outcome> result = batcher.submit(chunk(0, 0));
+        assertTrue(http.batches.isEmpty());
+
+        SentBatch batch = http.next();
+        assertEquals(1, batch.chunks.size());
+        batch.complete(true);
+        assertEquals(Outcome.ACKNOWLEDGED, result.join());
+        batcher.shutdown();
+    }
+
+    @Test
+    void keepsRegionsAndWorldsApart() throws InterruptedException {
+        FakeHttpClient http = new FakeHttpClient(10);
+        ChunkBatchService batcher = new ChunkBatchService(http, 2, 1024, LONG_LINGER_MS, 8, 1 << 20, false);
+
+        batcher.submit(chunk(0, 0));
+        batcher.submit(chunk(8, 0)); // Next region
+        ChunkData otherWorld = chunk(1, 0);
+        otherWorld.world = "Dungeon_1";
+        batcher.submit(otherWorld);
+        assertTrue(http.batches.isEmpty());
+
+        batcher.submit(chunk(9, 0));
+        SentBatch batch = http.next();
+        assertEquals(8, batch.chunks.get(0).chunkX);
+        assertEquals(9, batch.chunks.get(1).chunkX);
+        batch.complete(true, true);
+        batcher.flushAll();
+        http.next().complete(true);
+        http.next().complete(true);
+        batcher.shutdown();
+    }
+
+    @Test
+    void resubmittedChunkReplacesItsQueuedCopy() throws InterruptedException {
+        FakeHttpClient http = new FakeHttpClient(10);
+        ChunkBatchService batcher = new ChunkBatchService(http, 10, 1024, LONG_LINGER_MS, 8, 1 << 20, false);
+
+        CompletableFuture<Outcome> backfill = batcher.submit(chunk(3, 4));
+        http.payloadSize = 20;
+        CompletableFuture<Outcome> changed = batcher.submit(chunk(3, 4));
+        // The older copy is released right away, without waiting for the batch
+        assertEquals(Outcome.SUPERSEDED, backfill.join());
+        batcher.flushAll();
+
+        SentBatch batch = http.next();
+        assertEquals(1, batch.chunks.size());
+        // The newer copy is sent
+        assertEquals(20, batch.chunks.get(0).payload.length);
+        batch.complete(true);
+        assertEquals(Outcome.ACKNOWLEDGED, changed.join());
+        batcher.shutdown();
+    }
+
+    @Test
+    void onlyTheNewerCopyIsRecordedAsUploaded(@TempDir File folder) throws InterruptedException {
+        FakeHttpClient http = new FakeHttpClient(10);
+        ChunkBatchService batcher = new ChunkBatchService(http, 10, 1024, LONG_LINGER_MS, 8, 1 << 20, false);
+        WorldStorage storages = new WorldStorage(folder);
+        ChunkExtractor extractor = new ChunkExtractor(blockId -> null, SyntheticChunk::isOpaque,
+                ExtractionMode.FULL);
+        ChunkProcessingService processor = new ChunkProcessingService(http, batcher, null, storages, extractor,
+                null, false);
+        String world = "default";
+        storages.setDefaultWorld(world);
+        SyntheticChunk older = new SyntheticChunk(TerrainProfile.FLAT, 3, 4);
+        SyntheticChunk newer = new SyntheticChunk(TerrainProfile.MOUNTAINOUS, 3, 4);
+        long olderHash = extractor.extract(older, 3, 4).contentHash;
+        long newerHash = extractor.extract(newer, 3, 4).contentHash;
+        assertNotEquals(olderHash, newerHash);
+
+        // Wait for each copy to join the batch, so they arrive in order
+        CompletableFuture<Void> olderAccepted = new CompletableFuture<>();
+        CompletableFuture<Boolean> olderTask = processor.reprocessChunk(world, 3, 4, older, olderAccepted);
+        olderAccepted.join();
+        CompletableFuture<Void> newerAccepted = new CompletableFuture<>();
+        CompletableFuture<Boolean> newerTask = processor.reprocessChunk(world, 3, 4, newer, newerAccepted);
+        newerAccepted.join();
+        assertTrue(olderTask.join());
+
+        batcher.flushAll();
+        http.next().complete(true);
+        assertTrue(newerTask.join());
+
+        StorageService storage = storages.get(world);
+        assertEquals(newerHash, storage.getChunkHash(ChunkUtil.indexChunk(3, 4)));
+        assertEquals(1, processor.getProcessedCount());
+        processor.shutdown();
+        batcher.shutdown();
+        storages.shutdown();
+    }
+
+    private static ChunkData chunk(int chunkX, int chunkZ) {
+        ChunkData data = new ChunkData();
+        data.world = "default";
+        data.chunkX = chunkX;
+        data.chunkZ = chunkZ;
+        return data;
+    }
+
+    /**
+     * Records batches instead of sending them; the test completes them
+     */
+    private static final class FakeHttpClient extends HttpClientService {
+        final BlockingQueue<SentBatch> batches = new LinkedBlockingQueue<>();
+        volatile int payloadSize;
+
+        FakeHttpClient(int payloadSize) {
+            super("", "http://localhost/batch", "", "", 1000, 1, 1, 1, PayloadFormat.BINARY, null, false);
+            this.payloadSize = payloadSize;
+        }
+
+        @Override
+        public byte[] encodeChunk(ChunkData chunkData) {
+            return new byte[payloadSize];
+        }
+
+        @Override
+        public CompletableFuture<boolean[]> sendChunkBatch(List<EncodedChunk> chunks, String target) {
+            SentBatch batch = new SentBatch(List.copyOf(chunks));
+            batches.add(batch);
+            return batch.results;
+        }
+
+        SentBatch next() throws InterruptedException {
+            SentBatch batch = batches.poll(5, TimeUnit.SECONDS);
+            if (batch == null) {
+                throw new AssertionError("No batch was sent");
+            }
+            return batch;
+        }
+    }
+
+    private static final class SentBatch {
+        final List<EncodedChunk> chunks;
+        final CompletableFuture<boolean[]> results = new CompletableFuture<>();
+
+        SentBatch(List<EncodedChunk> chunks) {
+            this.chunks = chunks;
+        }
+
+        void complete(boolean... success) {
+            results.complete(success);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.suiramdev.worldmap.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.suiramdev.worldmap.config.ExtractionMode;
+import com.suiramdev.worldmap.services.ChunkProcessingService.SurfaceData;
+import org.junit.jupiter.api.Test;
+
+class ChunkExtractorTest {
+    private static final int STONE = 1;
+    private static final int DIRT = 2;
+    private static final int GLASS = 9;
+    private static final int WATER = 1;
+
+    private static final int X = 3;
+    private static final int Z = 5;
+    private static final int COLUMN = X * 32 + Z;
+
+    private final ChunkExtractor extractor = new ChunkExtractor(blockId -> null, blockId -> blockId != GLASS,
+            ExtractionMode.SURFACE);
+
+    @Test
+    void findsTheGroundUnderGlassAndWater() {
+        ColumnChunk chunk = new ColumnChunk(65);
+        chunk.block(60, STONE);
+        chunk.fluid(61, 64, WATER);
+        chunk.block(65, GLASS);
+
+        ChunkProcessingService.ChunkData data = extractor.extract(chunk, 0, 0);
+        assertNull(data.blocks);
+        SurfaceData surface = data.surface;
+        assertEquals(GLASS, surface.topBlocks[COLUMN]);
+        assertEquals(STONE, surface.groundBlocks[COLUMN]);
+        assertEquals(60, surface.groundHeights[COLUMN]);
+        assertEquals(WATER, surface.fluidIds[COLUMN]);
+        assertEquals(4, surface.fluidDepths[COLUMN]);
+    }
+
+    @Test
+    void stopsAtTheFirstOpaqueBlock() {
+        ColumnChunk chunk = new ColumnChunk(51);
+        chunk.fluid(30, 49, WATER);
+        chunk.block(50, STONE);
+        chunk.block(51, DIRT);
+
+        SurfaceData surface = extractor.extract(chunk, 0, 0).surface;
+        assertEquals(DIRT, surface.topBlocks[COLUMN]);
+        assertEquals(DIRT, surface.groundBlocks[COLUMN]);
+        assertEquals(51, surface.groundHeights[COLUMN]);
+        // The buried water is never reached
+        assertEquals(0, surface.fluidIds[COLUMN]);
+        assertEquals(0, surface.fluidDepths[COLUMN]);
+        assertEquals(51, chunk.lowestRead);
+    }
+
+    @Test
+    void capsFluidDepthAt127() {
+        ColumnChunk chunk = new ColumnChunk(299);
+        chunk.block(10, STONE);
+        chunk.fluid(11, 299, WATER);
+
+        SurfaceData surface = extractor.extract(chunk, 0, 0).surface;
+        assertEquals(STONE, surface.groundBlocks[COLUMN]);
+        assertEquals(10, surface.groundHeights[COLUMN]);
+        assertEquals(WATER, surface.fluidIds[COLUMN]);
+        // 289 blocks of water, more than the byte holds
+        assertEquals(127, surface.fluidDepths[COLUMN]);
+    }
+
+    @Test
+    void emptyColumnHasNoGround() {
+        ColumnChunk chunk = new ColumnChunk(0);
+
+        SurfaceData surface = extractor.extract(chunk, 0, 0).surface;
+        assertEquals(0, surface.topBlocks[COLUMN]);
+        assertEquals(0, surface.groundBlocks[COLUMN]);
+        assertEquals(-1, surface.groundHeights[COLUMN]);
+        assertEquals(0, surface.fluidIds[COLUMN]);
+        assertEquals(0, surface.fluidDepths[COLUMN]);
+    }
+
+    /**
+     * A chunk whose only contents are in one column, the rest is air
+     */
+    private static final class ColumnChunk implements ChunkSource {
+        private final short height;
+        private final int[] blocks = new int[320];
+        private final int[] fluids = new int[320];
+        int lowestRead = Integer.MAX_VALUE;
+
+        ColumnChunk(int height) {
+            this.height = (short) height;
+        }
+
+        void block(int y, int blockId) {
+            blocks[y] = blockId;
+        }
+
+        void fluid(int fromY, int toY, int fluidId) {
+            for (int y = fromY; y <= toY; y++) {
+                fluids[y] = fluidId;
+            }
+        }
+
+        @Override
+        public short getHeight(int x, int z) {
+            return x == X && z == Z ? height : 0;
+        }
+
+        @Override
+        public int getTint(int x, int z) {
+            return 0;
+        }
+
+        @Override
+        public int getBlock(int x, int y, int z) {
+            if (x != X || z != Z) {
+                return 0;
+            }
+            lowestRead = Math.min(lowestRead, y);
+            return blocks[y];
+        }
+
+        @Override
+        public int getFluidId(int x, int y, int z) {
+            return x == X && z == Z ? fluids[y] : 0;
+        }
+
+        @Override
+        public boolean hasEnvironmentData() {
+            return false;
+        }
+    }
+}
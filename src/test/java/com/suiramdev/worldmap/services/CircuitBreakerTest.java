@@ -0,0 +1,95 @@
+package com.suiramdev.worldmap.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.suiramdev.worldmap.services.CircuitBreaker.Permit;
+import com.suiramdev.worldmap.services.CircuitBreaker.State;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+    @Test
+    void opensOnRetryAfterAndRejects() {
+        CircuitBreaker breaker = new CircuitBreaker("test");
+        Permit permit = breaker.tryAcquire();
+        assertEquals(Permit.REQUEST, permit);
+
+        breaker.onFailure(permit, 60_000);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(Permit.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    void lateSuccessDoesNotCloseHalfOpenCircuit() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test");
+        Permit straggler = breaker.tryAcquire();
+        Permit failed = breaker.tryAcquire();
+        breaker.onFailure(failed, 1);
+        Thread.sleep(10);
+
+        Permit probe = breaker.tryAcquire();
+        assertEquals(Permit.PROBE, probe);
+        assertEquals(Permit.REJECTED, breaker.tryAcquire());
+
+        // Sent before the circuit opened, so it says nothing about recovery
+        breaker.onSuccess(straggler);
+        assertEquals(State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(probe);
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void lateFailureDoesNotReopenHalfOpenCircuit() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test");
+        Permit straggler = breaker.tryAcquire();
+        Permit failed = breaker.tryAcquire();
+        breaker.onFailure(failed, 1);
+        Thread.sleep(10);
+        Permit probe = breaker.tryAcquire();
+
+        breaker.onFailure(straggler, 0);
+        assertEquals(State.HALF_OPEN, breaker.getState());
+
+        breaker.onFailure(probe, 0);
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void isNoLongerOpenOnceTheIntervalPassed() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test");
+        breaker.onFailure(breaker.tryAcquire(), 1);
+        Thread.sleep(10);
+
+        // The next sender becomes the probe instead of being held back
+        assertFalse(breaker.isOpen());
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(Permit.PROBE, breaker.tryAcquire());
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    void waitingRequestsResumeOnceTheProbeReports() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test");
+        Executor direct = Runnable::run;
+        breaker.onFailure(breaker.tryAcquire(), 20);
+
+        CompletableFuture<Void> untilInterval = breaker.whenAdmissible(direct);
+        assertFalse(untilInterval.isDone());
+        untilInterval.get(1, TimeUnit.SECONDS);
+
+        Permit probe = breaker.tryAcquire();
+        CompletableFuture<Void> untilProbe = breaker.whenAdmissible(direct);
+        Thread.sleep(20);
+        assertFalse(untilProbe.isDone());
+
+        breaker.onSuccess(probe);
+        assertTrue(untilProbe.isDone());
+        assertTrue(breaker.whenAdmissible(direct).isDone());
+    }
+}
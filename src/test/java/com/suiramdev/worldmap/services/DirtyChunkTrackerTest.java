@@ -0,0 +1,58 @@
+package com.suiramdev.worldmap.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+class DirtyChunkTrackerTest {
+    @Test
+    void coalescesChangesWithinTheQuietPeriod() throws InterruptedException {
+        List<Long> released = new CopyOnWriteArrayList<>();
+        DirtyChunkTracker tracker = new DirtyChunkTracker(100, 10_000,
+                (worldName, chunkIndex) -> released.add(chunkIndex), false);
+        try {
+            for (int i = 0; i < 5; i++) {
+                tracker.markDirty("default", 42L);
+                Thread.sleep(10);
+            }
+            assertEquals(1, tracker.getDirtyCount());
+
+            waitForRelease(released, 1, 2000);
+            Thread.sleep(300);
+            assertEquals(List.of(42L), released);
+            assertEquals(0, tracker.getDirtyCount());
+        } finally {
+            tracker.shutdown();
+        }
+    }
+
+    @Test
+    void releasesContinuouslyEditedChunkAfterMaxDelay() throws InterruptedException {
+        List<Long> released = new CopyOnWriteArrayList<>();
+        DirtyChunkTracker tracker = new DirtyChunkTracker(200, 400,
+                (worldName, chunkIndex) -> released.add(chunkIndex), false);
+        try {
+            // Never quiet for 200 ms, so only the max delay can release it
+            long start = System.currentTimeMillis();
+            while (System.currentTimeMillis() - start < 1500) {
+                tracker.markDirty("default", 7L);
+                Thread.sleep(20);
+            }
+
+            assertTrue(released.size() >= 2, "released " + released.size() + " times while edited");
+            assertTrue(released.stream().allMatch(index -> index == 7L));
+        } finally {
+            tracker.shutdown();
+        }
+    }
+
+    private static void waitForRelease(List<Long> released, int count, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (released.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
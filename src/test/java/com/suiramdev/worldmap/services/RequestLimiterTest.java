@@ -0,0 +1,152 @@
+package com.suiramdev.worldmap.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.suiramdev.worldmap.services.RequestLimiter.Outcome;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class RequestLimiterTest {
+    private static final long FAST = 1_000_000;
+    private static final long SLOW = 10_000_000;
+    private static final int WINDOW = 16;
+
+    @Test
+    void growsAfterFastSaturatedWindow() {
+        RequestLimiter limiter = new RequestLimiter(1, 32);
+        acquire(limiter, 5);
+
+        completeWindow(limiter, FAST);
+
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhileMostPermitsAreIdle() {
+        RequestLimiter limiter = new RequestLimiter(1, 32);
+
+        // One request at a time never comes close to the limit of 5
+        for (int i = 0; i < WINDOW; i++) {
+            acquire(limiter, 1);
+            limiter.release(FAST, Outcome.SUCCESS);
+        }
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffWhenP90ClimbsAboveBaseline() {
+        RequestLimiter limiter = new RequestLimiter(1, 32);
+        acquire(limiter, 5);
+        completeWindow(limiter, FAST);
+        assertEquals(6, limiter.getLimit());
+
+        completeWindow(limiter, SLOW);
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void dropHalvesOncePerCooldown() throws InterruptedException {
+        RequestLimiter limiter = new RequestLimiter(1, 32);
+        acquire(limiter, 3);
+
+        limiter.release(0, Outcome.DROPPED);
+        assertEquals(2, limiter.getLimit());
+        // The rest of the same burst does not cut it again
+        limiter.release(0, Outcome.DROPPED);
+        assertEquals(2, limiter.getLimit());
+
+        Thread.sleep(1100);
+        limiter.release(0, Outcome.DROPPED);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void ignoredFailuresLeaveTheLimitAlone() {
+        RequestLimiter limiter = new RequestLimiter(1, 32);
+        acquire(limiter, 5);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.release(SLOW, Outcome.IGNORED);
+        }
+
+        assertEquals(5, limiter.getLimit());
+        assertEquals(0, limiter.getInUse());
+    }
+
+    @Test
+    void staysWithinMinAndMax() {
+        RequestLimiter low = new RequestLimiter(3, 4);
+        assertEquals(4, low.getLimit());
+        acquire(low, 1);
+        low.release(0, Outcome.DROPPED);
+        assertEquals(3, low.getLimit());
+
+        RequestLimiter high = new RequestLimiter(1, 5);
+        acquire(high, 5);
+        completeWindow(high, FAST);
+        assertEquals(5, high.getLimit());
+
+        // A maximum below the minimum is raised to it
+        assertEquals(4, new RequestLimiter(4, 2).getLimit());
+    }
+
+    @Test
+    void waitersAreServedInOrderWhenPermitsFree() {
+        RequestLimiter limiter = new RequestLimiter(1, 1);
+        acquire(limiter, 1);
+        CompletableFuture<Void> first = limiter.acquire();
+        CompletableFuture<Void> second = limiter.acquire();
+        assertFalse(first.isDone());
+        assertEquals(2, limiter.getQueued());
+
+        limiter.release(FAST, Outcome.IGNORED);
+
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(1, limiter.getInUse());
+        assertEquals(1, limiter.getQueued());
+    }
+
+    @Test
+    void growingLimitHandsExtraPermitsToWaiters() {
+        RequestLimiter limiter = new RequestLimiter(1, 32);
+        acquire(limiter, 5);
+        for (int i = 0; i < WINDOW - 1; i++) {
+            limiter.release(FAST, Outcome.SUCCESS);
+            acquire(limiter, 1);
+        }
+        CompletableFuture<Void> first = limiter.acquire();
+        CompletableFuture<Void> second = limiter.acquire();
+        assertFalse(first.isDone());
+
+        // Completes the window: the freed permit and the new one both go to waiters
+        limiter.release(FAST, Outcome.SUCCESS);
+
+        assertEquals(6, limiter.getLimit());
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertEquals(6, limiter.getInUse());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    private static void acquire(RequestLimiter limiter, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(limiter.acquire().isDone());
+        }
+    }
+
+    /**
+     * Release and reacquire a permit for every request of a window, keeping
+     * the permits in use constant
+     */
+    private static void completeWindow(RequestLimiter limiter, long latencyNanos) {
+        for (int i = 0; i < WINDOW; i++) {
+            limiter.release(latencyNanos, Outcome.SUCCESS);
+            acquire(limiter, 1);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.suiramdev.worldmap.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class WorldSchedulerTest {
+    @Test
+    void worldStaysBusyUntilReleasedChunksAreDone() throws InterruptedException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> dispatched = new CompletableFuture<>();
+        WorldScheduler scheduler = new WorldScheduler((world, chunkIndex, reprocess, released) -> {
+            // Gives up its slot, like a chunk waiting in an upload batch
+            released.complete(null);
+            dispatched.complete(null);
+            return done;
+        }, 1, 0, null, false);
+        scheduler.addWorld("Dungeon_1", 1);
+        scheduler.enqueueChanged("Dungeon_1", 42L);
+        dispatched.join();
+
+        scheduler.removeWorld("Dungeon_1");
+        assertFalse(scheduler.awaitWorldIdle("Dungeon_1", 50));
+
+        done.complete(null);
+        assertTrue(scheduler.awaitWorldIdle("Dungeon_1", 1000));
+        assertTrue(scheduler.awaitWorldIdle("Unknown", 0));
+        scheduler.shutdown();
+    }
+
+    @Test
+    void backfillChunksCountAsInFlightUntilDone() throws InterruptedException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> dispatched = new CompletableFuture<>();
+        WorldScheduler scheduler = new WorldScheduler((world, chunkIndex, reprocess, released) -> {
+            released.complete(null);
+            dispatched.complete(null);
+            return done;
+        }, 1, 0, null, false);
+        scheduler.addWorld("default", 1);
+        scheduler.enqueueBackfill("default", new long[] { 7L }, 1, false);
+        dispatched.join();
+
+        assertEquals(1, scheduler.getBackfillInFlight());
+        // Replacing the backfill does not lose track of chunks still in flight
+        scheduler.enqueueBackfill("default", new long[0], 0, false);
+        assertEquals(1, scheduler.getBackfillInFlight());
+
+        // The dispatcher may still be attaching its completion callback
+        done.complete(null);
+        assertTrue(scheduler.awaitWorldIdle("default", 1000));
+        assertEquals(0, scheduler.getBackfillInFlight());
+        scheduler.shutdown();
+    }
+
+    @Test
+    void smallWorldIsNotStuckBehindLargeBackfill() throws InterruptedException {
+        StepTask task = new StepTask();
+        WorldScheduler scheduler = new WorldScheduler(task, 1, 0, null, false);
+        scheduler.addWorld("default", 1);
+        scheduler.addWorld("Dungeon_1", 1);
+        scheduler.enqueueBackfill("default", line(0, 10_000), 10_000, false);
+        Dispatch first = task.next();
+        assertEquals("default", first.world);
+
+        scheduler.enqueueChanged("Dungeon_1", 42L);
+        first.done();
+
+        Dispatch second = task.next();
+        assertEquals("Dungeon_1", second.world);
+        assertEquals(42L, second.chunkIndex);
+        assertTrue(second.reprocess);
+        scheduler.shutdown();
+    }
+
+    @Test
+    void dispatchesFollowWorldWeights() throws InterruptedException {
+        StepTask task = new StepTask();
+        WorldScheduler scheduler = new WorldScheduler(task, 1, 0, null, false);
+        // Hold the only slot while both backfills are queued
+        scheduler.addWorld("gate", 1);
+        scheduler.enqueueChanged("gate", 0L);
+        Dispatch gate = task.next();
+
+        scheduler.addWorld("default", 3);
+        scheduler.addWorld("Dungeon_1", 1);
+        scheduler.enqueueBackfill("default", line(0, 100), 100, false);
+        scheduler.enqueueBackfill("Dungeon_1", line(0, 100), 100, false);
+        gate.done();
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            Dispatch dispatch = task.next();
+            counts.merge(dispatch.world, 1, Integer::sum);
+            dispatch.done();
+        }
+
+        assertEquals(30, (int) counts.get("default"));
+        assertEquals(10, (int) counts.get("Dungeon_1"));
+        scheduler.shutdown();
+    }
+
+    @Test
+    void chunksNearPlayersJumpAheadOfBackfillRingByRing() throws InterruptedException {
+        StepTask task = new StepTask();
+        WorldScheduler scheduler = new WorldScheduler(task, 1, 2, null, false);
+        scheduler.addWorld("default", 1);
+        scheduler.enqueueChanged("default", ChunkUtil.indexChunk(500, 500));
+        Dispatch gate = task.next();
+
+        scheduler.enqueueBackfill("default", line(0, 21), 21, false);
+        scheduler.setPlayerChunks("default", new long[] { ChunkUtil.indexChunk(15, 0) });
+        assertEquals(5, scheduler.getNearPlayersQueued());
+        // Changed chunks still go before chunks near players
+        scheduler.enqueueChanged("default", ChunkUtil.indexChunk(-50, 7));
+        gate.done();
+
+        assertEquals(ChunkUtil.indexChunk(-50, 7), task.step().chunkIndex);
+        assertEquals(Set.of(15), xs(task.steps(1)));
+        assertEquals(Set.of(14, 16), xs(task.steps(2)));
+        assertEquals(Set.of(13, 17), xs(task.steps(2)));
+        assertEquals(0, scheduler.getNearPlayersQueued());
+        // Then the rest of the backfill in its sorted order
+        for (int x : new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 18, 19, 20 }) {
+            Dispatch dispatch = task.step();
+            assertEquals(ChunkUtil.indexChunk(x, 0), dispatch.chunkIndex);
+            assertFalse(dispatch.reprocess);
+        }
+        scheduler.shutdown();
+    }
+
+    @Test
+    void playerMoveRebucketsQueuedChunks() throws InterruptedException {
+        StepTask task = new StepTask();
+        WorldScheduler scheduler = new WorldScheduler(task, 1, 1, null, false);
+        scheduler.addWorld("default", 1);
+        scheduler.enqueueChanged("default", ChunkUtil.indexChunk(500, 500));
+        Dispatch gate = task.next();
+
+        scheduler.enqueueBackfill("default", line(0, 21), 21, false);
+        scheduler.setPlayerChunks("default", new long[] { ChunkUtil.indexChunk(15, 0) });
+        gate.done();
+        Dispatch nearOldPosition = task.next();
+        assertEquals(ChunkUtil.indexChunk(15, 0), nearOldPosition.chunkIndex);
+
+        // The player walked to x = 3 before the chunks around x = 15 were taken
+        scheduler.setPlayerChunks("default", new long[] { ChunkUtil.indexChunk(3, 0) });
+        assertEquals(3, scheduler.getNearPlayersQueued());
+        nearOldPosition.done();
+
+        assertEquals(Set.of(3), xs(task.steps(1)));
+        assertEquals(Set.of(2, 4), xs(task.steps(2)));
+        assertEquals(ChunkUtil.indexChunk(0, 0), task.step().chunkIndex);
+        assertEquals(ChunkUtil.indexChunk(1, 0), task.step().chunkIndex);
+        assertEquals(ChunkUtil.indexChunk(5, 0), task.step().chunkIndex);
+        scheduler.shutdown();
+    }
+
+    /**
+     * Chunks x = from .. to - 1 on row z = 0, in order
+     */
+    private static long[] line(int from, int to) {
+        long[] chunkIndexes = new long[to - from];
+        for (int x = from; x < to; x++) {
+            chunkIndexes[x - from] = ChunkUtil.indexChunk(x, 0);
+        }
+        return chunkIndexes;
+    }
+
+    private static Set<Integer> xs(Iterable<Dispatch> dispatches) {
+        Set<Integer> xs = new HashSet<>();
+        for (Dispatch dispatch : dispatches) {
+            xs.add(ChunkUtil.xOfChunkIndex(dispatch.chunkIndex));
+        }
+        return xs;
+    }
+
+    /**
+     * Records dispatched chunks and keeps each one in flight until the test
+     * finishes it, so with a window of one the test decides when the
+     * scheduler picks the next chunk
+     */
+    private static final class StepTask implements WorldScheduler.ChunkTask {
+        private final BlockingQueue<Dispatch> dispatched = new LinkedBlockingQueue<>();
+
+        @Override
+        public CompletableFuture<?> run(String world, long chunkIndex, boolean reprocess,
+                CompletableFuture<Void> released) {
+            Dispatch dispatch = new Dispatch(world, chunkIndex, reprocess);
+            dispatched.add(dispatch);
+            return dispatch.future;
+        }
+
+        Dispatch next() throws InterruptedException {
+            Dispatch dispatch = dispatched.poll(5, TimeUnit.SECONDS);
+            if (dispatch == null) {
+                throw new AssertionError("Nothing was dispatched");
+            }
+            return dispatch;
+        }
+
+        /**
+         * Take the next dispatch and finish it
+         */
+        Dispatch step() throws InterruptedException {
+            Dispatch dispatch = next();
+            dispatch.done();
+            return dispatch;
+        }
+
+        Set<Dispatch> steps(int count) throws InterruptedException {
+            Set<Dispatch> dispatches = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                dispatches.add(step());
+            }
+            return dispatches;
+        }
+    }
+
+    private static final class Dispatch {
+        final String world;
+        final long chunkIndex;
+        final boolean reprocess;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Dispatch(String world, long chunkIndex, boolean reprocess) {
+            this.world = world;
+            this.chunkIndex = chunkIndex;
+            this.reprocess = reprocess;
+        }
+
+        void done() {
+            future.complete(null);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.suiramdev.worldmap.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChunkJournalTest {
+    @TempDir
+    File folder;
+
+    @Test
+    void replaysAppendedRecords() throws IOException {
+        File file = journalFile();
+        try (ChunkJournal journal = new ChunkJournal(file)) {
+            journal.open(failOnReplay());
+            journal.append(new long[] { 5L, -3L }, new long[] { 50L, 30L }, 2);
+            journal.sync();
+        }
+
+        ConcurrentLongMap replayed = new ConcurrentLongMap();
+        try (ChunkJournal journal = new ChunkJournal(file)) {
+            journal.open(replayed::put);
+            assertEquals(2, journal.getRecordCount());
+        }
+        assertEquals(50L, replayed.get(5L, 0));
+        assertEquals(30L, replayed.get(-3L, 0));
+    }
+
+    @Test
+    void dropsTornTailAndAppendsAfterTheLastIntactRecord() throws IOException {
+        File file = journalFile();
+        try (ChunkJournal journal = new ChunkJournal(file)) {
+            journal.open(failOnReplay());
+            journal.append(new long[] { 1L, 2L }, new long[] { 10L, 20L }, 2);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // Crash halfway through writing the second record
+            raf.setLength(raf.length() - 7);
+        }
+
+        ConcurrentLongMap replayed = new ConcurrentLongMap();
+        try (ChunkJournal journal = new ChunkJournal(file)) {
+            journal.open(replayed::put);
+            assertEquals(1, journal.getRecordCount());
+            assertEquals(8 + 20, file.length());
+            journal.append(new long[] { 3L }, new long[] { 30L }, 1);
+        }
+        assertEquals(1, replayed.size());
+
+        replayed = new ConcurrentLongMap();
+        try (ChunkJournal journal = new ChunkJournal(file)) {
+            journal.open(replayed::put);
+        }
+        assertEquals(2, replayed.size());
+        assertEquals(10L, replayed.get(1L, 0));
+        assertEquals(30L, replayed.get(3L, 0));
+    }
+
+    @Test
+    void stopsReplayAtAChecksumMismatch() throws IOException {
+        File file = journalFile();
+        try (ChunkJournal journal = new ChunkJournal(file)) {
+            journal.open(failOnReplay());
+            journal.append(new long[] { 1L, 2L, 3L }, new long[] { 10L, 20L, 30L }, 3);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // Flip a bit in the content hash of the second record
+            raf.seek(8 + 20 + 8);
+            int value = raf.read();
+            raf.seek(8 + 20 + 8);
+            raf.write(value ^ 0x01);
+        }
+
+        ConcurrentLongMap replayed = new ConcurrentLongMap();
+        try (ChunkJournal journal = new ChunkJournal(file)) {
+            journal.open(replayed::put);
+            assertEquals(1, journal.getRecordCount());
+        }
+        assertEquals(1, replayed.size());
+        assertTrue(replayed.containsKey(1L));
+        assertEquals(8 + 20, file.length());
+    }
+
+    private static ConcurrentLongMap.EntryConsumer failOnReplay() {
+        return (chunkIndex, contentHash) -> {
+            throw new AssertionError("New journal replayed " + chunkIndex);
+        };
+    }
+
+    private File journalFile() {
+        return new File(folder, "processed_chunks.journal");
+    }
+}
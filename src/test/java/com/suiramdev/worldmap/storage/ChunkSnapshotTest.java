@@ -0,0 +1,76 @@
+package com.suiramdev.worldmap.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChunkSnapshotTest {
+    @TempDir
+    File folder;
+
+    @Test
+    void roundTripsEntries() throws IOException {
+        File file = snapshotFile();
+        ConcurrentLongMap chunks = new ConcurrentLongMap();
+        chunks.put(5L, 50L);
+        chunks.put(-3L, 30L);
+        chunks.put(1L << 40, 7L);
+
+        ChunkSnapshot.write(file, chunks);
+        ConcurrentLongMap loaded = new ConcurrentLongMap();
+
+        assertTrue(ChunkSnapshot.read(file, loaded::put));
+        assertEquals(3, loaded.size());
+        assertEquals(50L, loaded.get(5L, 0));
+        assertEquals(30L, loaded.get(-3L, 0));
+        assertEquals(7L, loaded.get(1L << 40, 0));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    void rejectsNegativeCount() throws IOException {
+        File file = snapshotWithCount(-1);
+
+        assertThrows(IOException.class, () -> ChunkSnapshot.read(file, (chunkIndex, contentHash) -> {
+        }));
+    }
+
+    @Test
+    void rejectsCountLargerThanTheFile() throws IOException {
+        File file = snapshotWithCount(Integer.MAX_VALUE);
+
+        assertThrows(IOException.class, () -> ChunkSnapshot.read(file, (chunkIndex, contentHash) -> {
+        }));
+    }
+
+    @Test
+    void readsNothingFromMissingFile() throws IOException {
+        File file = snapshotFile();
+
+        assertFalse(ChunkSnapshot.read(file, (chunkIndex, contentHash) -> {
+        }));
+    }
+
+    private File snapshotWithCount(int count) throws IOException {
+        File file = snapshotFile();
+        ConcurrentLongMap chunks = new ConcurrentLongMap();
+        chunks.put(1L, 2L);
+        ChunkSnapshot.write(file, chunks);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            raf.writeInt(count);
+        }
+        return file;
+    }
+
+    private File snapshotFile() {
+        return new File(folder, "processed_chunks.snapshot");
+    }
+}
@@ -0,0 +1,60 @@
+package com.suiramdev.worldmap.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StorageServiceTest {
+    @TempDir
+    File folder;
+
+    @Test
+    void fallsBackToThePreviousSnapshotWhenTheCurrentOneIsCorrupt() throws IOException {
+        StorageService storage = new StorageService(folder);
+        storage.markChunkProcessed(1L, 10L);
+        storage.saveStorage();
+        storage.markChunkProcessed(2L, 20L);
+        storage.shutdown();
+
+        File snapshot = new File(folder, "processed_chunks.snapshot");
+        try (RandomAccessFile raf = new RandomAccessFile(snapshot, "rw")) {
+            long checksumByte = raf.length() - 1;
+            raf.seek(checksumByte);
+            int value = raf.read();
+            raf.seek(checksumByte);
+            raf.write(value ^ 0xFF);
+        }
+
+        StorageService reloaded = new StorageService(folder);
+        // Chunk 2 was only in the corrupt snapshot and will be uploaded again
+        assertEquals(10L, reloaded.getChunkHash(1L));
+        assertFalse(reloaded.isChunkProcessed(2L));
+        reloaded.shutdown();
+    }
+
+    @Test
+    void loadsThePreviousSnapshotAndJournalWhenTheCurrentOneIsMissing() throws IOException {
+        StorageService storage = new StorageService(folder);
+        storage.markChunkProcessed(1L, 10L);
+        storage.saveStorage();
+        storage.markChunkProcessed(2L, 20L);
+        storage.shutdown();
+
+        // A crash between the two renames of the last compaction
+        File snapshot = new File(folder, "processed_chunks.snapshot");
+        assertTrue(new File(folder, "processed_chunks.snapshot.prev").exists());
+        Files.delete(snapshot.toPath());
+
+        StorageService reloaded = new StorageService(folder);
+        assertTrue(reloaded.isChunkProcessed(1L));
+        assertEquals(1, reloaded.getProcessedChunkCount());
+        reloaded.shutdown();
+    }
+}
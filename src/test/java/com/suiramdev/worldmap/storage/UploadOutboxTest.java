@@ -0,0 +1,189 @@
+package com.suiramdev.worldmap.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UploadOutboxTest {
+    private static final String FIRST_SEGMENT = "segment-0000000000000001.wmob";
+
+    @TempDir
+    File folder;
+
+    @Test
+    void replaysRecordsAfterReopen() throws IOException {
+        try (UploadOutbox outbox = open(folder)) {
+            assertTrue(outbox.append("", 5L, 50L, 1, new byte[] { 1, 2, 3 }));
+            assertTrue(outbox.append("nether", -3L, 30L, 0, new byte[] { 4 }));
+        }
+
+        try (UploadOutbox outbox = open(folder)) {
+            assertEquals(2, outbox.getRecordCount());
+            assertTrue(outbox.contains("nether", -3L));
+
+            UploadOutbox.Record first = outbox.peek();
+            assertEquals("", first.world);
+            assertEquals(5L, first.chunkIndex);
+            assertEquals(50L, first.contentHash);
+            assertEquals(1, first.format);
+            assertArrayEquals(new byte[] { 1, 2, 3 }, first.payload);
+            outbox.acknowledge(first);
+
+            UploadOutbox.Record second = outbox.peek();
+            assertEquals("nether", second.world);
+            assertEquals(-3L, second.chunkIndex);
+            outbox.acknowledge(second);
+
+            assertNull(outbox.peek());
+            assertTrue(outbox.isEmpty());
+            assertFalse(outbox.containsWorld("nether"));
+        }
+    }
+
+    @Test
+    void dropsTornTailOnOpen() throws IOException {
+        try (UploadOutbox outbox = open(folder)) {
+            outbox.append("", 1L, 10L, 1, new byte[64]);
+            outbox.append("", 2L, 20L, 1, new byte[64]);
+        }
+        File segment = new File(folder, FIRST_SEGMENT);
+        long intactLength = segment.length() - recordSize("", 64);
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            // Crash halfway through writing the second record
+            raf.setLength(segment.length() - 10);
+        }
+
+        try (UploadOutbox outbox = open(folder)) {
+            assertEquals(1, outbox.getRecordCount());
+            assertEquals(intactLength, segment.length());
+            assertFalse(outbox.contains("", 2L));
+
+            // New records go after the last intact one, not after the torn bytes
+            outbox.append("", 3L, 30L, 1, new byte[] { 7 });
+            assertEquals(1L, drain(outbox).chunkIndex);
+            assertEquals(3L, drain(outbox).chunkIndex);
+            assertNull(outbox.peek());
+        }
+    }
+
+    @Test
+    void dropsRecordsFromAChecksumMismatchOn() throws IOException {
+        try (UploadOutbox outbox = open(folder)) {
+            outbox.append("", 1L, 10L, 1, new byte[64]);
+            outbox.append("", 2L, 20L, 1, new byte[64]);
+        }
+        File segment = new File(folder, FIRST_SEGMENT);
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            // Flip a payload byte of the second record
+            raf.seek(segment.length() - 20);
+            raf.write(0x5A);
+        }
+
+        try (UploadOutbox outbox = open(folder)) {
+            assertEquals(1, outbox.getRecordCount());
+            assertEquals(1L, drain(outbox).chunkIndex);
+            assertNull(outbox.peek());
+        }
+    }
+
+    @Test
+    void supersededRecordsAreNotCurrent() throws IOException {
+        try (UploadOutbox outbox = open(folder)) {
+            outbox.append("", 1L, 10L, 1, new byte[] { 1 });
+            outbox.append("", 1L, 11L, 1, new byte[] { 2 });
+            outbox.append("", 2L, 20L, 1, new byte[] { 3 });
+        }
+
+        try (UploadOutbox outbox = open(folder)) {
+            // The newer record of chunk 1 wins on replay too
+            UploadOutbox.Record stale = outbox.peek();
+            assertFalse(outbox.isCurrent(stale));
+            outbox.acknowledge(stale);
+            assertTrue(outbox.contains("", 1L));
+
+            UploadOutbox.Record current = outbox.peek();
+            assertTrue(outbox.isCurrent(current));
+            outbox.acknowledge(current);
+            assertFalse(outbox.contains("", 1L));
+
+            // Uploaded directly in the meantime
+            outbox.supersede("", 2L);
+            UploadOutbox.Record superseded = outbox.peek();
+            assertFalse(outbox.isCurrent(superseded));
+            assertFalse(outbox.contains("", 2L));
+            outbox.acknowledge(superseded);
+            assertTrue(outbox.isEmpty());
+        }
+    }
+
+    @Test
+    void reusesTheDrainedTailSegment() throws IOException {
+        try (UploadOutbox outbox = open(folder)) {
+            outbox.append("", 1L, 10L, 1, new byte[256]);
+            drain(outbox);
+
+            File segment = new File(folder, FIRST_SEGMENT);
+            assertEquals(8, segment.length());
+            assertEquals(0, outbox.getSizeBytes());
+
+            outbox.append("", 2L, 20L, 1, new byte[] { 5 });
+            assertEquals(1, folder.list().length);
+            UploadOutbox.Record record = drain(outbox);
+            assertEquals(2L, record.chunkIndex);
+            assertArrayEquals(new byte[] { 5 }, record.payload);
+        }
+    }
+
+    @Test
+    void syncedRecordsAreReadableWithoutClosing() throws IOException {
+        try (UploadOutbox outbox = open(folder)) {
+            outbox.append("", 1L, 10L, 1, new byte[] { 1 });
+            outbox.sync();
+            outbox.append("", 2L, 20L, 1, new byte[] { 2 });
+            assertEquals(1L, drain(outbox).chunkIndex);
+            outbox.sync();
+            outbox.sync(); // Nothing new to force
+
+            // Acknowledgements are not persisted, both records replay
+            try (UploadOutbox reopened = open(folder)) {
+                assertEquals(2, reopened.getRecordCount());
+                assertEquals(1L, drain(reopened).chunkIndex);
+                assertEquals(2L, drain(reopened).chunkIndex);
+            }
+        }
+    }
+
+    @Test
+    void refusesAppendsBeyondTheBudget() throws IOException {
+        try (UploadOutbox outbox = new UploadOutbox(folder, recordSize("", 16))) {
+            outbox.open();
+            assertTrue(outbox.append("", 1L, 10L, 1, new byte[16]));
+            assertFalse(outbox.append("", 2L, 20L, 1, new byte[1]));
+            assertEquals(1, outbox.getRecordCount());
+        }
+    }
+
+    private static UploadOutbox open(File folder) throws IOException {
+        UploadOutbox outbox = new UploadOutbox(folder, Long.MAX_VALUE);
+        outbox.open();
+        return outbox;
+    }
+
+    private static UploadOutbox.Record drain(UploadOutbox outbox) throws IOException {
+        UploadOutbox.Record record = outbox.peek();
+        outbox.acknowledge(record);
+        return record;
+    }
+
+    private static int recordSize(String world, int payloadLength) {
+        return 4 + 8 + 8 + 1 + 2 + world.length() + payloadLength + 4;
+    }
+}
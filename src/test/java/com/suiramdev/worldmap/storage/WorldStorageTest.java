@@ -0,0 +1,83 @@
+package com.suiramdev.worldmap.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WorldStorageTest {
+    @TempDir
+    File folder;
+
+    @Test
+    void closedWorldIsNotReopenedUntilStartedAgain() throws IOException {
+        WorldStorage storages = new WorldStorage(folder);
+        storages.setDefaultWorld("default");
+        StorageService storage = storages.open("Dungeon_1");
+        storage.markChunkProcessed(5L, 50L);
+
+        storages.close("Dungeon_1");
+
+        assertTrue(storages.isClosed("Dungeon_1"));
+        assertThrows(IllegalStateException.class, () -> storages.get("Dungeon_1"));
+        // Work that captured the storage before it closed is not recorded
+        storage.markChunkProcessed(6L, 60L);
+
+        StorageService reopened = storages.open("Dungeon_1");
+        assertFalse(storages.isClosed("Dungeon_1"));
+        assertEquals(50L, reopened.getChunkHash(5L));
+        assertFalse(reopened.isChunkProcessed(6L));
+        storages.shutdown();
+    }
+
+    @Test
+    void defaultWorldIsNeverClosed() throws IOException {
+        WorldStorage storages = new WorldStorage(folder);
+        storages.setDefaultWorld("default");
+
+        storages.close("default");
+
+        assertFalse(storages.isClosed("default"));
+        storages.get("default").markChunkProcessed(1L, 2L);
+        assertTrue(storages.get("").isChunkProcessed(1L));
+        storages.shutdown();
+    }
+
+    @Test
+    void marksOnlyWorldsThatAreOpen() throws IOException {
+        WorldStorage storages = new WorldStorage(folder);
+        storages.setDefaultWorld("default");
+        storages.open("Dungeon_1");
+        storages.close("Dungeon_1");
+
+        assertTrue(storages.markIfOpen("", 1L, 10L));
+        assertTrue(storages.get("default").isChunkProcessed(1L));
+        assertFalse(storages.markIfOpen("Dungeon_1", 2L, 20L));
+        assertTrue(storages.isClosed("Dungeon_1"));
+        // A world that was never opened stays that way
+        assertFalse(storages.markIfOpen("Dungeon_2", 3L, 30L));
+        assertFalse(storages.folderOf(folder, "Dungeon_2").exists());
+
+        storages.open("Dungeon_2");
+        assertTrue(storages.markIfOpen("Dungeon_2", 3L, 30L));
+        assertEquals(30L, storages.get("Dungeon_2").getChunkHash(3L));
+        storages.shutdown();
+    }
+
+    @Test
+    void folderNamesAreDistinctPerWorld() {
+        assertEquals("Dungeon_1", WorldStorage.folderName("Dungeon_1"));
+        assertNotEquals(WorldStorage.folderName("a_b"), WorldStorage.folderName("a b"));
+        assertNotEquals(WorldStorage.folderName("Château"), WorldStorage.folderName("Chateau"));
+        assertNotEquals(WorldStorage.folderName("Châ"), WorldStorage.folderName("Chè"));
+        assertFalse(WorldStorage.folderName("..").startsWith("."));
+        assertFalse(WorldStorage.folderName("").isEmpty());
+        assertTrue(WorldStorage.folderName("a/b").matches("[A-Za-z0-9._~-]+"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.suiramdev.worldmap.tiles;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.suiramdev.worldmap.utils.ByteSink;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+class PngEncoderTest {
+    @Test
+    void decodesToTheSamePixels() throws IOException {
+        int width = 32;
+        int height = 32;
+        int[] pixels = new int[width * height];
+        Random random = new Random(5);
+        for (int i = 0; i < pixels.length; i++) {
+            // Runs of equal pixels, random noise and fully transparent pixels
+            pixels[i] = i % 7 == 0 ? 0 : i % 3 == 0 ? random.nextInt() : 0xFF4A7F22;
+        }
+
+        assertArrayEquals(pixels, decode(encode(pixels, width, height), width, height));
+    }
+
+    @Test
+    void reusesBuffersAcrossSizes() throws IOException {
+        PngEncoder encoder = new PngEncoder(6);
+        try {
+            int[] large = new int[64 * 48];
+            large[large.length - 1] = 0x80FF0000;
+            int[] small = { 0xFF000000, 0xFFFFFFFF, 0x00000000, 0x7F102030 };
+
+            ByteSink sink = new ByteSink();
+            encoder.encode(large, 64, 48, sink);
+            assertArrayEquals(large, decode(sink.toByteArray(), 64, 48));
+
+            sink = new ByteSink();
+            encoder.encode(small, 2, 2, sink);
+            assertArrayEquals(small, decode(sink.toByteArray(), 2, 2));
+        } finally {
+            encoder.close();
+        }
+    }
+
+    private static byte[] encode(int[] pixels, int width, int height) {
+        PngEncoder encoder = new PngEncoder(6);
+        try {
+            ByteSink sink = new ByteSink();
+            encoder.encode(pixels, width, height, sink);
+            return sink.toByteArray();
+        } finally {
+            encoder.close();
+        }
+    }
+
+    private static int[] decode(byte[] png, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+}
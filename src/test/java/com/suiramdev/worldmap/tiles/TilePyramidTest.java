@@ -0,0 +1,202 @@
+package com.suiramdev.worldmap.tiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.suiramdev.worldmap.config.PayloadFormat;
+import com.suiramdev.worldmap.services.HttpClientService;
+import com.suiramdev.worldmap.storage.WorldStorage;
+import com.suiramdev.worldmap.utils.ByteSink;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TilePyramidTest {
+    private static final int SIZE = TileRenderer.TILE_SIZE;
+    private static final String WORLD = "default";
+    // Sweeps are run by the tests, never by the scheduler
+    private static final long NEVER_MS = 3_600_000;
+
+    @TempDir
+    File folder;
+
+    private WorldStorage storages;
+
+    @AfterEach
+    void closeStorages() {
+        if (storages != null) {
+            storages.shutdown();
+        }
+    }
+
+    @Test
+    void downsamplesByAlpha() {
+        CountingStore store = store();
+        int[] pixels = new int[SIZE * SIZE];
+        pixels[0] = 0xFFFF0000; // Opaque red
+        pixels[1] = 0x000000FF; // Fully transparent blue, must not tint the result
+        pixels[SIZE] = 0x7F00FF00; // Half-transparent green
+        pixels[SIZE + 1] = 0x00000000;
+        writeTile(store, 0, 0, 0, pixels);
+        TilePyramid pyramid = new TilePyramid(store, null, 1, NEVER_MS, false);
+
+        pyramid.markDirty(WORLD, 0, 0);
+        pyramid.sweep();
+
+        int[] parent = new int[SIZE * SIZE];
+        assertTrue(store.read(WORLD, 1, 0, 0, parent));
+        // Alpha 255 + 127 over four pixels; colors weighted 255:127 red to green
+        int alpha = (255 + 127 + 2) / 4;
+        int red = 255 * 255 / 382;
+        int green = 255 * 127 / 382;
+        assertEquals(alpha << 24 | red << 16 | green << 8, parent[0]);
+        // Pixels with no visible child stay transparent
+        assertEquals(0, parent[1]);
+        pyramid.shutdown();
+    }
+
+    @Test
+    void rebuildsEachAncestorOncePerBurst() {
+        CountingStore store = store();
+        int[] pixels = new int[SIZE * SIZE];
+        Arrays.fill(pixels, 0xFF808080);
+        for (int chunkX = 0; chunkX < 4; chunkX++) {
+            for (int chunkZ = 0; chunkZ < 4; chunkZ++) {
+                writeTile(store, 0, chunkX, chunkZ, pixels);
+            }
+        }
+        store.writes.clear();
+        TilePyramid pyramid = new TilePyramid(store, null, 2, NEVER_MS, false);
+
+        // Every chunk of the region changes, some of them several times
+        for (int round = 0; round < 3; round++) {
+            for (int chunkX = 0; chunkX < 4; chunkX++) {
+                for (int chunkZ = 0; chunkZ < 4; chunkZ++) {
+                    pyramid.markDirty(WORLD, chunkX, chunkZ);
+                }
+            }
+        }
+        pyramid.sweep();
+
+        assertEquals(5, store.writes.size());
+        for (int tileX = 0; tileX < 2; tileX++) {
+            for (int tileZ = 0; tileZ < 2; tileZ++) {
+                assertEquals(1, (int) store.writes.get("1/" + tileX + "/" + tileZ));
+            }
+        }
+        assertEquals(1, (int) store.writes.get("2/0/0"));
+        assertEquals(0, pyramid.getPendingCount());
+        pyramid.shutdown();
+    }
+
+    @Test
+    void failedUploadMarksTheTileDirtyAgain() {
+        CountingStore store = store();
+        writeTile(store, 0, 0, 0, solid(0xFF808080));
+        TileClient client = new TileClient(false);
+        TilePyramid pyramid = new TilePyramid(store, client, 1, NEVER_MS, false);
+
+        pyramid.markDirty(WORLD, 0, 0);
+        pyramid.sweep();
+        assertEquals(1, client.sent);
+        assertEquals(1, pyramid.getPendingCount());
+
+        // The next sweep retries it
+        client.accept = true;
+        pyramid.sweep();
+        assertEquals(2, client.sent);
+        assertEquals(0, pyramid.getPendingCount());
+        pyramid.shutdown();
+    }
+
+    @Test
+    void resumesDirtyTilesAndDropsLevelsAboveTheMaximum() {
+        CountingStore store = store();
+        writeTile(store, 0, 0, 0, solid(0xFF808080));
+        // Every level fails to upload, so one tile per zoom level stays dirty
+        TilePyramid pyramid = new TilePyramid(store, new TileClient(false), 3, NEVER_MS, false);
+        pyramid.markDirty(WORLD, 0, 0);
+        pyramid.sweep();
+        assertEquals(3, pyramid.getPendingCount());
+        pyramid.shutdown();
+        File pending = new File(store.getRoot(WORLD).toFile(), "pyramid-pending.bin");
+        assertTrue(pending.isFile());
+
+        // Restarted with a lower maximum zoom
+        TilePyramid resumed = new TilePyramid(store, null, 2, NEVER_MS, false);
+        resumed.addWorld(WORLD);
+        assertEquals(2, resumed.getPendingCount());
+        assertFalse(pending.exists());
+
+        store.writes.clear();
+        resumed.sweep();
+        assertEquals(1, (int) store.writes.get("1/0/0"));
+        assertEquals(1, (int) store.writes.get("2/0/0"));
+        assertFalse(store.writes.containsKey("3/0/0"));
+        resumed.shutdown();
+        // Nothing left to save
+        assertFalse(pending.exists());
+    }
+
+    private CountingStore store() {
+        storages = new WorldStorage(new File(folder, "data"));
+        storages.setDefaultWorld(WORLD);
+        return new CountingStore(new File(folder, "tiles"), storages);
+    }
+
+    private static void writeTile(TileStore store, int zoom, int tileX, int tileZ, int[] pixels) {
+        PngEncoder encoder = new PngEncoder(1);
+        ByteSink png = new ByteSink(1024);
+        encoder.encode(pixels, SIZE, SIZE, png);
+        encoder.close();
+        assertTrue(store.write(WORLD, zoom, tileX, tileZ, png));
+    }
+
+    private static int[] solid(int color) {
+        int[] pixels = new int[SIZE * SIZE];
+        Arrays.fill(pixels, color);
+        return pixels;
+    }
+
+    /**
+     * Counts the writes of each tile, keyed "zoom/x/z"
+     */
+    private static final class CountingStore extends TileStore {
+        final Map<String, Integer> writes = new HashMap<>();
+
+        CountingStore(File directory, WorldStorage worlds) {
+            super(directory, worlds);
+        }
+
+        @Override
+        public boolean write(String world, int zoom, int tileX, int tileZ, ByteSink png) {
+            writes.merge(zoom + "/" + tileX + "/" + tileZ, 1, Integer::sum);
+            return super.write(world, zoom, tileX, tileZ, png);
+        }
+    }
+
+    /**
+     * Answers tile uploads without sending them
+     */
+    private static final class TileClient extends HttpClientService {
+        volatile boolean accept;
+        volatile int sent;
+
+        TileClient(boolean accept) {
+            super("", "", "http://localhost/tiles", "", 1000, 1, 1, 1, PayloadFormat.BINARY, null, false);
+            this.accept = accept;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> sendTile(String world, int zoom, int tileX, int tileZ, ByteSink png) {
+            sent++;
+            return CompletableFuture.completedFuture(accept);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.suiramdev.worldmap.tiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData;
+import com.suiramdev.worldmap.services.ChunkProcessingService.SurfaceData;
+import org.junit.jupiter.api.Test;
+
+class TileRendererTest {
+    private static final int SIZE = TileRenderer.TILE_SIZE;
+    private static final int HEIGHT = 320;
+
+    private static final int STONE = 1;
+    private static final int GRASS = 2;
+    private static final int SAND = 3;
+    private static final int GLASS = 4;
+    private static final int WATER = 7;
+
+    private final TileRenderer renderer = new TileRenderer(TileRendererTest::colorOf, blockId -> blockId == GRASS);
+
+    @Test
+    void opaqueColumnTakesTheTopBlockColor() {
+        ChunkData data = flatChunk(64);
+        data.blocks = new int[SIZE][HEIGHT][SIZE];
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int y = 0; y <= 64; y++) {
+                    data.blocks[x][y][z] = STONE;
+                }
+            }
+        }
+        // Glass over stone in one column is blended, the stone below it is hidden elsewhere
+        data.blocks[3][65][4] = GLASS;
+
+        int[] pixels = render(data);
+
+        assertEquals(0xFF808080, pixels[0]);
+        // Half-covering white glass over gray stone
+        assertEquals(0xFFC0C0C0, pixels[4 * SIZE + 3]);
+    }
+
+    @Test
+    void tintMultipliesTintedBlocksOnly() {
+        ChunkData data = flatChunk(64);
+        data.surface = surface(GRASS);
+        data.surface.groundBlocks[0] = STONE;
+        data.surface.topBlocks[0] = STONE;
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                data.tintMap[x][z] = 0x80FF00;
+            }
+        }
+
+        int[] pixels = render(data);
+
+        assertEquals(0xFF808080, pixels[0]);
+        // White grass times the tint
+        assertEquals(0xFF80FF00, pixels[1 * SIZE]);
+    }
+
+    @Test
+    void waterIsBlendedOverTheGround() {
+        ChunkData data = flatChunk(64);
+        data.surface = surface(SAND);
+        int column = 5 * SIZE + 6; // x = 5, z = 6
+        data.surface.fluidIds[column] = WATER;
+        data.surface.fluidDepths[column] = 3;
+
+        int[] pixels = render(data);
+
+        // Three fluid blocks cover 1 - 0.6^3 of the pixel
+        float alpha = (float) (1 - Math.pow(0.6, 3));
+        int sand = colorOf(SAND);
+        int water = 0x3F76E4;
+        int expected = 0xFF000000
+                | blend(water >>> 16 & 0xFF, sand >>> 16 & 0xFF, alpha) << 16
+                | blend(water >>> 8 & 0xFF, sand >>> 8 & 0xFF, alpha) << 8
+                | blend(water & 0xFF, sand & 0xFF, alpha);
+        assertEquals(expected, pixels[6 * SIZE + 5]);
+        assertEquals(sand, pixels[0]);
+    }
+
+    @Test
+    void slopesAreShadedAgainstTheColumnNorth() {
+        ChunkData data = flatChunk(64);
+        data.surface = surface(STONE);
+        data.heightMap[0][1] = 66; // Rises by 2 from z = 0
+        data.heightMap[0][2] = 64; // Falls by 2 from z = 1
+
+        int[] pixels = render(data);
+
+        assertEquals(0xFF808080, pixels[0]);
+        assertEquals(0xFF8A8A8A, pixels[1 * SIZE]); // 128 * 1.08
+        assertEquals(0xFF767676, pixels[2 * SIZE]); // 128 * 0.92
+    }
+
+    private int[] render(ChunkData data) {
+        int[] pixels = new int[SIZE * SIZE];
+        renderer.render(data, pixels);
+        return pixels;
+    }
+
+    private static int colorOf(int blockId) {
+        return switch (blockId) {
+            case STONE -> 0xFF808080;
+            case GRASS -> 0xFFFFFFFF;
+            case SAND -> 0xFFE0D0A0;
+            case GLASS -> 0x80FFFFFF;
+            default -> 0;
+        };
+    }
+
+    private static int blend(int front, int back, float alpha) {
+        return Math.round(front * alpha + back * (1 - alpha));
+    }
+
+    private static ChunkData flatChunk(int height) {
+        ChunkData data = new ChunkData();
+        data.heightMap = new short[SIZE][SIZE];
+        data.tintMap = new int[SIZE][SIZE];
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                data.heightMap[x][z] = (short) height;
+            }
+        }
+        return data;
+    }
+
+    private static SurfaceData surface(int ground) {
+        int columns = SIZE * SIZE;
+        SurfaceData surface = new SurfaceData();
+        surface.topBlocks = new int[columns];
+        surface.groundBlocks = new int[columns];
+        surface.groundHeights = new short[columns];
+        surface.fluidIds = new int[columns];
+        surface.fluidDepths = new byte[columns];
+        for (int i = 0; i < columns; i++) {
+            surface.topBlocks[i] = ground;
+            surface.groundBlocks[i] = ground;
+        }
+        return surface;
+    }
+}
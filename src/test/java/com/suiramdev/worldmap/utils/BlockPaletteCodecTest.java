@@ -0,0 +1,152 @@
+package com.suiramdev.worldmap.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.suiramdev.worldmap.config.ExtractionMode;
+import com.suiramdev.worldmap.fixtures.SyntheticChunk;
+import com.suiramdev.worldmap.services.ChunkExtractor;
+import com.suiramdev.worldmap.services.ChunkProcessingService.BlockTextureInfo;
+import com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData;
+import com.suiramdev.worldmap.services.ChunkProcessingService.SurfaceData;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.jupiter.api.Test;
+
+class BlockPaletteCodecTest {
+    private static final int SIZE = ChunkBinaryCodec.CHUNK_SIZE;
+    private static final int HEIGHT = ChunkBinaryCodec.CHUNK_HEIGHT;
+    private static final int COLUMNS = SIZE * SIZE;
+
+    @Test
+    void writesSingleValuedSectionsWithoutIndexes() {
+        int[][][] blocks = new int[SIZE][HEIGHT][SIZE];
+        fillSection(blocks, 0, (x, y, z) -> 7);
+
+        ByteSink sink = new ByteSink();
+        BlockPaletteCodec.encode(blocks, sink);
+
+        // ushort palette size, one int ID, zero bits per entry for each section
+        assertEquals(BlockPaletteCodec.SECTION_COUNT * (2 + 4 + 1), sink.size());
+        assertArrayEquals(blocks, decode(sink));
+    }
+
+    @Test
+    void roundTripsBitWidthsThatDoNotDivide64() {
+        int[][] cases = { { 5, 3 }, { 17, 5 }, { 100, 7 } };
+        for (int[] c : cases) {
+            int paletteSize = c[0];
+            int bits = c[1];
+            assertEquals(bits, BlockPaletteCodec.bitsFor(paletteSize));
+
+            int[][][] blocks = new int[SIZE][HEIGHT][SIZE];
+            int[] cell = { 0 };
+            fillSection(blocks, 3, (x, y, z) -> 1000 + (cell[0]++ * 31) % paletteSize);
+
+            ByteSink sink = new ByteSink();
+            BlockPaletteCodec.encode(blocks, sink);
+
+            long packedLongs = ((long) BlockPaletteCodec.SECTION_VOLUME * bits + 63) / 64;
+            int expected = (BlockPaletteCodec.SECTION_COUNT - 1) * (2 + 4 + 1)
+                    + 2 + 4 * paletteSize + 1 + (int) packedLongs * 8;
+            assertEquals(expected, sink.size(), "palette size " + paletteSize);
+            assertArrayEquals(blocks, decode(sink), "palette size " + paletteSize);
+        }
+    }
+
+    @Test
+    void roundTripsFifteenBitWorstCase() {
+        int[][][] blocks = new int[SIZE][HEIGHT][SIZE];
+        int[] cell = { 0 };
+        // Every cell of the section holds a distinct ID
+        fillSection(blocks, 9, (x, y, z) -> 1 + cell[0]++);
+        assertEquals(15, BlockPaletteCodec.bitsFor(BlockPaletteCodec.SECTION_VOLUME));
+
+        ByteSink sink = new ByteSink();
+        BlockPaletteCodec.encode(blocks, sink);
+
+        assertArrayEquals(blocks, decode(sink));
+    }
+
+    @Test
+    void roundTripsArraysOfEveryBitWidth() {
+        for (int paletteSize : new int[] { 1, 2, 5, 17, 100, COLUMNS }) {
+            int[] values = new int[COLUMNS];
+            for (int i = 0; i < COLUMNS; i++) {
+                values[i] = -3 + (i * 7) % paletteSize;
+            }
+
+            ByteSink sink = new ByteSink();
+            BlockPaletteCodec.encodeArray(values, sink);
+
+            assertArrayEquals(values, BlockPaletteCodec.decodeArray(buffer(sink), COLUMNS),
+                    "palette size " + paletteSize);
+        }
+    }
+
+    @Test
+    void roundTripsExtractedVolumes() {
+        for (SyntheticChunk.TerrainProfile profile : SyntheticChunk.TerrainProfile.values()) {
+            ChunkData data = extractor(ExtractionMode.FULL).extract(new SyntheticChunk(profile, 3, -7), 3, -7);
+
+            ByteSink sink = new ByteSink();
+            BlockPaletteCodec.encode(data.blocks, sink);
+
+            assertArrayEquals(data.blocks, decode(sink), profile.name());
+        }
+    }
+
+    @Test
+    void roundTripsFlatSurfaceColumns() {
+        ChunkData data = extractor(ExtractionMode.SURFACE)
+                .extract(new SyntheticChunk(SyntheticChunk.TerrainProfile.FLAT, 0, 0), 0, 0);
+        SurfaceData surface = data.surface;
+
+        ByteSink sink = new ByteSink();
+        BlockPaletteCodec.encodeArray(surface.topBlocks, sink);
+        BlockPaletteCodec.encodeArray(surface.groundBlocks, sink);
+        BlockPaletteCodec.encodeArray(surface.fluidIds, sink);
+        // Flat terrain has one block per array, so no index data at all
+        assertEquals(3 * (2 + 4 + 1), sink.size());
+
+        ByteBuffer in = buffer(sink);
+        assertArrayEquals(surface.topBlocks, BlockPaletteCodec.decodeArray(in, COLUMNS));
+        assertArrayEquals(surface.groundBlocks, BlockPaletteCodec.decodeArray(in, COLUMNS));
+        assertArrayEquals(surface.fluidIds, BlockPaletteCodec.decodeArray(in, COLUMNS));
+    }
+
+    private interface CellValue {
+        int at(int x, int y, int z);
+    }
+
+    /**
+     * Fill one section in the codec's (y, z, x) cell order
+     */
+    private static void fillSection(int[][][] blocks, int section, CellValue value) {
+        int baseY = section * BlockPaletteCodec.SECTION_HEIGHT;
+        for (int y = baseY; y < baseY + BlockPaletteCodec.SECTION_HEIGHT; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    blocks[x][y][z] = value.at(x, y, z);
+                }
+            }
+        }
+    }
+
+    private static ChunkExtractor extractor(ExtractionMode mode) {
+        BlockTextureInfo textures = new BlockTextureInfo("Top.png", "Bottom.png", "Side.png", "Side.png",
+                "Side.png", "Side.png", false);
+        return new ChunkExtractor(blockId -> blockId == 0 ? null : textures, SyntheticChunk::isOpaque, mode);
+    }
+
+    private static int[][][] decode(ByteSink sink) {
+        ByteBuffer in = buffer(sink);
+        int[][][] blocks = BlockPaletteCodec.decode(in);
+        assertEquals(0, in.remaining(), "trailing bytes");
+        return blocks;
+    }
+
+    private static ByteBuffer buffer(ByteSink sink) {
+        return ByteBuffer.wrap(sink.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,193 @@
+package com.suiramdev.worldmap.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class ByteSinkBodyPublisherTest {
+    @Test
+    void emitsReadOnlySlicesOfTheSinkOnEverySubscription() {
+        ByteSink sink = new ByteSink(64 * 1024);
+        for (int i = 0; i < 40_000; i++) {
+            sink.writeByte(i * 31);
+        }
+        ByteSinkBodyPublisher publisher = new ByteSinkBodyPublisher(sink);
+        assertEquals(40_000, publisher.contentLength());
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Collector collector = new Collector(1);
+            publisher.subscribe(collector);
+
+            assertTrue(collector.completed);
+            assertNull(collector.error);
+            assertEquals(3, collector.buffers.size());
+            for (ByteBuffer buffer : collector.buffers) {
+                assertTrue(buffer.isReadOnly());
+                // Backed by the sink's array rather than a copy
+                assertFalse(buffer.hasArray());
+            }
+            assertArrayEquals(sink.toByteArray(), collector.bytes());
+        }
+    }
+
+    @Test
+    void slicesShareTheSinkArray() {
+        ByteSink sink = new ByteSink(16);
+        sink.writeIntLE(0x01020304);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        new ByteSinkBodyPublisher(sink).subscribe(collector);
+
+        sink.array()[0] = 42;
+
+        assertEquals(42, collector.buffers.get(0).get(0));
+    }
+
+    @Test
+    void completesEmptyBodyWithoutData() {
+        Collector collector = new Collector(1);
+        new ByteSinkBodyPublisher(new ByteSink(16)).subscribe(collector);
+
+        assertTrue(collector.completed);
+        assertTrue(collector.buffers.isEmpty());
+    }
+
+    @Test
+    void stopsAfterCancel() {
+        ByteSink sink = new ByteSink(64 * 1024);
+        sink.writeBytes(new byte[40_000], 0, 40_000);
+        Collector collector = new Collector(1);
+        collector.cancelAfterFirst = true;
+        new ByteSinkBodyPublisher(sink).subscribe(collector);
+
+        assertEquals(1, collector.buffers.size());
+        assertFalse(collector.completed);
+    }
+
+    @Test
+    void staysBusyWhileAnEarlyResponseLeavesTheBodyHalfRead() {
+        ByteSink sink = new ByteSink(64 * 1024);
+        sink.writeBytes(new byte[40_000], 0, 40_000);
+        ByteSinkBodyPublisher publisher = new ByteSinkBodyPublisher(sink);
+        // The server answered after the first slice while the client still sends the rest
+        Collector collector = new Collector(1);
+        collector.paused = true;
+        publisher.subscribe(collector);
+
+        AtomicBoolean idle = new AtomicBoolean();
+        publisher.onIdle(() -> idle.set(true));
+        assertFalse(idle.get());
+
+        collector.paused = false;
+        collector.subscription.request(1);
+        assertTrue(collector.completed);
+        assertTrue(idle.get());
+    }
+
+    @Test
+    void becomesIdleWhenTheClientCancels() {
+        ByteSink sink = new ByteSink(64 * 1024);
+        sink.writeBytes(new byte[40_000], 0, 40_000);
+        ByteSinkBodyPublisher publisher = new ByteSinkBodyPublisher(sink);
+        Collector collector = new Collector(1);
+        collector.paused = true;
+        publisher.subscribe(collector);
+
+        AtomicBoolean idle = new AtomicBoolean();
+        publisher.onIdle(() -> idle.set(true));
+        assertFalse(idle.get());
+
+        // E.g. the request timed out
+        collector.subscription.cancel();
+        assertTrue(idle.get());
+    }
+
+    @Test
+    void rejectsSubscriptionsOnceIdle() {
+        ByteSink sink = new ByteSink(16);
+        sink.writeIntLE(1);
+        ByteSinkBodyPublisher publisher = new ByteSinkBodyPublisher(sink);
+        AtomicBoolean idle = new AtomicBoolean();
+        publisher.onIdle(() -> idle.set(true));
+        assertTrue(idle.get());
+
+        Collector collector = new Collector(1);
+        publisher.subscribe(collector);
+
+        assertTrue(collector.buffers.isEmpty());
+        assertSame(IllegalStateException.class, collector.error.getClass());
+    }
+
+    @Test
+    void rejectsNonPositiveRequests() {
+        Collector collector = new Collector(0);
+        new ByteSinkBodyPublisher(new ByteSink(16)).subscribe(collector);
+
+        assertSame(IllegalArgumentException.class, collector.error.getClass());
+    }
+
+    /**
+     * Requests a fixed number of buffers up front, then one more per buffer
+     * received
+     */
+    private static final class Collector implements Flow.Subscriber<ByteBuffer> {
+        final long initialRequest;
+        final List<ByteBuffer> buffers = new ArrayList<>();
+        Flow.Subscription subscription;
+        boolean cancelAfterFirst;
+        boolean paused; // Stop requesting more, like a client stuck sending
+        boolean completed;
+        Throwable error;
+
+        Collector(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            buffers.add(item);
+            if (cancelAfterFirst) {
+                subscription.cancel();
+            } else if (!paused && initialRequest != Long.MAX_VALUE) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        byte[] bytes() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (ByteBuffer buffer : buffers) {
+                ByteBuffer copy = buffer.duplicate();
+                byte[] bytes = new byte[copy.remaining()];
+                copy.get(bytes);
+                out.writeBytes(bytes);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.suiramdev.worldmap.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.suiramdev.worldmap.services.ChunkProcessingService.BlockTextureInfo;
+import com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData;
+import com.suiramdev.worldmap.services.ChunkProcessingService.SurfaceData;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ChunkBinaryCodecTest {
+    private static final int SIZE = ChunkBinaryCodec.CHUNK_SIZE;
+
+    @Test
+    void roundTripsHeaderMapsBlocksAndTextures() {
+        ChunkData data = sampleChunk();
+
+        ChunkData decoded = ChunkBinaryCodec.decode(ChunkBinaryCodec.encode(data));
+
+        assertEquals("Dungeon_1", decoded.world);
+        assertEquals(-12, decoded.chunkX);
+        assertEquals(345, decoded.chunkZ);
+        assertEquals(1_700_000_000_123L, decoded.timestamp);
+        assertTrue(decoded.hasEnvironmentData);
+        assertArrayEquals(data.heightMap, decoded.heightMap);
+        assertArrayEquals(data.tintMap, decoded.tintMap);
+        assertArrayEquals(data.blocks, decoded.blocks);
+        assertNull(decoded.surface);
+
+        assertEquals(data.blockTextures.keySet(), decoded.blockTextures.keySet());
+        for (Map.Entry<Integer, BlockTextureInfo> entry : data.blockTextures.entrySet()) {
+            assertTextureEquals(entry.getValue(), decoded.blockTextures.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void roundTripsSurface() {
+        ChunkData data = sampleChunk();
+        data.blocks = null;
+        data.surface = new SurfaceData();
+        int columns = SIZE * SIZE;
+        data.surface.topBlocks = new int[columns];
+        data.surface.groundBlocks = new int[columns];
+        data.surface.groundHeights = new short[columns];
+        data.surface.fluidIds = new int[columns];
+        data.surface.fluidDepths = new byte[columns];
+        Random random = new Random(7);
+        for (int i = 0; i < columns; i++) {
+            data.surface.topBlocks[i] = random.nextInt(40);
+            data.surface.groundBlocks[i] = random.nextInt(12);
+            data.surface.groundHeights[i] = (short) (random.nextInt(321) - 1);
+            data.surface.fluidIds[i] = i % 5 == 0 ? 3 : 0;
+            data.surface.fluidDepths[i] = (byte) (i % 5 == 0 ? random.nextInt(128) : 0);
+        }
+
+        ChunkData decoded = ChunkBinaryCodec.decode(ChunkBinaryCodec.encode(data));
+
+        assertNull(decoded.blocks);
+        assertArrayEquals(data.surface.topBlocks, decoded.surface.topBlocks);
+        assertArrayEquals(data.surface.groundBlocks, decoded.surface.groundBlocks);
+        assertArrayEquals(data.surface.groundHeights, decoded.surface.groundHeights);
+        assertArrayEquals(data.surface.fluidIds, decoded.surface.fluidIds);
+        assertArrayEquals(data.surface.fluidDepths, decoded.surface.fluidDepths);
+        assertArrayEquals(data.heightMap, decoded.heightMap);
+    }
+
+    @Test
+    void nullMapsDecodeAsZeroedAndEmpty() {
+        ChunkData data = new ChunkData();
+        data.chunkX = 1;
+        data.chunkZ = 2;
+
+        ChunkData decoded = ChunkBinaryCodec.decode(ChunkBinaryCodec.encode(data));
+
+        assertNull(decoded.world);
+        assertFalse(decoded.hasEnvironmentData);
+        assertArrayEquals(new short[SIZE][SIZE], decoded.heightMap);
+        assertArrayEquals(new int[SIZE][SIZE], decoded.tintMap);
+        assertArrayEquals(new int[SIZE][ChunkBinaryCodec.CHUNK_HEIGHT][SIZE], decoded.blocks);
+        assertTrue(decoded.blockTextures.isEmpty());
+    }
+
+    @Test
+    void roundTripsEmptyTextureMap() {
+        ChunkData data = sampleChunk();
+        data.blockTextures = new LinkedHashMap<>();
+
+        ChunkData decoded = ChunkBinaryCodec.decode(ChunkBinaryCodec.encode(data));
+
+        assertTrue(decoded.blockTextures.isEmpty());
+        assertArrayEquals(data.blocks, decoded.blocks);
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        byte[] payload = ChunkBinaryCodec.encode(sampleChunk());
+
+        for (int length = 0; length < payload.length; length += length < 64 ? 1 : 97) {
+            byte[] truncated = Arrays.copyOf(payload, length);
+            assertThrows(IllegalArgumentException.class, () -> ChunkBinaryCodec.decode(truncated),
+                    "length " + length);
+        }
+        byte[] lastByteMissing = Arrays.copyOf(payload, payload.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> ChunkBinaryCodec.decode(lastByteMissing));
+    }
+
+    @Test
+    void rejectsBadMagic() {
+        byte[] payload = ChunkBinaryCodec.encode(sampleChunk());
+        payload[0] ^= 0x01;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ChunkBinaryCodec.decode(payload));
+        assertTrue(e.getMessage().contains("Not a worldmap chunk payload"));
+    }
+
+    @Test
+    void rejectsBadVersion() {
+        byte[] payload = ChunkBinaryCodec.encode(sampleChunk());
+        payload[4] = (byte) (ChunkBinaryCodec.VERSION + 1);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ChunkBinaryCodec.decode(payload));
+        assertTrue(e.getMessage().contains("version"));
+    }
+
+    @Test
+    void rejectsUnknownFlags() {
+        byte[] payload = ChunkBinaryCodec.encode(sampleChunk());
+        payload[5] |= (byte) 0x80;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ChunkBinaryCodec.decode(payload));
+        assertTrue(e.getMessage().contains("flags"));
+    }
+
+    @Test
+    void rejectsMissingBlockSectionLayout() {
+        byte[] payload = ChunkBinaryCodec.encode(sampleChunk());
+        payload[5] &= (byte) ~(ChunkBinaryCodec.FLAG_PALETTE_BLOCKS | ChunkBinaryCodec.FLAG_SURFACE);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ChunkBinaryCodec.decode(payload));
+        assertTrue(e.getMessage().contains("block section"));
+    }
+
+    private static ChunkData sampleChunk() {
+        Random random = new Random(42);
+        ChunkData data = new ChunkData();
+        data.world = "Dungeon_1";
+        data.chunkX = -12;
+        data.chunkZ = 345;
+        data.timestamp = 1_700_000_000_123L;
+        data.hasEnvironmentData = true;
+        data.heightMap = new short[SIZE][SIZE];
+        data.tintMap = new int[SIZE][SIZE];
+        data.blocks = new int[SIZE][ChunkBinaryCodec.CHUNK_HEIGHT][SIZE];
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                int height = 40 + random.nextInt(100);
+                data.heightMap[x][z] = (short) height;
+                data.tintMap[x][z] = random.nextInt();
+                for (int y = 0; y < height; y++) {
+                    data.blocks[x][y][z] = y == height - 1 ? 3 : 1 + random.nextInt(6);
+                }
+            }
+        }
+        data.blockTextures = new LinkedHashMap<>();
+        data.blockTextures.put(1, new BlockTextureInfo("Stone.png", "Stone.png", "Stone.png", "Stone.png",
+                "Stone.png", "Stone.png", false));
+        data.blockTextures.put(3, new BlockTextureInfo("Grass_Top.png", "Dirt.png", "Grass_Side.png",
+                "Grass_Side.png", "Grass_Side.png", "Grass_Side.png", true));
+        data.blockTextures.put(6, new BlockTextureInfo("Fleur_é.png", null, null, null, null, null, false));
+        return data;
+    }
+
+    private static void assertTextureEquals(BlockTextureInfo expected, BlockTextureInfo actual) {
+        assertEquals(expected.up, actual.up);
+        assertEquals(expected.down, actual.down);
+        assertEquals(expected.north, actual.north);
+        assertEquals(expected.south, actual.south);
+        assertEquals(expected.east, actual.east);
+        assertEquals(expected.west, actual.west);
+        assertEquals(expected.shouldTint, actual.shouldTint);
+    }
+}
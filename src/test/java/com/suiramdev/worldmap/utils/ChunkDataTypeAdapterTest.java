@@ -0,0 +1,131 @@
+package com.suiramdev.worldmap.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.suiramdev.worldmap.services.ChunkProcessingService.BlockTextureInfo;
+import com.suiramdev.worldmap.services.ChunkProcessingService.ChunkData;
+import com.suiramdev.worldmap.services.ChunkProcessingService.SurfaceData;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ChunkDataTypeAdapterTest {
+    private static final int SIZE = ChunkBinaryCodec.CHUNK_SIZE;
+
+    private final Gson reflective = new Gson();
+    private final Gson adapted = new GsonBuilder()
+            .registerTypeAdapter(ChunkData.class, new ChunkDataTypeAdapter())
+            .registerTypeAdapter(BlockTextureInfo.class, new BlockTextureInfoTypeAdapter())
+            .create();
+
+    @Test
+    void writesSameJsonAsReflectionInFullMode() {
+        ChunkData data = sampleChunk();
+
+        assertEquals(reflective.toJson(data), adapted.toJson(data));
+    }
+
+    @Test
+    void writesSameJsonAsReflectionInSurfaceMode() {
+        ChunkData data = sampleChunk();
+        data.blocks = null;
+        data.surface = sampleSurface();
+
+        String json = adapted.toJson(data);
+        assertEquals(JsonParser.parseString(reflective.toJson(data)), JsonParser.parseString(json));
+        assertEquals(reflective.toJson(data), json);
+    }
+
+    @Test
+    void readsBackWhatItWrites() {
+        ChunkData data = sampleChunk();
+
+        ChunkData read = adapted.fromJson(adapted.toJson(data), ChunkData.class);
+
+        assertEquals(data.world, read.world);
+        assertEquals(data.chunkX, read.chunkX);
+        assertEquals(data.chunkZ, read.chunkZ);
+        assertEquals(data.timestamp, read.timestamp);
+        assertEquals(data.hasEnvironmentData, read.hasEnvironmentData);
+        assertArrayEquals(data.blocks, read.blocks);
+        assertArrayEquals(data.heightMap, read.heightMap);
+        assertArrayEquals(data.tintMap, read.tintMap);
+        assertNull(read.surface);
+        assertEquals(data.blockTextures.keySet(), read.blockTextures.keySet());
+        BlockTextureInfo texture = read.blockTextures.get(6);
+        assertEquals("Fleur_é.png", texture.up);
+        assertNull(texture.down);
+        assertFalse(texture.shouldTint);
+    }
+
+    @Test
+    void readsBackSurface() {
+        ChunkData data = sampleChunk();
+        data.blocks = null;
+        data.surface = sampleSurface();
+
+        ChunkData read = adapted.fromJson(adapted.toJson(data), ChunkData.class);
+
+        assertNull(read.blocks);
+        assertArrayEquals(data.surface.topBlocks, read.surface.topBlocks);
+        assertArrayEquals(data.surface.groundBlocks, read.surface.groundBlocks);
+        assertArrayEquals(data.surface.groundHeights, read.surface.groundHeights);
+        assertArrayEquals(data.surface.fluidIds, read.surface.fluidIds);
+        assertArrayEquals(data.surface.fluidDepths, read.surface.fluidDepths);
+    }
+
+    private static ChunkData sampleChunk() {
+        Random random = new Random(42);
+        ChunkData data = new ChunkData();
+        data.world = "Dungeon_1";
+        data.chunkX = -12;
+        data.chunkZ = 345;
+        data.timestamp = 1_700_000_000_123L;
+        data.hasEnvironmentData = true;
+        data.heightMap = new short[SIZE][SIZE];
+        data.tintMap = new int[SIZE][SIZE];
+        data.blocks = new int[SIZE][ChunkBinaryCodec.CHUNK_HEIGHT][SIZE];
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                int height = 40 + random.nextInt(100);
+                data.heightMap[x][z] = (short) height;
+                data.tintMap[x][z] = random.nextInt();
+                for (int y = 0; y < height; y++) {
+                    data.blocks[x][y][z] = y == height - 1 ? 3 : 1 + random.nextInt(6);
+                }
+            }
+        }
+        data.blockTextures = new LinkedHashMap<>();
+        data.blockTextures.put(1, new BlockTextureInfo("Stone.png", "Stone.png", "Stone.png", "Stone.png",
+                "Stone.png", "Stone.png", false));
+        data.blockTextures.put(3, new BlockTextureInfo("Grass_Top.png", "Dirt.png", "Grass_Side.png",
+                "Grass_Side.png", "Grass_Side.png", "Grass_Side.png", true));
+        data.blockTextures.put(6, new BlockTextureInfo("Fleur_é.png", null, null, null, null, null, false));
+        return data;
+    }
+
+    private static SurfaceData sampleSurface() {
+        int columns = SIZE * SIZE;
+        SurfaceData surface = new SurfaceData();
+        surface.topBlocks = new int[columns];
+        surface.groundBlocks = new int[columns];
+        surface.groundHeights = new short[columns];
+        surface.fluidIds = new int[columns];
+        surface.fluidDepths = new byte[columns];
+        Random random = new Random(7);
+        for (int i = 0; i < columns; i++) {
+            surface.topBlocks[i] = random.nextInt(40);
+            surface.groundBlocks[i] = random.nextInt(12);
+            surface.groundHeights[i] = (short) (random.nextInt(321) - 1);
+            surface.fluidIds[i] = i % 5 == 0 ? 3 : 0;
+            surface.fluidDepths[i] = (byte) (i % 5 == 0 ? random.nextInt(128) : 0);
+        }
+        return surface;
+    }
+}
@@ -0,0 +1,144 @@
+package com.suiramdev.worldmap.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.suiramdev.worldmap.config.BackfillOrder;
+import java.util.Arrays;
+import java.util.BitSet;
+import org.junit.jupiter.api.Test;
+
+class ChunkOrderingTest {
+    @Test
+    void spiralOrderGrowsRingByRingAroundTheCenter() {
+        int centerX = 10;
+        int centerZ = -5;
+        long[] chunkIndexes = grid(centerX - 6, centerZ - 4, 13, 9);
+
+        ChunkOrdering.sort(chunkIndexes, chunkIndexes.length, BackfillOrder.SPIRAL, centerX, centerZ);
+
+        assertEquals(ChunkUtil.indexChunk(centerX, centerZ), chunkIndexes[0]);
+        int previousRing = 0;
+        for (long chunkIndex : chunkIndexes) {
+            int ring = Math.max(Math.abs(ChunkUtil.xOfChunkIndex(chunkIndex) - centerX),
+                    Math.abs(ChunkUtil.zOfChunkIndex(chunkIndex) - centerZ));
+            assertTrue(ring >= previousRing, "ring " + ring + " after ring " + previousRing);
+            previousRing = ring;
+        }
+    }
+
+    @Test
+    void spiralWalksEachRingWithoutGapsOrRepeats() {
+        for (int ring = 1; ring <= 4; ring++) {
+            BitSet positions = new BitSet();
+            int cells = 0;
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != ring) {
+                        continue;
+                    }
+                    long key = ChunkOrdering.spiralKey(dx, dz);
+                    assertEquals(ring, key >>> 32);
+                    positions.set((int) key);
+                    cells++;
+                }
+            }
+            // Every side and corner case maps to its own slot in 1 .. 8 * ring
+            assertEquals(8 * ring, cells);
+            assertEquals(8 * ring, positions.cardinality());
+            assertEquals(1, positions.nextSetBit(0));
+            assertEquals(8 * ring + 1, positions.length());
+        }
+        assertEquals(0, ChunkOrdering.spiralKey(0, 0));
+    }
+
+    @Test
+    void consecutiveSpiralPositionsAreNeighbours() {
+        int ring = 3;
+        int[][] cells = new int[8 * ring][];
+        for (int dx = -ring; dx <= ring; dx++) {
+            for (int dz = -ring; dz <= ring; dz++) {
+                if (Math.max(Math.abs(dx), Math.abs(dz)) == ring) {
+                    cells[(int) ChunkOrdering.spiralKey(dx, dz) - 1] = new int[] { dx, dz };
+                }
+            }
+        }
+        for (int i = 1; i < cells.length; i++) {
+            assertEquals(1, Math.abs(cells[i][0] - cells[i - 1][0]) + Math.abs(cells[i][1] - cells[i - 1][1]),
+                    "step " + i);
+        }
+    }
+
+    @Test
+    void consecutiveHilbertKeysAreAdjacentChunks() {
+        // Blocks aligned to the curve's 8x8 cells, on both sides of the origin
+        int[][] origins = { { 0, 0 }, { -8, -8 }, { -8, 0 }, { 16, -24 } };
+        for (int[] origin : origins) {
+            long[] chunkIndexes = grid(origin[0], origin[1], 8, 8);
+
+            ChunkOrdering.sort(chunkIndexes, chunkIndexes.length, BackfillOrder.HILBERT, 0, 0);
+
+            for (int i = 1; i < chunkIndexes.length; i++) {
+                int previousX = ChunkUtil.xOfChunkIndex(chunkIndexes[i - 1]);
+                int previousZ = ChunkUtil.zOfChunkIndex(chunkIndexes[i - 1]);
+                int x = ChunkUtil.xOfChunkIndex(chunkIndexes[i]);
+                int z = ChunkUtil.zOfChunkIndex(chunkIndexes[i]);
+                assertEquals(1, Math.abs(x - previousX) + Math.abs(z - previousZ),
+                        "(" + previousX + "," + previousZ + ") -> (" + x + "," + z + ")");
+                assertEquals(ChunkOrdering.hilbertKey(previousX, previousZ) + 1, ChunkOrdering.hilbertKey(x, z));
+            }
+        }
+    }
+
+    @Test
+    void curveKeysSortNegativeCoordinatesBeforePositiveOnes() {
+        // The sign flip makes signed comparison follow the unsigned curve distance
+        assertEquals(Long.MIN_VALUE, ChunkOrdering.mortonKey(Integer.MIN_VALUE, Integer.MIN_VALUE));
+        assertEquals(Long.MAX_VALUE, ChunkOrdering.mortonKey(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertTrue(ChunkOrdering.mortonKey(-1, -1) < ChunkOrdering.mortonKey(0, 0));
+        assertTrue(ChunkOrdering.mortonKey(0, 0) < ChunkOrdering.mortonKey(1, 0));
+        assertTrue(ChunkOrdering.mortonKey(1, 0) < ChunkOrdering.mortonKey(0, 1));
+        assertTrue(ChunkOrdering.mortonKey(0, 1) < ChunkOrdering.mortonKey(1, 1));
+
+        assertEquals(Long.MIN_VALUE, ChunkOrdering.hilbertKey(Integer.MIN_VALUE, Integer.MIN_VALUE));
+        long[] keys = new long[16 * 16];
+        int i = 0;
+        for (int x = -8; x < 8; x++) {
+            for (int z = -8; z < 8; z++) {
+                keys[i++] = ChunkOrdering.hilbertKey(x, z);
+            }
+        }
+        assertEquals(keys.length, Arrays.stream(keys).distinct().count());
+    }
+
+    @Test
+    void sortsOnlyTheLeadingEntries() {
+        long[] chunkIndexes = {
+                ChunkUtil.indexChunk(3, 0),
+                ChunkUtil.indexChunk(1, 0),
+                ChunkUtil.indexChunk(0, 0),
+                ChunkUtil.indexChunk(9, 9),
+        };
+        long untouched = chunkIndexes[3];
+
+        ChunkOrdering.sort(chunkIndexes, 3, BackfillOrder.SPIRAL, 0, 0);
+
+        assertEquals(ChunkUtil.indexChunk(0, 0), chunkIndexes[0]);
+        assertEquals(ChunkUtil.indexChunk(1, 0), chunkIndexes[1]);
+        assertEquals(ChunkUtil.indexChunk(3, 0), chunkIndexes[2]);
+        assertEquals(untouched, chunkIndexes[3]);
+    }
+
+    private static long[] grid(int minX, int minZ, int width, int depth) {
+        long[] chunkIndexes = new long[width * depth];
+        int i = 0;
+        // Reverse order so the sort has work to do
+        for (int x = minX + width - 1; x >= minX; x--) {
+            for (int z = minZ + depth - 1; z >= minZ; z--) {
+                chunkIndexes[i++] = ChunkUtil.indexChunk(x, z);
+            }
+        }
+        return chunkIndexes;
+    }
+}
@@ -0,0 +1,114 @@
+package com.suiramdev.worldmap.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.suiramdev.worldmap.config.CompressionMode;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import org.junit.jupiter.api.Test;
+
+class PayloadCompressorTest {
+    private static final byte[] DICTIONARY = "{\"blockId\":\"Rock_Stone\",\"top\":\"BlockTextures/Rock_Stone.png\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void gzipBodiesInflateWithGZIPInputStream() throws IOException {
+        PayloadCompressor compressor = new PayloadCompressor(CompressionMode.GZIP, 6, 0, null);
+        // Larger than the deflate buffer, and twice to go through a pooled deflater
+        byte[] body = body(100_000);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            ByteSink output = new ByteSink();
+            assertEquals("gzip", compressor.compress(sink(body), output));
+            assertTrue(output.size() < body.length);
+
+            // GZIPInputStream checks the header, CRC-32 and ISIZE trailer
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+                assertArrayEquals(body, in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void deflateBodiesNeedTheDictionaryTheyAnnounce() throws DataFormatException {
+        PayloadCompressor compressor = new PayloadCompressor(CompressionMode.DEFLATE, 6, 0, DICTIONARY);
+        byte[] body = body(5_000);
+        ByteSink output = new ByteSink();
+        assertEquals("deflate", compressor.compress(sink(body), output));
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(output.toByteArray());
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        boolean dictionarySet = false;
+        while (!inflater.finished()) {
+            int read = inflater.inflate(buffer);
+            if (read == 0 && inflater.needsDictionary()) {
+                // The worker picks the dictionary by the ID sent in the header
+                assertEquals(compressor.getDictionaryId(), String.format("%08x", inflater.getAdler()));
+                inflater.setDictionary(DICTIONARY);
+                dictionarySet = true;
+            }
+            inflated.write(buffer, 0, read);
+        }
+        inflater.end();
+
+        assertTrue(dictionarySet);
+        assertArrayEquals(body, inflated.toByteArray());
+    }
+
+    @Test
+    void deflateWithoutDictionaryIsPlainZlib() throws DataFormatException {
+        PayloadCompressor compressor = new PayloadCompressor(CompressionMode.DEFLATE, 1, 0, null);
+        assertNull(compressor.getDictionaryId());
+        byte[] body = body(5_000);
+        ByteSink output = new ByteSink();
+        assertEquals("deflate", compressor.compress(sink(body), output));
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(output.toByteArray());
+        byte[] inflated = new byte[body.length];
+        assertEquals(body.length, inflater.inflate(inflated));
+        assertFalse(inflater.needsDictionary());
+        assertTrue(inflater.finished());
+        inflater.end();
+        assertArrayEquals(body, inflated);
+    }
+
+    @Test
+    void bodiesBelowMinBytesAreSentAsIs() {
+        PayloadCompressor compressor = new PayloadCompressor(CompressionMode.GZIP, 6, 1024, null);
+        ByteSink output = new ByteSink();
+        assertNull(compressor.compress(sink(body(1023)), output));
+        assertEquals(0, output.size());
+
+        assertEquals("gzip", compressor.compress(sink(body(1024)), output));
+
+        ByteSink untouched = new ByteSink();
+        assertNull(new PayloadCompressor(CompressionMode.NONE, 6, 0, DICTIONARY).compress(sink(body(4096)), untouched));
+        assertEquals(0, untouched.size());
+    }
+
+    private static byte[] body(int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < length; i++) {
+            text.append("{\"blockId\":\"Rock_Stone\",\"top\":\"BlockTextures/Rock_Stone.png\",\"y\":").append(i * 7 % 320)
+                    .append('}');
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteSink sink(byte[] body) {
+        ByteSink sink = new ByteSink();
+        sink.writeBytes(body, 0, body.length);
+        return sink;
+    }
+}
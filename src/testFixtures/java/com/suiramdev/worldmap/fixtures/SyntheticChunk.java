@@ -0,0 +1,144 @@
+package com.suiramdev.worldmap.fixtures;
+
+import com.suiramdev.worldmap.services.ChunkSource;
+
+/**
+ * Deterministic in-memory chunk with the block layout of a terrain profile,
+ * shared by the tests and the benchmarks. Blocks are generated up front so
+ * benchmarks measure extraction, not generation.
+ */
+public class SyntheticChunk implements ChunkSource {
+    // Block IDs, chosen to resemble a small real palette
+    private static final int AIR = 0;
+    private static final int STONE = 1;
+    private static final int DIRT = 2;
+    private static final int GRASS = 3;
+    private static final int SAND = 4;
+    private static final int WATER = 5;
+    private static final int SNOW = 6;
+    private static final int ORE = 7;
+    private static final int LEAVES = 8;
+
+    // Fluid IDs
+    private static final int WATER_FLUID = 1;
+    private static final int SEA_LEVEL = 70;
+
+    public enum TerrainProfile {
+        /** Plains at a constant height, three block types */
+        FLAT,
+        /** Ridges from 60 to 280 blocks with snow caps, scattered ore, trees and lakes */
+        MOUNTAINOUS,
+        /** Sky islands: most columns empty, a few short ones */
+        MOSTLY_AIR
+    }
+
+    private final short[] heights = new short[32 * 32];
+    private final int[] tints = new int[32 * 32];
+    private final int[] blocks = new int[32 * 320 * 32];
+    private final byte[] fluids = new byte[32 * 320 * 32];
+
+    public SyntheticChunk(TerrainProfile profile, int chunkX, int chunkZ) {
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                int worldX = chunkX * 32 + x;
+                int worldZ = chunkZ * 32 + z;
+                int height = height(profile, worldX, worldZ);
+                heights[x * 32 + z] = (short) height;
+                tints[x * 32 + z] = 0xFF000000 | ((worldX * 7) & 0xFF) << 16 | 0xA000 | ((worldZ * 3) & 0xFF);
+                for (int y = 0; y < height; y++) {
+                    blocks[index(x, y, z)] = block(profile, worldX, y, worldZ, height);
+                }
+                if (profile == TerrainProfile.MOUNTAINOUS) {
+                    // Lakes in the valleys, a leaf canopy every few columns on the slopes
+                    for (int y = height; y < SEA_LEVEL; y++) {
+                        fluids[index(x, y, z)] = WATER_FLUID;
+                    }
+                    if (height >= SEA_LEVEL && height < 200 && (mix(worldX, worldZ) & 15) == 0) {
+                        for (int y = height + 3; y < Math.min(320, height + 6); y++) {
+                            blocks[index(x, y, z)] = LEAVES;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int height(TerrainProfile profile, int worldX, int worldZ) {
+        switch (profile) {
+            case FLAT:
+                return 64;
+            case MOUNTAINOUS:
+                double ridge = Math.sin(worldX * 0.05) * Math.cos(worldZ * 0.04) + Math.sin((worldX + worldZ) * 0.11) * 0.3;
+                return 60 + (int) ((ridge + 1.3) / 2.6 * 220);
+            default:
+                // Roughly one column in eight has an island
+                int hash = mix(worldX, worldZ);
+                return (hash & 7) == 0 ? 120 + (hash >>> 8 & 7) : 0;
+        }
+    }
+
+    private static int block(TerrainProfile profile, int worldX, int y, int worldZ, int height) {
+        int depth = height - 1 - y;
+        switch (profile) {
+            case FLAT:
+                return depth == 0 ? GRASS : depth < 4 ? DIRT : STONE;
+            case MOUNTAINOUS:
+                if (depth == 0) {
+                    return height > 220 ? SNOW : height < 70 ? SAND : GRASS;
+                }
+                if (y < 62 && height < 70) {
+                    return WATER;
+                }
+                if (depth < 4) {
+                    return DIRT;
+                }
+                return (mix(worldX ^ y, worldZ) & 63) == 0 ? ORE : STONE;
+            default:
+                return y < 120 ? AIR : depth == 0 ? GRASS : DIRT;
+        }
+    }
+
+    /**
+     * Whether a synthetic block hides what is below it, standing in for the
+     * block appearance cache's opacity lookup
+     */
+    public static boolean isOpaque(int blockId) {
+        return blockId != AIR && blockId != LEAVES;
+    }
+
+    private static int mix(int x, int z) {
+        int hash = x * 0x9E3779B1 + z * 0x85EBCA6B;
+        hash ^= hash >>> 15;
+        hash *= 0x2C1B3C6D;
+        return hash ^ hash >>> 12;
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y * 32 + z) * 32 + x;
+    }
+
+    @Override
+    public short getHeight(int x, int z) {
+        return heights[x * 32 + z];
+    }
+
+    @Override
+    public int getTint(int x, int z) {
+        return tints[x * 32 + z];
+    }
+
+    @Override
+    public int getBlock(int x, int y, int z) {
+        return blocks[index(x, y, z)];
+    }
+
+    @Override
+    public int getFluidId(int x, int y, int z) {
+        return fluids[index(x, y, z)];
+    }
+
+    @Override
+    public boolean hasEnvironmentData() {
+        return true;
+    }
+}